@@ -55,6 +55,9 @@ import {
     NAMING_CONTAINER_ID,
     CTX_PARAM_PPS,
     MYFACES_OPTION_PPS,
+    MYFACES_CONFIG_PARTIAL_RESPONSE_FORMAT,
+    P_PARTIAL_RESPONSE_FORMAT,
+    PARTIAL_RESPONSE_FORMAT_JSON,
     $nsp,
     CTX_PARAM_UPLOAD_ON_PROGRESS,
     CTX_PARAM_UPLOAD_PREINIT,
@@ -363,6 +366,10 @@ export namespace Implementation {
         internalCtx.assign(CTX_PARAM_SRC_CTL_ID).value = elementId;
         // reintroduction of PPS as per myfaces 2.3 (myfaces.pps = true, only the executes are submitted)
         internalCtx.assign(CTX_PARAM_PPS).value = extractMyFacesParams(options.value)?.[MYFACES_OPTION_PPS] ?? false;
+        // opt-in json encoding of the partial response (myfaces.config.partialResponseFormat = "json")
+        const responseFormat = ExtLang.getLocalOrGlobalConfig(options, MYFACES_CONFIG_PARTIAL_RESPONSE_FORMAT, null);
+        requestCtx.assignIf(responseFormat === PARTIAL_RESPONSE_FORMAT_JSON, CTX_PARAM_REQ_PASS_THR, P_PARTIAL_RESPONSE_FORMAT)
+            .value = PARTIAL_RESPONSE_FORMAT_JSON;
 
 
         assignClientWindowId(form, requestCtx);
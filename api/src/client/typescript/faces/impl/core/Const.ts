@@ -152,6 +152,15 @@ export const ERR_NO_PARTIAL_RESPONSE = "Partial response not set";
 
 export const MYFACES_OPTION_PPS = "pps";
 
+/*
+ * opt-in json encoding of the partial response, the server only honors the request parameter
+ * if org.apache.myfaces.JSON_PARTIAL_RESPONSE is enabled, and otherwise answers with xml
+ */
+export const MYFACES_CONFIG_PARTIAL_RESPONSE_FORMAT = "partialResponseFormat";
+export const P_PARTIAL_RESPONSE_FORMAT = "myfaces.partialResponseFormat";
+export const PARTIAL_RESPONSE_FORMAT_JSON = "json";
+export const CONTENT_TYPE_JSON = "application/json";
+
 export const ATTR_URL = "url";
 export const ATTR_NAME = "name";
 export const ATTR_VALUE = "value";
@@ -15,6 +15,7 @@
  */
 import {Config, DQ} from "mona-dish";
 import {BEGIN, CTX_PARAM_REQ_PASS_THR, EVENT, P_AJAX_SOURCE, SOURCE} from "../core/Const";
+import {resolveResponseDocument} from "./JsonResponseDecoder";
 
 export class EventData {
     type!: string;
@@ -52,7 +53,8 @@ export class EventData {
         if (name !== BEGIN) {
             eventData.responseCode = request?.status;
             eventData.responseText = request?.responseText;
-            eventData.responseXML = request?.responseXML;
+            // the json encoded partial response is handed over as its decoded document
+            eventData.responseXML = resolveResponseDocument(request);
         }
         return eventData;
     }
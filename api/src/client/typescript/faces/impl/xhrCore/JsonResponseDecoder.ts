@@ -0,0 +1,116 @@
+/*! Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import {CONTENT_TYPE, CONTENT_TYPE_JSON} from "../core/Const";
+
+/**
+ * Decoder for the opt-in json encoding of the partial response.
+ *
+ * The server writes the partial response document in the JsonML array form:
+ * every element is an array holding the tag name, an optional attributes object
+ * and the children, text and cdata blocks are plain strings.
+ *
+ * ["partial-response", {"id": "viewRoot"}, ["changes", ["update", {"id": "a"}, "<b>markup</b>"]]]
+ *
+ * The decoder rebuilds the equivalent xml document node by node, with the strings
+ * as cdata sections, so that the regular response processing can run unchanged,
+ * but without handing the markup of the updates to the xml parser.
+ */
+
+/**
+ * decoded documents per request, the error checks and the response processing
+ * both resolve the document, but we only want to decode it once
+ */
+const decodedDocuments = new WeakMap<XMLHttpRequest, Document | null>();
+
+/**
+ * @param request the xhr request
+ * @return true if the server answered with the json encoding of the partial response
+ */
+export function isJsonResponse(request: XMLHttpRequest): boolean {
+    return (request?.getResponseHeader?.(CONTENT_TYPE) ?? "").indexOf(CONTENT_TYPE_JSON) != -1;
+}
+
+/**
+ * resolves the response document of the request, either the xml document
+ * of the xhr object or the one decoded from the json response
+ *
+ * @param request the xhr request
+ * @return the response document or null if none is given or the response cannot be decoded
+ */
+export function resolveResponseDocument(request: XMLHttpRequest): Document | null {
+    if (!isJsonResponse(request)) {
+        return request?.responseXML ?? null;
+    }
+    if (!decodedDocuments.has(request)) {
+        decodedDocuments.set(request, decodeJsonResponse(request.responseText));
+    }
+    return decodedDocuments.get(request) ?? null;
+}
+
+/**
+ * decodes a json encoded partial response into its xml document
+ *
+ * @param responseText the json text
+ * @return the document or null if the text is not a valid json encoded partial response
+ */
+export function decodeJsonResponse(responseText: string): Document | null {
+    if (!responseText?.trim()) {
+        return null;
+    }
+    let root: any;
+    try {
+        root = JSON.parse(responseText);
+    } catch (e) {
+        return null;
+    }
+    if (!Array.isArray(root) || typeof root[0] !== "string") {
+        return null;
+    }
+    const doc = document.implementation.createDocument(null, null, null);
+    doc.appendChild(createElement(doc, root));
+    return doc;
+}
+
+function createElement(doc: Document, node: Array<any>): Element {
+    const element = doc.createElement(node[0]);
+    for (let pos = 1; pos < node.length; pos++) {
+        const child = node[pos];
+        if (Array.isArray(child)) {
+            element.appendChild(createElement(doc, child));
+        } else if (typeof child === "string") {
+            appendCDATA(doc, element, child);
+        } else if (pos == 1 && child) {
+            Object.keys(child).forEach(name => element.setAttribute(name, child[name]));
+        }
+    }
+    return element;
+}
+
+/**
+ * a cdata section cannot contain its own end sequence, we split the data
+ * in that case, the readers concatenate the sections of an element
+ */
+function appendCDATA(doc: Document, element: Element, data: string) {
+    let start = 0;
+    let end = data.indexOf("]]>");
+    while (end != -1) {
+        element.appendChild(doc.createCDATASection(data.substring(start, end + 2)));
+        start = end + 2;
+        end = data.indexOf("]]>", start);
+    }
+    element.appendChild(doc.createCDATASection(data.substring(start)));
+}
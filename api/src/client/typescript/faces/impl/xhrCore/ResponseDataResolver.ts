@@ -23,7 +23,6 @@ import {
     CTX_PARAM_MF_INTERNAL,
     CTX_PARAM_SRC_CTL_ID,
     CTX_PARAM_SRC_FRM_ID,
-    SEL_RESPONSE_XML,
     SOURCE,
     HTML_TAG_FORM,
     UPDATE_ELEMS,
@@ -31,6 +30,7 @@ import {
     DEFERRED_HEAD_INSERTS
 } from "../core/Const";
 import {ExtConfig} from "../util/ExtDomQuery";
+import {resolveResponseDocument} from "./JsonResponseDecoder";
 
 /**
  * Resolver functions for various aspects of the response data
@@ -44,12 +44,13 @@ import {ExtConfig} from "../util/ExtDomQuery";
  * as XML Query object
  *
  * @param request the request hosting the responseXML
+ * or the json encoded response
  *
  * Throws an error in case of non-existent or wrong xml data
  *
  */
 export function resolveResponseXML(request: Config): XMLQuery {
-    let ret = new XMLQuery($nsp(request.getIf(SEL_RESPONSE_XML).value));
+    let ret = new XMLQuery($nsp(resolveResponseDocument(request.value)));
     Assertions.assertValidXMLResponse(ret);
 
     return ret;
@@ -21,6 +21,7 @@ import {IResponseProcessor} from "./IResponseProcessor";
 import {ErrorData} from "./ErrorData";
 import {StateHolder} from "../core/ImplTypes";
 import {EventData} from "./EventData";
+import {resolveResponseDocument} from "./JsonResponseDecoder";
 
 import {
     $faces,
@@ -179,10 +180,11 @@ export class ResponseProcessor implements IResponseProcessor {
         mergedErrorData.assign(ERROR_NAME).value = node.querySelectorAll(ERROR_NAME).textContent(EMPTY_STR);
         mergedErrorData.assign(ERROR_MESSAGE).value = node.querySelectorAll(ERROR_MESSAGE).cDATAAsString;
 
-        const hasResponseXML = this.internalContext.get(RESPONSE_XML).isPresent();
+        const responseXML = resolveResponseDocument(this.request.value);
 
-        //we now store the response xml also in the error data for further details
-        mergedErrorData.assignIf(hasResponseXML, RESPONSE_XML).value = this.internalContext.getIf(RESPONSE_XML).value.get(0).value;
+        //we now store the response xml also in the error data for further details,
+        //for a json encoded response this is the decoded document
+        mergedErrorData.assignIf(!!responseXML, RESPONSE_XML).value = responseXML;
 
         // error post-processing and enrichment (standard messages from keys)
         const errorData = ErrorData.fromServerError(mergedErrorData);
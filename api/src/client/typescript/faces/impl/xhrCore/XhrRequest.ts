@@ -20,6 +20,7 @@ import {Implementation} from "../AjaxImpl";
 
 import {XhrFormData} from "./XhrFormData";
 import {ErrorData} from "./ErrorData";
+import {resolveResponseDocument} from "./JsonResponseDecoder";
 import {EventData} from "./EventData";
 import {ExtLang} from "../util/Lang";
 import {
@@ -328,7 +329,7 @@ export class XhrRequest extends AsyncRunnable<XMLHttpRequest> {
     }
 
     private processRequestErrors(resolve: Consumer<any>): boolean {
-        const responseXML = new XMLQuery(this.xhrObject?.responseXML as any);
+        const responseXML = new XMLQuery(resolveResponseDocument(this.xhrObject) as any);
         const responseText = this.xhrObject?.responseText ?? "";
         const responseCode = this.xhrObject?.status ?? -1;
 
@@ -361,7 +362,7 @@ export class XhrRequest extends AsyncRunnable<XMLHttpRequest> {
             this.internalContext.getIf(CTX_PARAM_SRC_CTL_ID).value,
             errorName, errorMessage,
             this.xhrObject?.responseText ?? "",
-            this.xhrObject?.responseXML ?? null,
+            resolveResponseDocument(this.xhrObject),
             this.xhrObject.status,
             responseStatus
         );
@@ -375,7 +376,7 @@ export class XhrRequest extends AsyncRunnable<XMLHttpRequest> {
             this.internalContext.getIf(CTX_PARAM_SRC_CTL_ID).value,
             HTTP_ERROR, errorMessage,
             this.xhrObject?.responseText ?? "",
-            this.xhrObject?.responseXML ?? null,
+            resolveResponseDocument(this.xhrObject),
             this.xhrObject?.status ?? -1,
             HTTP_ERROR
         )
@@ -0,0 +1,82 @@
+/*! Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import {describe, it} from "mocha";
+import {expect} from "chai";
+import {XMLQuery} from "mona-dish";
+import {StandardInits} from "../frameworkBase/_ext/shared/StandardInits";
+import {decodeJsonResponse, isJsonResponse, resolveResponseDocument} from "../../impl/xhrCore/JsonResponseDecoder";
+
+describe('json encoded partial response decoding', function () {
+
+    beforeEach(function () {
+        return StandardInits.defaultHtml(false).then((close) => {
+            this.closeIt = close;
+        });
+    });
+
+    afterEach(function () {
+        this.closeIt();
+    });
+
+    function fakeXhr(contentType: string, responseText: string, responseXML: Document = null): XMLHttpRequest {
+        return <any>{
+            responseText,
+            responseXML,
+            getResponseHeader: (name: string) => name == "Content-Type" ? contentType : null
+        };
+    }
+
+    it('decodes the elements, attributes and cdata blocks', function () {
+        const doc = decodeJsonResponse(JSON.stringify(["partial-response", {"id": "viewRoot"},
+            ["changes", ["update", {"id": "out1"}, "<span id=\"out1\">2</span>"],
+                ["update", {"id": "jakarta.faces.ViewState"}, "j_id1:j_id3"]]]));
+
+        const response = new XMLQuery(doc);
+        expect(response.querySelectorAll("partial-response").attr("id").value).to.eq("viewRoot");
+        const updates = response.querySelectorAll("changes > update");
+        expect(updates.length).to.eq(2);
+        expect(updates.get(0).attr("id").value).to.eq("out1");
+        expect(updates.get(0).cDATAAsString).to.eq("<span id=\"out1\">2</span>");
+        expect(updates.get(1).cDATAAsString).to.eq("j_id1:j_id3");
+    });
+
+    it('splits content holding the cdata end sequence', function () {
+        const doc = decodeJsonResponse(JSON.stringify(["partial-response", ["changes",
+            ["eval", "var a = [[1]];a[0][0]>0 && console.log(\"]]>\");"]]]));
+
+        const evalElem = new XMLQuery(doc).querySelectorAll("eval");
+        expect(evalElem.cDATAAsString).to.eq("var a = [[1]];a[0][0]>0 && console.log(\"]]>\");");
+    });
+
+    it('rejects invalid json responses', function () {
+        expect(decodeJsonResponse("")).to.be.null;
+        expect(decodeJsonResponse("<partial-response/>")).to.be.null;
+        expect(decodeJsonResponse("{\"id\": \"a\"}")).to.be.null;
+    });
+
+    it('resolves the document by the response content type', function () {
+        const xmlDoc = StandardInits.basicXML();
+        const xmlXhr = fakeXhr("text/xml;charset=UTF-8", StandardInits.STD_XML, xmlDoc);
+        expect(isJsonResponse(xmlXhr)).to.be.false;
+        expect(resolveResponseDocument(xmlXhr)).to.eq(xmlDoc);
+
+        const jsonXhr = fakeXhr("application/json;charset=UTF-8", "[\"partial-response\",[\"changes\"]]");
+        expect(isJsonResponse(jsonXhr)).to.be.true;
+        const doc = resolveResponseDocument(jsonXhr);
+        expect(doc.documentElement.tagName).to.eq("partial-response");
+        expect(resolveResponseDocument(jsonXhr), "decoded only once per request").to.eq(doc);
+    });
+});
@@ -372,6 +372,37 @@ describe('Tests after core when it hits response', function () {
 
     });
 
+    it('must hand the decoded document of a json response to the event listeners', function (done) {
+
+        let send = sinon.spy(XMLHttpRequest.prototype, "send");
+        let completeEvent: any = null;
+        try {
+            let element = DomQuery.byId("input_2").getAsElem(0).value;
+            faces.ajax.request(element, null, {
+                execute: "input_1",
+                render: "@form",
+                onevent: (evt: any) => {
+                    if (evt.status == COMPLETE) {
+                        completeEvent = evt;
+                    }
+                }
+            });
+
+            let xhrReq = this.requests[0];
+            xhrReq.respond(200, {'Content-Type': 'application/json;charset=UTF-8'},
+                JSON.stringify(["partial-response", {"id": "viewRoot"}, ["changes"]]));
+
+            expect(completeEvent).not.to.be.null;
+            expect(completeEvent.responseXML).not.to.be.null;
+            expect(completeEvent.responseXML.documentElement.tagName).to.eq("partial-response");
+            done();
+        } catch (e) {
+            done(e);
+        } finally {
+            send.restore();
+        }
+    });
+
     it('it must have called request and the pass through values must be properly transferred ' +
         'into the context, via the old non spec conform behavior', function (done) {
         let send = sinon.spy(XMLHttpRequest.prototype, "send");
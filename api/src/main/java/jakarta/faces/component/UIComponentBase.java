@@ -220,6 +220,12 @@ public void setParent(UIComponent parent)
                 {
                     _updateInView(this, false);
                 }
+
+                _ClientIdIndex index = _getClientIdIndex(facesContext);
+                if (index != null)
+                {
+                    index.removed(this);
+                }
             }
             _parent = null;
         }
@@ -243,11 +249,23 @@ public void setParent(UIComponent parent)
                 {
                     _updateInView(this, true);
                 }
+
+                _ClientIdIndex index = _getClientIdIndex(facesContext);
+                if (index != null)
+                {
+                    index.added(this);
+                }
             }
         }
     }
 
     
+    private static _ClientIdIndex _getClientIdIndex(FacesContext facesContext)
+    {
+        UIViewRoot viewRoot = facesContext.getViewRoot();
+        return viewRoot == null ? null : viewRoot._clientIdIndex;
+    }
+
     /**
      * Publish PostAddToViewEvent to the component and all facets and children.
      * 
@@ -701,7 +719,8 @@ public UIComponent findComponent(String expr)
             return null;
         }
 
-        char separatorChar = getFacesContext().getNamingContainerSeparatorChar();
+        FacesContext facesContext = getFacesContext();
+        char separatorChar = facesContext.getNamingContainerSeparatorChar();
         UIComponent findBase;
         if (expr.charAt(0) == separatorChar)
         {
@@ -720,6 +739,12 @@ public UIComponent findComponent(String expr)
             }
         }
 
+        UIComponent indexed = _ClientIdIndex.findComponent(facesContext, findBase, expr, separatorChar);
+        if (indexed != null)
+        {
+            return indexed;
+        }
+
         int separator = expr.indexOf(separatorChar);
         if (separator == -1)
         {
@@ -31,6 +31,7 @@
 
 import jakarta.el.MethodExpression;
 import jakarta.el.ValueExpression;
+import jakarta.faces.FacesException;
 import jakarta.faces.FactoryFinder;
 import jakarta.faces.application.ProjectStage;
 import jakarta.faces.application.StateManager;
@@ -89,6 +90,13 @@ public class UIViewRoot extends UIComponentBase implements UniqueIdVendor
     public static final String VIEWROOT_PHASE_LISTENER_QUEUES_EXCEPTIONS_PARAM_NAME
             = "jakarta.faces.VIEWROOT_PHASE_LISTENER_QUEUES_EXCEPTIONS";
 
+    /**
+     * Index the components of a view by client id, so invokeOnComponent and findComponent locate a component
+     * without walking the tree. Pays off for large views that look up several components per request.
+     */
+    @JSFWebConfigParam(defaultValue="false", expectedValues="true, false", since="5.0", tags="performance")
+    private static final String CLIENT_ID_INDEX_ENABLED_PARAM_NAME = "org.apache.myfaces.CLIENT_ID_INDEX_ENABLED";
+
     private transient Logger logger = null;
 
     private static final PhaseProcessor APPLY_REQUEST_VALUES_PROCESSOR = new ApplyRequestValuesPhaseProcessor();
@@ -164,6 +172,8 @@ public class UIViewRoot extends UIComponentBase implements UniqueIdVendor
     private transient int _resetSaveStateMode = 0;
     private transient boolean _resourceDependencyUniqueId;
     private transient Map<String,Object> _attributesMap;
+    transient _ClientIdIndex _clientIdIndex;
+    private transient boolean _clientIdIndexChecked;
 
     private Doctype doctype;
 
@@ -919,6 +929,30 @@ public void processApplication(final FacesContext context)
         _process(context, PhaseId.INVOKE_APPLICATION, null);
     }
 
+    @Override
+    public boolean invokeOnComponent(FacesContext context, String clientId, ContextCallback callback)
+            throws FacesException
+    {
+        _ClientIdIndex index = context == null || clientId == null || callback == null
+                ? null
+                : _getClientIdIndex(context);
+        if (index == null)
+        {
+            return super.invokeOnComponent(context, clientId, callback);
+        }
+
+        UIComponent component = index.get(context, clientId);
+        if (component != null && index.invokeOnComponent(context, component, clientId, callback))
+        {
+            return true;
+        }
+        return super.invokeOnComponent(context, clientId, (facesContext, target) ->
+        {
+            index.found(target, clientId);
+            callback.invokeContextCallback(facesContext, target);
+        });
+    }
+
     @Override
     public void processDecodes(FacesContext context)
     {
@@ -2107,6 +2141,36 @@ private boolean shouldViewRootPhaseListenerQueuesExceptions(FacesContext context
         return alwaysPerformValidationWhenRequiredTrue;
     }
 
+    /**
+     * @return the index of the components of this view, or null if disabled
+     */
+    _ClientIdIndex _getClientIdIndex(FacesContext context)
+    {
+        if (!_clientIdIndexChecked)
+        {
+            _clientIdIndexChecked = true;
+            if (isClientIdIndexEnabled(context))
+            {
+                _clientIdIndex = new _ClientIdIndex(this);
+            }
+        }
+        return _clientIdIndex;
+    }
+
+    private boolean isClientIdIndexEnabled(FacesContext context)
+    {
+        ExternalContext ec = context.getExternalContext();
+        Boolean enabled = (Boolean) ec.getApplicationMap().get(CLIENT_ID_INDEX_ENABLED_PARAM_NAME);
+        if (enabled == null)
+        {
+            enabled = "true".equalsIgnoreCase(ec.getInitParameter(CLIENT_ID_INDEX_ENABLED_PARAM_NAME));
+
+            // cache the parsed value
+            ec.getApplicationMap().put(CLIENT_ID_INDEX_ENABLED_PARAM_NAME, enabled);
+        }
+        return enabled;
+    }
+
     /**
      * <p>
      * Return the doctype of this view.
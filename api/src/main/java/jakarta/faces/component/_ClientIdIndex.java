@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package jakarta.faces.component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.faces.context.FacesContext;
+
+/**
+ * Index from client id to component of a view, so invokeOnComponent and findComponent can locate a
+ * component without walking the tree.
+ *
+ * <p>The index is only a hint: every hit is checked against the current tree, a miss falls back to the
+ * walk. Components added to or removed from the view are tracked together with the PostAddToViewEvent and
+ * PreRemoveFromViewEvent. Descendants of components with their own invokeOnComponent (UIData, UIRepeat)
+ * are not indexed, as their client ids depend on the row.</p>
+ */
+class _ClientIdIndex
+{
+    /**
+     * Components whose invokeOnComponent just visits the facets and children can be skipped.
+     */
+    private static final ClassValue<Boolean> TRANSPARENT = new ClassValue<>()
+    {
+        @Override
+        protected Boolean computeValue(Class<?> type)
+        {
+            try
+            {
+                Class<?> declaringClass = type.getMethod("invokeOnComponent",
+                        FacesContext.class, String.class, ContextCallback.class).getDeclaringClass();
+                return declaringClass == UIComponent.class || declaringClass == UIComponentBase.class
+                        || declaringClass == UIForm.class || declaringClass == UIViewRoot.class;
+            }
+            catch (NoSuchMethodException e)
+            {
+                return false;
+            }
+        }
+    };
+
+    private final UIViewRoot _root;
+    private final Map<String, UIComponent> _components = new HashMap<>();
+    private final Map<UIComponent, String> _clientIds = new IdentityHashMap<>();
+
+    // subtrees added to the view since the last lookup
+    private List<UIComponent> _added;
+    private boolean _built;
+    private int _lookups;
+
+    _ClientIdIndex(UIViewRoot root)
+    {
+        _root = root;
+    }
+
+    UIComponent get(FacesContext context, String clientId)
+    {
+        if (!_built)
+        {
+            // a single lookup is not faster with the index, build it once the view has a second one
+            if (++_lookups < 2)
+            {
+                return _components.get(clientId);
+            }
+            build(context);
+        }
+        else if (_added != null)
+        {
+            List<UIComponent> added = _added;
+            _added = null;
+            for (int i = 0; i < added.size(); i++)
+            {
+                UIComponent component = added.get(i);
+                if (getAncestors(component) != null)
+                {
+                    index(context, component);
+                }
+            }
+        }
+        return _components.get(clientId);
+    }
+
+    private void build(FacesContext context)
+    {
+        _components.clear();
+        _clientIds.clear();
+        _added = null;
+        _built = true;
+        indexFacetsAndChildren(context, _root);
+    }
+
+    private void index(FacesContext context, UIComponent component)
+    {
+        String clientId = component.getClientId(context);
+        // the first one in tree order, like the walk
+        if (_components.putIfAbsent(clientId, component) == null)
+        {
+            _clientIds.put(component, clientId);
+        }
+        if (TRANSPARENT.get(component.getClass()))
+        {
+            indexFacetsAndChildren(context, component);
+        }
+    }
+
+    private void indexFacetsAndChildren(FacesContext context, UIComponent component)
+    {
+        if (component.getFacetCount() > 0)
+        {
+            for (UIComponent facet : component.getFacets().values())
+            {
+                index(context, facet);
+            }
+        }
+        int childCount = component.getChildCount();
+        if (childCount > 0)
+        {
+            List<UIComponent> children = component.getChildren();
+            for (int i = 0; i < childCount; i++)
+            {
+                index(context, children.get(i));
+            }
+        }
+    }
+
+    /**
+     * Called once the component and its descendants are added to the view.
+     */
+    void added(UIComponent component)
+    {
+        if (_built)
+        {
+            if (_added == null)
+            {
+                _added = new ArrayList<>();
+            }
+            _added.add(component);
+        }
+    }
+
+    /**
+     * Called before the component and its descendants are removed from the view.
+     */
+    void removed(UIComponent component)
+    {
+        if (_clientIds.isEmpty())
+        {
+            return;
+        }
+        remove(component);
+        if (component.getFacetCount() > 0)
+        {
+            for (UIComponent facet : component.getFacets().values())
+            {
+                removed(facet);
+            }
+        }
+        int childCount = component.getChildCount();
+        if (childCount > 0)
+        {
+            List<UIComponent> children = component.getChildren();
+            for (int i = 0; i < childCount; i++)
+            {
+                removed(children.get(i));
+            }
+        }
+    }
+
+    /**
+     * Remembers the component found by the walk.
+     */
+    void found(UIComponent component, String clientId)
+    {
+        if (component != _root && getAncestors(component) != null)
+        {
+            String previous = _clientIds.put(component, clientId);
+            if (previous != null)
+            {
+                _components.remove(previous, component);
+            }
+            _components.put(clientId, component);
+        }
+    }
+
+    private void remove(UIComponent component)
+    {
+        String clientId = _clientIds.remove(component);
+        if (clientId != null)
+        {
+            _components.remove(clientId, component);
+        }
+    }
+
+    /**
+     * @return the ancestors of the component starting with the view root, or null if the component is not
+     *         part of the view or not reachable without the walk of an iterating component
+     */
+    private List<UIComponent> getAncestors(UIComponent component)
+    {
+        List<UIComponent> ancestors = new ArrayList<>();
+        UIComponent parent = component.getParent();
+        while (parent != null)
+        {
+            if (!TRANSPARENT.get(parent.getClass()))
+            {
+                return null;
+            }
+            ancestors.add(parent);
+            if (parent == _root)
+            {
+                Collections.reverse(ancestors);
+                return ancestors;
+            }
+            parent = parent.getParent();
+        }
+        return null;
+    }
+
+    /**
+     * Invokes the callback on the indexed component, with its ancestors pushed to EL like the walk does.
+     *
+     * @return false if the component does not match anymore, the caller has to walk the tree then
+     */
+    boolean invokeOnComponent(FacesContext context, UIComponent component, String clientId,
+            ContextCallback callback)
+    {
+        List<UIComponent> ancestors = getAncestors(component);
+        if (ancestors == null || !clientId.equals(component.getClientId(context)))
+        {
+            remove(component);
+            return false;
+        }
+
+        int pushed = 0;
+        try
+        {
+            for (; pushed < ancestors.size(); pushed++)
+            {
+                UIComponent ancestor = ancestors.get(pushed);
+                ancestor.pushComponentToEL(context, ancestor);
+            }
+            return component.invokeOnComponent(context, clientId, callback);
+        }
+        finally
+        {
+            while (pushed > 0)
+            {
+                pushed--;
+                ancestors.get(pushed).popComponentFromEL(context);
+            }
+        }
+    }
+
+    /**
+     * Looks up the component UIComponent.findComponent would return for the expression relative to findBase,
+     * which is the closest NamingContainer or the view root.
+     *
+     * @return the component, or null if it has to be searched
+     */
+    static UIComponent findComponent(FacesContext context, UIComponent findBase, String expr, char separatorChar)
+    {
+        UIViewRoot root = context.getViewRoot();
+        _ClientIdIndex index = root == null ? null : root._getClientIdIndex(context);
+        if (index == null)
+        {
+            return null;
+        }
+
+        String clientId = findBase == root ? expr : findBase.getClientId(context) + separatorChar + expr;
+        UIComponent component = index.get(context, clientId);
+        return component != null && index.matches(component, findBase, expr, separatorChar) ? component : null;
+    }
+
+    /**
+     * Checks that the ids of the component and of its NamingContainer ancestors up to findBase are the
+     * segments of the expression, so the search would end at the component.
+     */
+    private boolean matches(UIComponent component, UIComponent findBase, String expr, char separatorChar)
+    {
+        UIComponent current = component;
+        int end = expr.length();
+        while (true)
+        {
+            int start = expr.lastIndexOf(separatorChar, end - 1) + 1;
+            String id = current.getId();
+            if (id == null || id.length() != end - start || !expr.startsWith(id, start))
+            {
+                return false;
+            }
+
+            UIComponent container = current.getParent();
+            while (container != null && container != findBase && !(container instanceof NamingContainer))
+            {
+                container = container.getParent();
+            }
+            if (start == 0)
+            {
+                if (container != findBase)
+                {
+                    return false;
+                }
+                break;
+            }
+            if (container == null || container == findBase)
+            {
+                return false;
+            }
+            current = container;
+            end = start - 1;
+        }
+
+        UIComponent parent = findBase;
+        while (parent != _root)
+        {
+            if (parent == null)
+            {
+                return false;
+            }
+            parent = parent.getParent();
+        }
+        return true;
+    }
+}
@@ -22,6 +22,7 @@
 import jakarta.enterprise.inject.spi.Bean;
 import jakarta.enterprise.inject.spi.BeanManager;
 import jakarta.faces.annotation.View;
+import jakarta.faces.application.ProjectStage;
 import jakarta.faces.application.Resource;
 import jakarta.faces.application.ResourceHandler;
 import jakarta.faces.application.ResourceVisitOption;
@@ -37,6 +38,8 @@
 import org.apache.myfaces.core.api.shared.lang.LocaleUtils;
 import org.apache.myfaces.core.api.shared.lang.SharedStringBuilder;
 import org.apache.myfaces.renderkit.html.util.ResourceUtils;
+import org.apache.myfaces.resource.BundleResource;
+import org.apache.myfaces.resource.CompressedResourceCache;
 import org.apache.myfaces.resource.ContractResource;
 import org.apache.myfaces.resource.ContractResourceLoader;
 import org.apache.myfaces.resource.ResourceCachedInfo;
@@ -45,14 +48,17 @@
 import org.apache.myfaces.resource.ResourceHandlerSupport;
 import org.apache.myfaces.resource.ResourceImpl;
 import org.apache.myfaces.resource.ResourceLoader;
+import org.apache.myfaces.resource.ResourceLoaderUtils;
 import org.apache.myfaces.resource.ResourceMeta;
 import org.apache.myfaces.resource.ResourceValidationUtils;
 import org.apache.myfaces.util.ExternalContextUtils;
 import org.apache.myfaces.util.WebConfigParamUtils;
 import org.apache.myfaces.util.lang.ClassUtils;
+import org.apache.myfaces.util.lang.ConcurrentLRUCache;
 import org.apache.myfaces.util.lang.SkipMatchIterator;
 import org.apache.myfaces.util.lang.StringUtils;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -114,6 +120,9 @@ public class ResourceHandlerImpl extends ResourceHandler
     private Set<String> _viewSuffixes = null;
     private Boolean cspEnabled = null;
     private SecureRandom secureRandom;
+    private volatile boolean _compressedResourceCacheInitialized = false;
+    private CompressedResourceCache _compressedResourceCache;
+    private volatile ConcurrentLRUCache<String, BundleResource> _bundleResourceCache;
 
     @Override
     public Resource createResource(String resourceName)
@@ -132,7 +141,7 @@ public Resource createResource(String resourceName, String libraryName, String c
     {
         Assert.notNull(resourceName, "resourceName");
         
-        Resource resource = null;
+        ResourceImpl resource = null;
         
         if (resourceName.length() == 0)
         {
@@ -205,10 +214,16 @@ libraryName, isAllowSlashesLibraryName()))
         
         if(resourceValue != null)
         {
-            resource = new ResourceImpl(resourceValue.getResourceMeta(), resourceValue.getResourceLoader(),
-                    getResourceHandlerSupport(), contentType, 
-                    resourceValue.getCachedInfo() != null ? resourceValue.getCachedInfo().getURL() : null, 
-                    resourceValue.getCachedInfo() != null ? resourceValue.getCachedInfo().getRequestPath() : null);
+            if (resourceValue.getCachedInfo() != null)
+            {
+                resource = new ResourceImpl(resourceValue.getResourceMeta(), resourceValue.getResourceLoader(),
+                        getResourceHandlerSupport(), contentType, resourceValue.getCachedInfo());
+            }
+            else
+            {
+                resource = new ResourceImpl(resourceValue.getResourceMeta(), resourceValue.getResourceLoader(),
+                        getResourceHandlerSupport(), contentType);
+            }
         }
         else
         {
@@ -228,7 +243,7 @@ libraryName, isAllowSlashesLibraryName()))
                         // cache it
                         getResourceHandlerCache().putResource(resourceName, libraryName, contentType,
                                 localePrefix, contractPreferred, resourceMeta, loader, 
-                                new ResourceCachedInfo(resource.getURL(), resource.getRequestPath()));
+                                resource.getCachedInfo());
                         resolved = true;
                         break;
                     }
@@ -253,7 +268,7 @@ libraryName, isAllowSlashesLibraryName()))
                             getResourceHandlerCache().putResource(
                                     resourceName, libraryName, contentType,
                                     localePrefix, contract, resourceMeta, loader,
-                                    new ResourceCachedInfo(resource.getURL(), resource.getRequestPath()));
+                                    resource.getCachedInfo());
                             resolved = true;
                             break;
                         }
@@ -275,7 +290,7 @@ libraryName, isAllowSlashesLibraryName()))
                         // cache it
                         getResourceHandlerCache().putResource(resourceName, libraryName, contentType,
                                 localePrefix, null, resourceMeta, loader, 
-                                new ResourceCachedInfo(resource.getURL(), resource.getRequestPath()));
+                                resource.getCachedInfo());
                         break;
                     }
                 }
@@ -560,7 +575,12 @@ libraryName, isAllowSlashesLibraryName()))
         }
 
         Resource resource = null;
-        if (libraryName != null)
+        if (BundleResource.LIBRARY_NAME.equals(libraryName)
+                && MyfacesConfig.getCurrentInstance(facesContext).isResourceBundlingEnabled())
+        {
+            resource = getBundleResource(facesContext, resourceName);
+        }
+        else if (libraryName != null)
         {
             resource = facesContext.getApplication().getResourceHandler().createResource(resourceName, libraryName);
         }
@@ -575,13 +595,15 @@ libraryName, isAllowSlashesLibraryName()))
             return;
         }
 
+        String contentType = _getContentType(resource, facesContext.getExternalContext());
         if (!resource.userAgentNeedsUpdate(facesContext))
         {
+            setNotModifiedHeaders(facesContext, resource, contentType, httpServletResponse);
             httpServletResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
             return;
         }
 
-        httpServletResponse.setContentType(_getContentType(resource, facesContext.getExternalContext()));
+        httpServletResponse.setContentType(contentType);
 
         Map<String, String> headers = resource.getResponseHeaders();
 
@@ -596,6 +618,19 @@ libraryName, isAllowSlashesLibraryName()))
         //serve up the bytes (taken from trinidad ResourceServlet)
         try
         {
+            File compressedFile = getCompressedResourceFile(facesContext, resource, contentType, httpServletResponse);
+            if (compressedFile != null)
+            {
+                httpServletResponse.setHeader("Content-Encoding", CompressedResourceCache.GZIP);
+                String entityTag = headers.get("ETag");
+                if (entityTag != null)
+                {
+                    httpServletResponse.setHeader("ETag", CompressedResourceCache.getEntityTag(entityTag));
+                }
+                CompressedResourceCache.send(compressedFile, extContext, httpServletResponse);
+                return;
+            }
+
             InputStream in = resource.getInputStream();
             OutputStream out = httpServletResponse.getOutputStream();
             byte[] buffer = new byte[this.getResourceBufferSize()];
@@ -644,6 +679,164 @@ libraryName, isAllowSlashesLibraryName()))
         }
     }
 
+    /**
+     * Returns the bundle of scripts or stylesheets requested by a path created by
+     * {@link BundleResource#getRequestPath()}.
+     * 
+     * @return the bundle or null if the request does not denote a valid bundle
+     */
+    private Resource getBundleResource(FacesContext facesContext, String resourceName)
+    {
+        boolean script = BundleResource.SCRIPT_RESOURCE_NAME.equals(resourceName);
+        ExternalContext externalContext = facesContext.getExternalContext();
+        String members = externalContext.getRequestParameterMap().get(BundleResource.MEMBERS_PARAM);
+        if (members == null || (!script && !BundleResource.STYLESHEET_RESOURCE_NAME.equals(resourceName)))
+        {
+            return null;
+        }
+
+        String key = resourceName + '?' + members;
+        BundleResource bundle = getBundleResourceCache().get(key);
+        if (bundle == null)
+        {
+            // only member lists rendered by this application, so a request can not build arbitrary bundles
+            String signature = externalContext.getRequestParameterMap().get(BundleResource.SIGNATURE_PARAM);
+            if (!BundleResource.isSigned(externalContext, resourceName, members, signature))
+            {
+                return null;
+            }
+            List<String[]> parsedMembers = BundleResource.parseMembers(members);
+            if (parsedMembers == null)
+            {
+                return null;
+            }
+
+            List<Resource> resources = new ArrayList<>();
+            for (String[] member : parsedMembers)
+            {
+                String libraryName = member[0];
+                if (!ResourceValidationUtils.isValidResourceName(member[1]) || (libraryName != null
+                        && !ResourceValidationUtils.isValidLibraryName(libraryName, isAllowSlashesLibraryName())))
+                {
+                    return null;
+                }
+
+                // only resources that could have been bundled, so no other resources are exposed
+                Resource resource = facesContext.getApplication().getResourceHandler()
+                        .createResource(member[1], libraryName);
+                if (resource == null || !BundleResource.isBundleable(resource, script))
+                {
+                    return null;
+                }
+                resources.add(resource);
+            }
+
+            bundle = new BundleResource(resourceName, resources);
+            getBundleResourceCache().put(key, bundle);
+        }
+        return bundle;
+    }
+
+    private ConcurrentLRUCache<String, BundleResource> getBundleResourceCache()
+    {
+        if (_bundleResourceCache == null)
+        {
+            synchronized (this)
+            {
+                if (_bundleResourceCache == null)
+                {
+                    int maxSize = MyfacesConfig.getCurrentInstance().getResourceHandlerCacheSize();
+                    _bundleResourceCache = new ConcurrentLRUCache<>((maxSize * 4 + 3) / 3, maxSize);
+                }
+            }
+        }
+        return _bundleResourceCache;
+    }
+
+    /**
+     * Returns the gzip compressed variant of the resource, if resource compression is enabled and
+     * the client accepts it.
+     * Only resources created by this ResourceHandler are compressed, because the compressed variant is
+     * cached per resource URL.
+     */
+    /**
+     * A 304 carries the caching headers of the full response (RFC 7232), so caches keep the stored response
+     * fresh. The ETag is the one of the variant the user agent has.
+     */
+    private void setNotModifiedHeaders(FacesContext facesContext, Resource resource, String contentType,
+            HttpServletResponse httpServletResponse)
+    {
+        Map<String, String> headers = resource.getResponseHeaders();
+        for (Map.Entry<String, String> entry : headers.entrySet())
+        {
+            httpServletResponse.setHeader(entry.getKey(), entry.getValue());
+        }
+
+        String entityTag = headers.get("ETag");
+        String ifNoneMatch = facesContext.getExternalContext().getRequestHeaderMap().get("If-None-Match");
+        if (entityTag != null && ifNoneMatch != null
+                && !ResourceLoaderUtils.isEntityTagMatch(ifNoneMatch, entityTag)
+                && ResourceLoaderUtils.isEntityTagMatch(ifNoneMatch, CompressedResourceCache.getEntityTag(entityTag)))
+        {
+            httpServletResponse.setHeader("ETag", CompressedResourceCache.getEntityTag(entityTag));
+        }
+
+        if (isCompressionCandidate(resource, contentType) && getCompressedResourceCache(facesContext) != null)
+        {
+            httpServletResponse.addHeader("Vary", "Accept-Encoding");
+        }
+    }
+
+    private static boolean isCompressionCandidate(Resource resource, String contentType)
+    {
+        return (resource instanceof ResourceImpl || resource instanceof BundleResource)
+                && CompressedResourceCache.isCompressible(contentType);
+    }
+
+    private File getCompressedResourceFile(FacesContext facesContext, Resource resource, String contentType,
+            HttpServletResponse httpServletResponse)
+    {
+        if (!isCompressionCandidate(resource, contentType))
+        {
+            return null;
+        }
+
+        CompressedResourceCache compressedResourceCache = getCompressedResourceCache(facesContext);
+        if (compressedResourceCache == null)
+        {
+            return null;
+        }
+
+        httpServletResponse.addHeader("Vary", "Accept-Encoding");
+        if (!CompressedResourceCache.isGzipAccepted(
+                facesContext.getExternalContext().getRequestHeaderMap().get("Accept-Encoding")))
+        {
+            return null;
+        }
+        return compressedResourceCache.getCompressedFile(resource);
+    }
+
+    private CompressedResourceCache getCompressedResourceCache(FacesContext facesContext)
+    {
+        if (!_compressedResourceCacheInitialized)
+        {
+            synchronized (this)
+            {
+                if (!_compressedResourceCacheInitialized)
+                {
+                    if (MyfacesConfig.getCurrentInstance(facesContext).isResourceCompressionEnabled()
+                            && !facesContext.isProjectStage(ProjectStage.Development))
+                    {
+                        _compressedResourceCache = CompressedResourceCache.create(facesContext,
+                                getResourceBufferSize());
+                    }
+                    _compressedResourceCacheInitialized = true;
+                }
+            }
+        }
+        return _compressedResourceCache;
+    }
+
     private static boolean isConnectionAbort(Exception e)
     {
         String exceptionName = e.getClass().getCanonicalName();
@@ -373,6 +373,11 @@ public void writeState(FacesContext context) throws IOException
 
         ResponseStateManager responseStateManager = context.getRenderKit().getResponseStateManager();
         
+        if (writeStateStreaming(context, responseStateManager))
+        {
+            return;
+        }
+
         setWritingState(context, responseStateManager);
 
         StateManager stateManager = context.getApplication().getStateManager();
@@ -422,6 +427,36 @@ public Set<String> getProtectedViewsUnmodifiable()
         return _unmodifiableProtectedViewsSet;
     }
     
+    /**
+     * In streaming mode the state is saved when the first form writes it and written in place, instead of
+     * writing a marker that is replaced after the whole view has been rendered and buffered.
+     */
+    private boolean writeStateStreaming(FacesContext context, ResponseStateManager rsm) throws IOException
+    {
+        StateWriter stateWriter = StateWriter.getCurrentInstance(context);
+        if (stateWriter == null || !stateWriter.isStreaming() || stateWriter.isStateWritten()
+                || !StateCacheUtils.isMyFacesResponseStateManager(rsm)
+                || !StateCacheUtils.getMyFacesResponseStateManager(rsm).isWriteStateAfterRenderViewRequired(context))
+        {
+            return false;
+        }
+
+        UIViewRoot viewRoot = context.getViewRoot();
+        if (!stateWriter.isStateSaved())
+        {
+            String viewId = viewRoot.getViewId();
+            ViewDeclarationLanguage vdl = getViewDeclarationLanguage(context, viewId);
+            stateWriter.setSavedState(vdl.getStateManagementStrategy(context, viewId).saveView(context));
+        }
+
+        Object state = stateWriter.getSavedState();
+        if (state != null || viewRoot.isTransient())
+        {
+            context.getApplication().getStateManager().writeState(context, state);
+        }
+        return true;
+    }
+
     private void setWritingState(FacesContext context, ResponseStateManager rsm)
     {
         // Facelets specific hack:
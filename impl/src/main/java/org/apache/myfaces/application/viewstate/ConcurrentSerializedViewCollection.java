@@ -0,0 +1,323 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import jakarta.faces.context.FacesContext;
+import org.apache.myfaces.cdi.view.ViewScopeContext;
+
+/**
+ * Lock free variant of {@link SerializedViewCollection}.
+ * 
+ * <p>The views are appended to a ring of slots in the order they are saved and are looked up through a
+ * concurrent index, so get() never blocks and put() discards the oldest view in O(1). The ring has twice
+ * the number of views allowed in session, so the slots released when a view is saved again or discarded
+ * as sequential view can be skipped until the ring wraps around. Each entry keeps the key of the view it
+ * was restored from, which replaces the precedence map.</p>
+ */
+class ConcurrentSerializedViewCollection extends SerializedViewCollection
+{
+    private static final long serialVersionUID = 4470146187412278350L;
+
+    private static final Object[] EMPTY_STATES = new Object[]{null, null};
+
+    private final int _views;
+    private final AtomicReferenceArray<Entry> _slots;
+    private final AtomicLong _head = new AtomicLong();
+    private final AtomicLong _tail = new AtomicLong();
+    private final AtomicInteger _size = new AtomicInteger();
+    private final Map<SerializedViewKey, Entry> _index = new ConcurrentHashMap<>();
+    private final Map<String, Integer> _viewScopeIdCounts = new ConcurrentHashMap<>();
+
+    private final AtomicReferenceArray<String> _windowSlots;
+    private final AtomicLong _windowHead = new AtomicLong();
+    private final Map<String, SerializedViewKey> _lastWindowKeys = new ConcurrentHashMap<>();
+
+    ConcurrentSerializedViewCollection(FacesContext context)
+    {
+        _views = Math.max(1, getNumberOfViewsInSession(context));
+        _slots = new AtomicReferenceArray<>(_views * 2);
+
+        Integer sequential = getNumberOfSequentialViewsInSession(context);
+        if (sequential != null && sequential > 0)
+        {
+            _windowSlots = new AtomicReferenceArray<>((_views / sequential) + 1);
+        }
+        else
+        {
+            _windowSlots = new AtomicReferenceArray<>(_views + 1);
+        }
+    }
+
+    @Override
+    public void put(FacesContext context, Object state, SerializedViewKey key,
+            SerializedViewKey previousRestoredKey, String viewScopeId)
+    {
+        put(context, state, key, previousRestoredKey, viewScopeId,
+            (oldViewScopeId) -> ViewScopeContext.destroyAll(context, oldViewScopeId));
+    }
+
+    @Override
+    public void put(FacesContext context, Object state, SerializedViewKey key,
+            SerializedViewKey previousRestoredKey, String viewScopeId, Consumer<String> destroyCallback)
+    {
+        if (state == null)
+        {
+            state = EMPTY_STATES;
+        }
+        else if (state instanceof Object[] objects &&
+            objects.length == 2 &&
+            objects[0] == null &&
+            objects[1] == null)
+        {
+            // The generated state can be considered zero, set it as null
+            // into the map.
+            state = null;
+        }
+
+        Integer maxCount = getNumberOfSequentialViewsInSession(context);
+        if (previousRestoredKey != null && (maxCount == null || _index.isEmpty()))
+        {
+            // See SerializedViewCollection, after the session is invalidated the previous key
+            // is not valid anymore.
+            previousRestoredKey = null;
+        }
+
+        Object storedState = storeState(key, state);
+        Entry entry;
+        while (true)
+        {
+            Entry current = _index.get(key);
+            if (current != null)
+            {
+                // Update the state, the viewScopeId and the precedence do not change, but the view
+                // moves to the end of the discard queue.
+                entry = new Entry(key, storedState, current.previous, current.viewScopeId,
+                        _head.getAndIncrement());
+                if (_index.replace(key, current, entry))
+                {
+                    _slots.compareAndSet(slot(current.sequence), current, null);
+                    discardState(key, current.state);
+                    publish(entry, destroyCallback);
+                    return;
+                }
+            }
+            else
+            {
+                entry = new Entry(key, storedState, previousRestoredKey, viewScopeId, _head.getAndIncrement());
+                if (_index.putIfAbsent(key, entry) == null)
+                {
+                    break;
+                }
+            }
+            // lost a race against another request storing the same key, the claimed sequence is
+            // just a free slot
+        }
+
+        if (viewScopeId != null)
+        {
+            _viewScopeIdCounts.merge(viewScopeId, 1, Integer::sum);
+        }
+        _size.incrementAndGet();
+        publish(entry, destroyCallback);
+
+        if (previousRestoredKey != null && maxCount > 0)
+        {
+            int count = 0;
+            SerializedViewKey previousKey = key;
+            do
+            {
+                Entry previousEntry = _index.get(previousKey);
+                previousKey = previousEntry == null ? null : previousEntry.previous;
+                count++;
+            }
+            while (previousKey != null && count < maxCount);
+
+            // Remove the oldest view of the sequence and the ones it comes from
+            while (previousKey != null)
+            {
+                Entry entryToRemove = _index.get(previousKey);
+                if (entryToRemove == null)
+                {
+                    break;
+                }
+                discard(entryToRemove, destroyCallback, true);
+                previousKey = entryToRemove.previous;
+            }
+        }
+
+        while (true)
+        {
+            // reserve the discard first, so concurrent requests do not discard more views than needed
+            int size = _size.get();
+            if (size <= _views)
+            {
+                break;
+            }
+            if (_size.compareAndSet(size, size - 1) && !discardOldest(destroyCallback))
+            {
+                _size.incrementAndGet();
+                break;
+            }
+        }
+    }
+
+    @Override
+    public Object get(SerializedViewKey key)
+    {
+        Entry entry = _index.get(key);
+        if (entry == null)
+        {
+            return null;
+        }
+        Object value = entry.state;
+        if (value == null)
+        {
+            return EMPTY_STATES;
+        }
+        else if (value instanceof Object[] objects &&
+            objects.length == 2 &&
+            objects[0] == null &&
+            objects[1] == null)
+        {
+            // Remember inside the state map null is stored as an empty array.
+            return null;
+        }
+        return loadState(key, value);
+    }
+
+    @Override
+    public void putLastWindowKey(FacesContext context, String id, SerializedViewKey key)
+    {
+        if (_lastWindowKeys.put(id, key) == null)
+        {
+            // new window, forget the one that was added first
+            int slot = (int) (_windowHead.getAndIncrement() % _windowSlots.length());
+            String oldId = _windowSlots.getAndSet(slot, id);
+            if (oldId != null && !oldId.equals(id))
+            {
+                _lastWindowKeys.remove(oldId);
+            }
+        }
+    }
+
+    @Override
+    public SerializedViewKey getLastWindowKey(FacesContext context, String id)
+    {
+        return _lastWindowKeys.get(id);
+    }
+
+    private int slot(long sequence)
+    {
+        return (int) (sequence % _slots.length());
+    }
+
+    /**
+     * Writes the entry into its slot. The ring is twice the size of the views allowed, so the previous
+     * occupant is normally gone already, if it is not, it has been skipped and is discarded now.
+     */
+    private void publish(Entry entry, Consumer<String> destroyCallback)
+    {
+        Entry previous = _slots.getAndSet(slot(entry.sequence), entry);
+        if (previous != null)
+        {
+            discard(previous, destroyCallback, true);
+        }
+    }
+
+    /**
+     * Discards the view in the oldest used slot. The size has already been decremented by the caller.
+     * 
+     * @return false if there is nothing left to discard
+     */
+    private boolean discardOldest(Consumer<String> destroyCallback)
+    {
+        while (true)
+        {
+            long tail = _tail.get();
+            if (tail >= _head.get())
+            {
+                return false;
+            }
+            Entry entry = _slots.get(slot(tail));
+            if (_tail.compareAndSet(tail, tail + 1)
+                    && entry != null && entry.sequence == tail
+                    && discard(entry, destroyCallback, false))
+            {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Removes the entry from the collection. Only the thread that removes it from the index releases
+     * the state and the view scope.
+     */
+    private boolean discard(Entry entry, Consumer<String> destroyCallback, boolean decrementSize)
+    {
+        _slots.compareAndSet(slot(entry.sequence), entry, null);
+        if (!_index.remove(entry.key, entry))
+        {
+            return false;
+        }
+        if (decrementSize)
+        {
+            _size.decrementAndGet();
+        }
+        discardState(entry.key, entry.state);
+
+        if (entry.viewScopeId != null)
+        {
+            Integer count = _viewScopeIdCounts.computeIfPresent(entry.viewScopeId,
+                    (id, vscount) -> vscount > 1 ? vscount - 1 : null);
+            if (count == null)
+            {
+                destroyCallback.accept(entry.viewScopeId);
+            }
+        }
+        return true;
+    }
+
+    private static final class Entry implements Serializable
+    {
+        private static final long serialVersionUID = -6015843390851278826L;
+
+        private final SerializedViewKey key;
+        private final Object state;
+        private final SerializedViewKey previous;
+        private final String viewScopeId;
+        private final long sequence;
+
+        private Entry(SerializedViewKey key, Object state, SerializedViewKey previous, String viewScopeId,
+                long sequence)
+        {
+            this.key = key;
+            this.state = state;
+            this.previous = previous;
+            this.viewScopeId = viewScopeId;
+            this.sequence = sequence;
+        }
+    }
+}
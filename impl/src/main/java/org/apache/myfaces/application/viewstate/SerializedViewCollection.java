@@ -92,7 +92,8 @@ else if (state instanceof Object[] objects &&
         if (_serializedViews.containsKey(key))
         {
             // Update the state, the viewScopeId does not change.
-            _serializedViews.put(key, state);
+            discardState(key, _serializedViews.get(key));
+            _serializedViews.put(key, storeState(key, state));
             // Make sure the view is at the end of the discard queue
             while (_keys.remove(key))
             {
@@ -122,7 +123,7 @@ else if (state instanceof Object[] objects &&
                 }
             }
         }
-        _serializedViews.put(key, state);
+        _serializedViews.put(key, storeState(key, state));
         
         if (viewScopeId != null)
         {
@@ -170,7 +171,7 @@ else if (state instanceof Object[] objects &&
                         // do nothing
                     }
 
-                    _serializedViews.remove(keyToRemove);
+                    discardState(keyToRemove, _serializedViews.remove(keyToRemove));
                     
                     if (_viewScopeIds != null)
                     {
@@ -213,7 +214,7 @@ else if (state instanceof Object[] objects &&
                 while (keyToRemove != null);
             }
 
-            _serializedViews.remove(key);
+            discardState(key, _serializedViews.remove(key));
             
             if (_viewScopeIds != null)
             {
@@ -297,6 +298,44 @@ else if (value instanceof Object[] objects &&
             // Remember inside the state map null is stored as an empty array.
             return null;
         }
-        return value;
+        return loadState(key, value);
+    }
+
+    /**
+     * Converts the state into the value kept in the session. The default implementation keeps the
+     * state itself, subclasses can move it somewhere else and return a handle.
+     */
+    protected Object storeState(SerializedViewKey key, Object state)
+    {
+        return state;
+    }
+
+    /**
+     * Converts a value created by {@link #storeState(SerializedViewKey, Object)} back into the state,
+     * or returns null if it is not available anymore.
+     */
+    protected Object loadState(SerializedViewKey key, Object storedValue)
+    {
+        return storedValue;
+    }
+
+    /**
+     * Called when a value created by {@link #storeState(SerializedViewKey, Object)} is replaced or
+     * removed from the collection.
+     */
+    protected void discardState(SerializedViewKey key, Object storedValue)
+    {
+    }
+
+    /**
+     * Calls {@link #discardState(SerializedViewKey, Object)} for every view of the collection, the
+     * views are still kept in the collection.
+     */
+    protected synchronized void discardStates()
+    {
+        for (Map.Entry<SerializedViewKey, Object> entry : _serializedViews.entrySet())
+        {
+            discardState(entry.getKey(), entry.getValue());
+        }
     }
 }
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.util.Objects;
+import java.util.UUID;
+import jakarta.faces.context.FacesContext;
+import jakarta.servlet.http.HttpSessionBindingEvent;
+import jakarta.servlet.http.HttpSessionBindingListener;
+
+/**
+ * SerializedViewCollection that keeps only the keys in the session and moves the serialized views into
+ * the {@link ViewStateStore} of the application.
+ * 
+ * <p>The store is shared by all sessions, so the views of the collection are removed from it when the
+ * collection is unbound from its session, for example when the session is invalidated or expires.</p>
+ */
+class SerializedViewCollectionExternal extends SerializedViewCollection implements HttpSessionBindingListener
+{
+    private static final long serialVersionUID = 2781935624127810745L;
+
+    /**
+     * Value kept in the session instead of the serialized view.
+     */
+    private enum External
+    {
+        STORED
+    }
+
+    private final String _id = UUID.randomUUID().toString();
+    private transient ViewStateStore _store;
+
+    SerializedViewCollectionExternal(ViewStateStore store)
+    {
+        _store = store;
+    }
+
+    @Override
+    protected Object storeState(SerializedViewKey key, Object state)
+    {
+        ViewStateStore store = getStore();
+        if (state instanceof byte[] bytes && store != null && store.put(new StoreKey(_id, key), bytes))
+        {
+            return External.STORED;
+        }
+        return state;
+    }
+
+    @Override
+    protected Object loadState(SerializedViewKey key, Object storedValue)
+    {
+        if (storedValue == External.STORED)
+        {
+            ViewStateStore store = getStore();
+            return store == null ? null : store.get(new StoreKey(_id, key));
+        }
+        return storedValue;
+    }
+
+    @Override
+    protected void discardState(SerializedViewKey key, Object storedValue)
+    {
+        if (storedValue == External.STORED)
+        {
+            ViewStateStore store = getStore();
+            if (store != null)
+            {
+                store.remove(new StoreKey(_id, key));
+            }
+        }
+    }
+
+    @Override
+    public void valueUnbound(HttpSessionBindingEvent event)
+    {
+        try
+        {
+            if (event.getSession().getAttribute(event.getName()) == this)
+            {
+                // the collection was put again into the session, some containers unbind it then
+                return;
+            }
+        }
+        catch (IllegalStateException e)
+        {
+            // the session has been invalidated
+        }
+
+        if (_store == null)
+        {
+            // there is no FacesContext when the session expires
+            _store = (ViewStateStore) event.getSession().getServletContext()
+                    .getAttribute(ViewStateStore.APPLICATION_MAP_KEY);
+        }
+        discardStates();
+    }
+
+    private ViewStateStore getStore()
+    {
+        if (_store == null)
+        {
+            // after the session has been deserialized
+            FacesContext facesContext = FacesContext.getCurrentInstance();
+            if (facesContext != null)
+            {
+                _store = ViewStateStore.getCurrentInstance(facesContext);
+            }
+        }
+        return _store;
+    }
+
+    private static final class StoreKey
+    {
+        private final String collectionId;
+        private final SerializedViewKey key;
+
+        private StoreKey(String collectionId, SerializedViewKey key)
+        {
+            this.collectionId = collectionId;
+            this.key = key;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * collectionId.hashCode() + key.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (!(obj instanceof StoreKey other))
+            {
+                return false;
+            }
+            return collectionId.equals(other.collectionId) && Objects.equals(key, other.key);
+        }
+    }
+}
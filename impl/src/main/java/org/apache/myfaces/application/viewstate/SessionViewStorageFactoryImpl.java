@@ -19,6 +19,7 @@
 package org.apache.myfaces.application.viewstate;
 
 import jakarta.faces.context.FacesContext;
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
 
 /**
  *
@@ -34,6 +35,10 @@ public SessionViewStorageFactoryImpl(KeyFactory<byte[]> keyFactory)
     @Override
     public SerializedViewCollection createSerializedViewCollection(FacesContext context)
     {
+        if (MyfacesConfig.getCurrentInstance(context).isConcurrentViewCollection())
+        {
+            return new ConcurrentSerializedViewCollection(context);
+        }
         return new SerializedViewCollection();
     }
 
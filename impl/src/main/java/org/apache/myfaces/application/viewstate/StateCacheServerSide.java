@@ -25,14 +25,11 @@
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 import jakarta.faces.FacesWrapper;
 
 import jakarta.faces.context.ExternalContext;
@@ -42,7 +39,8 @@
 import org.apache.myfaces.config.webparameters.MyfacesConfig;
 import org.apache.myfaces.context.flash.FlashImpl;
 import org.apache.myfaces.renderkit.RendererUtils;
-import org.apache.myfaces.util.MyFacesObjectInputStream;
+import org.apache.myfaces.spi.SerialFactory;
+import org.apache.myfaces.spi.impl.DefaultSerialFactory;
 import org.apache.myfaces.view.ViewScopeProxyMap;
 
 class StateCacheServerSide extends StateCache<Object, Object>
@@ -65,15 +63,19 @@ class StateCacheServerSide extends StateCache<Object, Object>
 
     public static final int UNCOMPRESSED_FLAG = 0;
     public static final int COMPRESSED_FLAG = 1;
+    public static final int DEFLATE_COMPRESSED_FLAG = 2;
 
     private final boolean useFlashScopePurgeViewsInSession;
     private final int numberOfSequentialViewsInSession;
     private final boolean serializeStateInSession;
     private final boolean compressStateInSession;
+    private final int deltaStateChainLength;
 
     private final SessionViewStorageFactory sessionViewStorageFactory;
     private final CsrfSessionTokenFactory csrfSessionTokenFactory;
     private final StateTokenProcessor stateTokenProcessor;
+    private final SerialFactory serialFactory;
+    private final StateCompression stateCompression;
     
     public StateCacheServerSide()
     {
@@ -83,17 +85,22 @@ public StateCacheServerSide()
         useFlashScopePurgeViewsInSession = !config.isFlashScopeDisabled()
                 && config.isUseFlashScopePurgeViewsInSession();
         numberOfSequentialViewsInSession = config.getNumberOfSequentialViewsInSession();
-        serializeStateInSession = config.isSerializeStateInSession();
-        compressStateInSession = config.isCompressStateInSession();
+        ViewStateStore viewStateStore = ViewStateStore.getCurrentInstance(facesContext);
+        // the external store keeps only byte arrays, so deltas are not used there
+        deltaStateChainLength = numberOfSequentialViewsInSession > 0 && viewStateStore == null
+                ? config.getDeltaStateInSessionChainLength() : 0;
+        // deltas are computed over the uncompressed serialized views
+        compressStateInSession = deltaStateChainLength <= 0 && config.isCompressStateInSession();
         
+        KeyFactory<byte[]> keyFactory;
         String randomMode = config.getRandomKeyInViewStateSessionToken();
         if (MyfacesConfig.RANDOM_KEY_IN_VIEW_STATE_SESSION_TOKEN_SECURE_RANDOM.equals(randomMode))
         {
-            sessionViewStorageFactory = new SessionViewStorageFactoryImpl(new KeyFactorySecureRandom(facesContext));
+            keyFactory = new KeyFactorySecureRandom(facesContext);
         }
         else if (MyfacesConfig.RANDOM_KEY_IN_VIEW_STATE_SESSION_TOKEN_RANDOM.equals(randomMode))
         {
-            sessionViewStorageFactory = new SessionViewStorageFactoryImpl(new KeyFactoryRandom(facesContext));
+            keyFactory = new KeyFactoryRandom(facesContext);
         }
         else
         {
@@ -103,7 +110,19 @@ else if (MyfacesConfig.RANDOM_KEY_IN_VIEW_STATE_SESSION_TOKEN_RANDOM.equals(rand
                         + randomMode + "\" is not supported (anymore)."
                         + " Fallback to \"secureRandom\"");
             }
-            sessionViewStorageFactory = new SessionViewStorageFactoryImpl(new KeyFactorySecureRandom(facesContext));
+            keyFactory = new KeyFactorySecureRandom(facesContext);
+        }
+
+        if (viewStateStore != null)
+        {
+            // the store holds bytes, so the views are always serialized
+            sessionViewStorageFactory = new SessionViewStorageFactoryExternal(keyFactory, viewStateStore);
+            serializeStateInSession = true;
+        }
+        else
+        {
+            sessionViewStorageFactory = new SessionViewStorageFactoryImpl(keyFactory);
+            serializeStateInSession = deltaStateChainLength > 0 || config.isSerializeStateInSession();
         }
         
         String csrfRandomMode = config.getRandomKeyInCsrfSessionToken();
@@ -117,6 +136,11 @@ else if (MyfacesConfig.RANDOM_KEY_IN_VIEW_STATE_SESSION_TOKEN_RANDOM.equals(rand
         }
         
         stateTokenProcessor = new StateTokenProcessorServerSide();
+
+        SerialFactory factory = (SerialFactory) facesContext.getExternalContext().getApplicationMap()
+                .get(StateUtils.SERIAL_FACTORY);
+        serialFactory = factory == null ? new DefaultSerialFactory() : factory;
+        stateCompression = StateCompression.getInstance(facesContext.getExternalContext());
     }
     
     //------------------------------------- METHODS COPIED FROM JspStateManagerImpl--------------------------------
@@ -188,14 +212,24 @@ else if (viewMap instanceof FacesWrapper wrapper)
             }
 
         }
+        Object state = serializeView(context, serializedView);
+        if (deltaStateChainLength > 0 && key != null && state instanceof byte[] bytes)
+        {
+            ViewStateDelta delta = ViewStateDelta.create(viewCollection.get(key), bytes,
+                    deltaStateChainLength);
+            if (delta != null)
+            {
+                state = delta;
+            }
+        }
+
         if (viewScopeProxyMap != null)
         {
-            viewCollection.put(context, serializeView(context, serializedView), nextKey, key,
-                    viewScopeProxyMap.getViewScopeId());
+            viewCollection.put(context, state, nextKey, key, viewScopeProxyMap.getViewScopeId());
         }
         else
         {
-            viewCollection.put(context, serializeView(context, serializedView), nextKey, key);
+            viewCollection.put(context, state, nextKey, key);
         }
 
         ClientWindow clientWindow = context.getExternalContext().getClientWindow();
@@ -328,8 +362,8 @@ protected Object serializeView(FacesContext context, Object serializedView)
                         log.finest("Processing serializeView - serialize compressed");
                     }
 
-                    os.write(COMPRESSED_FLAG);
-                    os = new GZIPOutputStream(os, 1024);
+                    os.write(stateCompression.isDeflate() ? DEFLATE_COMPRESSED_FLAG : COMPRESSED_FLAG);
+                    os = stateCompression.compress(os);
                 }
                 else
                 {
@@ -341,9 +375,9 @@ protected Object serializeView(FacesContext context, Object serializedView)
                     os.write(UNCOMPRESSED_FLAG);
                 }
 
-                try (ObjectOutputStream out = new ObjectOutputStream(os))
+                try (OutputStream out = os)
                 {
-                    out.writeObject(serializedView);
+                    serialFactory.writeObject(serializedView, out);
                 }
                 
                 baos.close();
@@ -378,6 +412,11 @@ protected Object deserializeView(Object state)
             log.finest("Entering deserializeView");
         }
 
+        if (state instanceof ViewStateDelta delta)
+        {
+            state = delta.toByteArray();
+        }
+
         if(state instanceof byte[] bytes)
         {
             if (log.isLoggable(Level.FINEST))
@@ -391,23 +430,19 @@ protected Object deserializeView(Object state)
                 ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
 
                 InputStream is = bais;
-                if (is.read() == COMPRESSED_FLAG)
+                int flag = is.read();
+                if (flag == COMPRESSED_FLAG)
                 {
                     is = new GZIPInputStream(is);
                 }
-
-                ObjectInputStream ois = new MyFacesObjectInputStream(is);
-                try
+                else if (flag == DEFLATE_COMPRESSED_FLAG)
                 {
-                    return ois.readObject();
+                    is = stateCompression.inflate(is);
                 }
-                finally
+
+                try (InputStream in = is)
                 {
-                    if (ois != null)
-                    {
-                        ois.close();
-                        ois = null;
-                    }
+                    return serialFactory.readObject(in);
                 }
             }
             catch (IOException | ClassNotFoundException e) 
@@ -0,0 +1,410 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import jakarta.faces.context.ExternalContext;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+/**
+ * Compression codec of the view state, see {@link MyfacesConfig#STATE_COMPRESSION}.
+ * 
+ * <p>The "gzip" codec writes plain GZIP streams. The "deflate" codec writes one marker byte followed by
+ * the state, either as is when it is smaller than the threshold, or as raw deflate data compressed
+ * with {@link #DICTIONARY}. Its Deflater and Inflater instances are kept in bounded pools, like the
+ * ciphers of {@link StateEncryption}.</p>
+ */
+final class StateCompression
+{
+    private static final String STATE_COMPRESSION = StateCompression.class.getName();
+
+    private static final int STORED = 0;
+    private static final int DEFLATED = 1;
+
+    private static final int BUFFER_SIZE = 1024;
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    /**
+     * Preset dictionary of the strings found in most serialized view states. They were measured in the
+     * Java serialization of full and partial state of the component, ajax, validation and reset test
+     * pages: the class, field and enum names of the MyFaces and Jakarta Faces state and attached
+     * objects, and of the JDK classes they use, found in at least three of the states. Strings that
+     * only belong to the test pages, like ids and values, are left out. zlib prefers the most common
+     * strings at the end, so they are ordered by the number of states they were found in.
+     */
+    static final byte[] DICTIONARY = String.join("",
+            "jakarta.faces.Label",
+            "jakarta.faces.component.html.HtmlBody",
+            "jakarta.faces.Table",
+            "jakarta.faces.Body",
+            "columns",
+            "jakarta.faces.Head",
+            "jakarta.faces.component.html.HtmlDataTable",
+            "jakarta.faces.component.html.HtmlOutputLabel",
+            "jakarta.faces.component.html.HtmlPanelGrid$PropertyKeys",
+            "jakarta.faces.Grid",
+            "jakarta.faces.component.html.HtmlHead",
+            "jakarta.faces.component.html.HtmlPanelGrid",
+            "jakarta.faces.component.html.HtmlCommandButton$PropertyKeys",
+            "jakarta.faces.validator.LengthValidator",
+            "valueChange",
+            "@this",
+            "jakarta.faces.component.html.HtmlOutputText$PropertyKeys",
+            "jakarta.faces.component.html.HtmlBody$PropertyKeys",
+            "@all",
+            "execute",
+            "jakarta.faces.component.html.HtmlOutputLabel$PropertyKeys",
+            "jakarta.faces.component.html.HtmlOutputText",
+            "oam.COMPONENT_ADDED_AFTER_BUILD_VIEW",
+            "oam.CLIENTIDS_ADDED",
+            "ADDED",
+            "jakarta.faces.component._AttachedListStateWrapper",
+            "org.apache.myfaces.view.facelets.ComponentState",
+            "_wrappedStateList",
+            "org.apache.myfaces.view.facelets.AttachedFullStateWrapper",
+            "org.apache.myfaces.view.facelets.PartialStateManagementStrategy$TreeStructComponent",
+            "[Lorg/apache/myfaces/view/facelets/PartialStateManagementStrategy$TreeStructComponent;",
+            "jakarta.faces.component.UIForm$PropertyKeys",
+            "styleClass",
+            "jakarta.faces.component.UICommand$PropertyKeys",
+            "valueExpressions",
+            "action",
+            "jakarta.faces.component.html.HtmlCommandButton",
+            "jakarta.faces.Button",
+            "library",
+            "jakarta.faces.event.ComponentSystemEvent",
+            "bindings",
+            "jakarta.faces.component.behavior._AttachedStateWrapper",
+            "faces.js",
+            "jakarta.faces.resource.Script",
+            "oam.EVENTS_MARKED",
+            "jakarta_faces_location_head",
+            "org.apache.myfaces.component.ComponentResourceContainer",
+            "jakarta.faces.event.PostAddToViewEvent",
+            "jakarta.faces.component.behavior._DeltaStateHelper$InternalMap",
+            "jakarta.faces",
+            "oam.ATTRIBUTES_MARKED",
+            "java.util.EventObject",
+            "jakarta.faces.event.SystemEvent",
+            "jakarta.faces.component.behavior.AjaxBehavior",
+            "jakarta.faces.component.behavior.AjaxBehavior$PropertyKeys",
+            "jakarta.faces.component._EventListenerWrapper",
+            "render",
+            "_initialStateMarked",
+            "jakarta.faces.component._DeltaList",
+            "org.apache.myfaces.view.facelets.el.ContextAwareTagValueExpression",
+            "valueExpressionChain",
+            "java.lang.Object",
+            "jakarta.faces.component.html.HtmlInputText",
+            "jakarta.el.ValueExpression",
+            "submittedValue",
+            "column",
+            "line",
+            "jakarta.faces.component.UIViewRoot",
+            "path",
+            "jakarta.el.Expression",
+            "viewId",
+            "HTML_BASIC",
+            "[Lorg.apache.myfaces.application.TreeStructureManager$TreeStructComponent;",
+            "jakarta.faces.Form",
+            "org.apache.myfaces.application.TreeStructureManager$TreeStructComponent",
+            "[Lorg/apache/myfaces/application/TreeStructureManager$TreeStructComponent;",
+            "[Ljava.lang.String;",
+            "renderKitId",
+            "jakarta.faces.component.UIViewRoot$PropertyKeys",
+            "jakarta.faces.view.Location",
+            "jakarta.faces.component.html.HtmlForm",
+            "[Ljava/lang/String;",
+            "expectedType",
+            "elements",
+            "expression",
+            "localValueSet",
+            "uniqueIdCounter",
+            "java.lang.Long",
+            "jakarta.faces.component.UIOutput",
+            "jakarta.faces.component.UIInput$PropertyKeys",
+            "jakarta.faces.component.UIOutput$PropertyKeys",
+            "Ljava/util/List;",
+            "_componentId",
+            "_componentClass",
+            "jakarta.faces.Text",
+            "java.util.ArrayList",
+            "_children",
+            "[Ljava/lang/Object;",
+            "size",
+            "_facets",
+            "Ljava/lang/String;",
+            "attributesMap",
+            "java.lang.Boolean",
+            "jakarta.faces.component._AttachedStateWrapper",
+            "jakarta.faces.component._DeltaStateHelper$InternalMap",
+            "jakarta.faces.component.UIComponent$PropertyKeys",
+            "Ljava/lang/Object;",
+            "Ljava/lang/Class;",
+            "_class",
+            "_wrappedStateObject",
+            "java.lang.Integer",
+            "java.lang.Number",
+            "java.util.HashMap",
+            "threshold",
+            "java.lang.Enum",
+            "loadFactor",
+            "[Ljava.lang.Object;")
+            .getBytes(StandardCharsets.ISO_8859_1);
+
+    private final boolean deflate;
+    private final int level;
+    private final int threshold;
+
+    private final BlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final BlockingQueue<Inflater> inflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    StateCompression(String codec, int level, int threshold)
+    {
+        if (level < 0 || level > 9)
+        {
+            throw new IllegalArgumentException("Compression level must be between 0 and 9: " + level);
+        }
+        this.deflate = MyfacesConfig.STATE_COMPRESSION_DEFLATE.equals(codec);
+        this.level = level;
+        this.threshold = threshold;
+    }
+
+    static StateCompression getInstance(ExternalContext externalContext)
+    {
+        Map<String, Object> applicationMap = externalContext.getApplicationMap();
+        StateCompression compression = (StateCompression) applicationMap.get(STATE_COMPRESSION);
+        if (compression == null)
+        {
+            MyfacesConfig config = MyfacesConfig.getCurrentInstance(externalContext);
+            compression = new StateCompression(config.getStateCompression(), config.getStateCompressionLevel(),
+                    config.getStateCompressionThreshold());
+            applicationMap.put(STATE_COMPRESSION, compression);
+        }
+        return compression;
+    }
+
+    boolean isDeflate()
+    {
+        return deflate;
+    }
+
+    OutputStream compress(OutputStream out) throws IOException
+    {
+        if (deflate)
+        {
+            return new ThresholdDeflaterOutputStream(out);
+        }
+        return new GZIPOutputStream(out, BUFFER_SIZE);
+    }
+
+    InputStream decompress(InputStream in) throws IOException
+    {
+        if (!deflate)
+        {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+        return inflate(in);
+    }
+
+    /**
+     * Reads the format of the "deflate" codec, no matter which codec is configured.
+     */
+    InputStream inflate(InputStream in) throws IOException
+    {
+        int marker = in.read();
+        if (marker == STORED)
+        {
+            return in;
+        }
+        if (marker != DEFLATED)
+        {
+            throw new IOException("Unknown compression marker " + marker);
+        }
+
+        Inflater inflater = inflaters.poll();
+        if (inflater == null)
+        {
+            inflater = new Inflater(true);
+        }
+        inflater.setDictionary(DICTIONARY);
+        return new PooledInflaterInputStream(in, inflater);
+    }
+
+    byte[] compress(byte[] bytes) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, bytes.length / 2));
+        try (OutputStream compressed = compress(out))
+        {
+            compressed.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    byte[] decompress(byte[] bytes) throws IOException
+    {
+        try (InputStream in = decompress(new ByteArrayInputStream(bytes)))
+        {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Keeps the first bytes in memory and only starts to deflate once the threshold is exceeded.
+     */
+    private final class ThresholdDeflaterOutputStream extends OutputStream
+    {
+        private final OutputStream out;
+        private ByteArrayOutputStream pending = new ByteArrayOutputStream(Math.max(threshold, 32));
+        private Deflater deflater;
+        private DeflaterOutputStream deflated;
+        private boolean closed;
+
+        private ThresholdDeflaterOutputStream(OutputStream out)
+        {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            if (deflated != null)
+            {
+                deflated.write(b);
+                return;
+            }
+
+            pending.write(b);
+            deflateIfExceeded();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            if (deflated != null)
+            {
+                deflated.write(b, off, len);
+                return;
+            }
+
+            pending.write(b, off, len);
+            deflateIfExceeded();
+        }
+
+        private void deflateIfExceeded() throws IOException
+        {
+            if (pending.size() >= threshold)
+            {
+                deflater = deflaters.poll();
+                if (deflater == null)
+                {
+                    deflater = new Deflater(level, true);
+                }
+                deflater.setDictionary(DICTIONARY);
+
+                out.write(DEFLATED);
+                deflated = new DeflaterOutputStream(out, deflater, BUFFER_SIZE);
+                pending.writeTo(deflated);
+                pending = null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+
+            if (deflated == null)
+            {
+                try (OutputStream o = out)
+                {
+                    out.write(STORED);
+                    pending.writeTo(out);
+                }
+                return;
+            }
+
+            try
+            {
+                // does not end the deflater, it was not created by the stream
+                deflated.close();
+            }
+            finally
+            {
+                deflater.reset();
+                if (!deflaters.offer(deflater))
+                {
+                    deflater.end();
+                }
+            }
+        }
+    }
+
+    private final class PooledInflaterInputStream extends InflaterInputStream
+    {
+        private boolean closed;
+
+        private PooledInflaterInputStream(InputStream in, Inflater inflater)
+        {
+            super(in, inflater, BUFFER_SIZE);
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+
+            try
+            {
+                // does not end the inflater, it was not created by the stream
+                super.close();
+            }
+            finally
+            {
+                inf.reset();
+                if (!inflaters.offer(inf))
+                {
+                    inf.end();
+                }
+            }
+        }
+    }
+}
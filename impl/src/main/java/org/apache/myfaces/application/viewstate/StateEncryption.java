@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import jakarta.faces.application.ViewExpiredException;
+
+/**
+ * Pools the initialized Cipher and Mac instances used to encrypt the client side state, so
+ * Cipher.getInstance, Mac.getInstance and the key setup are not done on every request.
+ * 
+ * <p>The pools are bounded queues instead of thread locals, so they do not grow with the number of
+ * (virtual) threads. Instances are only given back after a successful operation, a failing one can be
+ * in any state and is just dropped.</p>
+ * 
+ * <p>If the mode is GCM the state is encrypted with AES-GCM instead of Encrypt-then-MAC: a random IV is
+ * generated for every state and written in front of it, and the authentication tag of the cipher
+ * replaces the MAC.</p>
+ */
+final class StateEncryption
+{
+    static final int GCM_IV_LENGTH = 12;
+    static final int GCM_TAG_LENGTH = 16;
+
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private final SecretKey secretKey;
+    private final String transformation;
+    private final byte[] iv;
+    private final SecretKey macSecretKey;
+    private final String macAlgorithm;
+    private final boolean aead;
+    private final SecureRandom random;
+
+    private final BlockingQueue<Cipher> encryptCiphers = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final BlockingQueue<Cipher> decryptCiphers = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final BlockingQueue<Mac> macs = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    StateEncryption(SecretKey secretKey, String algorithm, String algorithmParams, byte[] iv,
+            SecretKey macSecretKey, String macAlgorithm)
+    {
+        this.secretKey = secretKey;
+        this.transformation = algorithm + '/' + algorithmParams;
+        this.aead = isAead(algorithmParams);
+        // the IV of GCM must never be reused, so a configured one is ignored
+        this.iv = aead ? null : iv;
+        this.macSecretKey = aead ? null : macSecretKey;
+        this.macAlgorithm = macAlgorithm;
+        this.random = aead ? new SecureRandom() : null;
+    }
+
+    static boolean isAead(String algorithmParams)
+    {
+        return algorithmParams.regionMatches(true, 0, "GCM", 0, 3);
+    }
+
+    boolean isAead()
+    {
+        return aead;
+    }
+
+    /**
+     * Returns a cipher ready to encrypt a new state. For GCM the IV it was initialized with has to be
+     * written in front of the encrypted bytes.
+     */
+    Cipher borrowEncryptCipher() throws GeneralSecurityException
+    {
+        Cipher cipher = encryptCiphers.poll();
+        if (cipher == null)
+        {
+            cipher = Cipher.getInstance(transformation);
+            if (!aead)
+            {
+                init(cipher, Cipher.ENCRYPT_MODE);
+            }
+        }
+        if (aead)
+        {
+            byte[] nonce = new byte[GCM_IV_LENGTH];
+            random.nextBytes(nonce);
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(GCM_TAG_LENGTH * 8, nonce));
+        }
+        return cipher;
+    }
+
+    /**
+     * @param completed false if the cipher failed or was abandoned before doFinal, it is initialized
+     *        again before it is reused then
+     */
+    void releaseEncryptCipher(Cipher cipher, boolean completed)
+    {
+        release(encryptCiphers, cipher, completed, Cipher.ENCRYPT_MODE);
+    }
+
+    private void release(BlockingQueue<Cipher> ciphers, Cipher cipher, boolean completed, int mode)
+    {
+        // GCM ciphers are initialized for every state anyway
+        if (!completed && !aead)
+        {
+            try
+            {
+                init(cipher, mode);
+            }
+            catch (GeneralSecurityException e)
+            {
+                return;
+            }
+        }
+        ciphers.offer(cipher);
+    }
+
+    /**
+     * Returns the Mac of the Encrypt-then-MAC composition, or null for GCM.
+     */
+    Mac borrowMac() throws GeneralSecurityException
+    {
+        if (aead)
+        {
+            return null;
+        }
+        Mac mac = macs.poll();
+        if (mac == null)
+        {
+            mac = Mac.getInstance(macAlgorithm);
+            mac.init(macSecretKey);
+        }
+        return mac;
+    }
+
+    void releaseMac(Mac mac)
+    {
+        if (mac != null)
+        {
+            // discards the bytes of a failed computation
+            mac.reset();
+            macs.offer(mac);
+        }
+    }
+
+    byte[] encrypt(byte[] insecure) throws GeneralSecurityException
+    {
+        Cipher cipher = borrowEncryptCipher();
+        Mac mac = borrowMac();
+
+        boolean completed = false;
+        try
+        {
+            byte[] secure;
+            if (aead)
+            {
+                secure = new byte[GCM_IV_LENGTH + cipher.getOutputSize(insecure.length)];
+                System.arraycopy(cipher.getIV(), 0, secure, 0, GCM_IV_LENGTH);
+                cipher.doFinal(insecure, 0, insecure.length, secure, GCM_IV_LENGTH);
+            }
+            else
+            {
+                //EtM (Encrypt-then-MAC) Composition Approach
+                int macLenght = mac.getMacLength();
+                secure = new byte[cipher.getOutputSize(insecure.length) + macLenght];
+                int secureCount = cipher.doFinal(insecure, 0, insecure.length, secure);
+                mac.update(secure, 0, secureCount);
+                mac.doFinal(secure, secureCount);
+            }
+            completed = true;
+            return secure;
+        }
+        finally
+        {
+            releaseEncryptCipher(cipher, completed);
+            releaseMac(mac);
+        }
+    }
+
+    byte[] decrypt(byte[] secure) throws GeneralSecurityException
+    {
+        byte[] copy = secure.clone();
+        int length = decryptInPlace(copy, copy.length);
+        byte[] insecure = new byte[length];
+        System.arraycopy(copy, 0, insecure, 0, length);
+        return insecure;
+    }
+
+    /**
+     * Verifies and decrypts the first length bytes of the array, the plain bytes overwrite the secure
+     * ones.
+     * 
+     * @return the length of the plain bytes
+     */
+    int decryptInPlace(byte[] secure, int length) throws GeneralSecurityException
+    {
+        Cipher cipher = decryptCiphers.poll();
+        if (cipher == null)
+        {
+            cipher = Cipher.getInstance(transformation);
+            if (!aead)
+            {
+                init(cipher, Cipher.DECRYPT_MODE);
+            }
+        }
+
+        boolean completed = false;
+        try
+        {
+            int count;
+            if (aead)
+            {
+                if (length < GCM_IV_LENGTH + GCM_TAG_LENGTH)
+                {
+                    throw new ViewExpiredException();
+                }
+                cipher.init(Cipher.DECRYPT_MODE, secretKey,
+                        new GCMParameterSpec(GCM_TAG_LENGTH * 8, secure, 0, GCM_IV_LENGTH));
+                // the tag is verified before any plain byte is returned
+                count = cipher.doFinal(secure, GCM_IV_LENGTH, length - GCM_IV_LENGTH, secure, 0);
+            }
+            else
+            {
+                int macLength;
+                Mac mac = borrowMac();
+                try
+                {
+                    StateUtils.verifyMac(mac, secure, length);
+                    macLength = mac.getMacLength();
+                }
+                finally
+                {
+                    releaseMac(mac);
+                }
+
+                // Cipher is copy-safe, so input and output can be the same array
+                count = cipher.doFinal(secure, 0, length - macLength, secure, 0);
+            }
+            completed = true;
+            return count;
+        }
+        finally
+        {
+            release(decryptCiphers, cipher, completed, Cipher.DECRYPT_MODE);
+        }
+    }
+
+    private void init(Cipher cipher, int mode) throws GeneralSecurityException
+    {
+        if (iv != null)
+        {
+            cipher.init(mode, secretKey, new IvParameterSpec(iv));
+        }
+        else
+        {
+            cipher.init(mode, secretKey);
+        }
+    }
+}
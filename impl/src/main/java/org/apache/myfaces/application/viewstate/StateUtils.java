@@ -18,12 +18,18 @@
  */
 package org.apache.myfaces.application.viewstate;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
+import java.util.Map;
 import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -44,6 +50,8 @@
 import org.apache.myfaces.buildtools.maven2.plugin.builder.annotation.JSFWebConfigParam;
 import org.apache.myfaces.core.api.shared.lang.Assert;
 import org.apache.myfaces.spi.SerialFactory;
+import org.apache.myfaces.util.lang.FastByteArrayInputStream;
+import org.apache.myfaces.util.lang.FastByteArrayOutputStream;
 
 /**
  * <p>This Class exposes a handful of methods related to encryption,
@@ -66,6 +74,8 @@
  * <i>org.apache.myfaces.ALGORITHM.IV</i> parameter</li>
  * <li>The default MAC algorithm can be overridden using the
  * <i>org.apache.myfaces.MAC_ALGORITHM</i> parameter</li>
+ * <li>With GCM mode (e.g. "GCM/NoPadding") the state is encrypted with
+ * AES-GCM, a random IV is generated for each state and no MAC is used</li>
  * </ul>
  *
  * <p>The secret is interpreted as base 64 encoded.  In other
@@ -155,6 +165,20 @@
             expectedValues="true,false",group="state",tags="performance")
     public static final String COMPRESS_STATE_IN_CLIENT = INIT_PREFIX + "COMPRESS_STATE_IN_CLIENT";
 
+    /**
+     * Indicate if the client side view state should be built and parsed as a single stream
+     * (serialization, compression, encryption and Base64 encoding chained together), instead of
+     * creating an intermediate byte array for every step. The generated token is the same in both cases.
+     */
+    @JSFWebConfigParam(name="org.apache.myfaces.STREAM_STATE_IN_CLIENT",since="5.0",defaultValue="true",
+            expectedValues="true,false",group="state",tags="performance")
+    public static final String STREAM_STATE_IN_CLIENT = INIT_PREFIX + "STREAM_STATE_IN_CLIENT";
+
+    private static final int STREAM_STATE_INITIAL_BUFFER_SIZE = 1024;
+    private static final int STREAM_STATE_CIPHER_BUFFER_SIZE = 8192;
+
+    private static final String STATE_ENCRYPTION = StateEncryption.class.getName();
+
     public static final String DEFAULT_MAC_ALGORITHM = "HmacSHA256";
 
     /**
@@ -252,15 +276,34 @@ public static boolean isSecure(ExternalContext externalContext)
         return !"false".equals(externalContext.getInitParameter(USE_ENCRYPTION));
     }
 
+    public static boolean enableStreaming(ExternalContext externalContext)
+    {
+        Assert.notNull(externalContext, "externalContext");
+
+        return !"false".equals(externalContext.getInitParameter(STREAM_STATE_IN_CLIENT));
+    }
+
     /**
      * This fires during the Render Response phase, saving state.
      */
     public static final String construct(Object object, ExternalContext ctx)
     {
+        if (enableStreaming(ctx))
+        {
+            return constructStreaming(object, ctx);
+        }
+
         byte[] bytes = getAsByteArray(object, ctx);
         if (enableCompression(ctx))
         {
-            bytes = compress(bytes);
+            try
+            {
+                bytes = StateCompression.getInstance(ctx).compress(bytes);
+            }
+            catch (IOException e)
+            {
+                throw new FacesException(e);
+            }
         }
         if (isSecure(ctx))
         {
@@ -278,6 +321,70 @@ public static final String construct(Object object, ExternalContext ctx)
         }
     }
 
+    /**
+     * Serializes, compresses, encrypts and encodes the state in one pass. Every step writes into the
+     * next one, so the only full size buffer is the one holding the encoded token.
+     */
+    private static String constructStreaming(Object object, ExternalContext ctx)
+    {
+        SerialFactory serialFactory = getSerialFactory(ctx);
+
+        try
+        {
+            FastByteArrayOutputStream encoded = new FastByteArrayOutputStream(STREAM_STATE_INITIAL_BUFFER_SIZE);
+            OutputStream out = Base64.getEncoder().wrap(encoded);
+            StateEncryption encryption = null;
+            Cipher cipher = null;
+            Mac mac = null;
+            if (isSecure(ctx))
+            {
+                testConfiguration(ctx);
+                encryption = getEncryption(ctx);
+                cipher = encryption.borrowEncryptCipher();
+                mac = encryption.borrowMac();
+                if (encryption.isAead())
+                {
+                    out.write(cipher.getIV());
+                }
+                // the serializer writes small chunks, the cipher and the encoder work much faster with big ones
+                out = new BufferedOutputStream(new EncryptThenMacOutputStream(out, cipher, mac),
+                        STREAM_STATE_CIPHER_BUFFER_SIZE);
+            }
+            if (enableCompression(ctx))
+            {
+                out = StateCompression.getInstance(ctx).compress(out);
+            }
+
+            boolean completed = false;
+            try
+            {
+                try (OutputStream pipeline = out)
+                {
+                    serialFactory.writeObject(object, pipeline);
+                }
+                completed = true;
+            }
+            finally
+            {
+                if (encryption != null)
+                {
+                    encryption.releaseEncryptCipher(cipher, completed);
+                    encryption.releaseMac(mac);
+                }
+            }
+
+            return new String(encoded.getByteArray(), 0, encoded.getSize(), StandardCharsets.ISO_8859_1);
+        }
+        catch (FacesException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new FacesException(e);
+        }
+    }
+
     /**
      * Performs serialization with the serialization provider created by the 
      * SerialFactory.  
@@ -288,9 +395,7 @@ public static final String construct(Object object, ExternalContext ctx)
      */
     public static final byte[] getAsByteArray(Object object, ExternalContext ctx)
     {
-        // get the Factory that was instantiated @ startup
-        SerialFactory serialFactory = (SerialFactory) ctx.getApplicationMap().get(SERIAL_FACTORY);
-        Assert.notNull(serialFactory, "serialFactory");
+        SerialFactory serialFactory = getSerialFactory(ctx);
 
         try
         {
@@ -310,17 +415,7 @@ public static byte[] encrypt(byte[] insecure, ExternalContext externalContext)
 
         try
         {
-            Mac mac = createMac(externalContext);
-            Cipher cipher = createCipher(externalContext, Cipher.ENCRYPT_MODE);
-
-            //EtM (Encrypt-then-MAC) Composition Approach
-            int macLenght = mac.getMacLength();
-            byte[] secure = new byte[cipher.getOutputSize(insecure.length) + macLenght];
-            int secureCount = cipher.doFinal(insecure, 0, insecure.length, secure);
-            mac.update(secure, 0, secureCount);
-            mac.doFinal(secure, secureCount);
-                        
-            return secure;
+            return getEncryption(externalContext).encrypt(insecure);
         }
         catch (Exception e)
         {
@@ -370,6 +465,11 @@ public static final Object reconstruct(String string, ExternalContext ctx)
                 log.fine("Processing serialized viewstate string with hashCode : " + string.hashCode());
             }
 
+            if (enableStreaming(ctx))
+            {
+                return reconstructStreaming(string, ctx);
+            }
+
             bytes = string.getBytes(ZIP_CHARSET);
             bytes = decode(bytes);
             if (isSecure(ctx))
@@ -378,7 +478,7 @@ public static final Object reconstruct(String string, ExternalContext ctx)
             }
             if (enableCompression(ctx))
             {
-                bytes = decompress(bytes);
+                bytes = StateCompression.getInstance(ctx).decompress(bytes);
             }
 
             return getAsObject(bytes, ctx);
@@ -393,6 +493,35 @@ public static final Object reconstruct(String string, ExternalContext ctx)
         }
     }
 
+    /**
+     * Reverse of {@link #constructStreaming(Object, ExternalContext)}. If the state is encrypted, the
+     * token is decoded into a single array, because the MAC must be verified before anything is
+     * deserialized; decryption then happens in place. Otherwise the token is deserialized straight
+     * from the string.
+     */
+    private static Object reconstructStreaming(String string, ExternalContext ctx) throws Exception
+    {
+        SerialFactory serialFactory = getSerialFactory(ctx);
+
+        InputStream in = Base64.getDecoder().wrap(new Latin1StringInputStream(string));
+        if (isSecure(ctx))
+        {
+            byte[] secure = new byte[(string.length() / 4) * 3 + 2];
+            int length = in.readNBytes(secure, 0, secure.length);
+            length = decryptInPlace(secure, length, ctx);
+            in = new FastByteArrayInputStream(secure, length);
+        }
+        if (enableCompression(ctx))
+        {
+            in = StateCompression.getInstance(ctx).decompress(in);
+        }
+
+        try (InputStream pipeline = in)
+        {
+            return serialFactory.readObject(pipeline);
+        }
+    }
+
     public static final byte[] decode(byte[] bytes)
     {
         return Base64.getDecoder().decode(bytes);
@@ -402,25 +531,9 @@ public static final byte[] decompress(byte[] bytes)
     {
         Assert.notNull(bytes, "bytes");
 
-        try
+        try (GZIPInputStream gis = new GZIPInputStream(new ByteArrayInputStream(bytes)))
         {
-            try (ByteArrayOutputStream baos = new ByteArrayOutputStream())
-            {
-                try (ByteArrayInputStream bais = new ByteArrayInputStream(bytes))
-                {
-                    try (GZIPInputStream gis = new GZIPInputStream(bais))
-                    {
-                        byte[] buffer = new byte[bytes.length];
-                        int length;
-                        while ((length = gis.read(buffer)) != -1)
-                        {
-                            baos.write(buffer, 0, length);
-                        }
-                    }
-                }
-
-                return baos.toByteArray();
-            }
+            return gis.readAllBytes();
         }
         catch (IOException e)
         {
@@ -436,39 +549,89 @@ public static byte[] decrypt(byte[] secure, ExternalContext externalContext)
 
         try
         {
-            Mac mac = createMac(externalContext);
-            Cipher cipher = createCipher(externalContext, Cipher.DECRYPT_MODE);
+            return getEncryption(externalContext).decrypt(secure);
+        }
+        catch (Exception e)
+        {
+            throw new FacesException(e);
+        }
+    }
 
-            //EtM (Encrypt-then-MAC) Composition Approach
-            int macLenght = mac.getMacLength();
-            mac.update(secure, 0, secure.length - macLenght);
-            byte[] signedDigestHash = mac.doFinal();
+    /**
+     * Same as {@link #decrypt(byte[], ExternalContext)}, but the plain bytes overwrite the secure ones.
+     * 
+     * @return the length of the plain bytes
+     */
+    private static int decryptInPlace(byte[] secure, int length, ExternalContext externalContext)
+    {
+        Assert.notNull(externalContext, "externalContext");
+
+        testConfiguration(externalContext);
+
+        try
+        {
+            return getEncryption(externalContext).decryptInPlace(secure, length);
+        }
+        catch (Exception e)
+        {
+            throw new FacesException(e);
+        }
+    }
 
-            boolean isMacEqual = true;
-            for (int i = 0; i < signedDigestHash.length; i++)
+    /**
+     * Returns the pooled ciphers and macs of the application, created with the current configuration
+     * the first time they are needed. If a secret is not cached, the keys are read again for each call
+     * and nothing is pooled.
+     */
+    static StateEncryption getEncryption(ExternalContext ctx)
+    {
+        Map<String, Object> applicationMap = ctx.getApplicationMap();
+        StateEncryption encryption = (StateEncryption) applicationMap.get(STATE_ENCRYPTION);
+        if (encryption == null)
+        {
+            String algorithmParams = findAlgorithmParams(ctx);
+            boolean aead = StateEncryption.isAead(algorithmParams);
+            encryption = new StateEncryption(getSecret(ctx), findAlgorithm(ctx), algorithmParams,
+                    findInitializationVector(ctx),
+                    aead ? null : getMacSecret(ctx), aead ? null : findMacAlgorithm(ctx));
+            if (!"false".equals(ctx.getInitParameter(INIT_SECRET_KEY_CACHE))
+                    && (aead || !"false".equals(ctx.getInitParameter(INIT_MAC_SECRET_KEY_CACHE))))
             {
-                if (signedDigestHash[i] != secure[secure.length - macLenght + i])
-                {
-                    isMacEqual = false;
-                    // MYFACES-2934 Must compare *ALL* bytes of the hash, 
-                    // otherwise a side-channel timing attack is theoretically possible
-                    // but with a very very low probability, because the
-                    // comparison time is too small to be measured compared to
-                    // the overall request time and in real life applications,
-                    // there are too many uncertainties involved.
-                    //break;
-                }
+                applicationMap.put(STATE_ENCRYPTION, encryption);
             }
-            if (!isMacEqual)
+        }
+        return encryption;
+    }
+
+    static void verifyMac(Mac mac, byte[] secure, int length)
+    {
+        int macLenght = mac.getMacLength();
+        if (length < macLenght)
+        {
+            throw new ViewExpiredException();
+        }
+
+        mac.update(secure, 0, length - macLenght);
+        byte[] signedDigestHash = mac.doFinal();
+
+        boolean isMacEqual = true;
+        for (int i = 0; i < signedDigestHash.length; i++)
+        {
+            if (signedDigestHash[i] != secure[length - macLenght + i])
             {
-                throw new ViewExpiredException();
+                isMacEqual = false;
+                // MYFACES-2934 Must compare *ALL* bytes of the hash, 
+                // otherwise a side-channel timing attack is theoretically possible
+                // but with a very very low probability, because the
+                // comparison time is too small to be measured compared to
+                // the overall request time and in real life applications,
+                // there are too many uncertainties involved.
+                //break;
             }
-            
-            return cipher.doFinal(secure, 0, secure.length - macLenght);
         }
-        catch (Exception e)
+        if (!isMacEqual)
         {
-            throw new FacesException(e);
+            throw new ViewExpiredException();
         }
     }
 
@@ -482,9 +645,7 @@ public static byte[] decrypt(byte[] secure, ExternalContext externalContext)
      */
     public static final Object getAsObject(byte[] bytes, ExternalContext ctx)
     {
-        // get the Factory that was instantiated @ startup
-        SerialFactory serialFactory = (SerialFactory) ctx.getApplicationMap().get(SERIAL_FACTORY);
-        Assert.notNull(serialFactory, "serialFactory");
+        SerialFactory serialFactory = getSerialFactory(ctx);
 
         try
         {
@@ -496,6 +657,14 @@ public static final Object getAsObject(byte[] bytes, ExternalContext ctx)
         }
     }
 
+    private static SerialFactory getSerialFactory(ExternalContext ctx)
+    {
+        // get the Factory that was instantiated @ startup
+        SerialFactory serialFactory = (SerialFactory) ctx.getApplicationMap().get(SERIAL_FACTORY);
+        Assert.notNull(serialFactory, "serialFactory");
+        return serialFactory;
+    }
+
     /**
      * Utility method for generating base 64 encoded strings.
      * 
@@ -811,4 +980,153 @@ private static byte[] findMacSecret(String secret, String algorithm)
         
         return bytes;
     }
+
+    /**
+     * Encrypts everything written to it and appends the MAC of the encrypted bytes when closed, which
+     * gives the same output as {@link #encrypt(byte[], ExternalContext)} without buffering the input.
+     * With AES-GCM there is no MAC, the cipher appends its tag.
+     */
+    private static final class EncryptThenMacOutputStream extends FilterOutputStream
+    {
+        private final Cipher cipher;
+        private final Mac mac;
+        private final byte[] single = new byte[1];
+        private byte[] buffer;
+        private boolean closed;
+
+        EncryptThenMacOutputStream(OutputStream out, Cipher cipher, Mac mac)
+        {
+            super(out);
+            this.cipher = cipher;
+            this.mac = mac;
+            this.buffer = new byte[512];
+        }
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            single[0] = (byte) b;
+            write(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            ensureBufferSize(cipher.getOutputSize(len));
+            try
+            {
+                int count = cipher.update(b, off, len, buffer, 0);
+                writeSecure(count);
+            }
+            catch (Exception e)
+            {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException
+        {
+            // nothing to do, the pipeline is flushed on close
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+
+            try (OutputStream o = out)
+            {
+                ensureBufferSize(Math.max(cipher.getOutputSize(0), mac == null ? 0 : mac.getMacLength()));
+                writeSecure(cipher.doFinal(buffer, 0));
+
+                if (mac != null)
+                {
+                    mac.doFinal(buffer, 0);
+                    out.write(buffer, 0, mac.getMacLength());
+                }
+            }
+            catch (IOException e)
+            {
+                throw e;
+            }
+            catch (Exception e)
+            {
+                throw new IOException(e);
+            }
+        }
+
+        private void writeSecure(int count) throws IOException
+        {
+            if (count > 0)
+            {
+                if (mac != null)
+                {
+                    mac.update(buffer, 0, count);
+                }
+                out.write(buffer, 0, count);
+            }
+        }
+
+        private void ensureBufferSize(int size)
+        {
+            if (buffer.length < size)
+            {
+                buffer = new byte[Math.max(size, buffer.length * 2)];
+            }
+        }
+    }
+
+    /**
+     * Reads the chars of an ISO-8859-1 string as bytes, without copying the string. Like
+     * {@link String#getBytes(java.nio.charset.Charset)}, chars that are not ISO-8859-1 are read as '?'.
+     */
+    private static final class Latin1StringInputStream extends InputStream
+    {
+        private final String string;
+        private int position;
+
+        Latin1StringInputStream(String string)
+        {
+            this.string = string;
+        }
+
+        @Override
+        public int read()
+        {
+            return position < string.length() ? toLatin1(string.charAt(position++)) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len)
+        {
+            int remaining = string.length() - position;
+            if (remaining <= 0)
+            {
+                return len == 0 ? 0 : -1;
+            }
+
+            int count = Math.min(len, remaining);
+            for (int i = 0; i < count; i++)
+            {
+                b[off + i] = (byte) toLatin1(string.charAt(position++));
+            }
+            return count;
+        }
+
+        @Override
+        public int available()
+        {
+            return string.length() - position;
+        }
+
+        private static int toLatin1(char c)
+        {
+            return c <= 0xFF ? c : '?';
+        }
+    }
 }
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A serialized view stored as the difference to the serialized snapshot of a previous view.
+ * 
+ * <p>The snapshot array is shared by all the deltas created against it, so it stays in memory (and is
+ * written only once when the session is serialized) as long as one of them is alive, even when the view
+ * it belonged to has been discarded. The difference is a list of instructions: a literal run of bytes
+ * followed by a copy of a range of the snapshot, both lengths as varints.</p>
+ */
+final class ViewStateDelta implements Serializable
+{
+    private static final long serialVersionUID = -2190846237311046702L;
+
+    /**
+     * Size of the blocks of the snapshot indexed to find matches.
+     */
+    private static final int BLOCK_SIZE = 16;
+
+    private final byte[] snapshot;
+    private final byte[] diff;
+    private final int length;
+    private final int chainLength;
+
+    private ViewStateDelta(byte[] snapshot, byte[] diff, int length, int chainLength)
+    {
+        this.snapshot = snapshot;
+        this.diff = diff;
+        this.length = length;
+        this.chainLength = chainLength;
+    }
+
+    /**
+     * Creates the delta of the given view against the previous stored one.
+     * 
+     * @param previous the value stored for the previous view, either a full snapshot or a delta
+     * @param bytes the serialized view
+     * @param maxChainLength maximum number of deltas against the same snapshot
+     * @return the delta or null if a full snapshot should be stored instead
+     */
+    static ViewStateDelta create(Object previous, byte[] bytes, int maxChainLength)
+    {
+        byte[] snapshot;
+        int chainLength;
+        if (previous instanceof ViewStateDelta delta)
+        {
+            snapshot = delta.snapshot;
+            chainLength = delta.chainLength + 1;
+        }
+        else if (previous instanceof byte[] previousBytes)
+        {
+            snapshot = previousBytes;
+            chainLength = 1;
+        }
+        else
+        {
+            return null;
+        }
+        if (chainLength > maxChainLength)
+        {
+            return null;
+        }
+
+        byte[] diff = diff(snapshot, bytes, bytes.length / 2);
+        return diff == null ? null : new ViewStateDelta(snapshot, diff, bytes.length, chainLength);
+    }
+
+    /**
+     * Rebuilds the serialized view.
+     */
+    byte[] toByteArray()
+    {
+        byte[] bytes = new byte[length];
+        int position = 0;
+        int[] cursor = new int[1];
+        while (cursor[0] < diff.length)
+        {
+            int literal = readVarInt(diff, cursor);
+            System.arraycopy(diff, cursor[0], bytes, position, literal);
+            cursor[0] += literal;
+            position += literal;
+            if (cursor[0] < diff.length)
+            {
+                int copy = readVarInt(diff, cursor);
+                int offset = readVarInt(diff, cursor);
+                System.arraycopy(snapshot, offset, bytes, position, copy);
+                position += copy;
+            }
+        }
+        return bytes;
+    }
+
+    int getDiffLength()
+    {
+        return diff.length;
+    }
+
+    int getChainLength()
+    {
+        return chainLength;
+    }
+
+    /**
+     * Encodes target as literal runs and copies of the base. Returns null as soon as the encoded
+     * difference gets bigger than maxLength.
+     */
+    static byte[] diff(byte[] base, byte[] target, int maxLength)
+    {
+        int blocks = base.length / BLOCK_SIZE;
+        int[] table = new int[Integer.highestOneBit(Math.max(blocks, 1) * 2 - 1) << 1];
+        int mask = table.length - 1;
+        for (int i = blocks - 1; i >= 0; i--)
+        {
+            // first block wins, store offset + 1 so 0 means empty
+            table[hash(base, i * BLOCK_SIZE) & mask] = i * BLOCK_SIZE + 1;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, target.length / 16));
+        int literalStart = 0;
+        int position = 0;
+        while (position + BLOCK_SIZE <= target.length)
+        {
+            int candidate = table[hash(target, position) & mask] - 1;
+            if (candidate < 0 || !Arrays.equals(base, candidate, candidate + BLOCK_SIZE,
+                    target, position, position + BLOCK_SIZE))
+            {
+                position++;
+                continue;
+            }
+
+            int start = position;
+            int offset = candidate;
+            while (start > literalStart && offset > 0 && target[start - 1] == base[offset - 1])
+            {
+                start--;
+                offset--;
+            }
+            int end = position + BLOCK_SIZE;
+            int baseEnd = candidate + BLOCK_SIZE;
+            while (end < target.length && baseEnd < base.length && target[end] == base[baseEnd])
+            {
+                end++;
+                baseEnd++;
+            }
+
+            writeVarInt(out, start - literalStart);
+            out.write(target, literalStart, start - literalStart);
+            writeVarInt(out, end - start);
+            writeVarInt(out, offset);
+            if (out.size() > maxLength)
+            {
+                return null;
+            }
+            position = end;
+            literalStart = end;
+        }
+
+        if (literalStart < target.length)
+        {
+            writeVarInt(out, target.length - literalStart);
+            out.write(target, literalStart, target.length - literalStart);
+        }
+        return out.size() > maxLength ? null : out.toByteArray();
+    }
+
+    private static int hash(byte[] bytes, int offset)
+    {
+        int hash = 0;
+        for (int i = offset, end = offset + BLOCK_SIZE; i < end; i++)
+        {
+            hash = 31 * hash + bytes[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value)
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(byte[] bytes, int[] cursor)
+    {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do
+        {
+            b = bytes[cursor[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        }
+        while (b < 0);
+        return value;
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jakarta.faces.context.ExternalContext;
+import jakarta.faces.context.FacesContext;
+import jakarta.servlet.ServletContext;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+
+/**
+ * Keeps serialized views outside of the java heap, either in direct memory or in a memory mapped file
+ * under the temp dir of the application. The space is split in fixed size blocks and the least recently
+ * used views are evicted when there are not enough free blocks for a new one.
+ * 
+ * <p>The store is local to the JVM and shared by all sessions of the application. It is registered in the
+ * application map under {@link #APPLICATION_MAP_KEY}, so hits, misses and evictions can be monitored.</p>
+ */
+public class ViewStateStore
+{
+    private static final Logger log = Logger.getLogger(ViewStateStore.class.getName());
+
+    public static final String APPLICATION_MAP_KEY = ViewStateStore.class.getName();
+
+    private static final int BLOCK_SIZE = 4096;
+
+    private final ByteBuffer storage;
+    private final int[] freeBlocks;
+    private int freeBlockCount;
+    private final Map<Object, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long size;
+    private boolean closed;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private static final class Entry
+    {
+        private final int length;
+        private final int[] blocks;
+
+        private Entry(int length, int[] blocks)
+        {
+            this.length = length;
+            this.blocks = blocks;
+        }
+    }
+
+    protected ViewStateStore(ByteBuffer storage)
+    {
+        this.storage = storage;
+        this.freeBlocks = new int[storage.capacity() / BLOCK_SIZE];
+        for (int i = 0; i < freeBlocks.length; i++)
+        {
+            freeBlocks[i] = freeBlocks.length - 1 - i;
+        }
+        this.freeBlockCount = freeBlocks.length;
+    }
+
+    /**
+     * Creates a store in direct memory.
+     */
+    public static ViewStateStore offHeap(long maxSize)
+    {
+        return new ViewStateStore(ByteBuffer.allocateDirect(capacity(maxSize)));
+    }
+
+    /**
+     * Creates a store in a memory mapped file inside the given directory. The file is deleted right after
+     * it is mapped where the platform allows it, otherwise on exit.
+     */
+    public static ViewStateStore mappedFile(File directory, long maxSize) throws IOException
+    {
+        directory.mkdirs();
+        File file = File.createTempFile("myfaces-viewstate", ".bin", directory);
+        ByteBuffer storage;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel())
+        {
+            storage = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity(maxSize));
+        }
+        try
+        {
+            Files.delete(file.toPath());
+        }
+        catch (IOException e)
+        {
+            file.deleteOnExit();
+        }
+        return new ViewStateStore(storage);
+    }
+
+    private static int capacity(long maxSize)
+    {
+        long blocks = Math.max(1L, Math.min(maxSize, Integer.MAX_VALUE) / BLOCK_SIZE);
+        return (int) (blocks * BLOCK_SIZE);
+    }
+
+    /**
+     * Returns the store of the current application, creating it the first time according to
+     * {@link MyfacesConfig#VIEW_STATE_STORE}, or null if views are kept in the session.
+     */
+    public static ViewStateStore getCurrentInstance(FacesContext facesContext)
+    {
+        ExternalContext externalContext = facesContext.getExternalContext();
+        Map<String, Object> applicationMap = externalContext.getApplicationMap();
+        ViewStateStore store = (ViewStateStore) applicationMap.get(APPLICATION_MAP_KEY);
+        if (store == null)
+        {
+            MyfacesConfig config = MyfacesConfig.getCurrentInstance(externalContext);
+            String mode = config.getViewStateStore();
+            if (!MyfacesConfig.VIEW_STATE_STORE_OFF_HEAP.equals(mode)
+                    && !MyfacesConfig.VIEW_STATE_STORE_MAPPED_FILE.equals(mode))
+            {
+                return null;
+            }
+
+            synchronized (applicationMap)
+            {
+                store = (ViewStateStore) applicationMap.get(APPLICATION_MAP_KEY);
+                if (store == null)
+                {
+                    store = createStore(applicationMap, mode, config.getViewStateStoreMaxSize());
+                    applicationMap.put(APPLICATION_MAP_KEY, store);
+                }
+            }
+        }
+        return store;
+    }
+
+    private static ViewStateStore createStore(Map<String, Object> applicationMap, String mode, long maxSize)
+    {
+        if (MyfacesConfig.VIEW_STATE_STORE_MAPPED_FILE.equals(mode))
+        {
+            File directory = (File) applicationMap.get(ServletContext.TEMPDIR);
+            if (directory == null)
+            {
+                directory = new File(System.getProperty("java.io.tmpdir"));
+            }
+            try
+            {
+                return mappedFile(new File(directory, "oam-viewstate"), maxSize);
+            }
+            catch (IOException e)
+            {
+                log.log(Level.WARNING, "Could not create memory mapped view state store in " + directory
+                        + ", using direct memory instead", e);
+            }
+        }
+        return offHeap(maxSize);
+    }
+
+    /**
+     * Closes the store of the application, if there is one. Called when the application is destroyed.
+     *
+     * @param externalContext the ExternalContext of the application
+     */
+    public static void release(ExternalContext externalContext)
+    {
+        ViewStateStore store = (ViewStateStore) externalContext.getApplicationMap().remove(APPLICATION_MAP_KEY);
+        if (store != null)
+        {
+            store.close();
+        }
+    }
+
+    /**
+     * Drops all views, later calls do not store anything. The memory is given back once the store is
+     * garbage collected, as the buffer cannot be freed explicitly.
+     */
+    public synchronized void close()
+    {
+        closed = true;
+        entries.clear();
+        freeBlockCount = 0;
+        size = 0;
+    }
+
+    /**
+     * Stores the bytes under the given key, evicting the least recently used entries if necessary.
+     * 
+     * @return false if the bytes are bigger than the whole store or the store is closed, and were not stored
+     */
+    public synchronized boolean put(Object key, byte[] bytes)
+    {
+        remove(key);
+
+        int blockCount = (bytes.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        if (closed || blockCount > freeBlocks.length)
+        {
+            return false;
+        }
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (freeBlockCount < blockCount)
+        {
+            free(eldest.next());
+            eldest.remove();
+            evictions.increment();
+        }
+
+        int[] blocks = new int[blockCount];
+        for (int i = 0; i < blockCount; i++)
+        {
+            blocks[i] = freeBlocks[--freeBlockCount];
+            int offset = i * BLOCK_SIZE;
+            storage.put(blocks[i] * BLOCK_SIZE, bytes, offset, Math.min(BLOCK_SIZE, bytes.length - offset));
+        }
+        entries.put(key, new Entry(bytes.length, blocks));
+        size += bytes.length;
+        return true;
+    }
+
+    /**
+     * @return a copy of the stored bytes, or null if there is nothing stored under the key (never stored,
+     *      removed or evicted)
+     */
+    public synchronized byte[] get(Object key)
+    {
+        Entry entry = entries.get(key);
+        if (entry == null)
+        {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+
+        byte[] bytes = new byte[entry.length];
+        for (int i = 0; i < entry.blocks.length; i++)
+        {
+            int offset = i * BLOCK_SIZE;
+            storage.get(entry.blocks[i] * BLOCK_SIZE, bytes, offset, Math.min(BLOCK_SIZE, bytes.length - offset));
+        }
+        return bytes;
+    }
+
+    public synchronized void remove(Object key)
+    {
+        Entry entry = entries.remove(key);
+        if (entry != null)
+        {
+            free(entry);
+        }
+    }
+
+    private void free(Entry entry)
+    {
+        for (int block : entry.blocks)
+        {
+            freeBlocks[freeBlockCount++] = block;
+        }
+        size -= entry.length;
+    }
+
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    public long getEvictions()
+    {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the number of bytes of the stored views
+     */
+    public synchronized long getSize()
+    {
+        return size;
+    }
+
+    public long getMaxSize()
+    {
+        return storage.capacity();
+    }
+
+    public synchronized int getEntryCount()
+    {
+        return entries.size();
+    }
+}
@@ -790,6 +790,266 @@
     public static final String DISABLE_OPTIONAL_EL_RESOLVER = "org.apache.myfaces.DISABLE_OPTIONAL_EL_RESOLVER";
     public static final boolean DISABLE_OPTIONAL_EL_RESOLVER_DEFAULT = false;
    
+    /**
+     * Defines where the serialized views are kept when the state saving method is "server". With "session"
+     * (default) the views are kept in the session. With "offHeap" or "mappedFile" only the keys are kept in
+     * the session and the serialized views are written to a store of
+     * <code>org.apache.myfaces.VIEW_STATE_STORE_MAX_SIZE</code> bytes shared by the application, in direct
+     * memory or in a memory mapped file under the temp dir. The least recently used views are evicted
+     * when the store is full. The store is not replicated, so it is only useful with sticky sessions.
+     * 
+     * <p>The views are always serialized when a store is used, no matter what
+     * <code>jakarta.faces.SERIALIZE_SERVER_STATE</code> says.</p>
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="session", expectedValues="session, offHeap, mappedFile",
+            group="state", tags="performance")
+    public static final String VIEW_STATE_STORE = "org.apache.myfaces.VIEW_STATE_STORE";
+    public static final String VIEW_STATE_STORE_SESSION = "session";
+    public static final String VIEW_STATE_STORE_OFF_HEAP = "offHeap";
+    public static final String VIEW_STATE_STORE_MAPPED_FILE = "mappedFile";
+    private static final String VIEW_STATE_STORE_DEFAULT = VIEW_STATE_STORE_SESSION;
+
+    /**
+     * Size in bytes of the view state store used when <code>org.apache.myfaces.VIEW_STATE_STORE</code> is
+     * "offHeap" or "mappedFile". By default 64 MB.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="67108864", classType="java.lang.Long",
+            group="state", tags="performance")
+    public static final String VIEW_STATE_STORE_MAX_SIZE = "org.apache.myfaces.VIEW_STATE_STORE_MAX_SIZE";
+    private static final long VIEW_STATE_STORE_MAX_SIZE_DEFAULT = 64L * 1024 * 1024;
+
+    /**
+     * Use a lock free collection for the views stored in session when the state saving method is "server".
+     * The views are kept in a fixed size ring with an index, so concurrent requests of the same session
+     * (for example ajax polling and user clicks) do not wait on each other to save or restore a view.
+     * 
+     * <p>The slots of views that are saved again or discarded as sequential views are reused when the ring
+     * wraps around, so the order in which views are discarded can slightly differ from the default
+     * collection under heavy concurrency.</p>
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="false", expectedValues="true, false",
+            group="state", tags="performance")
+    public static final String CONCURRENT_VIEW_COLLECTION = "org.apache.myfaces.CONCURRENT_VIEW_COLLECTION";
+    private static final boolean CONCURRENT_VIEW_COLLECTION_DEFAULT = false;
+
+    /**
+     * Maximum number of sequential views that are stored in session as a delta against the same full
+     * snapshot. Only applicable if state saving method is "server" (= default). If greater than 0, a view
+     * restored from the session and saved again is stored as the binary difference to the serialized
+     * snapshot of the view it comes from, until this length is reached or the difference gets too big,
+     * then a new full snapshot is stored. This reduces the session size a lot for ajax heavy pages.
+     * 
+     * <p>The state is always serialized and not compressed when this feature is active, no matter what
+     * <code>jakarta.faces.SERIALIZE_SERVER_STATE</code> and
+     * <code>org.apache.myfaces.COMPRESS_STATE_IN_SESSION</code> say. It requires
+     * <code>org.apache.myfaces.NUMBER_OF_SEQUENTIAL_VIEWS_IN_SESSION</code> to be active. By default 0
+     * (disabled). Not used together with <code>org.apache.myfaces.VIEW_STATE_STORE</code>.</p>
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="0", classType="java.lang.Integer",
+            group="state", tags="performance")
+    public static final String DELTA_STATE_IN_SESSION_CHAIN_LENGTH
+            = "org.apache.myfaces.DELTA_STATE_IN_SESSION_CHAIN_LENGTH";
+    private static final int DELTA_STATE_IN_SESSION_CHAIN_LENGTH_DEFAULT = 0;
+
+    /**
+     * Codec used when the view state is compressed (see <code>org.apache.myfaces.COMPRESS_STATE_IN_CLIENT</code>
+     * and <code>org.apache.myfaces.COMPRESS_STATE_IN_SESSION</code>). "gzip" (default) uses GZIP streams with
+     * default settings. "deflate" uses raw deflate at <code>org.apache.myfaces.STATE_COMPRESSION_LEVEL</code>
+     * with a preset dictionary of the class names and strings common in view states, reuses the
+     * Deflater/Inflater instances and does not compress states smaller than
+     * <code>org.apache.myfaces.STATE_COMPRESSION_THRESHOLD</code> bytes.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="gzip", expectedValues="gzip, deflate",
+            group="state", tags="performance")
+    public static final String STATE_COMPRESSION = "org.apache.myfaces.STATE_COMPRESSION";
+    public static final String STATE_COMPRESSION_GZIP = "gzip";
+    public static final String STATE_COMPRESSION_DEFLATE = "deflate";
+    private static final String STATE_COMPRESSION_DEFAULT = STATE_COMPRESSION_GZIP;
+
+    /**
+     * Compression level of the "deflate" state compression, from 0 (no compression) or 1 (fastest) to 9
+     * (smallest). Other values are ignored with a warning. By default 6.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="6", classType="java.lang.Integer",
+            group="state", tags="performance")
+    public static final String STATE_COMPRESSION_LEVEL = "org.apache.myfaces.STATE_COMPRESSION_LEVEL";
+    private static final int STATE_COMPRESSION_LEVEL_DEFAULT = 6;
+
+    /**
+     * States smaller than this number of bytes are not compressed by the "deflate" state compression,
+     * because the gain does not pay for the CPU time. By default 1024.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="1024", classType="java.lang.Integer",
+            group="state", tags="performance")
+    public static final String STATE_COMPRESSION_THRESHOLD = "org.apache.myfaces.STATE_COMPRESSION_THRESHOLD";
+    private static final int STATE_COMPRESSION_THRESHOLD_DEFAULT = 1024;
+
+    /**
+     * Directory where compiled Facelets are stored in a binary form, keyed by a hash of their source. When
+     * a Facelet is compiled again, for example after a restart, it is read from this directory instead of
+     * being parsed. The directory can be populated on a first start and shipped with the application.
+     * By default it is not set and Facelets are always parsed.
+     */
+    @JSFWebConfigParam(since="5.0", group="viewhandler", tags="performance")
+    public static final String FACELETS_COMPILED_CACHE_DIRECTORY =
+            "org.apache.myfaces.FACELETS_COMPILED_CACHE_DIRECTORY";
+
+    /**
+     * Render the response without holding the page in memory to insert the client side state. When enabled,
+     * the state of the view is saved when the first form writes its jakarta.faces.ViewState field, and the
+     * same state is written into every form of the page, so the output can be flushed while it is rendered.
+     * Changes done to the component tree while rendering after the first form are not part of the saved state.
+     * Server side state saving always streams the response. By default false.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="false", expectedValues="true, false",
+            group="render", tags="performance")
+    public static final String STREAMING_RENDER = "org.apache.myfaces.STREAMING_RENDER";
+    private static final boolean STREAMING_RENDER_DEFAULT = false;
+
+    /**
+     * Encode the rendered response to UTF-8 directly into the servlet OutputStream, through pooled byte buffers,
+     * instead of buffering chars that the container writer encodes again. It is only used when the response
+     * character encoding is UTF-8. Code that writes to the servlet response with getWriter() instead of
+     * ExternalContext.getResponseOutputWriter() can not be mixed with this mode. By default false.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="false", expectedValues="true, false",
+            group="render", tags="performance")
+    public static final String DIRECT_UTF8_RESPONSE_OUTPUT = "org.apache.myfaces.DIRECT_UTF8_RESPONSE_OUTPUT";
+    private static final boolean DIRECT_UTF8_RESPONSE_OUTPUT_DEFAULT = false;
+
+    /**
+     * Write the content of partial response CDATA sections through a single writer that filters illegal XML
+     * characters and escapes CDATA ends in one pass, instead of chaining a new response writer and filter writer
+     * for each section. Nested CDATA sections are escaped once, as literal text of the enclosing section.
+     * By default false.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="false", expectedValues="true, false",
+            group="render", tags="performance")
+    public static final String STREAMING_PARTIAL_RESPONSE_WRITER
+            = "org.apache.myfaces.STREAMING_PARTIAL_RESPONSE_WRITER";
+    private static final boolean STREAMING_PARTIAL_RESPONSE_WRITER_DEFAULT = false;
+
+    /**
+     * Allow AJAX requests to ask for the partial response as JSON instead of XML, with the
+     * "myfaces.partialResponseFormat=json" request parameter. The faces.js shipped with MyFaces sends it when the
+     * "partialResponseFormat" option of myfaces.config is set to "json". The JSON form is the JsonML encoding of the
+     * partial response document. Requests that do not ask for it still get XML. By default false.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="false", expectedValues="true, false",
+            group="render", tags="performance")
+    public static final String JSON_PARTIAL_RESPONSE = "org.apache.myfaces.JSON_PARTIAL_RESPONSE";
+    private static final boolean JSON_PARTIAL_RESPONSE_DEFAULT = false;
+
+    /**
+     * Serve compressible resources (scripts, stylesheets and other text resources) gzip compressed to clients
+     * that accept it. The compressed variant of each resource is created once and cached in the temporal
+     * directory of the ServletContext, from where it is sent. Resources are not compressed in the Development
+     * project stage. By default false.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="false", expectedValues="true, false",
+            group="resources", tags="performance")
+    public static final String RESOURCE_COMPRESSION_ENABLED = "org.apache.myfaces.RESOURCE_COMPRESSION_ENABLED";
+    private static final boolean RESOURCE_COMPRESSION_ENABLED_DEFAULT = false;
+
+    /**
+     * Send a strong ETag, a hash of the resource content, with the resources served by the default
+     * ResourceHandler and answer requests with a matching If-None-Match header with 304 Not Modified.
+     * The hash is computed once and cached together with the resource, so it requires the
+     * org.apache.myfaces.RESOURCE_HANDLER_CACHE_ENABLED cache. By default false.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="false", expectedValues="true, false",
+            group="resources", tags="performance")
+    public static final String RESOURCE_ENTITY_TAG_ENABLED = "org.apache.myfaces.RESOURCE_ENTITY_TAG_ENABLED";
+    private static final boolean RESOURCE_ENTITY_TAG_ENABLED_DEFAULT = false;
+
+    /**
+     * Add the hash of the resource content to the request path of the resources created by the default
+     * ResourceHandler. Requests for the current hash are answered with "Cache-Control: max-age=31536000, immutable",
+     * so browsers do not revalidate them, requests for another hash still get the resource with the default
+     * caching. The hash is computed once and cached together with the resource, so it requires the
+     * org.apache.myfaces.RESOURCE_HANDLER_CACHE_ENABLED cache. Not used in the Development project stage.
+     * By default false.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="false", expectedValues="true, false",
+            group="resources", tags="performance")
+    public static final String RESOURCE_FINGERPRINT_ENABLED = "org.apache.myfaces.RESOURCE_FINGERPRINT_ENABLED";
+    private static final boolean RESOURCE_FINGERPRINT_ENABLED_DEFAULT = false;
+
+    /**
+     * Render the scripts and stylesheets of the head target (h:outputScript and h:outputStylesheet) with a
+     * single request for each run of resources, a generated bundle holding the resources in order. Only resources
+     * of the default ResourceHandler without additional attributes are bundled, stylesheets only if they are not
+     * in a subfolder, so relative urls resolve the same way. Scripts are concatenated as they are, stylesheets
+     * using @import must not be bundled. Not used in the Development project stage. By default false.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="false", expectedValues="true, false",
+            group="resources", tags="performance")
+    public static final String RESOURCE_BUNDLING_ENABLED = "org.apache.myfaces.RESOURCE_BUNDLING_ENABLED";
+    private static final boolean RESOURCE_BUNDLING_ENABLED_DEFAULT = false;
+
+    /**
+     * Remove comments and collapse whitespace in the stylesheet bundles created with
+     * org.apache.myfaces.RESOURCE_BUNDLING_ENABLED. Script bundles are never minified. By default false.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="false", expectedValues="true, false",
+            group="resources", tags="performance")
+    public static final String RESOURCE_BUNDLING_MINIFY = "org.apache.myfaces.RESOURCE_BUNDLING_MINIFY";
+    private static final boolean RESOURCE_BUNDLING_MINIFY_DEFAULT = false;
+
+    /**
+     * Maximum number of push messages waiting to be sent to a single websocket session. When greater than 0,
+     * PushContext.send only enqueues the message for each session and returns, a dedicated sender pool (virtual
+     * threads where available) sends the messages of each session in order, one at a time. When 0, the messages
+     * are sent by the calling thread. By default 0.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="0", group="websocket", tags="performance")
+    public static final String WEBSOCKET_SEND_QUEUE_SIZE = "org.apache.myfaces.WEBSOCKET_SEND_QUEUE_SIZE";
+    private static final int WEBSOCKET_SEND_QUEUE_SIZE_DEFAULT = 0;
+
+    /**
+     * What to do when the send queue of a slow websocket session is full: "dropOldest" discards the oldest
+     * waiting message, "dropNewest" discards the new message and "coalesce" discards all waiting messages, so
+     * only the latest one is sent. The futures of discarded messages are cancelled. By default dropOldest.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="dropOldest", expectedValues="dropOldest, dropNewest, coalesce",
+            group="websocket", tags="performance")
+    public static final String WEBSOCKET_SEND_QUEUE_OVERFLOW = "org.apache.myfaces.WEBSOCKET_SEND_QUEUE_OVERFLOW";
+    public static final String WEBSOCKET_SEND_QUEUE_OVERFLOW_DROP_OLDEST = "dropOldest";
+    public static final String WEBSOCKET_SEND_QUEUE_OVERFLOW_DROP_NEWEST = "dropNewest";
+    public static final String WEBSOCKET_SEND_QUEUE_OVERFLOW_COALESCE = "coalesce";
+    private static final String WEBSOCKET_SEND_QUEUE_OVERFLOW_DEFAULT = WEBSOCKET_SEND_QUEUE_OVERFLOW_DROP_OLDEST;
+
+    /**
+     * Relays the messages of PushContext.send to the other nodes of a cluster, so websockets connected to another
+     * node also receive them: "loopback" relays to the other applications of the same JVM using the same relay,
+     * "directory" exchanges batches of messages through the directory shared by the nodes, set with
+     * org.apache.myfaces.WEBSOCKET_RELAY_DIRECTORY. A custom org.apache.myfaces.spi.PushRelay can be registered
+     * as a service instead. By default none.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="none", expectedValues="none, loopback, directory",
+            group="websocket", tags="performance")
+    public static final String WEBSOCKET_RELAY = "org.apache.myfaces.WEBSOCKET_RELAY";
+    public static final String WEBSOCKET_RELAY_TYPE_NONE = "none";
+    public static final String WEBSOCKET_RELAY_TYPE_LOOPBACK = "loopback";
+    public static final String WEBSOCKET_RELAY_TYPE_DIRECTORY = "directory";
+    private static final String WEBSOCKET_RELAY_DEFAULT = WEBSOCKET_RELAY_TYPE_NONE;
+
+    /**
+     * The directory shared by the nodes of the "directory" websocket relay. Every node has an inbox below it
+     * and the other nodes write their batches of messages there, so the directory must only be writable by the
+     * nodes of the cluster.
+     */
+    @JSFWebConfigParam(since="5.0", group="websocket")
+    public static final String WEBSOCKET_RELAY_DIRECTORY_PATH = "org.apache.myfaces.WEBSOCKET_RELAY_DIRECTORY";
+
+    /**
+     * The interval in milliseconds between two batches of messages of the "directory" websocket relay.
+     * By default 100.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="100", group="websocket", tags="performance")
+    public static final String WEBSOCKET_RELAY_INTERVAL = "org.apache.myfaces.WEBSOCKET_RELAY_INTERVAL";
+    private static final long WEBSOCKET_RELAY_INTERVAL_DEFAULT = 100L;
+
     // we need it, applicationImpl not ready probably
     private ProjectStage projectStage = ProjectStage.Production;
     private boolean strictJsf2AllowSlashLibraryName;
@@ -872,6 +1132,28 @@
     private boolean disableOptionalResolver = DISABLE_OPTIONAL_EL_RESOLVER_DEFAULT;
     private boolean cspEnabled = false;
     private String cspHeader = null;
+    private String viewStateStore = VIEW_STATE_STORE_DEFAULT;
+    private long viewStateStoreMaxSize = VIEW_STATE_STORE_MAX_SIZE_DEFAULT;
+    private boolean concurrentViewCollection = CONCURRENT_VIEW_COLLECTION_DEFAULT;
+    private int deltaStateInSessionChainLength = DELTA_STATE_IN_SESSION_CHAIN_LENGTH_DEFAULT;
+    private String stateCompression = STATE_COMPRESSION_DEFAULT;
+    private int stateCompressionLevel = STATE_COMPRESSION_LEVEL_DEFAULT;
+    private int stateCompressionThreshold = STATE_COMPRESSION_THRESHOLD_DEFAULT;
+    private String faceletsCompiledCacheDirectory;
+    private boolean streamingRender = STREAMING_RENDER_DEFAULT;
+    private boolean directUtf8ResponseOutput = DIRECT_UTF8_RESPONSE_OUTPUT_DEFAULT;
+    private boolean streamingPartialResponseWriter = STREAMING_PARTIAL_RESPONSE_WRITER_DEFAULT;
+    private boolean jsonPartialResponse = JSON_PARTIAL_RESPONSE_DEFAULT;
+    private boolean resourceCompressionEnabled = RESOURCE_COMPRESSION_ENABLED_DEFAULT;
+    private boolean resourceEntityTagEnabled = RESOURCE_ENTITY_TAG_ENABLED_DEFAULT;
+    private boolean resourceFingerprintEnabled = RESOURCE_FINGERPRINT_ENABLED_DEFAULT;
+    private boolean resourceBundlingEnabled = RESOURCE_BUNDLING_ENABLED_DEFAULT;
+    private boolean resourceBundlingMinify = RESOURCE_BUNDLING_MINIFY_DEFAULT;
+    private int websocketSendQueueSize = WEBSOCKET_SEND_QUEUE_SIZE_DEFAULT;
+    private String websocketSendQueueOverflow = WEBSOCKET_SEND_QUEUE_OVERFLOW_DEFAULT;
+    private String websocketRelay = WEBSOCKET_RELAY_DEFAULT;
+    private String websocketRelayDirectory;
+    private long websocketRelayInterval = WEBSOCKET_RELAY_INTERVAL_DEFAULT;
 
     private static final boolean MYFACES_IMPL_AVAILABLE;
     private static final boolean RI_IMPL_AVAILABLE;
@@ -1362,6 +1644,70 @@ else if (refreshTransientBuildOnPSS.equalsIgnoreCase("true") ||
 
         cfg.cspHeader = getString(extCtx, ResourceHandler.CSP_POLICY_PARAM_NAME, ResourceHandler.DEFAULT_CSP_POLICY);
 
+        cfg.viewStateStore = getString(extCtx, VIEW_STATE_STORE, VIEW_STATE_STORE_DEFAULT);
+        cfg.viewStateStoreMaxSize = getLong(extCtx, VIEW_STATE_STORE_MAX_SIZE, VIEW_STATE_STORE_MAX_SIZE_DEFAULT);
+
+        cfg.concurrentViewCollection = getBoolean(extCtx, CONCURRENT_VIEW_COLLECTION,
+                CONCURRENT_VIEW_COLLECTION_DEFAULT);
+
+        cfg.deltaStateInSessionChainLength = getInt(extCtx, DELTA_STATE_IN_SESSION_CHAIN_LENGTH,
+                DELTA_STATE_IN_SESSION_CHAIN_LENGTH_DEFAULT);
+
+        cfg.stateCompression = getString(extCtx, STATE_COMPRESSION, STATE_COMPRESSION_DEFAULT);
+        cfg.stateCompressionLevel = getInt(extCtx, STATE_COMPRESSION_LEVEL, STATE_COMPRESSION_LEVEL_DEFAULT);
+        if (cfg.stateCompressionLevel < 0 || cfg.stateCompressionLevel > 9)
+        {
+            Logger.getLogger(MyfacesConfig.class.getName()).warning(
+                "The configuration '" + STATE_COMPRESSION_LEVEL + "' must be between 0 and 9, but is "
+                    + cfg.stateCompressionLevel + ". Using the default " + STATE_COMPRESSION_LEVEL_DEFAULT);
+            cfg.stateCompressionLevel = STATE_COMPRESSION_LEVEL_DEFAULT;
+        }
+        cfg.stateCompressionThreshold = getInt(extCtx, STATE_COMPRESSION_THRESHOLD,
+                STATE_COMPRESSION_THRESHOLD_DEFAULT);
+
+        cfg.faceletsCompiledCacheDirectory = getString(extCtx, FACELETS_COMPILED_CACHE_DIRECTORY, null);
+
+        cfg.streamingRender = getBoolean(extCtx, STREAMING_RENDER, STREAMING_RENDER_DEFAULT);
+
+        cfg.directUtf8ResponseOutput = getBoolean(extCtx, DIRECT_UTF8_RESPONSE_OUTPUT,
+                DIRECT_UTF8_RESPONSE_OUTPUT_DEFAULT);
+
+        cfg.streamingPartialResponseWriter = getBoolean(extCtx, STREAMING_PARTIAL_RESPONSE_WRITER,
+                STREAMING_PARTIAL_RESPONSE_WRITER_DEFAULT);
+
+        cfg.jsonPartialResponse = getBoolean(extCtx, JSON_PARTIAL_RESPONSE,
+                JSON_PARTIAL_RESPONSE_DEFAULT);
+
+        cfg.resourceCompressionEnabled = getBoolean(extCtx, RESOURCE_COMPRESSION_ENABLED,
+                RESOURCE_COMPRESSION_ENABLED_DEFAULT);
+
+        cfg.resourceEntityTagEnabled = getBoolean(extCtx, RESOURCE_ENTITY_TAG_ENABLED,
+                RESOURCE_ENTITY_TAG_ENABLED_DEFAULT);
+
+        cfg.resourceFingerprintEnabled = getBoolean(extCtx, RESOURCE_FINGERPRINT_ENABLED,
+                RESOURCE_FINGERPRINT_ENABLED_DEFAULT);
+
+        cfg.resourceBundlingEnabled = getBoolean(extCtx, RESOURCE_BUNDLING_ENABLED,
+                RESOURCE_BUNDLING_ENABLED_DEFAULT);
+        cfg.resourceBundlingMinify = getBoolean(extCtx, RESOURCE_BUNDLING_MINIFY,
+                RESOURCE_BUNDLING_MINIFY_DEFAULT);
+
+        cfg.websocketSendQueueSize = getInt(extCtx, WEBSOCKET_SEND_QUEUE_SIZE,
+                WEBSOCKET_SEND_QUEUE_SIZE_DEFAULT);
+        cfg.websocketSendQueueOverflow = getString(extCtx, WEBSOCKET_SEND_QUEUE_OVERFLOW,
+                WEBSOCKET_SEND_QUEUE_OVERFLOW_DEFAULT);
+
+        cfg.websocketRelay = getString(extCtx, WEBSOCKET_RELAY, WEBSOCKET_RELAY_DEFAULT);
+        cfg.websocketRelayDirectory = getString(extCtx, WEBSOCKET_RELAY_DIRECTORY_PATH, null);
+        cfg.websocketRelayInterval = getLong(extCtx, WEBSOCKET_RELAY_INTERVAL, WEBSOCKET_RELAY_INTERVAL_DEFAULT);
+        if (cfg.websocketRelayInterval <= 0)
+        {
+            Logger.getLogger(MyfacesConfig.class.getName()).warning(
+                "The configuration '" + WEBSOCKET_RELAY_INTERVAL + "' must be greater than 0, but is "
+                    + cfg.websocketRelayInterval + ". Using the default " + WEBSOCKET_RELAY_INTERVAL_DEFAULT);
+            cfg.websocketRelayInterval = WEBSOCKET_RELAY_INTERVAL_DEFAULT;
+        }
+
         return cfg;
     }
 
@@ -1847,5 +2193,114 @@ public String getCspHeader()
     {
         return cspHeader;
     }
-}
 
+    public String getViewStateStore()
+    {
+        return viewStateStore;
+    }
+
+    public long getViewStateStoreMaxSize()
+    {
+        return viewStateStoreMaxSize;
+    }
+
+    public boolean isConcurrentViewCollection()
+    {
+        return concurrentViewCollection;
+    }
+
+    public int getDeltaStateInSessionChainLength()
+    {
+        return deltaStateInSessionChainLength;
+    }
+
+    public String getStateCompression()
+    {
+        return stateCompression;
+    }
+
+    public int getStateCompressionLevel()
+    {
+        return stateCompressionLevel;
+    }
+
+    public int getStateCompressionThreshold()
+    {
+        return stateCompressionThreshold;
+    }
+
+    public String getFaceletsCompiledCacheDirectory()
+    {
+        return faceletsCompiledCacheDirectory;
+    }
+
+    public boolean isStreamingRender()
+    {
+        return streamingRender;
+    }
+
+    public boolean isDirectUtf8ResponseOutput()
+    {
+        return directUtf8ResponseOutput;
+    }
+
+    public boolean isStreamingPartialResponseWriter()
+    {
+        return streamingPartialResponseWriter;
+    }
+
+    public boolean isJsonPartialResponse()
+    {
+        return jsonPartialResponse;
+    }
+
+    public boolean isResourceCompressionEnabled()
+    {
+        return resourceCompressionEnabled;
+    }
+
+    public boolean isResourceEntityTagEnabled()
+    {
+        return resourceEntityTagEnabled;
+    }
+
+    public boolean isResourceFingerprintEnabled()
+    {
+        return resourceFingerprintEnabled;
+    }
+
+    public boolean isResourceBundlingEnabled()
+    {
+        return resourceBundlingEnabled;
+    }
+
+    public boolean isResourceBundlingMinify()
+    {
+        return resourceBundlingMinify;
+    }
+
+    public int getWebsocketSendQueueSize()
+    {
+        return websocketSendQueueSize;
+    }
+
+    public String getWebsocketSendQueueOverflow()
+    {
+        return websocketSendQueueOverflow;
+    }
+
+    public String getWebsocketRelay()
+    {
+        return websocketRelay;
+    }
+
+    public String getWebsocketRelayDirectory()
+    {
+        return websocketRelayDirectory;
+    }
+
+    public long getWebsocketRelayInterval()
+    {
+        return websocketRelayInterval;
+    }
+}
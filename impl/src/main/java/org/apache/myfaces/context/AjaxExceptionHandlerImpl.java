@@ -209,7 +209,8 @@ public void handle() throws FacesException
                 partialWriter = partialViewContext.getPartialResponseWriter();
 
                 // ajax request --> xml error page 
-                externalContext.setResponseContentType("text/xml");
+                externalContext.setResponseContentType(
+                        JsonPartialResponseWriterImpl.getResponseContentType(partialWriter));
                 externalContext.setResponseCharacterEncoding("UTF-8");
                 externalContext.addResponseHeader("Cache-control", "no-cache");
                 
@@ -0,0 +1,439 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.context;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import jakarta.faces.component.UIComponent;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.context.PartialResponseWriter;
+import jakarta.faces.context.ResponseWriter;
+import jakarta.faces.context.ResponseWriterWrapper;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.util.JsonStringEscapeFilterWriter;
+
+/**
+ * <p>
+ * Partial response writer that writes the partial response document as JSON instead of XML, using the
+ * JsonML array form: each element is an array whose first item is the element name, followed by an
+ * optional object with the attributes and then by the children. Text and CDATA sections are strings.
+ * </p><p>
+ * For example <code>&lt;partial-response id="v"&gt;&lt;changes&gt;&lt;update id="a"&gt;
+ * &lt;![CDATA[&lt;b&gt;x&lt;/b&gt;]]&gt;&lt;/update&gt;&lt;/changes&gt;&lt;/partial-response&gt;</code> is written as
+ * <code>["partial-response",{"id":"v"},["changes",["update",{"id":"a"},"&lt;b&gt;x&lt;/b&gt;"]]]</code>.
+ * </p><p>
+ * The content of each top level CDATA section is rendered by a clone of the wrapped writer straight into the JSON
+ * string, so there is no CDATA end escaping. Nested CDATA sections are written as text of the enclosing one.
+ * </p><p>
+ * The writer is only used when {@link MyfacesConfig#JSON_PARTIAL_RESPONSE} is enabled and the client asks for it
+ * with the {@link #FORMAT_PARAM} request parameter. The faces.js shipped with MyFaces decodes the response back
+ * into a partial response document.
+ * </p>
+ */
+public class JsonPartialResponseWriterImpl extends PartialResponseWriter
+{
+    public static final String FORMAT_PARAM = "myfaces.partialResponseFormat";
+    public static final String FORMAT_JSON = "json";
+    public static final String CONTENT_TYPE = "application/json";
+    public static final String XML_CONTENT_TYPE = "text/xml";
+
+    private final Writer out;
+    private final JsonStringEscapeFilterWriter stringWriter;
+
+    private ResponseWriter cdataWriter;
+    private int cdataDepth;
+    private int elementDepth;
+    private boolean startTagOpen;
+    private boolean attributesOpen;
+
+    public JsonPartialResponseWriterImpl(ResponseWriter writer)
+    {
+        super(writer);
+        this.out = writer;
+        this.stringWriter = new JsonStringEscapeFilterWriter(writer,
+                !"UTF-8".equalsIgnoreCase(writer.getCharacterEncoding()));
+    }
+
+    /**
+     * Checks if the current partial request asks for a JSON partial response and the application allows it.
+     */
+    public static boolean isRequested(FacesContext context)
+    {
+        return MyfacesConfig.getCurrentInstance(context).isJsonPartialResponse()
+                && FORMAT_JSON.equals(context.getExternalContext().getRequestParameterMap().get(FORMAT_PARAM));
+    }
+
+    /**
+     * Returns the response content type to use for the given partial response writer.
+     */
+    public static String getResponseContentType(ResponseWriter writer)
+    {
+        ResponseWriter current = writer;
+        while (current != null)
+        {
+            if (current instanceof JsonPartialResponseWriterImpl)
+            {
+                return CONTENT_TYPE;
+            }
+            current = current instanceof ResponseWriterWrapper wrapper ? wrapper.getWrapped() : null;
+        }
+        return XML_CONTENT_TYPE;
+    }
+
+    @Override
+    public String getContentType()
+    {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public void writePreamble(String preamble) throws IOException
+    {
+        // no xml declaration in json
+    }
+
+    @Override
+    public void writeDoctype(String doctype) throws IOException
+    {
+        // no doctype in json
+    }
+
+    @Override
+    public void startDocument() throws IOException
+    {
+        cdataWriter = null;
+        cdataDepth = 0;
+        elementDepth = 0;
+        startTagOpen = false;
+        attributesOpen = false;
+        super.startDocument();
+    }
+
+    @Override
+    public void startCDATA() throws IOException
+    {
+        if (cdataDepth == 0)
+        {
+            startChild();
+            out.write('"');
+            cdataWriter = getWrapped().cloneWithWriter(stringWriter);
+        }
+        else
+        {
+            cdataWriter.write("<![CDATA[");
+        }
+        cdataDepth++;
+    }
+
+    @Override
+    public void endCDATA() throws IOException
+    {
+        if (cdataDepth == 0)
+        {
+            return;
+        }
+        cdataDepth--;
+        if (cdataDepth > 0)
+        {
+            cdataWriter.write("]]>");
+        }
+        else
+        {
+            // close any start tag left open by the content before the string ends
+            cdataWriter.flush();
+            cdataWriter = null;
+            out.write('"');
+        }
+    }
+
+    /**
+     * Ends the open CDATA section, including any nested section a component did not close.
+     */
+    private void closeCDATA() throws IOException
+    {
+        if (cdataDepth > 0)
+        {
+            cdataDepth = 1;
+            endCDATA();
+        }
+    }
+
+    @Override
+    public void endInsert() throws IOException
+    {
+        closeCDATA();
+        super.endInsert();
+    }
+
+    @Override
+    public void endUpdate() throws IOException
+    {
+        closeCDATA();
+        super.endUpdate();
+    }
+
+    @Override
+    public void endExtension() throws IOException
+    {
+        closeCDATA();
+        super.endExtension();
+    }
+
+    @Override
+    public void endEval() throws IOException
+    {
+        closeCDATA();
+        super.endEval();
+    }
+
+    @Override
+    public void endError() throws IOException
+    {
+        closeCDATA();
+        super.endError();
+    }
+
+    private void startChild() throws IOException
+    {
+        closeStartTag();
+        if (elementDepth > 0)
+        {
+            out.write(',');
+        }
+    }
+
+    private void closeStartTag() throws IOException
+    {
+        if (attributesOpen)
+        {
+            out.write('}');
+            attributesOpen = false;
+        }
+        startTagOpen = false;
+    }
+
+    private void writeString(String value) throws IOException
+    {
+        out.write('"');
+        stringWriter.write(value);
+        out.write('"');
+    }
+
+    private void writeTextChild(String text) throws IOException
+    {
+        startChild();
+        writeString(text);
+    }
+
+    @Override
+    public void startElement(String name, UIComponent component) throws IOException
+    {
+        if (cdataDepth > 0)
+        {
+            cdataWriter.startElement(name, component);
+            return;
+        }
+        startChild();
+        out.write('[');
+        writeString(name);
+        elementDepth++;
+        startTagOpen = true;
+    }
+
+    @Override
+    public void endElement(String name) throws IOException
+    {
+        if (cdataDepth > 0)
+        {
+            cdataWriter.endElement(name);
+            return;
+        }
+        closeStartTag();
+        out.write(']');
+        elementDepth--;
+    }
+
+    @Override
+    public void writeAttribute(String name, Object value, String property) throws IOException
+    {
+        if (cdataDepth > 0)
+        {
+            cdataWriter.writeAttribute(name, value, property);
+            return;
+        }
+        writeEnvelopeAttribute(name, value);
+    }
+
+    @Override
+    public void writeURIAttribute(String name, Object value, String property) throws IOException
+    {
+        if (cdataDepth > 0)
+        {
+            cdataWriter.writeURIAttribute(name, value, property);
+            return;
+        }
+        writeEnvelopeAttribute(name, value);
+    }
+
+    private void writeEnvelopeAttribute(String name, Object value) throws IOException
+    {
+        if (!startTagOpen)
+        {
+            throw new IllegalStateException("Must be called before the start element is closed (attribute '"
+                    + name + "')");
+        }
+        out.write(attributesOpen ? "," : ",{");
+        attributesOpen = true;
+        writeString(name);
+        out.write(':');
+        writeString(value == null ? "" : value.toString());
+    }
+
+    @Override
+    public void writeComment(Object comment) throws IOException
+    {
+        if (cdataDepth > 0)
+        {
+            cdataWriter.writeComment(comment);
+        }
+        // comments are not part of the json document
+    }
+
+    @Override
+    public void writeText(Object text, String property) throws IOException
+    {
+        if (cdataDepth > 0)
+        {
+            cdataWriter.writeText(text, property);
+            return;
+        }
+        writeTextChild(text.toString());
+    }
+
+    @Override
+    public void writeText(Object text, UIComponent component, String property) throws IOException
+    {
+        if (cdataDepth > 0)
+        {
+            cdataWriter.writeText(text, component, property);
+            return;
+        }
+        writeTextChild(text.toString());
+    }
+
+    @Override
+    public void writeText(char[] text, int off, int len) throws IOException
+    {
+        if (cdataDepth > 0)
+        {
+            cdataWriter.writeText(text, off, len);
+            return;
+        }
+        writeTextChild(new String(text, off, len));
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException
+    {
+        if (cdataDepth > 0)
+        {
+            cdataWriter.write(cbuf, off, len);
+            return;
+        }
+        writeTextChild(new String(cbuf, off, len));
+    }
+
+    @Override
+    public void write(char[] cbuf) throws IOException
+    {
+        write(cbuf, 0, cbuf.length);
+    }
+
+    @Override
+    public void write(int c) throws IOException
+    {
+        if (cdataDepth > 0)
+        {
+            cdataWriter.write(c);
+            return;
+        }
+        writeTextChild(String.valueOf((char) c));
+    }
+
+    @Override
+    public void write(String str) throws IOException
+    {
+        if (cdataDepth > 0)
+        {
+            cdataWriter.write(str);
+            return;
+        }
+        writeTextChild(str);
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException
+    {
+        if (cdataDepth > 0)
+        {
+            cdataWriter.write(str, off, len);
+            return;
+        }
+        writeTextChild(str.substring(off, off + len));
+    }
+
+    @Override
+    public Writer append(char c) throws IOException
+    {
+        write(c);
+        return this;
+    }
+
+    @Override
+    public Writer append(CharSequence csq) throws IOException
+    {
+        write(String.valueOf(csq));
+        return this;
+    }
+
+    @Override
+    public Writer append(CharSequence csq, int start, int end) throws IOException
+    {
+        write(String.valueOf(csq).substring(start, end));
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        if (cdataDepth > 0)
+        {
+            cdataWriter.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        closeCDATA();
+        super.close();
+    }
+}
@@ -30,6 +30,7 @@
 
 import org.apache.myfaces.util.CDataEndEscapeFilterWriter;
 import org.apache.myfaces.util.IllegalXmlCharacterFilterWriter;
+import org.apache.myfaces.util.PartialResponseFilterWriter;
 
 /**
  * <p>
@@ -64,6 +65,11 @@
  * </p><p>
  * For now I will only implement this in the impl, due to the spec stating
  * that implementations are responsible of the correct CDATA handling!
+ * </p><p>
+ * In streaming mode there is no nesting stack. The whole response goes through one
+ * {@link PartialResponseFilterWriter}, which escapes CDATA ends only while a CDATA section is open,
+ * and the content of each top level section is written by a single clone of the wrapped writer.
+ * Nested CDATA sections are written as text of the enclosing one, so they are escaped once.
  * </p>
  * 
  * @author Werner Punz (latest modification by $Author$)
@@ -109,14 +115,51 @@ public void setDoubleBuffer(Writer doubleBuffer)
     private Writer doubleBuffer = null;
     private List<StackEntry> nestingStack = new ArrayList<>(4);
 
+    private final PartialResponseFilterWriter streamingWriter;
+    private int cdataDepth;
+
     public PartialResponseWriterImpl(ResponseWriter writer)
     {
-        super(writer.cloneWithWriter(new IllegalXmlCharacterFilterWriter(writer)));
+        this(writer, false);
+    }
+
+    /**
+     * @param writer the writer to wrap
+     * @param streaming if true, CDATA content is filtered in one pass instead of through a nesting stack
+     *        of writers
+     */
+    public PartialResponseWriterImpl(ResponseWriter writer, boolean streaming)
+    {
+        this(writer, streaming ? new PartialResponseFilterWriter(writer) : null);
+    }
+
+    private PartialResponseWriterImpl(ResponseWriter writer, PartialResponseFilterWriter streamingWriter)
+    {
+        super(writer.cloneWithWriter(streamingWriter == null
+                ? new IllegalXmlCharacterFilterWriter(writer)
+                : streamingWriter));
+        this.streamingWriter = streamingWriter;
     }
 
     @Override
     public void startCDATA() throws IOException
     {
+        if (streamingWriter != null)
+        {
+            if (cdataDepth == 0)
+            {
+                super.startCDATA();
+                streamingWriter.setEscapeCDataEnd(true);
+                cdataDoubleBufferWriter = getWrapped().cloneWithWriter(streamingWriter);
+            }
+            else
+            {
+                cdataDoubleBufferWriter.write("<![CDATA[");
+            }
+            cdataDepth++;
+            return;
+        }
+
         if (!isDoubleBufferEnabled())
         {
             super.startCDATA();
@@ -143,6 +186,13 @@ private void openDoubleBuffer()
     @Override
     public void endCDATA() throws IOException
     {
+        if (streamingWriter != null && cdataDepth > 1)
+        {
+            cdataDepth--;
+            cdataDoubleBufferWriter.write("]]>");
+            return;
+        }
+
         closeDoubleBuffer(false);
         if (isDoubleBufferEnabled())
         {
@@ -173,6 +223,14 @@ private void closeDoubleBuffer(boolean force) throws IOException
         {
             return;
         }
+        if (streamingWriter != null)
+        {
+            // a forced close or the end of the top level section, both leave the CDATA section
+            streamingWriter.setEscapeCDataEnd(false);
+            cdataDoubleBufferWriter = null;
+            cdataDepth = 0;
+            return;
+        }
         /*
         * if a force close is issued we reset the condition
         * to 1 to reach the underlying closing block
@@ -295,7 +353,7 @@ public void writeComment(Object comment) throws IOException
 
     private boolean isDoubleBufferEnabled()
     {
-        return !nestingStack.isEmpty();
+        return cdataDoubleBufferWriter != null;
     }
 
     @Override
@@ -55,7 +55,8 @@
 import jakarta.faces.view.ViewMetadata;
 import org.apache.myfaces.application.ResourceHandlerImpl;
 import org.apache.myfaces.application.viewstate.StateTokenProcessor;
-
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.context.JsonPartialResponseWriterImpl;
 import org.apache.myfaces.context.PartialResponseWriterImpl;
 import org.apache.myfaces.context.RequestViewContext;
 import org.apache.myfaces.renderkit.html.HtmlResponseStateManager;
@@ -363,9 +364,14 @@ public PartialResponseWriter getPartialResponseWriter()
             {
                 _partialResponseWriter = writer;
             }
+            else if (JsonPartialResponseWriterImpl.isRequested(context))
+            {
+                _partialResponseWriter = new JsonPartialResponseWriterImpl(responseWriter);
+            }
             else
             {
-                _partialResponseWriter = new PartialResponseWriterImpl(responseWriter);
+                _partialResponseWriter = new PartialResponseWriterImpl(responseWriter,
+                        MyfacesConfig.getCurrentInstance(context).isStreamingPartialResponseWriter());
             }
         }
         return _partialResponseWriter;
@@ -456,10 +462,10 @@ private void processPartialRendering(UIViewRoot viewRoot, PhaseId phaseId)
         ResponseWriter oldWriter = context.getResponseWriter();
         boolean inDocument = false;
 
-        //response type = text/xml
+        //response type = text/xml, or application/json if the client asked for it
         //no caching and no timeout if possible!
         ExternalContext externalContext = context.getExternalContext();
-        externalContext.setResponseContentType("text/xml");
+        externalContext.setResponseContentType(JsonPartialResponseWriterImpl.getResponseContentType(writer));
         externalContext.addResponseHeader("Pragma", "no-cache");
         externalContext.addResponseHeader("Cache-control", "no-cache");
         //under normal circumstances pragma should be enough, IE needs
@@ -37,6 +37,7 @@
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.context.JsonPartialResponseWriterImpl;
 import org.apache.myfaces.context.flash.FlashImpl;
 import org.apache.myfaces.core.api.shared.lang.Assert;
 import org.apache.myfaces.core.api.shared.lang.SharedStringBuilder;
@@ -80,7 +81,7 @@ public final class ServletExternalContextImpl extends ServletExternalContextImpl
 
     private ServletRequest _servletRequest;
     private ServletResponse _servletResponse;
-    private ResettableBufferedWriter _responseOutputWriter;
+    private ResponseOutputWriter _responseOutputWriter;
     private Map<String, Object> _sessionMap;
     private Map<String, Object> _requestMap;
     private Map<String, String> _requestParameterMap;
@@ -151,6 +152,7 @@ public void release()
             {
                 // ignore on release; the container may already have committed/closed the response
             }
+            _responseOutputWriter.recycle();
             _responseOutputWriter = null;
         }
 
@@ -249,7 +251,15 @@ public Writer getResponseOutputWriter() throws IOException
         // without draining on responseReset()/responseSendError() so aborted output is not written.
         if (_responseOutputWriter == null)
         {
-            _responseOutputWriter = new ResettableBufferedWriter(_servletResponse);
+            if (Utf8ResponseOutputWriter.isSupported(this, _servletResponse))
+            {
+                _responseOutputWriter = new Utf8ResponseOutputWriter(_servletResponse,
+                        Utf8ResponseOutputWriter.getBufferPool(this));
+            }
+            else
+            {
+                _responseOutputWriter = new ResettableBufferedWriter(_servletResponse);
+            }
         }
         return _responseOutputWriter;
     }
@@ -608,7 +618,7 @@ public void redirect(final String url) throws IOException
                 throw new IllegalStateException();
             }
             PartialResponseWriter writer = partialViewContext.getPartialResponseWriter();
-            this.setResponseContentType("text/xml");
+            this.setResponseContentType(JsonPartialResponseWriterImpl.getResponseContentType(writer));
             this.setResponseCharacterEncoding("UTF-8");
             this.addResponseHeader("Cache-control", "no-cache");
             writer.startDocument();
@@ -1127,6 +1137,25 @@ protected FacesContext getCurrentFacesContext()
         return _currentFacesContext;
     }
 
+    /**
+     * Buffer between the render output and the container, see {@link #getResponseOutputWriter()}.
+     */
+    abstract static class ResponseOutputWriter extends Writer
+    {
+        /**
+         * Discards the buffered output without writing it, mirroring {@link ServletResponse#reset()} which clears
+         * the container buffer.
+         */
+        abstract void reset();
+
+        /**
+         * Gives back the resources of the writer once the request is done.
+         */
+        void recycle()
+        {
+        }
+    }
+
     /**
      * Coalesces the many small render-time writes into few large writes to the container writer, like a
      * {@link java.io.BufferedWriter} does, but additionally allows the buffered chars to be discarded again by
@@ -1137,7 +1166,7 @@ protected FacesContext getCurrentFacesContext()
      * {@link jakarta.faces.context.ExternalContext#responseReset()} would therefore silently route everything
      * rendered afterwards, such as an error page, into a buffer which is never drained.
      */
-    static final class ResettableBufferedWriter extends Writer
+    static final class ResettableBufferedWriter extends ResponseOutputWriter
     {
         private static final int BUFFER_SIZE = 8192;
 
@@ -1212,10 +1241,7 @@ public void close() throws IOException
             drain();
         }
 
-        /**
-         * Discards the buffered chars without writing them, mirroring {@link ServletResponse#reset()} which clears the
-         * container buffer.
-         */
+        @Override
         void reset()
         {
             count = 0;
@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.context.servlet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import jakarta.faces.context.ExternalContext;
+import jakarta.servlet.ServletResponse;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+
+/**
+ * Encodes the render output to UTF-8 into a pooled byte buffer that is drained into the servlet OutputStream,
+ * so the chars are transcoded once and the container charset encoder is not involved at all.
+ * See {@link MyfacesConfig#DIRECT_UTF8_RESPONSE_OUTPUT}.
+ * 
+ * <p>Markup is mostly ASCII, so runs of ASCII chars are copied with a narrowing loop; other chars are encoded
+ * by hand, including surrogate pairs split between two writes. Unpaired surrogates are written as '?', like
+ * the JDK encoder does.</p>
+ */
+final class Utf8ResponseOutputWriter extends ServletExternalContextImpl.ResponseOutputWriter
+{
+    private static final String BUFFER_POOL = Utf8ResponseOutputWriter.class.getName() + ".BUFFER_POOL";
+
+    static final int BUFFER_SIZE = 8192;
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private final ServletResponse response;
+    private final BlockingQueue<byte[]> pool;
+    private byte[] buffer;
+    private int count;
+    private char highSurrogate;
+
+    Utf8ResponseOutputWriter(ServletResponse response, BlockingQueue<byte[]> pool)
+    {
+        this.response = response;
+        this.pool = pool;
+    }
+
+    static boolean isSupported(ExternalContext externalContext, ServletResponse response)
+    {
+        return MyfacesConfig.getCurrentInstance(externalContext).isDirectUtf8ResponseOutput()
+                && StandardCharsets.UTF_8.name().equalsIgnoreCase(response.getCharacterEncoding());
+    }
+
+    @SuppressWarnings("unchecked")
+    static BlockingQueue<byte[]> getBufferPool(ExternalContext externalContext)
+    {
+        Map<String, Object> applicationMap = externalContext.getApplicationMap();
+        BlockingQueue<byte[]> pool = (BlockingQueue<byte[]>) applicationMap.get(BUFFER_POOL);
+        if (pool == null)
+        {
+            pool = new ArrayBlockingQueue<>(POOL_SIZE);
+            applicationMap.put(BUFFER_POOL, pool);
+        }
+        return pool;
+    }
+
+    @Override
+    public void write(int c) throws IOException
+    {
+        ensureCapacity();
+        if (c < 0x80 && highSurrogate == 0)
+        {
+            buffer[count++] = (byte) c;
+        }
+        else
+        {
+            encode((char) c);
+        }
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException
+    {
+        int end = offset + length;
+        while (offset < end)
+        {
+            ensureCapacity();
+            if (highSurrogate != 0)
+            {
+                encode(chars[offset++]);
+                continue;
+            }
+            // copy the ASCII run that fits into the buffer
+            int stop = offset + Math.min(end - offset, BUFFER_SIZE - count);
+            byte[] bytes = buffer;
+            int pos = count;
+            char c;
+            while (offset < stop && (c = chars[offset]) < 0x80)
+            {
+                bytes[pos++] = (byte) c;
+                offset++;
+            }
+            count = pos;
+            if (offset < stop)
+            {
+                ensureCapacity();
+                encode(chars[offset++]);
+            }
+        }
+    }
+
+    @Override
+    public void write(String string, int offset, int length) throws IOException
+    {
+        int end = offset + length;
+        while (offset < end)
+        {
+            ensureCapacity();
+            if (highSurrogate != 0)
+            {
+                encode(string.charAt(offset++));
+                continue;
+            }
+            // copy the ASCII run that fits into the buffer
+            int stop = offset + Math.min(end - offset, BUFFER_SIZE - count);
+            byte[] bytes = buffer;
+            int pos = count;
+            char c;
+            while (offset < stop && (c = string.charAt(offset)) < 0x80)
+            {
+                bytes[pos++] = (byte) c;
+                offset++;
+            }
+            count = pos;
+            if (offset < stop)
+            {
+                ensureCapacity();
+                encode(string.charAt(offset++));
+            }
+        }
+    }
+
+    /**
+     * Encodes a char that is not part of an ASCII run. The buffer must have room for 4 bytes.
+     */
+    private void encode(char c)
+    {
+        byte[] bytes = buffer;
+        if (highSurrogate != 0)
+        {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(c))
+            {
+                int codePoint = Character.toCodePoint(high, c);
+                bytes[count++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[count++] = (byte) (0x80 | (codePoint & 0x3F));
+                return;
+            }
+            // the unpaired surrogate and the char take 4 bytes at most
+            bytes[count++] = '?';
+        }
+
+        if (c < 0x80)
+        {
+            bytes[count++] = (byte) c;
+        }
+        else if (c < 0x800)
+        {
+            bytes[count++] = (byte) (0xC0 | (c >> 6));
+            bytes[count++] = (byte) (0x80 | (c & 0x3F));
+        }
+        else if (Character.isHighSurrogate(c))
+        {
+            highSurrogate = c;
+        }
+        else if (Character.isLowSurrogate(c))
+        {
+            bytes[count++] = '?';
+        }
+        else
+        {
+            bytes[count++] = (byte) (0xE0 | (c >> 12));
+            bytes[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            bytes[count++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    /**
+     * Drains the buffered bytes into the container OutputStream, but like ResettableBufferedWriter does not flush
+     * it, so the response is not committed.
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (highSurrogate != 0)
+        {
+            ensureCapacity();
+            highSurrogate = 0;
+            buffer[count++] = '?';
+        }
+        drain();
+    }
+
+    @Override
+    void reset()
+    {
+        count = 0;
+        highSurrogate = 0;
+    }
+
+    @Override
+    void recycle()
+    {
+        if (buffer != null)
+        {
+            pool.offer(buffer);
+            buffer = null;
+            count = 0;
+        }
+    }
+
+    private void ensureCapacity() throws IOException
+    {
+        if (buffer == null)
+        {
+            buffer = pool.poll();
+            if (buffer == null)
+            {
+                buffer = new byte[BUFFER_SIZE];
+            }
+        }
+        else if (count > BUFFER_SIZE - 4)
+        {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException
+    {
+        if (count > 0)
+        {
+            response.getOutputStream().write(buffer, 0, count);
+            count = 0;
+        }
+    }
+}
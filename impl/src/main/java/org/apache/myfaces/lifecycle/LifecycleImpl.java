@@ -41,6 +41,7 @@
 import org.apache.myfaces.config.FacesConfigurator;
 import org.apache.myfaces.core.api.shared.lang.Assert;
 import org.apache.myfaces.util.DebugUtils;
+import org.apache.myfaces.view.facelets.ViewPoolProcessor;
 
 /**
  * Implements the lifecycle as described in Spec. 1.0 PFD Chapter 2
@@ -76,6 +77,11 @@ public class LifecycleImpl extends Lifecycle
      * note in this case the semantic of the variable must be preserved.
      */
     private volatile boolean _firstRequestProcessed = false;
+    
+    /**
+     * Racy single check too, ViewPoolProcessor.warmup() only runs once.
+     */
+    private volatile boolean _viewPoolWarmedUp = false;
 
     public LifecycleImpl()
     {
@@ -285,6 +291,18 @@ public void render(FacesContext facesContext) throws FacesException
 
         facesContext.getExceptionHandler().handle();
 
+        // The view pool warm up needs a request to build the views, so it is done after
+        // the first response has been rendered.
+        if (!_viewPoolWarmedUp)
+        {
+            _viewPoolWarmedUp = true;
+            ViewPoolProcessor viewPoolProcessor = ViewPoolProcessor.getInstance(facesContext);
+            if (viewPoolProcessor != null)
+            {
+                viewPoolProcessor.warmup(facesContext);
+            }
+        }
+
         if (log.isLoggable(Level.FINEST))
         {
             // Note: DebugUtils Logger must also be in trace level
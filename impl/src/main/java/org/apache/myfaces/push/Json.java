@@ -18,22 +18,29 @@
  */
 package org.apache.myfaces.push;
 
-import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Array;
+import java.lang.reflect.Method;
 import java.lang.reflect.RecordComponent;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TimeZone;
+import java.util.function.Function;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.apache.myfaces.core.api.shared.lang.LambdaPropertyDescriptor;
+import org.apache.myfaces.core.api.shared.lang.PropertyDescriptorUtils;
+
 /**
  * A simple JSON encoder.
  *
@@ -53,6 +60,25 @@
     private static final String ERROR_INVALID_GETTER = "Cannot invoke getter of property '%s' of bean '%s'.";
     private static final Logger LOG = Logger.getLogger(Json.class.getName());
 
+    /**
+     * Buffers larger than this are not kept for the next encode of the thread.
+     */
+    private static final int MAX_REUSED_BUFFER_LENGTH = 16 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = new ThreadLocal<>();
+
+    /**
+     * The properties of the beans and records, introspected once per class.
+     */
+    private static final ClassValue<Property[]> PROPERTIES = new ClassValue<>()
+    {
+        @Override
+        protected Property[] computeValue(Class<?> type)
+        {
+            return type.isRecord() ? getRecordProperties(type) : getBeanProperties(type);
+        }
+    };
+
     // Constructors ---------------------------------------------------------------------------------------------------
     private Json()
     {
@@ -74,9 +100,30 @@ private Json()
      */
     public static String encode(Object object)
     {
-        StringBuilder builder = new StringBuilder();
-        encode(object, builder);
-        return builder.toString();
+        // reuse the buffer of the thread, unless a getter encodes another object while it is in use
+        StringBuilder builder = BUFFER.get();
+        if (builder == null)
+        {
+            builder = new StringBuilder();
+        }
+        else
+        {
+            BUFFER.set(null);
+        }
+
+        try
+        {
+            encode(object, builder);
+            return builder.toString();
+        }
+        finally
+        {
+            if (builder.capacity() <= MAX_REUSED_BUFFER_LENGTH)
+            {
+                builder.setLength(0);
+                BUFFER.set(builder);
+            }
+        }
     }
 
     /**
@@ -94,7 +141,9 @@ else if (object instanceof Boolean || object instanceof Number)
         }
         else if (object instanceof CharSequence)
         {
-            builder.append('"').append(escapeJS(object.toString(), false)).append('"');
+            builder.append('"');
+            escapeJS(object.toString(), false, builder);
+            builder.append('"');
         }
         else if (object instanceof Date date)
         {
@@ -126,37 +175,36 @@ else if (object instanceof Record)
         }
     }
 
+    /**
+     * Encode a Java record as JS object, the names of the components are not quoted.
+     */
     private static void encodeRecord(Object recordObject, StringBuilder builder)
     {
-
         builder.append('{');
-        boolean fieldsFound = false;
+        Property[] properties = PROPERTIES.get(recordObject.getClass());
 
-
-        for (RecordComponent component : recordObject.getClass().getRecordComponents())
+        for (int i = 0; i < properties.length; i++)
         {
-            fieldsFound = true;
-            String name = component.getName();
-            builder.append(name);
-            builder.append(':');
-            try 
+            Property property = properties[i];
+            if (i > 0)
+            {
+                builder.append(',');
+            }
+
+            builder.append(property.name).append(':');
+            Object value = null;
+            try
             {
-                encode(component.getAccessor().invoke(recordObject), builder);
-            } 
-            catch (Exception e) 
+                value = property.getter.apply(recordObject);
+            }
+            catch (Exception e)
             {
                 LOG.warning("Failed to access RecordComponent for " + recordObject + " Message: " + e.getMessage());
             }
-            builder.append(',');
-        }
-
-        if(fieldsFound)
-        {
-            builder.deleteCharAt(builder.length()-1); // remove last comma
+            encode(value, builder);
         }
 
         builder.append('}');
-       
     }
 
     /**
@@ -229,38 +277,21 @@ private static void encodeMap(Map<?, ?> map, StringBuilder builder)
      */
     private static void encodeBean(Object bean, StringBuilder builder)
     {
-        BeanInfo beanInfo;
-
-        try
-        {
-            beanInfo = Introspector.getBeanInfo(bean.getClass());
-        }
-        catch (IntrospectionException e)
-        {
-            throw new IllegalArgumentException(
-                    String.format(ERROR_INVALID_BEAN, bean.getClass()), e);
-        }
-
         builder.append('{');
         int i = 0;
 
-        for (PropertyDescriptor property : beanInfo.getPropertyDescriptors())
+        for (Property property : PROPERTIES.get(bean.getClass()))
         {
-            if (property.getReadMethod() == null || "class".equals(property.getName()))
-            {
-                continue;
-            }
-
             Object value;
 
             try
             {
-                value = property.getReadMethod().invoke(bean);
+                value = property.getter.apply(bean);
             }
             catch (Exception e)
             {
                 throw new IllegalArgumentException(
-                        String.format(ERROR_INVALID_GETTER, property.getName(), bean.getClass()), e);
+                        String.format(ERROR_INVALID_GETTER, property.name, bean.getClass()), e);
             }
 
             if (value == null)
@@ -273,15 +304,107 @@ private static void encodeBean(Object bean, StringBuilder builder)
                 builder.append(',');
             }
 
-            encode(property.getName(), builder);
-            builder.append(':');
+            builder.append(property.encodedName).append(':');
             encode(value, builder);
         }
 
         builder.append('}');
     }
 
-    
+    private static Property[] getBeanProperties(Class<?> type)
+    {
+        PropertyDescriptor[] propertyDescriptors;
+
+        try
+        {
+            propertyDescriptors = Introspector.getBeanInfo(type).getPropertyDescriptors();
+        }
+        catch (IntrospectionException e)
+        {
+            throw new IllegalArgumentException(String.format(ERROR_INVALID_BEAN, type), e);
+        }
+
+        List<Property> properties = new ArrayList<>(propertyDescriptors.length);
+        for (PropertyDescriptor propertyDescriptor : propertyDescriptors)
+        {
+            if (propertyDescriptor.getReadMethod() != null && !"class".equals(propertyDescriptor.getName()))
+            {
+                properties.add(new Property(type, propertyDescriptor));
+            }
+        }
+        return properties.toArray(new Property[properties.size()]);
+    }
+
+    private static Property[] getRecordProperties(Class<?> type)
+    {
+        RecordComponent[] components = type.getRecordComponents();
+        Property[] properties = new Property[components.length];
+        for (int i = 0; i < components.length; i++)
+        {
+            try
+            {
+                properties[i] = new Property(type,
+                        new PropertyDescriptor(components[i].getName(), components[i].getAccessor(), null));
+            }
+            catch (IntrospectionException e)
+            {
+                throw new IllegalArgumentException(String.format(ERROR_INVALID_BEAN, type), e);
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * A readable property of a bean or record, read through a generated lambda where the getter is accessible.
+     */
+    private static final class Property
+    {
+        private final String name;
+        private final String encodedName;
+        private final Function<Object, Object> getter;
+
+        Property(Class<?> type, PropertyDescriptor propertyDescriptor)
+        {
+            this.name = propertyDescriptor.getName();
+            this.encodedName = '"' + escapeJS(name, false) + '"';
+            this.getter = createGetter(type, propertyDescriptor);
+        }
+
+        private static Function<Object, Object> createGetter(Class<?> type, PropertyDescriptor propertyDescriptor)
+        {
+            try
+            {
+                LambdaPropertyDescriptor lambdaPropertyDescriptor =
+                        PropertyDescriptorUtils.createLambdaPropertyDescriptor(Json.class, type, propertyDescriptor);
+                if (lambdaPropertyDescriptor != null && lambdaPropertyDescriptor.getReadFunction() != null)
+                {
+                    return lambdaPropertyDescriptor.getReadFunction();
+                }
+            }
+            catch (Throwable e)
+            {
+                if (LOG.isLoggable(Level.FINE))
+                {
+                    LOG.log(Level.FINE, "Cannot generate the getter of property '" + propertyDescriptor.getName()
+                            + "' of '" + type.getName() + "', using reflection", e);
+                }
+            }
+
+            Method readMethod = propertyDescriptor.getReadMethod();
+            return bean ->
+            {
+                try
+                {
+                    return readMethod.invoke(bean);
+                }
+                catch (ReflectiveOperationException e)
+                {
+                    throw new IllegalStateException(e);
+                }
+            };
+        }
+    }
+
     // Escaping/unescaping --------------------------------------------------------------------------------------------
     
     private static final int UNICODE_3_BYTES = 0xfff;
@@ -308,9 +431,15 @@ public static String escapeJS(String string, boolean escapeSingleQuote)
         }
 
         StringBuilder builder = new StringBuilder(string.length());
+        escapeJS(string, escapeSingleQuote, builder);
+        return builder.toString();
+    }
 
-        for (char c : string.toCharArray())
+    private static void escapeJS(String string, boolean escapeSingleQuote, StringBuilder builder)
+    {
+        for (int i = 0, length = string.length(); i < length; i++)
         {
+            char c = string.charAt(i);
             if (c > UNICODE_3_BYTES)
             {
                 builder.append("\\u").append(Integer.toHexString(c));
@@ -332,8 +461,6 @@ else if (c < UNICODE_BEGIN_PRINTABLE_ASCII)
                 escapeJSASCIICharacter(builder, c, escapeSingleQuote);
             }
         }
-
-        return builder.toString();
     }
 
     private static void escapeJSControlCharacter(StringBuilder builder, char c)
@@ -30,6 +30,8 @@
 import jakarta.enterprise.inject.spi.BeanManager;
 import jakarta.faces.push.PushContext;
 import org.apache.myfaces.cdi.util.CDIUtils;
+import org.apache.myfaces.push.Json;
+import org.apache.myfaces.spi.PushRelayMessage;
 
 public class PushContextImpl implements PushContext
 {
@@ -66,49 +68,54 @@ public Set<Future<Void>> send(Object message)
             }
         }
 
-        if (applicationScope == null)
-        {
-            // No base bean to push message
-            return Collections.emptySet();
-        }
-        
-        List<String> channelTokens;
-        
-        if (viewScope != null && viewScope.isChannelAvailable(channel))
-        {
-            // Use view scope for context
-            channelTokens = viewScope.getChannelTokens(channel);
-        }
-        else if (sessionScope != null && sessionScope.isChannelAvailable(channel))
-        {
-            // Use session scope for context
-            channelTokens = sessionScope.getChannelTokens(channel);
-        }
-        else if (applicationScope.isChannelAvailable(channel))
+        List<String> channelTokens = null;
+        boolean applicationChannel = false;
+
+        // No base bean to push message if there is no application scope
+        if (applicationScope != null)
         {
-            // Use application scope for context
-            channelTokens = applicationScope.getChannelTokens(channel);
+            if (viewScope != null && viewScope.isChannelAvailable(channel))
+            {
+                // Use view scope for context
+                channelTokens = viewScope.getChannelTokens(channel);
+            }
+            else if (sessionScope != null && sessionScope.isChannelAvailable(channel))
+            {
+                // Use session scope for context
+                channelTokens = sessionScope.getChannelTokens(channel);
+            }
+            else if (applicationScope.isChannelAvailable(channel))
+            {
+                // Use application scope for context
+                channelTokens = applicationScope.getChannelTokens(channel);
+                applicationChannel = true;
+            }
         }
-        else
+
+        boolean relay = sessionManager.isRelayEnabled();
+        if ((channelTokens == null || channelTokens.isEmpty()) && !relay)
         {
             // No channelToken has been opened
             return Collections.emptySet();
         }
-        
+
+        String json = Json.encode(message);
+        if (relay)
+        {
+            // the channel can be open on other nodes, even if it is not on this one, application scoped
+            // channel tokens are not shared between the nodes
+            sessionManager.publish(channelTokens == null || applicationChannel
+                    ? PushRelayMessage.forChannel(channel, json)
+                    : PushRelayMessage.forChannelTokens(channel, json, channelTokens));
+        }
+
         //2. send the message
         if (channelTokens != null && !channelTokens.isEmpty())
         {
-            Set<Future<Void>> result = null;
+            Set<Future<Void>> result = new HashSet<>(channelTokens.size());
             for (String channelToken : channelTokens)
             {
-                if (result == null)
-                {
-                    result = sessionManager.send(channelToken, message);
-                }
-                else
-                {
-                    result.addAll(sessionManager.send(channelToken, message));
-                }
+                result.addAll(sessionManager.sendEncoded(channelToken, json));
             }
             return result;
         }
@@ -125,26 +132,33 @@ public <S extends Serializable> Set<Future<Void>> send(Object message, S user)
     @Override
     public <S extends Serializable> Map<S, Set<Future<Void>>> send(Object message, Collection<S> users)
     {
+        // resolve all recipients at once
+        Map<S, Set<String>> channelTokensByUser = sessionManager.getChannelTokensForUsers(users, channel);
+        boolean relay = sessionManager.isRelayEnabled();
+        if (channelTokensByUser.isEmpty() && !relay)
+        {
+            return new HashMap<>(0);
+        }
 
-        Map<S, Set<Future<Void>>> resultsByUser = new HashMap<>(users.size());
-
-        for (S user : users)
+        String json = Json.encode(message);
+        if (relay)
         {
-            Set<String> channelTokenSet = sessionManager.getChannelTokensForUser(user, channel);
-            if (channelTokenSet == null)
-            {
-                // no channel opened for this user
-                continue;
-            }
+            // the users can be connected to other nodes too
+            sessionManager.publish(PushRelayMessage.forUsers(channel, json, users));
+        }
+        Map<S, Set<Future<Void>>> resultsByUser = new HashMap<>(channelTokensByUser.size());
 
+        for (Map.Entry<S, Set<String>> entry : channelTokensByUser.entrySet())
+        {
+            Set<String> channelTokenSet = entry.getValue();
             Set<Future<Void>> results = new HashSet<>(channelTokenSet.size());
 
             for (String channelToken : channelTokenSet)
             {
-                results.addAll(sessionManager.send(channelToken, message));
+                results.addAll(sessionManager.sendEncoded(channelToken, json));
             }
 
-            resultsByUser.put(user, results);
+            resultsByUser.put(entry.getKey(), results);
         }
 
         return resultsByUser;
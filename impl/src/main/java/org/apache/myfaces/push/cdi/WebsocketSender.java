@@ -0,0 +1,391 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.push.cdi;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jakarta.websocket.SendHandler;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+
+/**
+ * Sends the push messages of each websocket session from a bounded queue, so the thread calling
+ * PushContext.send only encodes the message once and enqueues it.
+ *
+ * <p>Each session has at most one message in flight, which also avoids the TEXT_FULL_WRITING errors of
+ * Tomcat for concurrent pushes. When the queue of a slow session is full, the configured overflow policy
+ * decides which messages are discarded, the futures of discarded messages are cancelled.</p>
+ */
+public class WebsocketSender
+{
+    private static final Logger LOG = Logger.getLogger(WebsocketSender.class.getName());
+
+    public enum Overflow
+    {
+        DROP_OLDEST, DROP_NEWEST, COALESCE;
+
+        public static Overflow of(String value)
+        {
+            if (MyfacesConfig.WEBSOCKET_SEND_QUEUE_OVERFLOW_DROP_NEWEST.equals(value))
+            {
+                return DROP_NEWEST;
+            }
+            if (MyfacesConfig.WEBSOCKET_SEND_QUEUE_OVERFLOW_COALESCE.equals(value))
+            {
+                return COALESCE;
+            }
+            return DROP_OLDEST;
+        }
+    }
+
+    private final Executor executor;
+    private final int queueSize;
+    private final Overflow overflow;
+    // by session id, as a session could be closed without being removed
+    private final ConcurrentMap<String, SessionQueue> queues = new ConcurrentHashMap<>();
+
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+
+    public WebsocketSender(int queueSize, Overflow overflow)
+    {
+        this(createExecutor(), queueSize, overflow);
+    }
+
+    WebsocketSender(Executor executor, int queueSize, Overflow overflow)
+    {
+        this.executor = executor;
+        this.queueSize = queueSize;
+        this.overflow = overflow;
+    }
+
+    /**
+     * Uses a virtual thread per send where the runtime supports it, otherwise a small pool of daemon threads.
+     * The sends itself are asynchronous, so the threads are only busy handing the messages to the container.
+     */
+    private static ExecutorService createExecutor()
+    {
+        try
+        {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), r ->
+            {
+                Thread thread = new Thread(r, "myfaces-websocket-sender-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Enqueues the text for the session.
+     *
+     * @return a future completed once the text has been sent, or cancelled if it was discarded
+     */
+    public Future<Void> send(Session session, String text)
+    {
+        Message message = new Message(text, new CompletableFuture<>());
+        while (!queues.computeIfAbsent(session.getId(), id -> new SessionQueue(session)).add(message))
+        {
+            // the queue was removed after its last message was sent, retry with a new one
+        }
+        return message.future();
+    }
+
+    /**
+     * Discards the waiting messages of a session, used once the session is closed.
+     */
+    public void remove(Session session)
+    {
+        SessionQueue queue = queues.get(session.getId());
+        if (queue != null)
+        {
+            queue.clear();
+        }
+    }
+
+    public void shutdown()
+    {
+        if (executor instanceof ExecutorService executorService)
+        {
+            executorService.shutdownNow();
+        }
+        for (SessionQueue queue : queues.values())
+        {
+            queue.clear();
+        }
+        queues.clear();
+    }
+
+    public long getSentCount()
+    {
+        return sentCount.sum();
+    }
+
+    public long getFailedCount()
+    {
+        return failedCount.sum();
+    }
+
+    public long getDroppedCount()
+    {
+        return droppedCount.sum();
+    }
+
+    /**
+     * @return the number of messages waiting to be sent
+     */
+    public int getQueuedCount()
+    {
+        int count = 0;
+        for (SessionQueue queue : queues.values())
+        {
+            count += queue.size();
+        }
+        return count;
+    }
+
+    private record Message(String text, CompletableFuture<Void> future)
+    {
+    }
+
+    /**
+     * The messages of a session, only kept in the queues while it has a message to send, so closed sessions
+     * are not held.
+     */
+    private final class SessionQueue implements SendHandler
+    {
+        private final Session session;
+
+        // guarded by this
+        private final ArrayDeque<Message> messages = new ArrayDeque<>();
+        private Message current;
+        // a send is scheduled or in flight, also when clear() discarded its message
+        private boolean sending;
+        // removed from the queues, the next message of the session needs a new queue
+        private boolean removed;
+
+        SessionQueue(Session session)
+        {
+            this.session = session;
+        }
+
+        /**
+         * @return false if the queue was removed meanwhile
+         */
+        boolean add(Message message)
+        {
+            boolean start;
+            synchronized (this)
+            {
+                if (removed)
+                {
+                    return false;
+                }
+                if (messages.size() >= queueSize)
+                {
+                    if (overflow == Overflow.DROP_NEWEST)
+                    {
+                        drop(message);
+                        return true;
+                    }
+                    do
+                    {
+                        drop(messages.poll());
+                    }
+                    while (overflow == Overflow.COALESCE && !messages.isEmpty());
+                }
+                messages.add(message);
+                start = !sending;
+                if (start)
+                {
+                    sending = true;
+                    current = messages.poll();
+                }
+            }
+            if (start)
+            {
+                execute();
+            }
+            return true;
+        }
+
+        private void drop(Message message)
+        {
+            cancel(message);
+            if (LOG.isLoggable(Level.FINE))
+            {
+                LOG.log(Level.FINE, "WebsocketSender: send queue of session.id = {0} is full, message dropped",
+                        session.getId());
+            }
+        }
+
+        private void execute()
+        {
+            try
+            {
+                executor.execute(this::sendCurrent);
+            }
+            catch (RejectedExecutionException e)
+            {
+                // shut down
+                synchronized (this)
+                {
+                    clear();
+                    idle();
+                }
+            }
+        }
+
+        private void sendCurrent()
+        {
+            Message message;
+            boolean open = session.isOpen();
+            synchronized (this)
+            {
+                if (current == null)
+                {
+                    // discarded by clear()
+                    current = messages.poll();
+                    if (current == null)
+                    {
+                        idle();
+                        return;
+                    }
+                }
+                message = current;
+                if (!open)
+                {
+                    current = null;
+                    clear();
+                    idle();
+                }
+            }
+            if (!open)
+            {
+                failedCount.increment();
+                message.future().completeExceptionally(
+                        new IOException("Websocket session " + session.getId() + " is closed"));
+                return;
+            }
+            try
+            {
+                session.getAsyncRemote().sendText(message.text(), this);
+            }
+            catch (RuntimeException e)
+            {
+                onResult(new SendResult(e));
+            }
+        }
+
+        @Override
+        public void onResult(SendResult result)
+        {
+            Message message;
+            Message next;
+            synchronized (this)
+            {
+                message = current;
+                next = messages.poll();
+                current = next;
+                if (next == null)
+                {
+                    idle();
+                }
+            }
+            if (message != null)
+            {
+                if (result.isOK())
+                {
+                    sentCount.increment();
+                    message.future().complete(null);
+                }
+                else
+                {
+                    failedCount.increment();
+                    message.future().completeExceptionally(result.getException());
+                }
+            }
+            if (next != null)
+            {
+                // continue on the sender pool instead of the callback thread of the container
+                execute();
+            }
+        }
+
+        /**
+         * Discards the waiting messages, a send in flight still keeps the next messages waiting until it is done.
+         */
+        void clear()
+        {
+            synchronized (this)
+            {
+                Message message;
+                while ((message = messages.poll()) != null)
+                {
+                    cancel(message);
+                }
+                if (current != null)
+                {
+                    cancel(current);
+                    current = null;
+                }
+            }
+        }
+
+        // guarded by this, called once nothing is sent and nothing waits
+        private void idle()
+        {
+            sending = false;
+            removed = true;
+            queues.remove(session.getId(), this);
+        }
+
+        private void cancel(Message message)
+        {
+            droppedCount.increment();
+            message.future().cancel(false);
+        }
+
+        synchronized int size()
+        {
+            return messages.size() + (current == null ? 0 : 1);
+        }
+    }
+}
@@ -28,6 +28,7 @@
 import java.lang.ref.SoftReference;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
@@ -45,8 +46,12 @@
 import jakarta.websocket.Session;
 
 import org.apache.myfaces.push.WebsocketSessionClusterSerializedRestore;
+import org.apache.myfaces.cdi.util.CDIUtils;
 import org.apache.myfaces.config.webparameters.MyfacesConfig;
 import org.apache.myfaces.push.Json;
+import org.apache.myfaces.spi.PushRelay;
+import org.apache.myfaces.spi.PushRelayFactory;
+import org.apache.myfaces.spi.PushRelayMessage;
 import org.apache.myfaces.util.lang.ConcurrentLRUCache;
 import org.apache.myfaces.util.lang.Lazy;
 
@@ -57,8 +62,14 @@
 {
     private Lazy<ConcurrentLRUCache<String, Collection<Reference<Session>>>> sessionMap;
 
-    private Lazy<ConcurrentHashMap<UserChannelKey, ConcurrentMap<String, Integer>>> userMap;
+    /**
+     * The channel tokens of the users, by channel and user, with the number of connections of the user for each
+     * token. The channels are the fixed set of channels declared in the application, so they are never removed.
+     */
+    private Lazy<ConcurrentHashMap<String, ConcurrentMap<Serializable, ConcurrentMap<String, Integer>>>> userMap;
     private Queue<String> restoreQueue;
+    private volatile WebsocketSender sender;
+    private volatile PushRelay relay;
 
     private static final CloseReason REASON_EXPIRED = new CloseReason(NORMAL_CLOSURE, "Expired");
 
@@ -81,11 +92,21 @@ public ConcurrentLRUCache<String, Collection<Reference<Session>>> getSessionMap(
         return sessionMap.get();
     }
 
-    public ConcurrentMap<UserChannelKey, ConcurrentMap<String, Integer>> getUserMap()
+    public ConcurrentMap<String, ConcurrentMap<Serializable, ConcurrentMap<String, Integer>>> getUserMap()
     {
         return userMap.get();
     }
 
+    private ConcurrentMap<Serializable, ConcurrentMap<String, Integer>> getChannelUsers(String channel)
+    {
+        ConcurrentMap<Serializable, ConcurrentMap<String, Integer>> channelUsers = getUserMap().get(channel);
+        if (channelUsers == null)
+        {
+            channelUsers = getUserMap().computeIfAbsent(channel, k -> new ConcurrentHashMap<>());
+        }
+        return channelUsers;
+    }
+
     public void registerSessionToken(String channelToken)
     {
         ConcurrentLRUCache<String, Collection<Reference<Session>>> sessionMap = this.getSessionMap();
@@ -97,54 +118,91 @@ public void registerSessionToken(String channelToken)
 
     public void registerUser(Serializable user, String channel, String channelToken)
     {
-        UserChannelKey userChannelKey = new UserChannelKey(user, channel);
-
-        ConcurrentMap<String, Integer> channelTokenMap = getUserMap().computeIfAbsent(userChannelKey,
-                k -> new ConcurrentHashMap<>(1));
-        // +1 for new connection of user
-        channelTokenMap.compute(channelToken, (key, value) -> value == null ? 1 : ++value);
+        // the update of the tokens of a user is atomic, connections of other users are not blocked
+        getChannelUsers(channel).compute(user, (key, channelTokenMap) ->
+        {
+            if (channelTokenMap == null)
+            {
+                channelTokenMap = new ConcurrentHashMap<>(1);
+            }
+            // +1 for new connection of user
+            channelTokenMap.merge(channelToken, 1, Integer::sum);
+            return channelTokenMap;
+        });
     }
 
     public void deregisterUser(Serializable user, String channel, String channelToken)
     {
-        UserChannelKey userChannelKey = new UserChannelKey(user, channel);
+        ConcurrentMap<Serializable, ConcurrentMap<String, Integer>> channelUsers = getUserMap().get(channel);
+        if (channelUsers == null)
+        {
+            return;
+        }
+
+        channelUsers.computeIfPresent(user, (key, channelTokenMap) ->
+        {
+            // -1 for connection of user, remove the channelToken if no more user connections
+            channelTokenMap.computeIfPresent(channelToken, (token, value) -> value == 1 ? null : value - 1);
+            // remove the user if there is no channelToken left
+            return channelTokenMap.isEmpty() ? null : channelTokenMap;
+        });
+    }
+
+    /**
+     * @return the channel tokens of the user or null if the user has no open connection for the channel
+     */
+    public Set<String> getChannelTokensForUser(Serializable user, String channel)
+    {
+        ConcurrentMap<Serializable, ConcurrentMap<String, Integer>> channelUsers = getUserMap().get(channel);
+        ConcurrentMap<String, Integer> channelTokenMap = channelUsers == null ? null : channelUsers.get(user);
+        // just for compatibility, returning keySet
+        return channelTokenMap == null ? null : channelTokenMap.keySet();
+    }
+
+    /**
+     * Resolves the channel tokens of many users with a single lookup of the channel.
+     *
+     * @return the channel tokens by user, only for the users with an open connection for the channel
+     */
+    @SuppressWarnings("unchecked")
+    public <S extends Serializable> Map<S, Set<String>> getChannelTokensForUsers(Collection<S> users, String channel)
+    {
+        ConcurrentMap<Serializable, ConcurrentMap<String, Integer>> channelUsers = getUserMap().get(channel);
+        if (channelUsers == null || channelUsers.isEmpty() || users.isEmpty())
+        {
+            return Collections.emptyMap();
+        }
 
-        synchronized (getUserMap())
+        Map<S, Set<String>> channelTokens = new HashMap<>(Math.min(users.size(), channelUsers.size()));
+        if (users instanceof Set && users.size() > channelUsers.size())
         {
-            ConcurrentMap<String, Integer> channelTokenMap = getUserMap().get(userChannelKey);
-            if (channelTokenMap != null)
+            // less connected users than recipients, like a push to a large group
+            for (Map.Entry<Serializable, ConcurrentMap<String, Integer>> entry : channelUsers.entrySet())
             {
-                int value = channelTokenMap.get(channelToken);
-                if (value == 1)
-                {
-                    // let's remove it from the map
-                    channelTokenMap.remove(channelToken);
-                }
-                else
+                if (users.contains(entry.getKey()))
                 {
-                    // -1 for connection of user
-                    channelTokenMap.put(channelToken, --value);
+                    channelTokens.put((S) entry.getKey(), entry.getValue().keySet());
                 }
-
-                // let's remove channelToken if no more user connections
-                if (channelTokenMap.isEmpty())
+            }
+        }
+        else
+        {
+            for (S user : users)
+            {
+                ConcurrentMap<String, Integer> channelTokenMap = channelUsers.get(user);
+                if (channelTokenMap != null)
                 {
-                    getUserMap().remove(userChannelKey);
+                    channelTokens.put(user, channelTokenMap.keySet());
                 }
             }
         }
-    }
-
-    public Set<String> getChannelTokensForUser(Serializable user, String channel)
-    {
-        UserChannelKey userChannelKey = new UserChannelKey(user, channel);
-        // just for compatibility, returning keySet
-        return getUserMap().get(userChannelKey).keySet();
+        return channelTokens;
     }
 
     public void initSessionMap(ExternalContext context)
     {
-        int size = MyfacesConfig.getCurrentInstance(context).getWebsocketMaxConnections();
+        MyfacesConfig config = MyfacesConfig.getCurrentInstance(context);
+        int size = config.getWebsocketMaxConnections();
         ConcurrentLRUCache<String, Collection<Reference<Session>>> newSessionMap
                 = new ConcurrentLRUCache<>((size * 4 + 3) / 3, size);
         
@@ -179,6 +237,84 @@ public void initSessionMap(ExternalContext context)
             
             sessionMap.reset(newSessionMap);
         }
+
+        if (sender == null && config.getWebsocketSendQueueSize() > 0)
+        {
+            sender = new WebsocketSender(config.getWebsocketSendQueueSize(),
+                    WebsocketSender.Overflow.of(config.getWebsocketSendQueueOverflow()));
+        }
+
+        if (relay == null)
+        {
+            PushRelay newRelay = PushRelayFactory.getPushRelayFactory(context).getPushRelay(context);
+            if (newRelay != null)
+            {
+                WebsocketScopeManager scopeManager = CDIUtils.get(CDIUtils.getBeanManager(context),
+                        WebsocketScopeManager.class);
+                newRelay.start(message -> receive(message, scopeManager));
+                relay = newRelay;
+            }
+        }
+    }
+
+    public boolean isRelayEnabled()
+    {
+        return relay != null;
+    }
+
+    /**
+     * Publishes a message sent on this node to the other nodes of the cluster.
+     */
+    public void publish(PushRelayMessage message)
+    {
+        PushRelay relay = this.relay;
+        if (relay != null)
+        {
+            relay.publish(message);
+        }
+    }
+
+    /**
+     * Sends a message published by another node to the connections of this node.
+     */
+    protected void receive(PushRelayMessage message, WebsocketScopeManager scopeManager)
+    {
+        Collection<String> channelTokens;
+        if (message.getUsers() != null)
+        {
+            channelTokens = new HashSet<>();
+            for (Set<String> userChannelTokens
+                    : getChannelTokensForUsers(message.getUsers(), message.getChannel()).values())
+            {
+                channelTokens.addAll(userChannelTokens);
+            }
+        }
+        else if (message.getChannelTokens() != null)
+        {
+            channelTokens = message.getChannelTokens();
+        }
+        else
+        {
+            // the application scoped channel tokens of this node
+            WebsocketScopeManager.AbstractScope applicationScope = scopeManager.getApplicationScope(false);
+            channelTokens = applicationScope == null
+                    ? Collections.emptyList()
+                    : applicationScope.getChannelTokens(message.getChannel());
+        }
+
+        for (String channelToken : channelTokens)
+        {
+            sendEncoded(channelToken, message.getJson());
+        }
+    }
+
+    /**
+     * @return the sender of the push messages or null if org.apache.myfaces.WEBSOCKET_SEND_QUEUE_SIZE is not set,
+     *      then the messages are sent by the thread calling PushContext.send
+     */
+    public WebsocketSender getSender()
+    {
+        return sender;
     }
 
     public void clearSessions()
@@ -188,6 +324,16 @@ public void clearSessions()
             sessionMap.get().clear();
         }
         restoreQueue.clear();
+        if (sender != null)
+        {
+            sender.shutdown();
+            sender = null;
+        }
+        if (relay != null)
+        {
+            relay.stop();
+            relay = null;
+        }
     }
     
     public boolean addOrUpdateSession(String channelToken, Session session)
@@ -249,6 +395,12 @@ public void removeSession(String channelToken, Session session)
                 collection.remove(toRemove);
             }
         }
+
+        WebsocketSender sender = this.sender;
+        if (sender != null)
+        {
+            sender.remove(session);
+        }
     }
 
     /**
@@ -284,6 +436,14 @@ public void removeChannelToken(String channelToken)
     }
 
     protected Set<Future<Void>> send(String channelToken, Object message)
+    {
+        return sendEncoded(channelToken, Json.encode(message));
+    }
+
+    /**
+     * Sends the message already encoded as JSON, so a message for many channel tokens is only encoded once.
+     */
+    protected Set<Future<Void>> sendEncoded(String channelToken, String json)
     {
         // Before send, we need to check 
         synchronizeSessionInstances();
@@ -293,7 +453,7 @@ protected Set<Future<Void>> send(String channelToken, Object message)
 
         if (sessions != null && !sessions.isEmpty())
         {
-            String json = Json.encode(message);
+            WebsocketSender sender = this.sender;
 
             for (Reference<Session> sessionRef : sessions)
             {
@@ -302,7 +462,14 @@ protected Set<Future<Void>> send(String channelToken, Object message)
                     Session session = sessionRef.get();
                     if (session.isOpen())
                     {
-                        send(session, json, results, 0);
+                        if (sender != null)
+                        {
+                            results.add(sender.send(session, json));
+                        }
+                        else
+                        {
+                            send(session, json, results, 0);
+                        }
                     }
                     else
                     {
@@ -417,38 +584,4 @@ public Queue<String> getRestoredQueue()
     {
         return restoreQueue;
     }
-
-    public class UserChannelKey implements Serializable
-    {
-        private final Serializable user;
-        private final String channel;
-
-        public UserChannelKey(Serializable user, String channel)
-        {
-            this.user = user;
-            this.channel = channel;
-        }
-
-        @Override
-        public boolean equals(Object o)
-        {
-            if (this == o)
-            {
-                return true;
-            }
-            if (o == null || getClass() != o.getClass())
-            {
-                return false;
-            }
-            UserChannelKey that = (UserChannelKey) o;
-            return Objects.equals(user, that.user) && Objects.equals(channel, that.channel);
-        }
-
-        @Override
-        public int hashCode()
-        {
-            return Objects.hash(user, channel);
-        }
-    }
-
 }
@@ -0,0 +1,392 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.push.relay;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.myfaces.spi.PushRelay;
+import org.apache.myfaces.spi.PushRelayMessage;
+
+/**
+ * Relays the messages through a directory shared by the nodes of a cluster.
+ * 
+ * <p>Every node has an inbox directory below the shared directory. The messages published during an interval
+ * are written as a single batch file into the inbox of each other node, which reads and deletes them in the
+ * order they were written. A node touches a heartbeat file in its inbox, the inboxes of nodes that stopped
+ * without removing it are deleted once the heartbeat is older than a minute.</p>
+ * 
+ * <p>Where the file system supports POSIX permissions, the inboxes and batches are only accessible by their
+ * owner, so all nodes have to run as the same user.</p>
+ */
+public class DirectoryPushRelay extends PushRelay
+{
+    private static final Logger LOG = Logger.getLogger(DirectoryPushRelay.class.getName());
+
+    private static final String BATCH_SUFFIX = ".batch";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String HEARTBEAT_FILE = ".heartbeat";
+    private static final long HEARTBEAT_INTERVAL = 1000L;
+    private static final long STALE_INBOX_TIMEOUT = 60000L;
+
+    private static final Set<PosixFilePermission> INBOX_PERMISSIONS = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> FILE_PERMISSIONS = PosixFilePermissions.fromString("rw-------");
+
+    private final Path directory;
+    private final long interval;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Path inbox;
+    private final Queue<PushRelayMessage> outbox = new ConcurrentLinkedQueue<>();
+
+    private volatile ScheduledExecutorService executor;
+    private volatile Consumer<PushRelayMessage> receiver;
+    private long sequence;
+    private long lastHeartbeat;
+    private long lastCleanup;
+
+    public DirectoryPushRelay(Path directory, long interval)
+    {
+        this.directory = directory;
+        this.interval = interval;
+        this.inbox = directory.resolve(nodeId);
+    }
+
+    @Override
+    public void start(Consumer<PushRelayMessage> receiver)
+    {
+        try
+        {
+            Files.createDirectories(directory);
+            if (isPosix())
+            {
+                Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(directory);
+                if (permissions.contains(PosixFilePermission.GROUP_WRITE)
+                        || permissions.contains(PosixFilePermission.OTHERS_WRITE))
+                {
+                    LOG.warning("The websocket relay directory " + directory + " is writable by other users, "
+                            + "they can send messages to the websockets of this node");
+                }
+            }
+            Files.createDirectory(inbox, permissions(INBOX_PERMISSIONS));
+            heartbeat(System.currentTimeMillis());
+        }
+        catch (IOException e)
+        {
+            LOG.log(Level.SEVERE, "Cannot create the websocket relay inbox " + inbox, e);
+            return;
+        }
+
+        this.receiver = receiver;
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r ->
+        {
+            Thread thread = new Thread(r, "myfaces-websocket-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::relay, interval, interval, TimeUnit.MILLISECONDS);
+        this.executor = executor;
+    }
+
+    @Override
+    public void publish(PushRelayMessage message)
+    {
+        if (executor != null)
+        {
+            outbox.add(message);
+        }
+    }
+
+    @Override
+    public void stop()
+    {
+        ScheduledExecutorService executor = this.executor;
+        if (executor == null)
+        {
+            return;
+        }
+        this.executor = null;
+        receiver = null;
+
+        executor.shutdown();
+        try
+        {
+            if (executor.awaitTermination(interval * 10, TimeUnit.MILLISECONDS))
+            {
+                // send the last messages
+                send();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (IOException e)
+        {
+            LOG.log(Level.WARNING, "Cannot relay websocket messages through " + directory, e);
+        }
+
+        try
+        {
+            deleteInbox(inbox);
+        }
+        catch (IOException e)
+        {
+            LOG.log(Level.WARNING, "Cannot delete the websocket relay inbox " + inbox, e);
+        }
+    }
+
+    /**
+     * Runs on the relay thread, must not throw or the next runs are cancelled.
+     */
+    private void relay()
+    {
+        // each step on its own, so the others still run when one of them fails
+        long now = System.currentTimeMillis();
+        try
+        {
+            if (now - lastHeartbeat >= HEARTBEAT_INTERVAL)
+            {
+                heartbeat(now);
+            }
+        }
+        catch (Exception e)
+        {
+            LOG.log(Level.WARNING, "Cannot touch the heartbeat of the websocket relay inbox " + inbox, e);
+        }
+
+        try
+        {
+            send();
+        }
+        catch (Exception e)
+        {
+            LOG.log(Level.WARNING, "Cannot relay websocket messages through " + directory, e);
+        }
+
+        try
+        {
+            receive();
+        }
+        catch (Exception e)
+        {
+            LOG.log(Level.WARNING, "Cannot receive websocket messages through " + inbox, e);
+        }
+
+        if (now - lastCleanup >= STALE_INBOX_TIMEOUT)
+        {
+            lastCleanup = now;
+            try
+            {
+                deleteStaleInboxes(now);
+            }
+            catch (Exception e)
+            {
+                LOG.log(Level.WARNING, "Cannot delete the stale websocket relay inboxes of " + directory, e);
+            }
+        }
+    }
+
+    private void send() throws IOException
+    {
+        List<PushRelayMessage> messages = new ArrayList<>();
+        PushRelayMessage message;
+        while ((message = outbox.poll()) != null)
+        {
+            messages.add(message);
+        }
+        if (messages.isEmpty())
+        {
+            return;
+        }
+
+        byte[] batch = PushRelayMessageCodec.encode(messages);
+        if (batch == null)
+        {
+            return;
+        }
+
+        // the time keeps the order when the node restarts, the sequence within the same millisecond
+        String name = String.format("%013d-%010d-%s", System.currentTimeMillis(), sequence++, nodeId);
+        long now = System.currentTimeMillis();
+        try (DirectoryStream<Path> peers = Files.newDirectoryStream(directory, Files::isDirectory))
+        {
+            for (Path peer : peers)
+            {
+                if (peer.equals(inbox) || isStale(peer, now))
+                {
+                    continue;
+                }
+                try
+                {
+                    // the peer only reads complete batches
+                    Path temp = Files.createFile(peer.resolve(name + TEMP_SUFFIX), permissions(FILE_PERMISSIONS));
+                    Files.write(temp, batch);
+                    Files.move(temp, peer.resolve(name + BATCH_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+                }
+                catch (IOException e)
+                {
+                    // the peer stopped meanwhile
+                    LOG.log(Level.FINE, "Cannot relay websocket messages to " + peer, e);
+                }
+            }
+        }
+    }
+
+    private void deleteStaleInboxes(long now) throws IOException
+    {
+        try (DirectoryStream<Path> peers = Files.newDirectoryStream(directory, Files::isDirectory))
+        {
+            for (Path peer : peers)
+            {
+                if (peer.equals(inbox) || !isStale(peer, now))
+                {
+                    continue;
+                }
+                try
+                {
+                    deleteInbox(peer);
+                }
+                catch (IOException e)
+                {
+                    // another node deletes it too
+                    LOG.log(Level.FINE, "Cannot delete the stale websocket relay inbox " + peer, e);
+                }
+            }
+        }
+    }
+
+    private boolean isStale(Path peer, long now)
+    {
+        try
+        {
+            Path heartbeat = peer.resolve(HEARTBEAT_FILE);
+            // a starting node creates the heartbeat right after its inbox
+            Path touched = Files.exists(heartbeat) ? heartbeat : peer;
+            return now - Files.getLastModifiedTime(touched).toMillis() > STALE_INBOX_TIMEOUT;
+        }
+        catch (IOException e)
+        {
+            return true;
+        }
+    }
+
+    private static void deleteInbox(Path inbox) throws IOException
+    {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(inbox))
+        {
+            for (Path file : files)
+            {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(inbox);
+    }
+
+    private boolean isPosix()
+    {
+        return directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+
+    private FileAttribute<?>[] permissions(Set<PosixFilePermission> permissions)
+    {
+        return isPosix()
+                ? new FileAttribute<?>[] { PosixFilePermissions.asFileAttribute(permissions) }
+                : new FileAttribute<?>[0];
+    }
+
+    private void heartbeat(long now) throws IOException
+    {
+        Path heartbeat = inbox.resolve(HEARTBEAT_FILE);
+        if (!Files.exists(heartbeat))
+        {
+            Files.createFile(heartbeat, permissions(FILE_PERMISSIONS));
+        }
+        Files.setLastModifiedTime(heartbeat, FileTime.fromMillis(now));
+        lastHeartbeat = now;
+    }
+
+    private void receive() throws IOException
+    {
+        List<Path> batches = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(inbox, "*" + BATCH_SUFFIX))
+        {
+            for (Path file : files)
+            {
+                batches.add(file);
+            }
+        }
+        Collections.sort(batches);
+
+        for (Path file : batches)
+        {
+            List<PushRelayMessage> messages;
+            try
+            {
+                byte[] batch = Files.readAllBytes(file);
+                messages = PushRelayMessageCodec.decode(batch);
+            }
+            catch (IOException e)
+            {
+                LOG.log(Level.WARNING, "Cannot read relayed websocket messages " + file, e);
+                continue;
+            }
+            finally
+            {
+                Files.deleteIfExists(file);
+            }
+
+            Consumer<PushRelayMessage> receiver = this.receiver;
+            for (PushRelayMessage message : messages)
+            {
+                if (receiver == null)
+                {
+                    return;
+                }
+                try
+                {
+                    receiver.accept(message);
+                }
+                catch (RuntimeException e)
+                {
+                    LOG.log(Level.WARNING, "Cannot send relayed message of channel " + message.getChannel(), e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.push.relay;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.myfaces.spi.PushRelay;
+import org.apache.myfaces.spi.PushRelayMessage;
+
+/**
+ * Relays the messages to the other started relays of the same class loader, like the applications of a server
+ * sharing the MyFaces libraries or several instances of an application in a test.
+ */
+public class LoopbackPushRelay extends PushRelay
+{
+    private static final Logger LOG = Logger.getLogger(LoopbackPushRelay.class.getName());
+
+    private static final Set<LoopbackPushRelay> RELAYS = ConcurrentHashMap.newKeySet();
+
+    private volatile Consumer<PushRelayMessage> receiver;
+
+    @Override
+    public void start(Consumer<PushRelayMessage> receiver)
+    {
+        this.receiver = receiver;
+        RELAYS.add(this);
+    }
+
+    @Override
+    public void publish(PushRelayMessage message)
+    {
+        for (LoopbackPushRelay relay : RELAYS)
+        {
+            if (relay != this)
+            {
+                relay.receive(message);
+            }
+        }
+    }
+
+    private void receive(PushRelayMessage message)
+    {
+        Consumer<PushRelayMessage> receiver = this.receiver;
+        if (receiver != null)
+        {
+            try
+            {
+                receiver.accept(message);
+            }
+            catch (RuntimeException e)
+            {
+                LOG.log(Level.WARNING, "Cannot send relayed message of channel " + message.getChannel(), e);
+            }
+        }
+    }
+
+    @Override
+    public void stop()
+    {
+        RELAYS.remove(this);
+        receiver = null;
+    }
+}
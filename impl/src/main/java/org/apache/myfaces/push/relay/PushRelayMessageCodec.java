@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.push.relay;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.myfaces.spi.PushRelayMessage;
+
+/**
+ * Writes batches of relayed messages in a plain binary format, so receiving a batch never deserializes
+ * arbitrary objects. Only String, Integer and Long users can be relayed, messages for other users are only
+ * sent to the connections of the current node.
+ */
+final class PushRelayMessageCodec
+{
+    private static final Logger LOG = Logger.getLogger(PushRelayMessageCodec.class.getName());
+
+    private static final int VERSION = 1;
+
+    private static final byte TARGET_CHANNEL = 0;
+    private static final byte TARGET_CHANNEL_TOKENS = 1;
+    private static final byte TARGET_USERS = 2;
+
+    private static final byte USER_STRING = 0;
+    private static final byte USER_INTEGER = 1;
+    private static final byte USER_LONG = 2;
+
+    private PushRelayMessageCodec()
+    {
+    }
+
+    /**
+     * @return the batch or null if none of the messages can be relayed
+     */
+    static byte[] encode(List<PushRelayMessage> messages) throws IOException
+    {
+        List<PushRelayMessage> relayable = new ArrayList<>(messages.size());
+        for (PushRelayMessage message : messages)
+        {
+            message = getRelayableMessage(message);
+            if (message != null)
+            {
+                relayable.add(message);
+            }
+        }
+        if (relayable.isEmpty())
+        {
+            return null;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes))
+        {
+            out.writeInt(VERSION);
+            out.writeInt(relayable.size());
+            for (PushRelayMessage message : relayable)
+            {
+                writeString(out, message.getChannel());
+                writeString(out, message.getJson());
+                if (message.getUsers() != null)
+                {
+                    out.writeByte(TARGET_USERS);
+                    out.writeInt(message.getUsers().size());
+                    for (Serializable user : message.getUsers())
+                    {
+                        writeUser(out, user);
+                    }
+                }
+                else if (message.getChannelTokens() != null)
+                {
+                    out.writeByte(TARGET_CHANNEL_TOKENS);
+                    out.writeInt(message.getChannelTokens().size());
+                    for (String channelToken : message.getChannelTokens())
+                    {
+                        writeString(out, channelToken);
+                    }
+                }
+                else
+                {
+                    out.writeByte(TARGET_CHANNEL);
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return the message without the users that cannot be relayed or null if no user is left
+     */
+    private static PushRelayMessage getRelayableMessage(PushRelayMessage message)
+    {
+        if (message.getUsers() == null)
+        {
+            return message;
+        }
+
+        List<Serializable> users = new ArrayList<>(message.getUsers().size());
+        for (Serializable user : message.getUsers())
+        {
+            if (user instanceof String || user instanceof Integer || user instanceof Long)
+            {
+                users.add(user);
+            }
+        }
+        if (users.size() < message.getUsers().size() && LOG.isLoggable(Level.FINE))
+        {
+            LOG.log(Level.FINE, "Message of channel {0} not relayed to {1} users, only String, Integer and Long "
+                    + "users are supported",
+                    new Object[] { message.getChannel(), message.getUsers().size() - users.size() });
+        }
+        if (users.isEmpty())
+        {
+            return null;
+        }
+        return users.size() == message.getUsers().size()
+                ? message
+                : PushRelayMessage.forUsers(message.getChannel(), message.getJson(), users);
+    }
+
+    static List<PushRelayMessage> decode(byte[] batch) throws IOException
+    {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(batch)))
+        {
+            int version = in.readInt();
+            if (version != VERSION)
+            {
+                throw new IOException("Unsupported version " + version + " of relayed messages");
+            }
+            int size = in.readInt();
+            List<PushRelayMessage> messages = new ArrayList<>(Math.min(size, 1024));
+            for (int i = 0; i < size; i++)
+            {
+                String channel = readString(in);
+                String json = readString(in);
+                byte target = in.readByte();
+                if (target == TARGET_USERS)
+                {
+                    int count = in.readInt();
+                    List<Serializable> users = new ArrayList<>(Math.min(count, 1024));
+                    for (int j = 0; j < count; j++)
+                    {
+                        users.add(readUser(in));
+                    }
+                    messages.add(PushRelayMessage.forUsers(channel, json, users));
+                }
+                else if (target == TARGET_CHANNEL_TOKENS)
+                {
+                    int count = in.readInt();
+                    List<String> channelTokens = new ArrayList<>(Math.min(count, 1024));
+                    for (int j = 0; j < count; j++)
+                    {
+                        channelTokens.add(readString(in));
+                    }
+                    messages.add(PushRelayMessage.forChannelTokens(channel, json, channelTokens));
+                }
+                else
+                {
+                    messages.add(PushRelayMessage.forChannel(channel, json));
+                }
+            }
+            return messages;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException
+    {
+        // writeUTF is limited to 64K
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException
+    {
+        int length = in.readInt();
+        if (length < 0 || length > in.available())
+        {
+            throw new IOException("Invalid length " + length + " of relayed string");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeUser(DataOutputStream out, Serializable user) throws IOException
+    {
+        if (user instanceof Integer value)
+        {
+            out.writeByte(USER_INTEGER);
+            out.writeInt(value);
+        }
+        else if (user instanceof Long value)
+        {
+            out.writeByte(USER_LONG);
+            out.writeLong(value);
+        }
+        else
+        {
+            out.writeByte(USER_STRING);
+            writeString(out, (String) user);
+        }
+    }
+
+    private static Serializable readUser(DataInputStream in) throws IOException
+    {
+        byte type = in.readByte();
+        switch (type)
+        {
+            case USER_INTEGER:
+                return in.readInt();
+            case USER_LONG:
+                return in.readLong();
+            case USER_STRING:
+                return readString(in);
+            default:
+                throw new IOException("Unsupported type " + type + " of relayed user");
+        }
+    }
+}
@@ -21,6 +21,7 @@
 import java.io.IOException;
 import java.util.List;
 
+import jakarta.faces.application.ProjectStage;
 import jakarta.faces.component.UIComponent;
 import jakarta.faces.component.UIViewRoot;
 import jakarta.faces.context.FacesContext;
@@ -78,10 +79,17 @@ public void encodeEnd(FacesContext facesContext, UIComponent component) throws I
         UIViewRoot root = facesContext.getViewRoot();
 
         List<UIComponent> componentResources = root.getComponentResources(facesContext, "head");
-        for (int i = 0, childCount = componentResources.size(); i < childCount; i++)
+        if (myfacesConfig.isResourceBundlingEnabled() && !facesContext.isProjectStage(ProjectStage.Development))
         {
-            UIComponent child = componentResources.get(i);
-            child.encodeAll(facesContext);
+            HtmlResourceBundler.encodeComponentResources(facesContext, componentResources);
+        }
+        else
+        {
+            for (int i = 0, childCount = componentResources.size(); i < childCount; i++)
+            {
+                UIComponent child = componentResources.get(i);
+                child.encodeAll(facesContext);
+            }
         }
         
         writer.endElement(HTML.HEAD_ELEM);
@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.renderkit.html;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import jakarta.faces.application.Resource;
+import jakarta.faces.component.UIComponent;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.context.ResponseWriter;
+
+import org.apache.myfaces.renderkit.html.util.ComponentAttrs;
+import org.apache.myfaces.renderkit.html.util.HTML;
+import org.apache.myfaces.renderkit.html.util.HtmlRendererUtils;
+import org.apache.myfaces.renderkit.html.util.ResourceUtils;
+import org.apache.myfaces.resource.BundleResource;
+
+/**
+ * Encodes the component resources of the head target, rendering each run of plain scripts and
+ * stylesheets as a single {@link BundleResource}.
+ * 
+ * <p>A run of scripts is only ended by a script that cannot be bundled, like an inline script,
+ * and the same applies to stylesheets. Any other component ends both runs, because it could
+ * depend on the order of the resources around it.</p>
+ */
+final class HtmlResourceBundler
+{
+    private HtmlResourceBundler()
+    {
+    }
+
+    static void encodeComponentResources(FacesContext facesContext, List<UIComponent> componentResources)
+            throws IOException
+    {
+        int size = componentResources.size();
+
+        // the bundle to render in place of each component, the members of a bundle
+        // after the first one are skipped
+        Bundle[] bundles = new Bundle[size];
+        Bundle scripts = null;
+        Bundle stylesheets = null;
+        Set<String> bundledResources = new HashSet<>();
+        for (int i = 0; i < size; i++)
+        {
+            UIComponent component = componentResources.get(i);
+            String rendererType = component.getRendererType();
+            boolean script = ResourceUtils.DEFAULT_SCRIPT_RENDERER_TYPE.equals(rendererType);
+            boolean stylesheet = ResourceUtils.DEFAULT_STYLESHEET_RENDERER_TYPE.equals(rendererType);
+
+            Resource resource = script || stylesheet ? getBundleableResource(facesContext, component, script) : null;
+            if (resource == null)
+            {
+                scripts = stylesheet ? scripts : null;
+                stylesheets = script ? stylesheets : null;
+                continue;
+            }
+
+            // a duplicate is encoded on its own and renders nothing, as the bundle holding the first
+            // occurrence is encoded before it and marks the resource as rendered
+            if (!bundledResources.add(resource.getLibraryName() + '/' + resource.getResourceName()))
+            {
+                continue;
+            }
+
+            Bundle bundle = script ? scripts : stylesheets;
+            if (bundle == null || bundle.resources.size() == BundleResource.MAX_MEMBERS)
+            {
+                bundle = new Bundle(script, component);
+                if (script)
+                {
+                    scripts = bundle;
+                }
+                else
+                {
+                    stylesheets = bundle;
+                }
+            }
+            bundles[i] = bundle;
+            bundle.add(component, resource);
+        }
+
+        for (int i = 0; i < size; i++)
+        {
+            UIComponent component = componentResources.get(i);
+            Bundle bundle = bundles[i];
+            if (bundle == null || bundle.resources.size() == 1 && bundle.first == component)
+            {
+                component.encodeAll(facesContext);
+            }
+            else if (bundle.first == component)
+            {
+                bundle.encode(facesContext);
+            }
+        }
+    }
+
+    /**
+     * @return the resource of the component or null if it cannot be bundled
+     */
+    private static Resource getBundleableResource(FacesContext facesContext, UIComponent component, boolean script)
+    {
+        if (!component.isRendered() || component.getChildCount() > 0)
+        {
+            return null;
+        }
+        Map<String, Object> passThroughAttributes = component.getPassThroughAttributes(false);
+        if (passThroughAttributes != null && !passThroughAttributes.isEmpty())
+        {
+            return null;
+        }
+
+        // the attributes of resources relocated from a composite component can refer to it
+        component.pushComponentToEL(facesContext, component);
+        try
+        {
+            Map<String, Object> attributes = component.getAttributes();
+            String resourceName = (String) attributes.get(ComponentAttrs.NAME_ATTR);
+            String libraryName = (String) attributes.get(ComponentAttrs.LIBRARY_ATTR);
+            if (resourceName == null || resourceName.isEmpty() || resourceName.indexOf('?') >= 0
+                    || (!script && attributes.get("media") != null)
+                    || isRendered(facesContext, libraryName, resourceName, script))
+            {
+                return null;
+            }
+
+            Resource resource = facesContext.getApplication().getResourceHandler()
+                    .createResource(resourceName, libraryName);
+            if (resource == null
+                    || isRendered(facesContext, resource.getLibraryName(), resource.getResourceName(), script)
+                    || !BundleResource.isBundleable(resource, script))
+            {
+                return null;
+            }
+            return resource;
+        }
+        finally
+        {
+            component.popComponentFromEL(facesContext);
+        }
+    }
+
+    private static boolean isRendered(FacesContext facesContext, String libraryName, String resourceName,
+            boolean script)
+    {
+        return script
+                ? ResourceUtils.isRenderedScript(facesContext, libraryName, resourceName)
+                : ResourceUtils.isRenderedStylesheet(facesContext, libraryName, resourceName);
+    }
+
+    private static void markAsRendered(FacesContext facesContext, String libraryName, String resourceName,
+            boolean script)
+    {
+        if (script)
+        {
+            ResourceUtils.markScriptAsRendered(facesContext, libraryName, resourceName);
+        }
+        else
+        {
+            ResourceUtils.markStylesheetAsRendered(facesContext, libraryName, resourceName);
+        }
+    }
+
+    private static final class Bundle
+    {
+        private final boolean script;
+        private final UIComponent first;
+        private final List<UIComponent> components = new ArrayList<>();
+        private final List<Resource> resources = new ArrayList<>();
+
+        Bundle(boolean script, UIComponent first)
+        {
+            this.script = script;
+            this.first = first;
+        }
+
+        void add(UIComponent component, Resource resource)
+        {
+            components.add(component);
+            resources.add(resource);
+        }
+
+        void encode(FacesContext facesContext) throws IOException
+        {
+            for (int i = 0; i < resources.size(); i++)
+            {
+                Resource resource = resources.get(i);
+                Map<String, Object> attributes = components.get(i).getAttributes();
+                markAsRendered(facesContext, (String) attributes.get(ComponentAttrs.LIBRARY_ATTR),
+                        (String) attributes.get(ComponentAttrs.NAME_ATTR), script);
+                markAsRendered(facesContext, resource.getLibraryName(), resource.getResourceName(), script);
+            }
+
+            BundleResource bundle = new BundleResource(script
+                    ? BundleResource.SCRIPT_RESOURCE_NAME
+                    : BundleResource.STYLESHEET_RESOURCE_NAME, resources);
+            String path = facesContext.getExternalContext().encodeResourceURL(bundle.getRequestPath());
+
+            ResponseWriter writer = facesContext.getResponseWriter();
+            if (script)
+            {
+                writer.startElement(HTML.SCRIPT_ELEM, first);
+                HtmlRendererUtils.renderScriptType(facesContext, writer);
+                HtmlRendererUtils.renderNonce(facesContext, writer);
+                writer.writeURIAttribute(HTML.SRC_ATTR, path, null);
+                writer.endElement(HTML.SCRIPT_ELEM);
+            }
+            else
+            {
+                writer.startElement(HTML.LINK_ELEM, first);
+                writer.writeAttribute(HTML.REL_ATTR, HTML.STYLESHEET_VALUE, null);
+                if (!HtmlRendererUtils.isOutputHtml5Doctype(facesContext))
+                {
+                    writer.writeAttribute(HTML.TYPE_ATTR, HTML.STYLE_TYPE_TEXT_CSS, null);
+                }
+                writer.writeURIAttribute(HTML.HREF_ATTR, path, null);
+                writer.endElement(HTML.LINK_ELEM);
+            }
+        }
+    }
+}
@@ -995,6 +995,39 @@ public ResponseWriter cloneWithWriter(Writer writer)
         return newWriter;
     }
 
+    /**
+     * Identifies how static markup is rendered by this writer. Two writers returning the same
+     * variant render the same sequence of literal elements, attributes and text to the same
+     * characters, so markup pre-rendered by one can be written by the other using
+     * {@link #writeStaticMarkup(char[])}.
+     */
+    public int getStaticMarkupVariant()
+    {
+        return (_useStraightXml ? 1 : 0) | (_isUTF8 ? 2 : 0);
+    }
+
+    /**
+     * Writes a block of markup pre-rendered by a writer with the same {@link #getStaticMarkupVariant()},
+     * as if the literal calls that produced it were made on this writer. The block must end with an
+     * end element optionally followed by text, and must not contain script or style elements.
+     *
+     * @param markup the pre-rendered markup
+     * @return false if this writer is in a state where the markup cannot be written as is, in which
+     * case nothing is written and the caller must replay the original calls
+     */
+    public boolean writeStaticMarkup(char[] markup) throws IOException
+    {
+        if (isScriptOrStyle() || !_startedElementsCount.isEmpty())
+        {
+            return false;
+        }
+
+        closeStartTagIfNecessary();
+        _currentWriter.write(markup);
+        resetStartedElement();
+        return true;
+    }
+
 
     // Writer methods
 
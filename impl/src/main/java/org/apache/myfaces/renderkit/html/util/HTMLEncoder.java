@@ -35,6 +35,130 @@
     private static final String SB_ENCODE_URI_QUERY = HTMLEncoder.class.getName() + "#SB_ENCODE_URI_QUERY";
     private static final String SB_ENCODE_PERCENT = HTMLEncoder.class.getName() + "#SB_ENCODE_PERCENT";
 
+    /**
+     * Characters below 0x80 that are written as they are. Everything else goes through
+     * {@link #getReplacement(char, boolean, boolean, boolean)}.
+     */
+    private static final boolean[] ASCII_SAFE = new boolean[0x80];
+
+    /**
+     * Precomputed replacements for the characters below REPLACEMENTS_SIZE, so the common escapes and the
+     * numeric character references of latin, greek and cyrillic characters are written without building Strings.
+     */
+    private static final int REPLACEMENTS_SIZE = 0x800;
+    private static final char[][] REPLACEMENTS = new char[REPLACEMENTS_SIZE][];
+
+    private static final char[] EMPTY = new char[0];
+    private static final char[] NBSP = "&#160;".toCharArray();
+    private static final char[] BR = "<br/>".toCharArray();
+    private static final char[] EURO = "&euro;".toCharArray();
+    private static final char[] NUMERIC_ENTITY = new char[0];
+
+    static
+    {
+        for (char c = 0; c < 0x80; c++)
+        {
+            ASCII_SAFE[c] = true;
+        }
+
+        // http://www.w3.org/MarkUp/html3/specialchars.html
+        // From C0 extension U+0000-U+001F only U+0009, U+000A and
+        // U+000D are valid control characters, the others are ignored
+        for (char c = 0; c <= 0x1F; c++)
+        {
+            if (c != 0x09 && c != 0x0A && c != 0x0D)
+            {
+                ASCII_SAFE[c] = false;
+                REPLACEMENTS[c] = EMPTY;
+            }
+        }
+        ASCII_SAFE['\n'] = false;
+        ASCII_SAFE[' '] = false;
+
+        setReplacement('"', "&quot;");
+        setReplacement('&', "&amp;");
+        setReplacement('<', "&lt;");
+        setReplacement('>', "&gt;");
+
+        //encode all non basic latin characters
+        for (char c = 0x81; c < REPLACEMENTS_SIZE; c++)
+        {
+            REPLACEMENTS[c] = ("&#" + ((int) c) + ';').toCharArray();
+        }
+
+        //german umlauts
+        setReplacement('\u00E4', "&auml;");
+        setReplacement('\u00C4', "&Auml;");
+        setReplacement('\u00F6', "&ouml;");
+        setReplacement('\u00D6', "&Ouml;");
+        setReplacement('\u00FC', "&uuml;");
+        setReplacement('\u00DC', "&Uuml;");
+        setReplacement('\u00DF', "&szlig;");
+
+        //misc
+        //case 0x80: app = "&euro;"; break;  sometimes euro symbol is ascii 128, should we support it?
+        setReplacement('\u00AB', "&laquo;");
+        setReplacement('\u00BB', "&raquo;");
+        REPLACEMENTS['\u00A0'] = NBSP;
+    }
+
+    private static void setReplacement(char c, String replacement)
+    {
+        if (c < 0x80)
+        {
+            ASCII_SAFE[c] = false;
+        }
+        REPLACEMENTS[c] = replacement.toCharArray();
+    }
+
+    /**
+     * Returns the replacement of a character that is not safe to write as it is, <code>null</code> if the
+     * character must be written anyway, or NUMERIC_ENTITY if it must be written as a numeric character reference.
+     * Non latin characters are only passed here if they have to be encoded.
+     */
+    private static char[] getReplacement(char c, boolean afterBlank, boolean encodeNewline,
+            boolean encodeSubsequentBlanksToNbsp)
+    {
+        if (c < REPLACEMENTS_SIZE)
+        {
+            char[] app = REPLACEMENTS[c];
+            if (app != null)
+            {
+                return app;
+            }
+            if (c == ' ')
+            {
+                //Space at beginning or after another space
+                return encodeSubsequentBlanksToNbsp && afterBlank ? NBSP : null;
+            }
+            if (c == '\n')
+            {
+                return encodeNewline ? BR : null;
+            }
+            return null;
+        }
+        return c == '\u20AC' ? EURO : NUMERIC_ENTITY;
+    }
+
+    /**
+     * Writes the numeric character reference of the character into the buffer, that must have room
+     * for 8 characters, and returns its length.
+     */
+    private static int formatNumericEntity(char[] buffer, char c)
+    {
+        int value = c;
+        int length = value >= 10000 ? 8 : value >= 1000 ? 7 : value >= 100 ? 6 : value >= 10 ? 5 : 4;
+        buffer[0] = '&';
+        buffer[1] = '#';
+        buffer[length - 1] = ';';
+        for (int i = length - 2; i > 1; i--)
+        {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return length;
+    }
+
     /**
      * Variant of {@link #encode} where encodeNewline is false and encodeNbsp is true.
      * 
@@ -98,89 +222,32 @@ public static String encode(FacesContext context, String string,
         }
 
         StringBuilder sb = null;    //create later on demand
-        String app;
-        char c = ' ';
-        char prevC;
+        int start = 0;
         int length = string.length();
         for (int i = 0; i < length; ++i)
         {
-            app = null;
-            prevC = c;
-            c = string.charAt(i);
-            
-            // All characters before letters
-            if ((int)c < 0x41)
+            char c = string.charAt(i);
+            if (c < 0x80 ? ASCII_SAFE[c] : (c == 0x80 || !encodeNonLatin))
             {
-                switch (c)
-                {
-                    case '"': app = "&quot;"; break;    //"
-                    case '&': app = "&amp;"; break;     //&
-                    case '<': app = "&lt;"; break;      //<
-                    case '>': app = "&gt;"; break;      //>
-                    case ' ':
-                        if (encodeSubsequentBlanksToNbsp && prevC == ' ')
-                        {
-                            //Space at beginning or after another space
-                            app = "&#160;";
-                        }
-                        break;
-                    case '\n':
-                        if (encodeNewline)
-                        {
-                            app = "<br/>";
-                        }
-                        break;
-                    default:
-                        break;
-                }
-                // http://www.w3.org/MarkUp/html3/specialchars.html
-                // From C0 extension U+0000-U+001F only U+0009, U+000A and
-                // U+000D are valid control characters
-                if (c <= 0x1F && c != 0x09 && c != 0x0A && c != 0x0D)
-                {
-                    // Ignore escape character
-                    app = "";
-                }
-            }
-            else if (encodeNonLatin && (int)c > 0x80)
-            {
-                 switch(c)
-                 {
-                    //german umlauts
-                    case '\u00E4' : app = "&auml;";  break;
-                    case '\u00C4' : app = "&Auml;";  break;
-                    case '\u00F6' : app = "&ouml;";  break;
-                    case '\u00D6' : app = "&Ouml;";  break;
-                    case '\u00FC' : app = "&uuml;";  break;
-                    case '\u00DC' : app = "&Uuml;";  break;
-                    case '\u00DF' : app = "&szlig;"; break;
-
-                    //misc
-                    //case 0x80: app = "&euro;"; break;  sometimes euro symbol is ascii 128, should we support it?
-                    case '\u20AC': app = "&euro;";  break;
-                    case '\u00AB': app = "&laquo;"; break;
-                    case '\u00BB': app = "&raquo;"; break;
-                    case '\u00A0': app = "&#160;"; break;
-
-                    default :
-                        //encode all non basic latin characters
-                        app = "&#" + ((int)c) + ';';
-                    break;
-                }
+                continue;
             }
+            char[] app = getReplacement(c, i == 0 || string.charAt(i - 1) == ' ',
+                    encodeNewline, encodeSubsequentBlanksToNbsp);
             if (app != null)
             {
                 if (sb == null)
                 {
-                    sb = SharedStringBuilder.get(context, SB_ENCODE, string.substring(0, i));
+                    sb = SharedStringBuilder.get(context, SB_ENCODE, length + 16);
                 }
-                sb.append(app);
-            }
-            else
-            {
-                if (sb != null)
+                sb.append(string, start, i);
+                start = i + 1;
+                if (app == NUMERIC_ENTITY)
                 {
-                    sb.append(c);
+                    sb.append("&#").append((int) c).append(';');
+                }
+                else
+                {
+                    sb.append(app);
                 }
             }
         }
@@ -189,10 +256,8 @@ else if (encodeNonLatin && (int)c > 0x80)
         {
             return string;
         }
-        else
-        {
-            return sb.toString();
-        }
+        sb.append(string, start, length);
+        return sb.toString();
     }
     
     /**
@@ -255,86 +320,37 @@ public static void encode(Writer writer, String string,
             return;
         }
 
+        char[] entity = null;
         int start = 0;
-        String app;
-        char c = ' ';
-        char prevC;
         int length = string.length();
         for (int i = 0; i < length; ++i)
         {
-            app = null;
-            prevC = c;
-            c = string.charAt(i);
-            
-            // All characters before letters
-            if ((int)c < 0x41)
+            char c = string.charAt(i);
+            if (c < 0x80 ? ASCII_SAFE[c] : (c == 0x80 || !encodeNonLatin))
             {
-                switch (c)
-                {
-                    case '"': app = "&quot;"; break;    //"
-                    case '&': app = "&amp;"; break;     //&
-                    case '<': app = "&lt;"; break;      //<
-                    case '>': app = "&gt;"; break;      //>
-                    case ' ':
-                        if (encodeSubsequentBlanksToNbsp &&
-                                prevC == ' ')
-                        {
-                            //Space at beginning or after another space
-                            app = "&#160;";
-                        }
-                        break;
-                    case '\n':
-                        if (encodeNewline)
-                        {
-                            app = "<br/>";
-                        }
-                        break;
-                    default:
-                        break;
-                }
-                // http://www.w3.org/MarkUp/html3/specialchars.html
-                // From C0 extension U+0000-U+001F only U+0009, U+000A and
-                // U+000D are valid control characters
-                if (c <= 0x1F && c != 0x09 && c != 0x0A && c != 0x0D)
-                {
-                    // Ignore escape character
-                    app = "";
-                }
-            }
-            else if (encodeNonLatin && (int)c > 0x80)
-            {
-                 switch(c)
-                 {
-                    //german umlauts
-                    case '\u00E4' : app = "&auml;";  break;
-                    case '\u00C4' : app = "&Auml;";  break;
-                    case '\u00F6' : app = "&ouml;";  break;
-                    case '\u00D6' : app = "&Ouml;";  break;
-                    case '\u00FC' : app = "&uuml;";  break;
-                    case '\u00DC' : app = "&Uuml;";  break;
-                    case '\u00DF' : app = "&szlig;"; break;
-
-                    //misc
-                    //case 0x80: app = "&euro;"; break;  sometimes euro symbol is ascii 128, should we support it?
-                    case '\u20AC': app = "&euro;";  break;
-                    case '\u00AB': app = "&laquo;"; break;
-                    case '\u00BB': app = "&raquo;"; break;
-                    case '\u00A0': app = "&#160;"; break;
-
-                    default :
-                        //encode all non basic latin characters
-                        app = "&#" + ((int)c) + ';';
-                    break;
-                }
+                continue;
             }
+            char[] app = getReplacement(c, i == 0 || string.charAt(i - 1) == ' ',
+                    encodeNewline, encodeSubsequentBlanksToNbsp);
             if (app != null)
             {
                 if (start < i)
                 {
-                    writer.write(string, start, i-start);
+                    writer.write(string, start, i - start);
+                }
+                start = i + 1;
+                if (app == NUMERIC_ENTITY)
+                {
+                    if (entity == null)
+                    {
+                        entity = new char[8];
+                    }
+                    writer.write(entity, 0, formatNumericEntity(entity, c));
+                }
+                else if (app.length > 0)
+                {
+                    writer.write(app, 0, app.length);
                 }
-                start = i+1;
-                writer.write(app);
             }
         }
 
@@ -344,7 +360,7 @@ else if (encodeNonLatin && (int)c > 0x80)
         }
         else if (start < length)
         {
-            writer.write(string,start,length-start);
+            writer.write(string, start, length - start);
         }
     }
 
@@ -423,98 +439,44 @@ public static void encode(char[] string, int offset, int length,
             return;
         }
         offset = Math.max(0, offset);
-        int realLength = Math.min(length, string.length - offset);
+        int end = offset + Math.min(length, string.length - offset);
 
-        String app;
-        char c = ' ';
-        char prevC;
+        char[] entity = null;
         int start = offset;
-        
-        for (int i = offset; i < offset + realLength; ++i)
+        for (int i = offset; i < end; ++i)
         {
-            app = null;
-            prevC = c;
-            c = string[i];
-
-            // All characters before letters
-            if ((int)c < 0x41)
-            {
-                switch (c)
-                {
-                    case '"': app = "&quot;"; break;    //"
-                    case '&': app = "&amp;"; break;     //&
-                    case '<': app = "&lt;"; break;      //<
-                    case '>': app = "&gt;"; break;      //>
-                    case ' ':
-                        if (encodeSubsequentBlanksToNbsp &&
-                                prevC == ' ')
-                        {
-                            //Space at beginning or after another space
-                            app = "&#160;";
-                        }
-                        break;
-                    case '\n':
-                        if (encodeNewline)
-                        {
-                            app = "<br/>";
-                        }
-                        break;
-                    default:
-                        break;
-                }
-                // http://www.w3.org/MarkUp/html3/specialchars.html
-                // From C0 extension U+0000-U+001F only U+0009, U+000A and
-                // U+000D are valid control characters
-                if (c <= 0x1F && c != 0x09 && c != 0x0A && c != 0x0D)
-                {
-                    // Ignore escape character
-                    app = "";
-                }
-            }
-            else if (encodeNonLatin && (int)c > 0x80)
+            char c = string[i];
+            if (c < 0x80 ? ASCII_SAFE[c] : (c == 0x80 || !encodeNonLatin))
             {
-                 switch(c)
-                 {
-                    //german umlauts
-                    case '\u00E4' : app = "&auml;";  break;
-                    case '\u00C4' : app = "&Auml;";  break;
-                    case '\u00F6' : app = "&ouml;";  break;
-                    case '\u00D6' : app = "&Ouml;";  break;
-                    case '\u00FC' : app = "&uuml;";  break;
-                    case '\u00DC' : app = "&Uuml;";  break;
-                    case '\u00DF' : app = "&szlig;"; break;
-
-                    //misc
-                    //case 0x80: app = "&euro;"; break;  sometimes euro symbol is ascii 128, should we support it?
-                    case '\u20AC': app = "&euro;";  break;
-                    case '\u00AB': app = "&laquo;"; break;
-                    case '\u00BB': app = "&raquo;"; break;
-                    case '\u00A0': app = "&#160;"; break;
-
-                    default :
-                        //encode all non basic latin characters
-                        app = "&#" + ((int)c) + ';';
-                    break;
-                }
+                continue;
             }
+            char[] app = getReplacement(c, i == offset || string[i - 1] == ' ',
+                    encodeNewline, encodeSubsequentBlanksToNbsp);
             if (app != null)
             {
                 if (start < i)
                 {
-                    writer.write(string, start, i-start);
+                    writer.write(string, start, i - start);
+                }
+                start = i + 1;
+                if (app == NUMERIC_ENTITY)
+                {
+                    if (entity == null)
+                    {
+                        entity = new char[8];
+                    }
+                    writer.write(entity, 0, formatNumericEntity(entity, c));
+                }
+                else if (app.length > 0)
+                {
+                    writer.write(app, 0, app.length);
                 }
-                start = i+1;
-                writer.write(app);
             }
         }
 
-        if (start == offset)
-        {
-            writer.write(string, offset, realLength);
-        }
-        else if (start < offset+realLength)
+        if (start < end)
         {
-            writer.write(string,start,offset+realLength-start);
+            writer.write(string, start, end - start);
         }
     }
     
@@ -0,0 +1,476 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import jakarta.faces.FacesException;
+import jakarta.faces.application.ProjectStage;
+import jakarta.faces.application.Resource;
+import jakarta.faces.context.ExternalContext;
+import jakarta.faces.context.FacesContext;
+import org.apache.myfaces.application.viewstate.StateUtils;
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+
+/**
+ * Generated resource holding a list of scripts or stylesheets of the default ResourceHandler
+ * concatenated in order, so a page can load them with a single request.
+ * 
+ * <p>The members are part of the request path, so any node of a cluster can serve a bundle
+ * without knowing the page that references it. The path is signed with the MAC secret of the
+ * view state, so only member lists rendered by the application are served. In a cluster the
+ * <code>org.apache.myfaces.MAC_SECRET</code> has to be the same on all nodes, like for client side
+ * state. If the view state is not encrypted, a random key of the application is used instead.</p>
+ */
+public class BundleResource extends Resource
+{
+    private static final Logger log = Logger.getLogger(BundleResource.class.getName());
+
+    public static final String LIBRARY_NAME = "myfaces.bundle";
+    public static final String SCRIPT_RESOURCE_NAME = "bundle.js";
+    public static final String STYLESHEET_RESOURCE_NAME = "bundle.css";
+
+    /**
+     * Request parameter holding the members of the bundle.
+     */
+    public static final String MEMBERS_PARAM = "m";
+
+    /**
+     * Request parameter holding the signature of the members.
+     */
+    public static final String SIGNATURE_PARAM = "s";
+
+    /**
+     * Maximum number of resources in a bundle, a longer run is split into several bundles.
+     */
+    public static final int MAX_MEMBERS = 64;
+
+    /**
+     * Maximum size of the content of a bundle.
+     */
+    static final int MAX_CONTENT_LENGTH = 16 * 1024 * 1024;
+
+    private static final String SIGNATURE_KEY = BundleResource.class.getName() + ".SIGNATURE_KEY";
+    private static final String SIGNATURE_ALGORITHM = "HmacSHA256";
+
+    // neither library nor resource names can contain these chars
+    private static final char MEMBER_SEPARATOR = '|';
+    private static final char LIBRARY_SEPARATOR = ':';
+
+    private static final byte[] SCRIPT_SEPARATOR = "\n;\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] STYLESHEET_SEPARATOR = "\n".getBytes(StandardCharsets.UTF_8);
+
+    private final List<Resource> members;
+    private final ResourceHandlerSupport resourceHandlerSupport;
+    private String requestPath;
+    private volatile byte[] content;
+    private volatile String contentHash;
+
+    /**
+     * @param resourceName {@link #SCRIPT_RESOURCE_NAME} or {@link #STYLESHEET_RESOURCE_NAME}
+     * @param members the bundled resources, all accepted by {@link #isBundleable(Resource, boolean)}
+     */
+    public BundleResource(String resourceName, List<Resource> members)
+    {
+        this.members = members;
+        this.resourceHandlerSupport = ((ResourceImpl) members.get(0)).getResourceHandlerSupport();
+        setLibraryName(LIBRARY_NAME);
+        setResourceName(resourceName);
+        setContentType(members.get(0).getContentType());
+    }
+
+    /**
+     * Checks if the resource can be part of a bundle. Only plain resources of the default
+     * ResourceHandler qualify. Stylesheets in a subfolder are excluded, because relative urls in
+     * them would resolve against another folder, as well as the resources of the jakarta.faces
+     * library, the faces.js has to be loaded by its own script element.
+     */
+    public static boolean isBundleable(Resource resource, boolean script)
+    {
+        if (!(resource instanceof ResourceImpl resourceImpl)
+                || resourceImpl.isContractResource()
+                || resourceImpl.getResourceMeta().getLocalePrefix() != null
+                || ResourceImpl.JAKARTA_FACES_LIBRARY_NAME.equals(resource.getLibraryName()))
+        {
+            return false;
+        }
+
+        String contentType = resource.getContentType();
+        if (script)
+        {
+            return contentType != null && contentType.contains("javascript");
+        }
+        return "text/css".equals(contentType) && resource.getResourceName().indexOf('/') == -1;
+    }
+
+    /**
+     * Parses the value of the {@link #MEMBERS_PARAM} request parameter.
+     * 
+     * @return the library and resource name of each member, the library may be null, or null if there
+     *         are more than {@link #MAX_MEMBERS} members or a member is listed twice
+     */
+    public static List<String[]> parseMembers(String value)
+    {
+        List<String[]> members = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        int start = 0;
+        while (start <= value.length())
+        {
+            int end = value.indexOf(MEMBER_SEPARATOR, start);
+            if (end == -1)
+            {
+                end = value.length();
+            }
+            String member = value.substring(start, end);
+            if (members.size() == MAX_MEMBERS || !names.add(member))
+            {
+                return null;
+            }
+            int libraryEnd = member.indexOf(LIBRARY_SEPARATOR);
+            members.add(libraryEnd == -1
+                    ? new String[] { null, member }
+                    : new String[] { member.substring(0, libraryEnd), member.substring(libraryEnd + 1) });
+            start = end + 1;
+        }
+        return members;
+    }
+
+    /**
+     * Checks the {@link #SIGNATURE_PARAM} of a bundle request against its resource name and members.
+     */
+    public static boolean isSigned(ExternalContext externalContext, String resourceName, String members,
+            String signature)
+    {
+        if (signature == null)
+        {
+            return false;
+        }
+        String expected = sign(externalContext, resourceName, members);
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII),
+                signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String sign(ExternalContext externalContext, String resourceName, String members)
+    {
+        try
+        {
+            Mac mac = createMac(externalContext);
+            mac.update(resourceName.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            byte[] signature = mac.doFinal(members.getBytes(StandardCharsets.UTF_8));
+            // 128 bits are enough to not be guessed
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature).substring(0, 22);
+        }
+        catch (GeneralSecurityException e)
+        {
+            throw new FacesException("Could not sign the resource bundle " + resourceName, e);
+        }
+    }
+
+    private static Mac createMac(ExternalContext externalContext) throws GeneralSecurityException
+    {
+        if (StateUtils.isSecure(externalContext))
+        {
+            try
+            {
+                return StateUtils.createMac(externalContext);
+            }
+            catch (Exception e)
+            {
+                log.log(Level.FINE, "MAC secret of the view state not available, using a key of the application",
+                        e);
+            }
+        }
+
+        Map<String, Object> applicationMap = externalContext.getApplicationMap();
+        SecretKey key = (SecretKey) applicationMap.get(SIGNATURE_KEY);
+        if (key == null)
+        {
+            byte[] bytes = new byte[32];
+            new SecureRandom().nextBytes(bytes);
+            key = new SecretKeySpec(bytes, SIGNATURE_ALGORITHM);
+            applicationMap.put(SIGNATURE_KEY, key);
+        }
+        Mac mac = Mac.getInstance(SIGNATURE_ALGORITHM);
+        mac.init(key);
+        return mac;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException
+    {
+        return new ByteArrayInputStream(getContent());
+    }
+
+    private byte[] getContent() throws IOException
+    {
+        byte[] bytes = content;
+        if (bytes == null)
+        {
+            boolean script = SCRIPT_RESOURCE_NAME.equals(getResourceName());
+            boolean minify = !script && MyfacesConfig.getCurrentInstance().isResourceBundlingMinify();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (int i = 0; i < members.size(); i++)
+            {
+                if (i > 0)
+                {
+                    out.write(script ? SCRIPT_SEPARATOR : STYLESHEET_SEPARATOR);
+                }
+                try (InputStream in = members.get(i).getInputStream())
+                {
+                    if (in == null)
+                    {
+                        throw new IOException("Resource " + members.get(i).getResourceName() + " of library "
+                                + members.get(i).getLibraryName() + " not readable");
+                    }
+                    byte[] memberContent = in.readNBytes(MAX_CONTENT_LENGTH - out.size() + 1);
+                    if (out.size() + memberContent.length > MAX_CONTENT_LENGTH)
+                    {
+                        throw new IOException("Bundle " + getResourceName() + " is bigger than "
+                                + MAX_CONTENT_LENGTH + " bytes");
+                    }
+                    if (minify)
+                    {
+                        memberContent = minifyStylesheet(new String(memberContent, StandardCharsets.UTF_8))
+                                .getBytes(StandardCharsets.UTF_8);
+                    }
+                    out.write(memberContent);
+                }
+            }
+            bytes = out.toByteArray();
+            content = bytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * Removes the comments and collapses the whitespace of a stylesheet, leaving strings untouched.
+     */
+    static String minifyStylesheet(String css)
+    {
+        StringBuilder sb = new StringBuilder(css.length());
+        int length = css.length();
+        int i = 0;
+        while (i < length)
+        {
+            char c = css.charAt(i);
+            if (c == '/' && i + 1 < length && css.charAt(i + 1) == '*')
+            {
+                int end = css.indexOf("*/", i + 2);
+                i = end == -1 ? length : end + 2;
+            }
+            else if (c == '"' || c == '\'')
+            {
+                int end = i + 1;
+                while (end < length && css.charAt(end) != c)
+                {
+                    end += css.charAt(end) == '\\' ? 2 : 1;
+                }
+                end = Math.min(end + 1, length);
+                sb.append(css, i, end);
+                i = end;
+            }
+            else if (Character.isWhitespace(c))
+            {
+                while (i < length && Character.isWhitespace(css.charAt(i)))
+                {
+                    i++;
+                }
+                if (sb.length() > 0 && i < length)
+                {
+                    sb.append(' ');
+                }
+            }
+            else
+            {
+                sb.append(c);
+                i++;
+            }
+        }
+        int end = sb.length();
+        if (end > 0 && sb.charAt(end - 1) == ' ')
+        {
+            sb.setLength(end - 1);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the value of the {@link #MEMBERS_PARAM} request parameter
+     */
+    private String getMembersValue()
+    {
+        StringBuilder value = new StringBuilder();
+        for (Resource member : members)
+        {
+            if (value.length() > 0)
+            {
+                value.append(MEMBER_SEPARATOR);
+            }
+            if (member.getLibraryName() != null)
+            {
+                value.append(member.getLibraryName()).append(LIBRARY_SEPARATOR);
+            }
+            value.append(member.getResourceName());
+        }
+        return value.toString();
+    }
+
+    /**
+     * @return the key of the bundle in the {@link CompressedResourceCache}, bundles have no URL
+     */
+    String getCacheKey()
+    {
+        return LIBRARY_NAME + '/' + getResourceName() + '?' + getMembersValue();
+    }
+
+    @Override
+    public String getRequestPath()
+    {
+        if (requestPath == null)
+        {
+            FacesContext context = FacesContext.getCurrentInstance();
+            String members = getMembersValue();
+            String path = ResourceImpl.getMappedResourcePath(context, resourceHandlerSupport, getResourceName())
+                    + "?ln=" + LIBRARY_NAME
+                    + '&' + MEMBERS_PARAM + '=' + URLEncoder.encode(members, StandardCharsets.UTF_8)
+                    + '&' + SIGNATURE_PARAM + '='
+                    + sign(context.getExternalContext(), getResourceName(), members);
+            requestPath = context.getApplication().getViewHandler().getResourceURL(context, path);
+        }
+        return requestPath;
+    }
+
+    @Override
+    public Map<String, String> getResponseHeaders()
+    {
+        FacesContext facesContext = FacesContext.getCurrentInstance();
+        Map<String, String> headers = new HashMap<>(3, 1f);
+
+        headers.put("Last-Modified", ResourceLoaderUtils.formatDateHeader(getLastModified(facesContext)));
+        if (facesContext.isProjectStage(ProjectStage.Development))
+        {
+            headers.put("Cache-Control", "no-cache");
+        }
+        else
+        {
+            headers.put("Cache-Control", "max-age=" + (resourceHandlerSupport.getMaxTimeExpires() / 1000));
+        }
+
+        String entityTag = getEntityTag(facesContext);
+        if (entityTag != null)
+        {
+            headers.put("ETag", entityTag);
+        }
+        return headers;
+    }
+
+    /**
+     * The bundle is generated, like the resources holding value expressions it is never older
+     * than the application startup.
+     */
+    private long getLastModified(FacesContext facesContext)
+    {
+        long lastModified = resourceHandlerSupport.getStartupTime();
+        for (Resource member : members)
+        {
+            lastModified = Math.max(lastModified, ((ResourceImpl) member).getLastModified(facesContext));
+        }
+        return lastModified;
+    }
+
+    private String getEntityTag(FacesContext facesContext)
+    {
+        if (!MyfacesConfig.getCurrentInstance(facesContext).isResourceEntityTagEnabled())
+        {
+            return null;
+        }
+
+        String hash = contentHash;
+        if (hash == null)
+        {
+            try
+            {
+                hash = ResourceLoaderUtils.createContentHash(getInputStream());
+                contentHash = hash;
+            }
+            catch (IOException e)
+            {
+                return null;
+            }
+        }
+        return '"' + hash + '"';
+    }
+
+    @Override
+    public URL getURL()
+    {
+        // generated, there is no URL to the content
+        return null;
+    }
+
+    @Override
+    public boolean userAgentNeedsUpdate(FacesContext context)
+    {
+        Map<String, String> requestHeaders = context.getExternalContext().getRequestHeaderMap();
+
+        String ifNoneMatch = requestHeaders.get("If-None-Match");
+        if (ifNoneMatch != null && contentHash != null
+                && MyfacesConfig.getCurrentInstance(context).isResourceEntityTagEnabled())
+        {
+            String entityTag = '"' + contentHash + '"';
+            return !ResourceLoaderUtils.isEntityTagMatch(ifNoneMatch,
+                    entityTag, CompressedResourceCache.getEntityTag(entityTag));
+        }
+
+        String ifModifiedSinceString = requestHeaders.get("If-Modified-Since");
+        Long ifModifiedSince = ifModifiedSinceString == null
+                ? null
+                : ResourceLoaderUtils.parseDateHeader(ifModifiedSinceString);
+        if (ifModifiedSince == null)
+        {
+            return true;
+        }
+        long lastModified = getLastModified(context);
+        return (lastModified - (lastModified % 1000)) > ifModifiedSince;
+    }
+}
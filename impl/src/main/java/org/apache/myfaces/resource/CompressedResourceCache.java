@@ -0,0 +1,327 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+import jakarta.faces.application.Resource;
+import jakarta.faces.context.ExternalContext;
+import jakarta.faces.context.FacesContext;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Cache of the gzip compressed variants of the resources served by the default ResourceHandler.
+ * 
+ * <p>Each resource is compressed once, the first time it is requested by a client accepting gzip,
+ * into a file in the temporal directory of the ServletContext. Later requests send that file,
+ * through the sendfile support of the container if available. Resources that do not get smaller
+ * are remembered and served as they are.</p>
+ * 
+ * <p>Resources are identified by their URL and bundles by their members, so the cache must only be
+ * used for resources with a stable content, like the ones created by the default ResourceHandler.</p>
+ */
+public class CompressedResourceCache
+{
+    private static final Logger log = Logger.getLogger(CompressedResourceCache.class.getName());
+
+    public static final String GZIP = "gzip";
+
+    /**
+     * Subdir of the ServletContext tmp dir to store the compressed resources.
+     */
+    private static final String TEMP_FOLDER_BASE_DIR = "oam-rh-compressed/";
+
+    private static final String COMPRESSED_FILE_SUFFIX = ".gz";
+
+    private static final Set<String> COMPRESSIBLE_CONTENT_TYPES = Set.of(
+            "application/javascript", "application/x-javascript", "application/ecmascript",
+            "application/json", "application/xml", "application/xhtml+xml", "image/svg+xml");
+
+    // request attributes of the Tomcat sendfile support
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final File directory;
+    private final int bufferSize;
+    private final Map<String, CompressedFile> files = new ConcurrentHashMap<>();
+    private final AtomicInteger fileCounter = new AtomicInteger();
+
+    public CompressedResourceCache(File directory, int bufferSize)
+    {
+        this.directory = directory;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Creates the cache in the temporal directory of the ServletContext, removing the files
+     * of a previous run.
+     * 
+     * @return the cache or null if there is no usable temporal directory
+     */
+    public static CompressedResourceCache create(FacesContext facesContext, int bufferSize)
+    {
+        Object tempdir = facesContext.getExternalContext().getApplicationMap().get(ServletContext.TEMPDIR);
+        if (!(tempdir instanceof File))
+        {
+            return null;
+        }
+
+        File directory = new File((File) tempdir, TEMP_FOLDER_BASE_DIR);
+        if (directory.exists())
+        {
+            deleteDir(directory);
+        }
+        if (!directory.mkdirs())
+        {
+            log.warning("Could not create the directory " + directory + ", resources are not compressed");
+            return null;
+        }
+        return new CompressedResourceCache(directory, bufferSize);
+    }
+
+    private static boolean deleteDir(File dir)
+    {
+        if (dir.isDirectory())
+        {
+            String[] children = dir.list();
+            for (int i = 0; i < children.length; i++)
+            {
+                boolean success = deleteDir(new File(dir, children[i]));
+                if (!success)
+                {
+                    return false;
+                }
+            }
+        }
+        return dir.delete();
+    }
+
+    /**
+     * @return true if the content type is a text format worth compressing
+     */
+    public static boolean isCompressible(String contentType)
+    {
+        if (contentType == null)
+        {
+            return false;
+        }
+
+        int paramStart = contentType.indexOf(';');
+        String mimeType = (paramStart == -1 ? contentType : contentType.substring(0, paramStart))
+                .trim().toLowerCase(Locale.ROOT);
+
+        return mimeType.startsWith("text/")
+                || mimeType.endsWith("+xml")
+                || mimeType.endsWith("+json")
+                || COMPRESSIBLE_CONTENT_TYPES.contains(mimeType);
+    }
+
+    /**
+     * @param acceptEncoding the value of the Accept-Encoding request header
+     * @return true if the header allows a gzip encoded response
+     */
+    public static boolean isGzipAccepted(String acceptEncoding)
+    {
+        if (acceptEncoding == null)
+        {
+            return false;
+        }
+
+        float wildcardQuality = 0f;
+        for (String entry : acceptEncoding.split(","))
+        {
+            int paramStart = entry.indexOf(';');
+            String coding = (paramStart == -1 ? entry : entry.substring(0, paramStart)).trim();
+            if (GZIP.equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding))
+            {
+                return getQuality(entry, paramStart) > 0f;
+            }
+            if ("*".equals(coding))
+            {
+                wildcardQuality = getQuality(entry, paramStart);
+            }
+        }
+        return wildcardQuality > 0f;
+    }
+
+    private static float getQuality(String entry, int paramStart)
+    {
+        if (paramStart == -1)
+        {
+            return 1f;
+        }
+
+        for (String param : entry.substring(paramStart + 1).split(";"))
+        {
+            param = param.trim();
+            if (param.startsWith("q=") || param.startsWith("Q="))
+            {
+                try
+                {
+                    return Float.parseFloat(param.substring(2).trim());
+                }
+                catch (NumberFormatException e)
+                {
+                    return 0f;
+                }
+            }
+        }
+        return 1f;
+    }
+
+    /**
+     * @return the ETag of the compressed variant of a resource with the given ETag
+     */
+    public static String getEntityTag(String entityTag)
+    {
+        return entityTag.substring(0, entityTag.length() - 1) + "-" + GZIP + '"';
+    }
+
+    /**
+     * Returns the gzip compressed variant of the resource, compressing it on the first call.
+     * 
+     * @return the compressed file or null if the resource cannot be or is not worth to be compressed
+     */
+    public File getCompressedFile(Resource resource)
+    {
+        String key;
+        if (resource instanceof BundleResource bundle)
+        {
+            key = bundle.getCacheKey();
+        }
+        else
+        {
+            URL url = resource.getURL();
+            if (url == null)
+            {
+                return null;
+            }
+            key = url.toExternalForm();
+        }
+
+        CompressedFile compressedFile = files.computeIfAbsent(key, k -> new CompressedFile());
+        return compressedFile.get(resource);
+    }
+
+    /**
+     * Sends the compressed file as body of the response. The headers, apart from the Content-Length,
+     * must be set before.
+     * 
+     * <p>With the sendfile support of the container, the container sends the file without passing it
+     * through the application. Otherwise the file is copied to the output stream of the response.</p>
+     */
+    public static void send(File file, ExternalContext externalContext, HttpServletResponse response)
+            throws IOException
+    {
+        long length = file.length();
+        response.setContentLengthLong(length);
+
+        Map<String, Object> requestMap = externalContext.getRequestMap();
+        if (Boolean.TRUE.equals(requestMap.get(SENDFILE_SUPPORTED)))
+        {
+            // the container writes the file once the request is processed
+            requestMap.put(SENDFILE_FILENAME, file.getAbsolutePath());
+            requestMap.put(SENDFILE_START, 0L);
+            requestMap.put(SENDFILE_END, length);
+            return;
+        }
+
+        try (OutputStream out = response.getOutputStream())
+        {
+            Files.copy(file.toPath(), out);
+        }
+    }
+
+    private File compress(Resource resource) throws IOException
+    {
+        InputStream in = resource.getInputStream();
+        if (in == null)
+        {
+            return null;
+        }
+
+        File target = new File(directory, fileCounter.incrementAndGet() + COMPRESSED_FILE_SUFFIX);
+        long uncompressedLength = 0;
+
+        try (in; OutputStream out = new GZIPOutputStream(new FileOutputStream(target), bufferSize))
+        {
+            byte[] buffer = new byte[bufferSize];
+            int length;
+            while ((length = in.read(buffer)) >= 0)
+            {
+                out.write(buffer, 0, length);
+                uncompressedLength += length;
+            }
+        }
+
+        if (target.length() >= uncompressedLength)
+        {
+            target.delete();
+            return null;
+        }
+        return target;
+    }
+
+    private final class CompressedFile
+    {
+        private volatile boolean created = false;
+        private File file;
+
+        File get(Resource resource)
+        {
+            if (!created)
+            {
+                synchronized (this)
+                {
+                    if (!created)
+                    {
+                        try
+                        {
+                            file = compress(resource);
+                        }
+                        catch (IOException e)
+                        {
+                            log.log(Level.WARNING, "Could not compress resource " + resource.getResourceName()
+                                    + " with library " + resource.getLibraryName()
+                                    + ", it is served uncompressed", e);
+                        }
+                        created = true;
+                    }
+                }
+            }
+            return file;
+        }
+    }
+}
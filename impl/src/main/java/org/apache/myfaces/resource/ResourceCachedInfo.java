@@ -28,6 +28,7 @@
 {
     private final URL url;
     private final String requestPath;
+    private volatile String contentHash;
 
     public ResourceCachedInfo(URL url, String requestPath)
     {
@@ -44,4 +45,18 @@ public String getRequestPath()
     {
         return requestPath;
     }
+
+    /**
+     * @return the hash of the resource content, used for the ETag and the fingerprinted request path,
+     * or null if not computed yet
+     */
+    public String getContentHash()
+    {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash)
+    {
+        this.contentHash = contentHash;
+    }
 }
@@ -40,6 +40,15 @@ public class ResourceImpl extends Resource implements ContractResource
     protected final static String JAKARTA_FACES_LIBRARY_NAME = "jakarta.faces";
     protected final static String FACES_JS_RESOURCE_NAME = "faces.js";
 
+    /**
+     * Request parameter holding the content hash of fingerprinted resource URLs.
+     */
+    public final static String FINGERPRINT_PARAM = "h";
+
+    private final static int FINGERPRINT_LENGTH = 16;
+
+    private final static String IMMUTABLE_CACHE_CONTROL = "max-age=31536000, immutable";
+
 
     private ResourceMeta _resourceMeta;
     private ResourceLoader _resourceLoader;
@@ -47,6 +56,8 @@ public class ResourceImpl extends Resource implements ContractResource
     
     private URL _url;
     private String _requestPath;
+    private ResourceCachedInfo _cachedInfo;
+    private String _contentHash;
     
     public ResourceImpl(ResourceMeta resourceMeta, 
             ResourceLoader resourceLoader, ResourceHandlerSupport support, String contentType)
@@ -73,6 +84,14 @@ public ResourceImpl(ResourceMeta resourceMeta,
         setResourceName(resourceMeta.getResourceName());
         setContentType(contentType);
     }
+
+    public ResourceImpl(ResourceMeta resourceMeta, 
+            ResourceLoader resourceLoader, ResourceHandlerSupport support, String contentType,
+            ResourceCachedInfo cachedInfo)
+    {
+        this(resourceMeta, resourceLoader, support, contentType, cachedInfo.getURL(), cachedInfo.getRequestPath());
+        _cachedInfo = cachedInfo;
+    }
     
     public ResourceLoader getResourceLoader()
     {
@@ -114,24 +133,7 @@ public String getRequestPath()
         if (_requestPath == null)
         {
             FacesContext context = FacesContext.getCurrentInstance();
-            FacesServletMapping mapping = FacesServletMappingUtils.getCurrentRequestFacesServletMapping(context);
-            if (mapping.isExactMapping())
-            {
-                // resources can't be exact, lets fallback to a generic one
-                mapping = FacesServletMappingUtils.getGenericPrefixOrSuffixMapping(context);
-            }
-            
-            String path = "";
-            if (mapping.isExtensionMapping())
-            {
-                path = _resourceHandlerSupport.getResourceIdentifier() + '/' + 
-                    getResourceName() + mapping.getExtension();
-            }
-            else
-            {
-                path = _resourceHandlerSupport.getResourceIdentifier() + '/' + getResourceName();
-                path = (mapping.getPrefix() == null) ? path : mapping.getPrefix() + path;
-            }
+            String path = getMappedResourcePath(context, _resourceHandlerSupport, getResourceName());
 
             String metadata = null;
             boolean useAmp = false;
@@ -159,11 +161,47 @@ public String getRequestPath()
                 path = path + (useAmp ? '&' : '?') + "con=" + _resourceMeta.getContractName();
                 useAmp = true;
             }
+            if (isFingerprintEnabled(context))
+            {
+                String contentHash = getContentHash();
+                if (contentHash != null)
+                {
+                    path = path + (useAmp ? '&' : '?') + FINGERPRINT_PARAM + '='
+                            + contentHash.substring(0, FINGERPRINT_LENGTH);
+                    useAmp = true;
+                }
+            }
             _requestPath = context.getApplication().getViewHandler().getResourceURL(context, path);
         }
         return _requestPath;
     }
 
+    /**
+     * Returns the path of the resource with the given name, without library and other parameters,
+     * for the mapping of the FacesServlet.
+     */
+    static String getMappedResourcePath(FacesContext context, ResourceHandlerSupport support, String resourceName)
+    {
+        FacesServletMapping mapping = FacesServletMappingUtils.getCurrentRequestFacesServletMapping(context);
+        if (mapping.isExactMapping())
+        {
+            // resources can't be exact, lets fallback to a generic one
+            mapping = FacesServletMappingUtils.getGenericPrefixOrSuffixMapping(context);
+        }
+
+        String path;
+        if (mapping.isExtensionMapping())
+        {
+            path = support.getResourceIdentifier() + '/' + resourceName + mapping.getExtension();
+        }
+        else
+        {
+            path = support.getResourceIdentifier() + '/' + resourceName;
+            path = (mapping.getPrefix() == null) ? path : mapping.getPrefix() + path;
+        }
+        return path;
+    }
+
     @Override
     public Map<String, String> getResponseHeaders()
     {
@@ -171,7 +209,7 @@ public Map<String, String> getResponseHeaders()
         
         if (facesContext.getApplication().getResourceHandler().isResourceRequest(facesContext))
         {
-            Map<String, String> headers = new HashMap<>(2, 1f);
+            Map<String, String> headers = new HashMap<>(3, 1f);
             
             long lastModified = getLastModified(facesContext);
             
@@ -191,6 +229,12 @@ else if (_resourceMeta instanceof AliasResourceMetaImpl
                 lastModified = _resourceHandlerSupport.getStartupTime();
             }
 
+            String entityTag = getEntityTag(facesContext);
+            if (entityTag != null)
+            {
+                headers.put("ETag", entityTag);
+            }
+
             if (lastModified >= 0)
             {
                 headers.put("Last-Modified", ResourceLoaderUtils.formatDateHeader(lastModified));
@@ -199,6 +243,10 @@ else if (_resourceMeta instanceof AliasResourceMetaImpl
                 {
                     headers.put("Cache-Control", "no-cache");
                 }
+                else if (isFingerprintMatch(facesContext))
+                {
+                    headers.put("Cache-Control", IMMUTABLE_CACHE_CONTROL);
+                }
                 else
                 {
                     headers.put("Cache-Control", "max-age=" + (_resourceHandlerSupport.getMaxTimeExpires()/1000));
@@ -240,6 +288,24 @@ public boolean userAgentNeedsUpdate(FacesContext context)
         // This method is called from ResourceHandlerImpl.handleResourceRequest and if
         // returns false send a 304 Not Modified response.
         
+        // RFC7232 says If-None-Match takes precedence over If-Modified-Since. The ETag is only
+        // known after the resource has been sent once, so this check never opens the resource.
+        if (_cachedInfo != null && MyfacesConfig.getCurrentInstance(context).isResourceEntityTagEnabled())
+        {
+            String ifNoneMatch = context.getExternalContext().getRequestHeaderMap().get("If-None-Match");
+            if (ifNoneMatch != null)
+            {
+                String contentHash = _cachedInfo.getContentHash();
+                if (contentHash == null)
+                {
+                    return true;
+                }
+                String entityTag = '"' + contentHash + '"';
+                return !ResourceLoaderUtils.isEntityTagMatch(ifNoneMatch,
+                        entityTag, CompressedResourceCache.getEntityTag(entityTag));
+            }
+        }
+
         String ifModifiedSinceString = context.getExternalContext().getRequestHeaderMap().get("If-Modified-Since");
         
         if (ifModifiedSinceString == null)
@@ -278,6 +344,97 @@ public boolean userAgentNeedsUpdate(FacesContext context)
         return true;
     }
     
+    /**
+     * Returns the information of this resource to be kept in the ResourceHandlerCache.
+     */
+    public ResourceCachedInfo getCachedInfo()
+    {
+        if (_cachedInfo == null)
+        {
+            _cachedInfo = new ResourceCachedInfo(getURL(), getRequestPath());
+            _cachedInfo.setContentHash(_contentHash);
+        }
+        return _cachedInfo;
+    }
+
+    /**
+     * Returns the ETag of this resource, computing it from the resource content the first time.
+     * 
+     * @return the ETag or null if ETags are disabled or the resource is not cached
+     */
+    public String getEntityTag(FacesContext facesContext)
+    {
+        MyfacesConfig myfacesConfig = MyfacesConfig.getCurrentInstance(facesContext);
+        if (_cachedInfo == null || !myfacesConfig.isResourceEntityTagEnabled()
+                || !myfacesConfig.isResourceHandlerCacheEnabled())
+        {
+            return null;
+        }
+
+        String contentHash = getContentHash();
+        return contentHash == null ? null : '"' + contentHash + '"';
+    }
+
+    /**
+     * Fingerprinted request paths need the hash of every rendered resource, so they are only
+     * created if the hash can be cached.
+     */
+    private boolean isFingerprintEnabled(FacesContext facesContext)
+    {
+        MyfacesConfig myfacesConfig = MyfacesConfig.getCurrentInstance(facesContext);
+        return myfacesConfig.isResourceFingerprintEnabled()
+                && myfacesConfig.isResourceHandlerCacheEnabled()
+                && !facesContext.isProjectStage(ProjectStage.Development);
+    }
+
+    /**
+     * Checks if the current request asks for the content this resource has now. Requests with the
+     * fingerprint of an older content, for example rendered by another node during a rolling deploy,
+     * still get the resource, but not the immutable caching.
+     */
+    private boolean isFingerprintMatch(FacesContext facesContext)
+    {
+        String fingerprint = facesContext.getExternalContext().getRequestParameterMap().get(FINGERPRINT_PARAM);
+        if (fingerprint == null || !isFingerprintEnabled(facesContext))
+        {
+            return false;
+        }
+        String contentHash = getContentHash();
+        return contentHash != null && contentHash.startsWith(fingerprint)
+                && fingerprint.length() == FINGERPRINT_LENGTH;
+    }
+
+    /**
+     * Returns the hash of the resource content, computing it the first time.
+     * 
+     * @return the hash or null if the content cannot be read
+     */
+    private String getContentHash()
+    {
+        String contentHash = _cachedInfo != null ? _cachedInfo.getContentHash() : _contentHash;
+        if (contentHash == null)
+        {
+            try
+            {
+                InputStream in = getInputStream();
+                if (in != null)
+                {
+                    contentHash = ResourceLoaderUtils.createContentHash(in);
+                    _contentHash = contentHash;
+                    if (_cachedInfo != null)
+                    {
+                        _cachedInfo.setContentHash(contentHash);
+                    }
+                }
+            }
+            catch (IOException e)
+            {
+                // serve the resource without hash
+            }
+        }
+        return contentHash;
+    }
+
     protected ResourceHandlerSupport getResourceHandlerSupport()
     {
         return _resourceHandlerSupport;
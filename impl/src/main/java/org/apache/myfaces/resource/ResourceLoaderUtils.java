@@ -23,11 +23,14 @@
 import java.net.JarURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.Locale;
 import org.apache.myfaces.util.lang.StringUtils;
 
@@ -104,6 +107,61 @@ public static long getResourceLastModified(URL url) throws IOException
         return lastModified;
     }
 
+    /**
+     * Creates the URL safe Base64 form of the SHA-256 hash of the given content. The stream is closed.
+     */
+    public static String createContentHash(InputStream in) throws IOException
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+
+        try (in)
+        {
+            byte[] buffer = new byte[4096];
+            int length;
+            while ((length = in.read(buffer)) >= 0)
+            {
+                digest.update(buffer, 0, length);
+            }
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+    }
+
+    /**
+     * Checks the value of an If-None-Match request header against the given ETags, using the weak
+     * comparison as required for If-None-Match.
+     */
+    public static boolean isEntityTagMatch(String ifNoneMatch, String... entityTags)
+    {
+        for (String candidate : ifNoneMatch.split(","))
+        {
+            candidate = candidate.trim();
+            if ("*".equals(candidate))
+            {
+                return true;
+            }
+            if (candidate.startsWith("W/"))
+            {
+                candidate = candidate.substring(2);
+            }
+            for (String entityTag : entityTags)
+            {
+                if (candidate.equals(entityTag))
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     public static int getDepth(String path)
     {
         int depth = 0;
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.spi;
+
+import java.util.function.Consumer;
+import jakarta.faces.FacesWrapper;
+
+/**
+ * Relays the messages sent with PushContext to the other nodes of a cluster, so the websockets connected to
+ * another node than the one sending the message receive it too.
+ * 
+ * <p>A custom relay is registered as a service of this class, it can wrap the relay configured with
+ * org.apache.myfaces.WEBSOCKET_RELAY through a constructor taking a PushRelay.</p>
+ * 
+ * @since 5.0
+ */
+public abstract class PushRelay implements FacesWrapper<PushRelay>
+{
+    /**
+     * Starts receiving the messages published by the other nodes.
+     * 
+     * @param receiver sends a received message to the websockets of this node
+     */
+    public abstract void start(Consumer<PushRelayMessage> receiver);
+
+    /**
+     * Publishes a message sent on this node to the other nodes. It must not block the caller, the message
+     * can be sent later together with other messages.
+     */
+    public abstract void publish(PushRelayMessage message);
+
+    /**
+     * Stops relaying, called when the application is destroyed.
+     */
+    public abstract void stop();
+
+    @Override
+    public PushRelay getWrapped()
+    {
+        return null;
+    }
+}
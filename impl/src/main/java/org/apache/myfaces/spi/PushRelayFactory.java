@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.spi;
+
+import jakarta.faces.FacesWrapper;
+import jakarta.faces.context.ExternalContext;
+import org.apache.myfaces.spi.impl.DefaultPushRelayFactory;
+import org.apache.myfaces.spi.impl.SpiUtils;
+
+/**
+ * @since 5.0
+ */
+public abstract class PushRelayFactory implements FacesWrapper<PushRelayFactory>
+{
+    private static final String FACTORY_KEY = PushRelayFactory.class.getName();
+
+    public static PushRelayFactory getPushRelayFactory(ExternalContext ctx)
+    {
+        PushRelayFactory instance = (PushRelayFactory) ctx.getApplicationMap().get(FACTORY_KEY);
+
+        if (instance != null)
+        {
+            return instance;
+        }
+
+        instance = (PushRelayFactory) SpiUtils.build(ctx, PushRelayFactory.class, DefaultPushRelayFactory.class);
+
+        if (instance != null)
+        {
+            setPushRelayFactory(ctx, instance);
+        }
+
+        return instance;
+    }
+
+    public static void setPushRelayFactory(ExternalContext ctx, PushRelayFactory instance)
+    {
+        ctx.getApplicationMap().put(FACTORY_KEY, instance);
+    }
+
+    /**
+     * @return the relay of the application or null if push messages are not relayed
+     */
+    public PushRelay getPushRelay(ExternalContext ctx)
+    {
+        return createPushRelay(ctx);
+    }
+
+    public abstract PushRelay createPushRelay(ExternalContext externalContext);
+
+    @Override
+    public PushRelayFactory getWrapped()
+    {
+        return null;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.spi;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A message relayed to the other nodes by a {@link PushRelay}.
+ * 
+ * <p>The channel tokens of the application scope are created by every node, so a message of an application
+ * scoped channel only holds the channel. The tokens of the session and view scopes are replicated with the
+ * session and are relayed as they are. Messages for users are resolved by every node from its own connections.
+ * </p>
+ * 
+ * @since 5.0
+ */
+public final class PushRelayMessage
+{
+    private final String channel;
+    private final String json;
+    private final List<String> channelTokens;
+    private final List<Serializable> users;
+
+    private PushRelayMessage(String channel, String json, List<String> channelTokens, List<Serializable> users)
+    {
+        this.channel = channel;
+        this.json = json;
+        this.channelTokens = channelTokens;
+        this.users = users;
+    }
+
+    /**
+     * A message for all connections of an application scoped channel.
+     */
+    public static PushRelayMessage forChannel(String channel, String json)
+    {
+        return new PushRelayMessage(channel, json, null, null);
+    }
+
+    /**
+     * A message for the connections of the given channel tokens of a session or view scoped channel.
+     */
+    public static PushRelayMessage forChannelTokens(String channel, String json, Collection<String> channelTokens)
+    {
+        return new PushRelayMessage(channel, json, List.copyOf(channelTokens), null);
+    }
+
+    /**
+     * A message for the connections of the given users on a channel.
+     */
+    public static PushRelayMessage forUsers(String channel, String json, Collection<? extends Serializable> users)
+    {
+        return new PushRelayMessage(channel, json, null, List.copyOf(users));
+    }
+
+    public String getChannel()
+    {
+        return channel;
+    }
+
+    /**
+     * @return the message, already encoded as JSON
+     */
+    public String getJson()
+    {
+        return json;
+    }
+
+    /**
+     * @return the channel tokens or null if the message is not for specific channel tokens
+     */
+    public List<String> getChannelTokens()
+    {
+        return channelTokens;
+    }
+
+    /**
+     * @return the users or null if the message is not for specific users
+     */
+    public List<Serializable> getUsers()
+    {
+        return users;
+    }
+}
@@ -32,13 +32,9 @@ public byte[] toByteArray(Object object) throws IOException
     {
         try (ByteArrayOutputStream baos = new ByteArrayOutputStream())
         {
-            try (ObjectOutputStream oos = getObjectOutputStream(baos))
-            {
-                oos.writeObject(object);
-                oos.flush();
+            writeObject(object, baos);
 
-                return baos.toByteArray();
-            }
+            return baos.toByteArray();
         }
     }
 
@@ -46,13 +42,30 @@ public Object toObject(byte[] bytes) throws IOException, ClassNotFoundException
     {
         try (InputStream bias = new FastByteArrayInputStream(bytes))
         {
-            try (ObjectInputStream ois = getObjectInputStream(bias))
-            {
-                return ois.readObject();
-            }
+            return readObject(bias);
         }
     }
 
+    /**
+     * Serializes the object into the given stream. The stream is flushed but not closed, so it can be
+     * part of a longer pipeline (compression, encryption, encoding) owned by the caller.
+     */
+    public void writeObject(Object object, OutputStream outputStream) throws IOException
+    {
+        ObjectOutputStream oos = getObjectOutputStream(outputStream);
+        oos.writeObject(object);
+        oos.flush();
+    }
+
+    /**
+     * Deserializes one object from the given stream. The stream is not closed.
+     */
+    public Object readObject(InputStream inputStream) throws IOException, ClassNotFoundException
+    {
+        ObjectInputStream ois = getObjectInputStream(inputStream);
+        return ois.readObject();
+    }
+
     protected abstract ObjectOutputStream getObjectOutputStream(OutputStream outputStream) throws IOException;
 
     protected abstract ObjectInputStream getObjectInputStream(InputStream inputStream) throws IOException;
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.spi.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+import org.apache.myfaces.spi.SerialFactory;
+import org.apache.myfaces.util.MyFacesObjectInputStream;
+import org.apache.myfaces.util.lang.ClassUtils;
+import org.apache.myfaces.util.lang.ConcurrentLRUCache;
+
+/**
+ * SerialFactory that writes the usual shapes of a saved component tree (Object[], String, Integer, Long,
+ * Boolean, enums like PropertyKeys, Class and the attached state wrappers of the api) with a compact
+ * tagged encoding. Repeated strings and class names are written once and referenced by index after that,
+ * an Object[] that is written again is referenced the same way, so shared and cyclic arrays are kept.
+ * Everything else is written with plain java serialization in the same stream.
+ * 
+ * <p>Enable it with the <code>org.apache.myfaces.SERIAL_FACTORY</code> init parameter:</p>
+ * <pre>
+ * org.apache.myfaces.spi.impl.CompactSerialFactory
+ * </pre>
+ */
+public class CompactSerialFactory extends SerialFactory
+{
+    private static final int CLASS_CACHE_SIZE = 256;
+
+    // the factory belongs to the application, bounded as the names come from the client with client side state
+    private final ConcurrentLRUCache<String, Class<?>> classCache =
+            new ConcurrentLRUCache<>((CLASS_CACHE_SIZE * 4 + 3) / 3, CLASS_CACHE_SIZE);
+
+    @Override
+    public void writeObject(Object object, OutputStream outputStream) throws IOException
+    {
+        ObjectOutputStream oos = getObjectOutputStream(outputStream);
+        new CompactStateWriter(oos).write(object);
+        oos.flush();
+    }
+
+    @Override
+    public Object readObject(InputStream inputStream) throws IOException, ClassNotFoundException
+    {
+        ObjectInputStream ois = getObjectInputStream(inputStream);
+        return new CompactStateReader(ois, this).read();
+    }
+
+    @Override
+    protected ObjectOutputStream getObjectOutputStream(OutputStream outputStream) throws IOException
+    {
+        return new ObjectOutputStream(outputStream);
+    }
+
+    @Override
+    protected ObjectInputStream getObjectInputStream(InputStream inputStream) throws IOException
+    {
+        return new MyFacesObjectInputStream(inputStream);
+    }
+
+    Class<?> classForName(String name) throws ClassNotFoundException
+    {
+        Class<?> clazz = classCache.get(name);
+        if (clazz == null)
+        {
+            clazz = ClassUtils.classForName(name);
+            classCache.put(name, clazz);
+        }
+        return clazz;
+    }
+}
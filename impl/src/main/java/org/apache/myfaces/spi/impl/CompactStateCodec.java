@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.spi.impl;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jakarta.faces.component.UIComponent;
+
+/**
+ * Tags and helpers shared by {@link CompactStateWriter} and {@link CompactStateReader}.
+ * 
+ * <p>The attached state wrappers of the api are package private, so they are created and read through
+ * reflection. If that is not possible (security manager, repackaged api), they are written with java
+ * serialization like any other object.</p>
+ */
+final class CompactStateCodec
+{
+    private static final Logger log = Logger.getLogger(CompactStateCodec.class.getName());
+
+    static final int NULL = 0;
+    static final int OBJECT_ARRAY = 1;
+    static final int STRING = 2;
+    static final int INTEGER = 3;
+    static final int LONG = 4;
+    static final int TRUE = 5;
+    static final int FALSE = 6;
+    static final int ENUM = 7;
+    static final int CLASS = 8;
+    static final int ATTACHED_STATE = 9;
+    static final int ATTACHED_DELTA = 10;
+    static final int SERIALIZED = 11;
+
+    /**
+     * An Object[] already written in the same state, followed by its index in the order the arrays were
+     * written, so shared and cyclic arrays keep their identity.
+     */
+    static final int OBJECT_ARRAY_REFERENCE = 12;
+
+    /**
+     * Marker written before a string: a new string encoded with writeUTF, a new string too long for
+     * writeUTF (written as object), or <code>index + STRING_REFERENCE</code> for a string already written.
+     */
+    static final int STRING_NEW = 0;
+    static final int STRING_NEW_LONG = 1;
+    static final int STRING_REFERENCE = 2;
+
+    /**
+     * writeUTF fails over 65535 bytes, a char takes at most 3 bytes.
+     */
+    static final int MAX_UTF_STRING_LENGTH = 65535 / 3;
+
+    private static final Class<?> ATTACHED_STATE_WRAPPER;
+    private static final Constructor<?> ATTACHED_STATE_WRAPPER_CONSTRUCTOR;
+    private static final Method ATTACHED_STATE_WRAPPER_GET_CLAZZ;
+    private static final Method ATTACHED_STATE_WRAPPER_GET_WRAPPED;
+
+    private static final Class<?> ATTACHED_DELTA_WRAPPER;
+    private static final Constructor<?> ATTACHED_DELTA_WRAPPER_CONSTRUCTOR;
+    private static final Method ATTACHED_DELTA_WRAPPER_GET_WRAPPED;
+
+    static
+    {
+        Class<?> stateWrapper = null;
+        Constructor<?> stateWrapperConstructor = null;
+        Method stateWrapperGetClazz = null;
+        Method stateWrapperGetWrapped = null;
+        Class<?> deltaWrapper = null;
+        Constructor<?> deltaWrapperConstructor = null;
+        Method deltaWrapperGetWrapped = null;
+        try
+        {
+            ClassLoader apiClassLoader = UIComponent.class.getClassLoader();
+
+            stateWrapper = Class.forName("jakarta.faces.component._AttachedStateWrapper", false, apiClassLoader);
+            stateWrapperConstructor = stateWrapper.getDeclaredConstructor(Class.class, Object.class);
+            stateWrapperConstructor.setAccessible(true);
+            stateWrapperGetClazz = stateWrapper.getDeclaredMethod("getClazz");
+            stateWrapperGetClazz.setAccessible(true);
+            stateWrapperGetWrapped = stateWrapper.getDeclaredMethod("getWrappedStateObject");
+            stateWrapperGetWrapped.setAccessible(true);
+
+            deltaWrapper = Class.forName("jakarta.faces.component._AttachedDeltaWrapper", false, apiClassLoader);
+            deltaWrapperConstructor = deltaWrapper.getDeclaredConstructor(Class.class, Object.class);
+            deltaWrapperConstructor.setAccessible(true);
+            deltaWrapperGetWrapped = deltaWrapper.getDeclaredMethod("getWrappedStateObject");
+            deltaWrapperGetWrapped.setAccessible(true);
+        }
+        catch (Exception | LinkageError e)
+        {
+            log.log(Level.FINE, "Attached state wrappers will be written with java serialization", e);
+            stateWrapper = null;
+            deltaWrapper = null;
+        }
+
+        ATTACHED_STATE_WRAPPER = stateWrapper;
+        ATTACHED_STATE_WRAPPER_CONSTRUCTOR = stateWrapperConstructor;
+        ATTACHED_STATE_WRAPPER_GET_CLAZZ = stateWrapperGetClazz;
+        ATTACHED_STATE_WRAPPER_GET_WRAPPED = stateWrapperGetWrapped;
+        ATTACHED_DELTA_WRAPPER = deltaWrapper;
+        ATTACHED_DELTA_WRAPPER_CONSTRUCTOR = deltaWrapperConstructor;
+        ATTACHED_DELTA_WRAPPER_GET_WRAPPED = deltaWrapperGetWrapped;
+    }
+
+    private CompactStateCodec()
+    {
+    }
+
+    static boolean isAttachedStateWrapper(Class<?> clazz)
+    {
+        return ATTACHED_STATE_WRAPPER != null && ATTACHED_STATE_WRAPPER == clazz;
+    }
+
+    static boolean isAttachedDeltaWrapper(Class<?> clazz)
+    {
+        return ATTACHED_DELTA_WRAPPER != null && ATTACHED_DELTA_WRAPPER == clazz;
+    }
+
+    static Class<?> getAttachedStateClass(Object wrapper) throws ReflectiveOperationException
+    {
+        return (Class<?>) ATTACHED_STATE_WRAPPER_GET_CLAZZ.invoke(wrapper);
+    }
+
+    static Object getAttachedStateWrapped(Object wrapper) throws ReflectiveOperationException
+    {
+        return ATTACHED_STATE_WRAPPER_GET_WRAPPED.invoke(wrapper);
+    }
+
+    static Object getAttachedDeltaWrapped(Object wrapper) throws ReflectiveOperationException
+    {
+        return ATTACHED_DELTA_WRAPPER_GET_WRAPPED.invoke(wrapper);
+    }
+
+    static Object newAttachedStateWrapper(Class<?> clazz, Object wrapped) throws ReflectiveOperationException
+    {
+        if (ATTACHED_STATE_WRAPPER_CONSTRUCTOR == null)
+        {
+            throw new ClassNotFoundException("jakarta.faces.component._AttachedStateWrapper");
+        }
+        return ATTACHED_STATE_WRAPPER_CONSTRUCTOR.newInstance(clazz, wrapped);
+    }
+
+    static Object newAttachedDeltaWrapper(Object wrapped) throws ReflectiveOperationException
+    {
+        if (ATTACHED_DELTA_WRAPPER_CONSTRUCTOR == null)
+        {
+            throw new ClassNotFoundException("jakarta.faces.component._AttachedDeltaWrapper");
+        }
+        return ATTACHED_DELTA_WRAPPER_CONSTRUCTOR.newInstance(null, wrapped);
+    }
+}
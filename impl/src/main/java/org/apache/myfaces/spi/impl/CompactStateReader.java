@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.spi.impl;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.myfaces.spi.impl.CompactStateCodec.ATTACHED_DELTA;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.ATTACHED_STATE;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.CLASS;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.ENUM;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.FALSE;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.INTEGER;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.LONG;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.NULL;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.OBJECT_ARRAY;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.OBJECT_ARRAY_REFERENCE;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.SERIALIZED;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.STRING;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.STRING_NEW;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.STRING_REFERENCE;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.TRUE;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.newAttachedDeltaWrapper;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.newAttachedStateWrapper;
+
+/**
+ * Reads one state object written by {@link CompactStateWriter}. Not thread safe, create one per
+ * deserialized state.
+ */
+class CompactStateReader
+{
+    private final ObjectInputStream in;
+    private final CompactSerialFactory serialFactory;
+    private final List<String> strings = new ArrayList<>();
+    private final List<Object[]> arrays = new ArrayList<>();
+
+    CompactStateReader(ObjectInputStream in, CompactSerialFactory serialFactory)
+    {
+        this.in = in;
+        this.serialFactory = serialFactory;
+    }
+
+    Object read() throws IOException, ClassNotFoundException
+    {
+        int tag = in.readUnsignedByte();
+        switch (tag)
+        {
+            case NULL:
+                return null;
+            case STRING:
+                return readString();
+            case OBJECT_ARRAY:
+                Object[] array = new Object[readVarInt()];
+                // registered before the items, an item can refer to the array itself
+                arrays.add(array);
+                for (int i = 0; i < array.length; i++)
+                {
+                    array[i] = read();
+                }
+                return array;
+            case OBJECT_ARRAY_REFERENCE:
+                int index = readVarInt();
+                if (index < 0 || index >= arrays.size())
+                {
+                    throw new StreamCorruptedException("Invalid array reference " + index);
+                }
+                return arrays.get(index);
+            case INTEGER:
+                int i = readVarInt();
+                return (i >>> 1) ^ -(i & 1);
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case LONG:
+                long l = readVarLong();
+                return (l >>> 1) ^ -(l & 1);
+            case ENUM:
+                return readEnum();
+            case CLASS:
+                return serialFactory.classForName(readString());
+            case ATTACHED_STATE:
+                try
+                {
+                    Class<?> attachedClass = (Class<?>) read();
+                    return newAttachedStateWrapper(attachedClass, read());
+                }
+                catch (ReflectiveOperationException | ClassCastException e)
+                {
+                    throw (IOException) new StreamCorruptedException("Invalid attached state").initCause(e);
+                }
+            case ATTACHED_DELTA:
+                try
+                {
+                    return newAttachedDeltaWrapper(read());
+                }
+                catch (ReflectiveOperationException e)
+                {
+                    throw (IOException) new StreamCorruptedException("Invalid attached delta").initCause(e);
+                }
+            case SERIALIZED:
+                return in.readObject();
+            default:
+                throw new StreamCorruptedException("Unknown state tag " + tag);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object readEnum() throws IOException, ClassNotFoundException
+    {
+        Class enumClass = serialFactory.classForName(readString());
+        String name = readString();
+        if (!enumClass.isEnum())
+        {
+            throw new StreamCorruptedException(enumClass.getName() + " is not an enum");
+        }
+        return Enum.valueOf(enumClass, name);
+    }
+
+    private String readString() throws IOException, ClassNotFoundException
+    {
+        int marker = readVarInt();
+        if (marker >= STRING_REFERENCE)
+        {
+            int index = marker - STRING_REFERENCE;
+            if (index >= strings.size())
+            {
+                throw new StreamCorruptedException("Invalid string reference " + index);
+            }
+            return strings.get(index);
+        }
+
+        String value = marker == STRING_NEW ? in.readUTF() : (String) in.readObject();
+        strings.add(value);
+        return value;
+    }
+
+    private int readVarInt() throws IOException
+    {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7)
+        {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed variable length int");
+    }
+
+    private long readVarLong() throws IOException
+    {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7)
+        {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed variable length long");
+    }
+}
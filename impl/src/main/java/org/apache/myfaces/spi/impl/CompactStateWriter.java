@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.spi.impl;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static org.apache.myfaces.spi.impl.CompactStateCodec.ATTACHED_DELTA;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.ATTACHED_STATE;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.CLASS;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.ENUM;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.FALSE;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.INTEGER;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.LONG;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.MAX_UTF_STRING_LENGTH;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.NULL;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.OBJECT_ARRAY;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.OBJECT_ARRAY_REFERENCE;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.SERIALIZED;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.STRING;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.STRING_NEW;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.STRING_NEW_LONG;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.STRING_REFERENCE;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.TRUE;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.getAttachedDeltaWrapped;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.getAttachedStateClass;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.getAttachedStateWrapped;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.isAttachedDeltaWrapper;
+import static org.apache.myfaces.spi.impl.CompactStateCodec.isAttachedStateWrapper;
+
+/**
+ * Writes one state object with the encoding of {@link CompactSerialFactory}. Not thread safe, create one
+ * per serialized state.
+ */
+class CompactStateWriter
+{
+    private final ObjectOutputStream out;
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final Map<Object[], Integer> arrays = new IdentityHashMap<>();
+
+    CompactStateWriter(ObjectOutputStream out)
+    {
+        this.out = out;
+    }
+
+    void write(Object value) throws IOException
+    {
+        if (value == null)
+        {
+            out.writeByte(NULL);
+            return;
+        }
+
+        Class<?> clazz = value.getClass();
+        if (clazz == String.class)
+        {
+            out.writeByte(STRING);
+            writeString((String) value);
+        }
+        else if (clazz == Object[].class)
+        {
+            Object[] array = (Object[]) value;
+            Integer index = arrays.get(array);
+            if (index != null)
+            {
+                out.writeByte(OBJECT_ARRAY_REFERENCE);
+                writeVarInt(index);
+                return;
+            }
+
+            arrays.put(array, arrays.size());
+            out.writeByte(OBJECT_ARRAY);
+            writeVarInt(array.length);
+            for (Object item : array)
+            {
+                write(item);
+            }
+        }
+        else if (clazz == Integer.class)
+        {
+            int i = (Integer) value;
+            out.writeByte(INTEGER);
+            writeVarInt((i << 1) ^ (i >> 31));
+        }
+        else if (clazz == Boolean.class)
+        {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        }
+        else if (clazz == Long.class)
+        {
+            long l = (Long) value;
+            out.writeByte(LONG);
+            writeVarLong((l << 1) ^ (l >> 63));
+        }
+        else if (value instanceof Enum<?> e)
+        {
+            out.writeByte(ENUM);
+            writeString(e.getDeclaringClass().getName());
+            writeString(e.name());
+        }
+        else if (clazz == Class.class && !((Class<?>) value).isPrimitive() && !((Class<?>) value).isArray())
+        {
+            out.writeByte(CLASS);
+            writeString(((Class<?>) value).getName());
+        }
+        else if (isAttachedStateWrapper(clazz))
+        {
+            try
+            {
+                Class<?> attachedClass = getAttachedStateClass(value);
+                Object wrapped = getAttachedStateWrapped(value);
+                out.writeByte(ATTACHED_STATE);
+                write(attachedClass);
+                write(wrapped);
+            }
+            catch (ReflectiveOperationException ex)
+            {
+                throw new IOException(ex);
+            }
+        }
+        else if (isAttachedDeltaWrapper(clazz))
+        {
+            try
+            {
+                Object wrapped = getAttachedDeltaWrapped(value);
+                out.writeByte(ATTACHED_DELTA);
+                write(wrapped);
+            }
+            catch (ReflectiveOperationException ex)
+            {
+                throw new IOException(ex);
+            }
+        }
+        else
+        {
+            out.writeByte(SERIALIZED);
+            out.writeObject(value);
+        }
+    }
+
+    private void writeString(String value) throws IOException
+    {
+        Integer index = strings.get(value);
+        if (index != null)
+        {
+            writeVarInt(index + STRING_REFERENCE);
+            return;
+        }
+
+        strings.put(value, strings.size());
+        if (value.length() <= MAX_UTF_STRING_LENGTH)
+        {
+            writeVarInt(STRING_NEW);
+            out.writeUTF(value);
+        }
+        else
+        {
+            writeVarInt(STRING_NEW_LONG);
+            out.writeObject(value);
+        }
+    }
+
+    private void writeVarInt(int value) throws IOException
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private void writeVarLong(long value) throws IOException
+    {
+        while ((value & ~0x7FL) != 0)
+        {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
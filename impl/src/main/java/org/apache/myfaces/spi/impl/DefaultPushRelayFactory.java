@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.spi.impl;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jakarta.faces.context.ExternalContext;
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.push.relay.DirectoryPushRelay;
+import org.apache.myfaces.push.relay.LoopbackPushRelay;
+import org.apache.myfaces.spi.PushRelay;
+import org.apache.myfaces.spi.PushRelayFactory;
+import org.apache.myfaces.spi.ServiceProviderFinderFactory;
+import org.apache.myfaces.util.lang.ClassUtils;
+
+/**
+ * Creates the relay configured with org.apache.myfaces.WEBSOCKET_RELAY, decorated by the relays registered as
+ * a service of {@link PushRelay}.
+ */
+public class DefaultPushRelayFactory extends PushRelayFactory
+{
+    public static final String PUSH_RELAY = PushRelay.class.getName();
+
+    public static final String PUSH_RELAY_INSTANCE = PushRelay.class.getName() + ".INSTANCE";
+
+    private static final Logger LOG = Logger.getLogger(DefaultPushRelayFactory.class.getName());
+
+    @Override
+    public PushRelay getPushRelay(ExternalContext externalContext)
+    {
+        Map<String, Object> appMap = externalContext.getApplicationMap();
+        PushRelay relay = (PushRelay) appMap.get(PUSH_RELAY_INSTANCE);
+        if (relay == null)
+        {
+            relay = createPushRelay(externalContext);
+            if (relay != null)
+            {
+                appMap.put(PUSH_RELAY_INSTANCE, relay);
+            }
+        }
+        return relay;
+    }
+
+    @Override
+    public PushRelay createPushRelay(ExternalContext externalContext)
+    {
+        List<String> classList = ServiceProviderFinderFactory.getServiceProviderFinder(externalContext)
+                .getServiceProviderList(PUSH_RELAY);
+        return ClassUtils.buildApplicationObject(PushRelay.class, classList, createDefaultPushRelay(externalContext));
+    }
+
+    protected PushRelay createDefaultPushRelay(ExternalContext externalContext)
+    {
+        MyfacesConfig config = MyfacesConfig.getCurrentInstance(externalContext);
+        String relay = config.getWebsocketRelay();
+        if (MyfacesConfig.WEBSOCKET_RELAY_TYPE_LOOPBACK.equals(relay))
+        {
+            return new LoopbackPushRelay();
+        }
+        if (MyfacesConfig.WEBSOCKET_RELAY_TYPE_DIRECTORY.equals(relay))
+        {
+            if (config.getWebsocketRelayDirectory() == null)
+            {
+                LOG.log(Level.WARNING, "The websocket relay is disabled because "
+                        + MyfacesConfig.WEBSOCKET_RELAY_DIRECTORY_PATH + " is not set");
+                return null;
+            }
+            return new DirectoryPushRelay(Path.of(config.getWebsocketRelayDirectory()),
+                    config.getWebsocketRelayInterval());
+        }
+        return null;
+    }
+}
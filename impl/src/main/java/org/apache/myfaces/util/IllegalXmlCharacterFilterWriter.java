@@ -171,7 +171,7 @@ private static char[] encodeCharArray(char[] cbuf, int off, int len)
         return cbuf;
     }
 
-    private static boolean isInvalidChar(int codePoint)
+    static boolean isInvalidChar(int codePoint)
     {
         if (codePoint == 1113088)
         {
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.util;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Escapes the written characters so they can be placed between the double quotes of a JSON string. Runs of
+ * characters that need no escaping are passed to the target writer as they are.
+ */
+public class JsonStringEscapeFilterWriter extends FilterWriter
+{
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final boolean escapeNonAscii;
+    private final char[] escape = new char[6];
+
+    /**
+     * @param out the target writer
+     * @param escapeNonAscii if true, non ASCII characters are written as unicode escapes, so the output can be
+     *        written with any ASCII compatible encoding
+     */
+    public JsonStringEscapeFilterWriter(Writer out, boolean escapeNonAscii)
+    {
+        super(out);
+        this.escapeNonAscii = escapeNonAscii;
+    }
+
+    @Override
+    public void write(int c) throws IOException
+    {
+        char ch = (char) c;
+        if (needsEscape(ch))
+        {
+            writeEscape(ch);
+        }
+        else
+        {
+            out.write(ch);
+        }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException
+    {
+        int to = off + len;
+        int start = off;
+        for (int i = off; i < to; i++)
+        {
+            char c = cbuf[i];
+            if (needsEscape(c))
+            {
+                if (i > start)
+                {
+                    out.write(cbuf, start, i - start);
+                }
+                writeEscape(c);
+                start = i + 1;
+            }
+        }
+        if (start < to)
+        {
+            out.write(cbuf, start, to - start);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException
+    {
+        int to = off + len;
+        int start = off;
+        for (int i = off; i < to; i++)
+        {
+            char c = str.charAt(i);
+            if (needsEscape(c))
+            {
+                if (i > start)
+                {
+                    out.write(str, start, i - start);
+                }
+                writeEscape(c);
+                start = i + 1;
+            }
+        }
+        if (start < to)
+        {
+            out.write(str, start, to - start);
+        }
+    }
+
+    private boolean needsEscape(char c)
+    {
+        if (c < 0x20 || c == '"' || c == '\\')
+        {
+            return true;
+        }
+        if (c < 0x80)
+        {
+            return false;
+        }
+        // U+2028 and U+2029 are valid in JSON but not in JavaScript string literals
+        return escapeNonAscii || c == 0x2028 || c == 0x2029;
+    }
+
+    private void writeEscape(char c) throws IOException
+    {
+        switch (c)
+        {
+            case '"':
+                out.write("\\\"");
+                break;
+            case '\\':
+                out.write("\\\\");
+                break;
+            case '\n':
+                out.write("\\n");
+                break;
+            case '\r':
+                out.write("\\r");
+                break;
+            case '\t':
+                out.write("\\t");
+                break;
+            case '\b':
+                out.write("\\b");
+                break;
+            case '\f':
+                out.write("\\f");
+                break;
+            default:
+                escape[0] = '\\';
+                escape[1] = 'u';
+                escape[2] = HEX[(c >> 12) & 0xF];
+                escape[3] = HEX[(c >> 8) & 0xF];
+                escape[4] = HEX[(c >> 4) & 0xF];
+                escape[5] = HEX[c & 0xF];
+                out.write(escape, 0, 6);
+                break;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.util;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Filters the characters that are illegal in XML 1.0 like {@link IllegalXmlCharacterFilterWriter} and, while
+ * enabled, escapes CDATA ends like {@link CDataEndEscapeFilterWriter}, in a single pass over the written
+ * characters. Runs of characters that need no change are passed to the target writer as they are, without
+ * copying or modifying the caller's array.
+ */
+public class PartialResponseFilterWriter extends FilterWriter
+{
+    private static final char BLANK_CHAR = ' ';
+    private static final String CDATA_END_ESCAPE = "<![CDATA[]]]]><![CDATA[>";
+
+    private boolean escapeCDataEnd;
+    private char c1;
+    private char c2;
+
+    public PartialResponseFilterWriter(Writer out)
+    {
+        super(out);
+    }
+
+    /**
+     * Enables or disables the escaping of CDATA ends. Characters written before the call are not taken into
+     * account to detect a CDATA end after it.
+     */
+    public void setEscapeCDataEnd(boolean escapeCDataEnd)
+    {
+        this.escapeCDataEnd = escapeCDataEnd;
+        this.c1 = 0;
+        this.c2 = 0;
+    }
+
+    public boolean isEscapeCDataEnd()
+    {
+        return escapeCDataEnd;
+    }
+
+    @Override
+    public void write(int c) throws IOException
+    {
+        char ch = IllegalXmlCharacterFilterWriter.isInvalidChar(c) ? BLANK_CHAR : (char) c;
+        out.write(ch);
+        if (escapeCDataEnd && ch == '>' && c2 == ']' && c1 == ']')
+        {
+            out.write(CDATA_END_ESCAPE);
+        }
+        c1 = c2;
+        c2 = ch;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException
+    {
+        int to = off + len;
+        int start = off;
+        for (int i = off; i < to; i++)
+        {
+            char c = cbuf[i];
+            if (c < 0x20 || c >= Character.MIN_SURROGATE)
+            {
+                if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(cbuf[i + 1]))
+                {
+                    if (IllegalXmlCharacterFilterWriter.isInvalidChar(Character.toCodePoint(c, cbuf[i + 1])))
+                    {
+                        out.write(cbuf, start, i - start);
+                        out.write(BLANK_CHAR);
+                        out.write(BLANK_CHAR);
+                        start = i + 2;
+                    }
+                    c1 = c;
+                    c2 = cbuf[i + 1];
+                    i++;
+                    continue;
+                }
+                if (Character.isSurrogate(c) || IllegalXmlCharacterFilterWriter.isInvalidChar(c))
+                {
+                    out.write(cbuf, start, i - start);
+                    out.write(BLANK_CHAR);
+                    start = i + 1;
+                    c = BLANK_CHAR;
+                }
+            }
+            else if (escapeCDataEnd && c == '>' && c2 == ']' && c1 == ']')
+            {
+                out.write(cbuf, start, i + 1 - start);
+                out.write(CDATA_END_ESCAPE);
+                start = i + 1;
+            }
+            c1 = c2;
+            c2 = c;
+        }
+        if (start < to)
+        {
+            out.write(cbuf, start, to - start);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException
+    {
+        int to = off + len;
+        int start = off;
+        for (int i = off; i < to; i++)
+        {
+            char c = str.charAt(i);
+            if (c < 0x20 || c >= Character.MIN_SURROGATE)
+            {
+                if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(str.charAt(i + 1)))
+                {
+                    if (IllegalXmlCharacterFilterWriter.isInvalidChar(Character.toCodePoint(c, str.charAt(i + 1))))
+                    {
+                        out.write(str, start, i - start);
+                        out.write(BLANK_CHAR);
+                        out.write(BLANK_CHAR);
+                        start = i + 2;
+                    }
+                    c1 = c;
+                    c2 = str.charAt(i + 1);
+                    i++;
+                    continue;
+                }
+                if (Character.isSurrogate(c) || IllegalXmlCharacterFilterWriter.isInvalidChar(c))
+                {
+                    out.write(str, start, i - start);
+                    out.write(BLANK_CHAR);
+                    start = i + 1;
+                    c = BLANK_CHAR;
+                }
+            }
+            else if (escapeCDataEnd && c == '>' && c2 == ']' && c1 == ']')
+            {
+                out.write(str, start, i + 1 - start);
+                out.write(CDATA_END_ESCAPE);
+                start = i + 1;
+            }
+            c1 = c2;
+            c2 = c;
+        }
+        if (start < to)
+        {
+            out.write(str, start, to - start);
+        }
+    }
+}
@@ -1757,6 +1757,7 @@ public void renderView(FacesContext context, UIViewRoot view) throws IOException
             Writer outputWriter = extContext.getResponseOutputWriter();
 
             StateWriter stateWriter = new StateWriter(outputWriter, 1024, context);
+            stateWriter.setStreaming(config.isStreamingRender());
             try
             {
                 try (ResponseWriter writer = origWriter.cloneWithWriter(stateWriter))
@@ -1867,10 +1868,11 @@ else if (stateWriter.isStateWrittenWithoutWrapper())
                         // The state token has been written but the state has not been saved yet.
                         sms.saveView(context);
                     }
-                    else
+                    else if (!stateWriter.isStateSaved())
                     {
                         // GET case without any form that trigger state saving.
-                        // Try to store it into cache.
+                        // Try to store it into cache. In streaming mode the state may already have
+                        // been saved and written in place while rendering.
                         if (viewPoolProcessor != null && 
                             viewPoolProcessor.isViewPoolEnabledForThisView(context, view))
                         {
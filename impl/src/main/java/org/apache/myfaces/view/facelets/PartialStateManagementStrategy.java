@@ -818,8 +818,10 @@ else if (states == null)
                 context.getAttributes().put(StateManagerImpl.SERIALIZED_VIEW_REQUEST_ATTR, serializedView);
                 
                 // If MyfacesResponseStateManager is used, give the option to do
-                // additional operations for save the state if is necessary.
-                if (StateCacheUtils.isMyFacesResponseStateManager(responseStateManager))
+                // additional operations for save the state if is necessary. Views built
+                // to warm up the view pool are never rendered, so their state is not stored.
+                if (StateCacheUtils.isMyFacesResponseStateManager(responseStateManager)
+                        && !context.getAttributes().containsKey(ViewPoolProcessor.WARMUP_VIEW))
                 {
                     StateCacheUtils.getMyFacesResponseStateManager(responseStateManager).
                             saveState(context, serializedView);
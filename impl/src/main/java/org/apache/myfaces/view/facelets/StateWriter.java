@@ -54,6 +54,9 @@ public final class StateWriter extends Writer
     private FastWriter fast;
     private boolean writtenState;
     private boolean writtenStateWithoutWrapper;
+    private boolean streaming;
+    private boolean stateSaved;
+    private Object savedState;
 
     static public StateWriter getCurrentInstance()
     {
@@ -152,6 +155,40 @@ public boolean isStateWrittenWithoutWrapper()
         return this.writtenStateWithoutWrapper;
     }
 
+    /**
+     * In streaming mode the state is saved the first time a form writes it, and written in place instead
+     * of a state marker, so the content never needs to be buffered.
+     */
+    public void setStreaming(boolean streaming)
+    {
+        this.streaming = streaming;
+    }
+
+    public boolean isStreaming()
+    {
+        return this.streaming;
+    }
+
+    /**
+     * Keep the state saved before the end of the rendering, so all the forms write the same state and
+     * it is not saved again after the view has been rendered.
+     */
+    public void setSavedState(Object savedState)
+    {
+        this.stateSaved = true;
+        this.savedState = savedState;
+    }
+
+    public Object getSavedState()
+    {
+        return this.savedState;
+    }
+
+    public boolean isStateSaved()
+    {
+        return this.stateSaved;
+    }
+
     @Override
     public void close() throws IOException
     {
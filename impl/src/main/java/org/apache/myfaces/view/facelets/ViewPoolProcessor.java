@@ -18,10 +18,12 @@
  */
 package org.apache.myfaces.view.facelets;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import jakarta.faces.application.Application;
@@ -41,6 +43,8 @@
 import org.apache.myfaces.context.RequestViewContext;
 import org.apache.myfaces.context.RequestViewMetadata;
 import org.apache.myfaces.lifecycle.RestoreViewSupport;
+import org.apache.myfaces.util.WebConfigParamUtils;
+import org.apache.myfaces.util.lang.StringUtils;
 import org.apache.myfaces.view.facelets.impl.FaceletCompositionContextImpl;
 import org.apache.myfaces.view.facelets.pool.ViewPool;
 import org.apache.myfaces.view.facelets.pool.ViewPoolFactory;
@@ -135,14 +139,34 @@
      * traverse the component tree. 
      */
     public static final String INVOKE_DEFERRED_NAVIGATION = "oam.invoke.navigation";
+    
+    /**
+     * Flag that indicates to the StateManagementStrategy that the view has been built to
+     * warm up the pool, so its state should not be handed to the ResponseStateManager.
+     */
+    public static final String WARMUP_VIEW = "oam.ViewPool.warmupView";
 
     private ViewPoolFactory viewPoolFactory;
     private RestoreViewSupport restoreViewSupport;
     
+    private String[] warmupViewIds;
+    private int warmupCount;
+    private AtomicBoolean warmupPending;
+    
     public ViewPoolProcessor(FacesContext context)
     {
         viewPoolFactory = new ViewPoolFactoryImpl(context);
         restoreViewSupport = new RestoreViewSupport(context);
+        
+        String viewIds = WebConfigParamUtils.getStringInitParameter(context.getExternalContext(),
+                ViewPool.INIT_PARAM_VIEW_POOL_WARMUP_VIEW_IDS);
+        if (StringUtils.isNotBlank(viewIds))
+        {
+            warmupViewIds = StringUtils.splitShortString(viewIds, ',');
+            warmupCount = WebConfigParamUtils.getIntegerInitParameter(context.getExternalContext(),
+                    ViewPool.INIT_PARAM_VIEW_POOL_WARMUP_COUNT, ViewPool.INIT_PARAM_VIEW_POOL_WARMUP_COUNT_DEFAULT);
+            warmupPending = new AtomicBoolean(true);
+        }
     }
     
     public static ViewPoolProcessor getInstance(FacesContext context)
@@ -206,6 +230,122 @@ public static void initialize(FacesContext context)
         }
     }
 
+    public ViewPoolFactory getViewPoolFactory()
+    {
+        return viewPoolFactory;
+    }
+    
+    /**
+     * Build the views listed in org.apache.myfaces.VIEW_POOL_WARMUP_VIEW_IDS and put them into
+     * the pool. Building a view requires a request, so this is done only once, at the end of
+     * the first request processed by the application.
+     * 
+     * @param context 
+     */
+    public void warmup(FacesContext context)
+    {
+        if (warmupPending == null || !warmupPending.compareAndSet(true, false))
+        {
+            return;
+        }
+        for (String viewId : warmupViewIds)
+        {
+            if (StringUtils.isNotBlank(viewId))
+            {
+                warmup(context, viewId.trim(), warmupCount);
+            }
+        }
+    }
+    
+    /**
+     * Build count views with the given viewId and store them into the pool. The current view
+     * of the request is restored at the end.
+     * 
+     * @param context
+     * @param viewId
+     * @param count 
+     */
+    public void warmup(FacesContext context, String viewId, int count)
+    {
+        UIViewRoot currentView = context.getViewRoot();
+        if (currentView == null || count <= 0)
+        {
+            return;
+        }
+        Object serializedView = context.getAttributes().remove(StateManagerImpl.SERIALIZED_VIEW_REQUEST_ATTR);
+        try
+        {
+            ViewHandler viewHandler = context.getApplication().getViewHandler();
+            ViewDeclarationLanguage vdl = viewHandler.getViewDeclarationLanguage(context, viewId);
+            StateManagementStrategy sms = vdl != null ? vdl.getStateManagementStrategy(context, viewId) : null;
+            if (sms == null)
+            {
+                return;
+            }
+
+            // Build all views before dispose them, otherwise the next buildView call would just
+            // take the view stored into the pool in the previous step.
+            List<UIViewRoot> views = new ArrayList<>(count);
+            for (int i = 0; i < count; i++)
+            {
+                UIViewRoot view = viewHandler.createView(context, viewId);
+                setViewRootNoClear(context, view);
+                vdl.buildView(context, view);
+                if (!isViewPoolStrategyAllowedForThisView(context, view))
+                {
+                    Logger.getLogger(ViewPoolProcessor.class.getName()).log(Level.WARNING,
+                            "View pool is not enabled for view " + viewId + ", skipping warm up.");
+                    return;
+                }
+                views.add(view);
+            }
+            
+            for (UIViewRoot view : views)
+            {
+                setViewRootNoClear(context, view);
+                context.getAttributes().put(FORCE_HARD_RESET, Boolean.TRUE);
+                context.getAttributes().put(WARMUP_VIEW, Boolean.TRUE);
+                try
+                {
+                    sms.saveView(context);
+                }
+                finally
+                {
+                    context.getAttributes().remove(FORCE_HARD_RESET);
+                    context.getAttributes().remove(WARMUP_VIEW);
+                    context.getAttributes().remove(StateManagerImpl.SERIALIZED_VIEW_REQUEST_ATTR);
+                }
+            }
+        }
+        catch (RuntimeException | IOException e)
+        {
+            Logger.getLogger(ViewPoolProcessor.class.getName()).log(Level.WARNING,
+                    "Cannot warm up view pool for view " + viewId, e);
+        }
+        finally
+        {
+            setViewRootNoClear(context, currentView);
+            if (serializedView != null)
+            {
+                context.getAttributes().put(StateManagerImpl.SERIALIZED_VIEW_REQUEST_ATTR, serializedView);
+            }
+        }
+    }
+    
+    private void setViewRootNoClear(FacesContext context, UIViewRoot view)
+    {
+        // Prevent FacesContext.setViewRoot() from clearing the view map of the current view.
+        context.getAttributes().put(FaceletViewDeclarationLanguage.BUILDING_VIEW_METADATA, Boolean.TRUE);
+        try
+        {
+            context.setViewRoot(view);
+        }
+        finally
+        {
+            context.getAttributes().remove(FaceletViewDeclarationLanguage.BUILDING_VIEW_METADATA);
+        }
+    }
+
     public ViewPool getViewPool(FacesContext context, UIViewRoot root)
     {
         if (root.isTransient())
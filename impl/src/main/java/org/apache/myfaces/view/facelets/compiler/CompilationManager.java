@@ -78,6 +78,8 @@
     private final FaceletsProcessingInstructions faceletsProcessingInstructions;
     
     private Doctype doctype;
+    
+    private CompilationRecording recording;
 
     public CompilationManager(String alias, Compiler compiler, FaceletsProcessingInstructions instructions)
     {
@@ -107,8 +109,22 @@ public CompilationManager(String alias, Compiler compiler, FaceletsProcessingIns
         this.faceletsProcessingInstructions = instructions;
     }
 
+    /**
+     * Record all calls done over this instance, so they can be replayed later.
+     * 
+     * @param recording 
+     */
+    void setRecording(CompilationRecording recording)
+    {
+        this.recording = recording;
+    }
+
     public void writeInstruction(String value, Location location)
     {
+        if (this.recording != null)
+        {
+            this.recording.writeInstruction(value, location);
+        }
         if (this.finished)
         {
             return;
@@ -138,6 +154,10 @@ public void writeInstruction(String value, Location location)
     
     public void writeDoctype(String name, String publicId, String systemId)
     {
+        if (this.recording != null)
+        {
+            this.recording.writeDoctype(name, publicId, systemId);
+        }
         if (this.finished)
         {
             return;
@@ -157,7 +177,15 @@ public void writeDoctype(String name, String publicId, String systemId)
 
     public void writeText(String value, Location location)
     {
+        if (this.recording != null)
+        {
+            this.recording.writeText(value, location);
+        }
+        writeTextInternal(value, location);
+    }
 
+    private void writeTextInternal(String value, Location location)
+    {
         if (this.finished)
         {
             return;
@@ -187,6 +215,10 @@ public void writeText(String value, Location location)
 
     public void writeComment(String text, Location location)
     {
+        if (this.recording != null)
+        {
+            this.recording.writeComment(text, location);
+        }
         if (this.compiler.isTrimmingComments())
         {
             return;
@@ -222,9 +254,13 @@ public void writeComment(String text, Location location)
 
     public void writeWhitespace(String text, Location location)
     {
+        if (this.recording != null)
+        {
+            this.recording.writeWhitespace(text, location);
+        }
         if (!this.compiler.isTrimmingWhitespace())
         {
-            this.writeText(text, location);
+            this.writeTextInternal(text, location);
         }
     }
 
@@ -235,6 +271,10 @@ private String nextTagId()
 
     public void pushTag(Tag orig)
     {
+        if (this.recording != null)
+        {
+            this.recording.pushTag(orig);
+        }
 
         if (this.finished)
         {
@@ -368,6 +408,10 @@ else if (t.getQName().indexOf(':') > 0 )
 
     public void popTag()
     {
+        if (this.recording != null)
+        {
+            this.recording.popTag();
+        }
 
         if (this.finished)
         {
@@ -409,6 +453,10 @@ else if (unit instanceof CompositeComponentUnit)
 
     public void popNamespace(String ns)
     {
+        if (this.recording != null)
+        {
+            this.recording.popNamespace(ns);
+        }
         this.namespaceManager.popNamespace(ns);
         if (this.currentUnit() instanceof NamespaceUnit)
         {
@@ -418,6 +466,10 @@ public void popNamespace(String ns)
 
     public void pushNamespace(String prefix, String uri)
     {
+        if (this.recording != null)
+        {
+            this.recording.pushNamespace(prefix, uri);
+        }
 
         if (log.isLoggable(Level.FINE))
         {
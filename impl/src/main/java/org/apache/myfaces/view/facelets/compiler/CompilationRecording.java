@@ -0,0 +1,352 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.compiler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.faces.view.Location;
+import jakarta.faces.view.facelets.Tag;
+import jakarta.faces.view.facelets.TagAttribute;
+
+import org.apache.myfaces.view.facelets.tag.TagAttributeImpl;
+import org.apache.myfaces.view.facelets.tag.TagAttributesImpl;
+
+/**
+ * Records the calls done by the SAX handlers over a {@link CompilationManager} in a compact
+ * binary form, so the same Facelet can be compiled again later without parsing the source.
+ * The handler tree is still created by the CompilationManager when the calls are replayed,
+ * because tag handlers are not serializable and depend on the tag libraries of the application.
+ */
+final class CompilationRecording
+{
+    private static final byte INSTRUCTION = 1;
+    private static final byte DOCTYPE = 2;
+    private static final byte TEXT = 3;
+    private static final byte COMMENT = 4;
+    private static final byte WHITESPACE = 5;
+    private static final byte PUSH_TAG = 6;
+    private static final byte POP_TAG = 7;
+    private static final byte PUSH_NAMESPACE = 8;
+    private static final byte POP_NAMESPACE = 9;
+    private static final byte END = 0;
+    
+    private static final int NULL_STRING = -1;
+    private static final int NEW_STRING = -2;
+
+    private final ByteArrayOutputStream bytes;
+    private final DataOutputStream out;
+    private final Map<String, Integer> strings;
+    private String encoding;
+
+    CompilationRecording()
+    {
+        this.bytes = new ByteArrayOutputStream(4096);
+        this.out = new DataOutputStream(bytes);
+        this.strings = new HashMap<>();
+    }
+
+    void writeInstruction(String value, Location location)
+    {
+        event(INSTRUCTION);
+        writeString(value);
+        writeLocation(location);
+    }
+
+    void writeDoctype(String name, String publicId, String systemId)
+    {
+        event(DOCTYPE);
+        writeString(name);
+        writeString(publicId);
+        writeString(systemId);
+    }
+
+    void writeText(String value, Location location)
+    {
+        event(TEXT);
+        writeString(value);
+        writeLocation(location);
+    }
+
+    void writeComment(String text, Location location)
+    {
+        event(COMMENT);
+        writeString(text);
+        writeLocation(location);
+    }
+
+    void writeWhitespace(String text, Location location)
+    {
+        event(WHITESPACE);
+        writeString(text);
+        writeLocation(location);
+    }
+
+    void pushTag(Tag tag)
+    {
+        event(PUSH_TAG);
+        writeLocation(tag.getLocation());
+        writeString(tag.getNamespace());
+        writeString(tag.getLocalName());
+        writeString(tag.getQName());
+        TagAttribute[] attributes = tag.getAttributes().getAll();
+        writeInt(attributes.length);
+        for (TagAttribute attribute : attributes)
+        {
+            writeLocation(attribute.getLocation());
+            writeString(attribute.getNamespace());
+            writeString(attribute.getLocalName());
+            writeString(attribute.getQName());
+            writeString(attribute.getValue());
+        }
+    }
+
+    void popTag()
+    {
+        event(POP_TAG);
+    }
+
+    void pushNamespace(String prefix, String uri)
+    {
+        event(PUSH_NAMESPACE);
+        writeString(prefix);
+        writeString(uri);
+    }
+
+    void popNamespace(String prefix)
+    {
+        event(POP_NAMESPACE);
+        writeString(prefix);
+    }
+
+    void setEncoding(String encoding)
+    {
+        this.encoding = encoding;
+    }
+
+    /**
+     * @return the recorded calls, preceded by the encoding of the source
+     */
+    byte[] toByteArray()
+    {
+        try
+        {
+            out.writeByte(END);
+            out.flush();
+            ByteArrayOutputStream result = new ByteArrayOutputStream(bytes.size() + 32);
+            DataOutputStream header = new DataOutputStream(result);
+            header.writeBoolean(encoding != null);
+            if (encoding != null)
+            {
+                header.writeUTF(encoding);
+            }
+            bytes.writeTo(result);
+            return result.toByteArray();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Replay the recorded calls over the passed CompilationManager.
+     * 
+     * @param data the output of {@link #toByteArray()}
+     * @param mngr the CompilationManager
+     * @param alias the alias used for the locations
+     * @return the encoding of the source
+     * @throws IOException if the data is not valid
+     */
+    static String replay(byte[] data, CompilationManager mngr, String alias) throws IOException
+    {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        String encoding = in.readBoolean() ? in.readUTF() : null;
+        List<String> strings = new ArrayList<>();
+        
+        byte event = in.readByte();
+        while (event != END)
+        {
+            switch (event)
+            {
+                case INSTRUCTION:
+                    mngr.writeInstruction(readString(in, strings), readLocation(in, alias));
+                    break;
+                case DOCTYPE:
+                    mngr.writeDoctype(readString(in, strings), readString(in, strings), readString(in, strings));
+                    break;
+                case TEXT:
+                    mngr.writeText(readString(in, strings), readLocation(in, alias));
+                    break;
+                case COMMENT:
+                    mngr.writeComment(readString(in, strings), readLocation(in, alias));
+                    break;
+                case WHITESPACE:
+                    mngr.writeWhitespace(readString(in, strings), readLocation(in, alias));
+                    break;
+                case PUSH_TAG:
+                    Location location = readLocation(in, alias);
+                    String namespace = readString(in, strings);
+                    String localName = readString(in, strings);
+                    String qName = readString(in, strings);
+                    TagAttribute[] attributes = new TagAttribute[in.readInt()];
+                    for (int i = 0; i < attributes.length; i++)
+                    {
+                        attributes[i] = new TagAttributeImpl(readLocation(in, alias), readString(in, strings),
+                                readString(in, strings), readString(in, strings), readString(in, strings));
+                    }
+                    mngr.pushTag(new Tag(location, namespace, localName, qName, new TagAttributesImpl(attributes)));
+                    break;
+                case POP_TAG:
+                    mngr.popTag();
+                    break;
+                case PUSH_NAMESPACE:
+                    mngr.pushNamespace(readString(in, strings), readString(in, strings));
+                    break;
+                case POP_NAMESPACE:
+                    mngr.popNamespace(readString(in, strings));
+                    break;
+                default:
+                    throw new IOException("Invalid compiled Facelet event " + event);
+            }
+            event = in.readByte();
+        }
+        return encoding;
+    }
+
+    private void event(byte event)
+    {
+        try
+        {
+            out.writeByte(event);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeInt(int value)
+    {
+        try
+        {
+            out.writeInt(value);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Strings are written once, the following occurrences refer to the first one by index.
+     */
+    private void writeString(String value)
+    {
+        try
+        {
+            if (value == null)
+            {
+                out.writeInt(NULL_STRING);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null)
+            {
+                out.writeInt(index);
+                return;
+            }
+            strings.put(value, strings.size());
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(NEW_STRING);
+            out.writeInt(utf8.length);
+            out.write(utf8);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeLocation(Location location)
+    {
+        try
+        {
+            if (location == null)
+            {
+                out.writeBoolean(false);
+            }
+            else
+            {
+                out.writeBoolean(true);
+                out.writeInt(location.getLine());
+                out.writeInt(location.getColumn());
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String readString(DataInputStream in, List<String> strings) throws IOException
+    {
+        int index = in.readInt();
+        if (index == NULL_STRING)
+        {
+            return null;
+        }
+        if (index == NEW_STRING)
+        {
+            int length = in.readInt();
+            if (length < 0 || length > in.available())
+            {
+                throw new IOException("Invalid compiled Facelet string length " + length);
+            }
+            byte[] utf8 = new byte[length];
+            in.readFully(utf8);
+            String value = new String(utf8, StandardCharsets.UTF_8);
+            strings.add(value);
+            return value;
+        }
+        if (index < 0 || index >= strings.size())
+        {
+            throw new IOException("Invalid compiled Facelet string reference " + index);
+        }
+        return strings.get(index);
+    }
+
+    private static Location readLocation(DataInputStream in, String alias) throws IOException
+    {
+        if (in.readBoolean())
+        {
+            return new Location(alias, in.readInt(), in.readInt());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persists the {@link CompilationRecording} of compiled Facelets into a directory, so an application
+ * restart or another node sharing the directory does not need to parse the sources again.
+ * Entries are keyed by a hash of the source, so a changed page simply gets a new entry.
+ */
+final class CompiledFaceletCache
+{
+    private static final Logger log = Logger.getLogger(CompiledFaceletCache.class.getName());
+
+    static final char FACELET = 'F';
+    static final char VIEW_METADATA = 'V';
+    static final char COMPOSITE_COMPONENT_METADATA = 'C';
+
+    private static final int MAGIC = 0x4d464643;
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".bin";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path directory;
+    private final String implementationVersion;
+
+    CompiledFaceletCache(Path directory)
+    {
+        this.directory = directory;
+        String version = CompiledFaceletCache.class.getPackage().getImplementationVersion();
+        this.implementationVersion = version == null ? "" : version;
+    }
+
+    Path getDirectory()
+    {
+        return directory;
+    }
+
+    String getKey(char kind, FaceletsProcessingInstructions instructions, byte[] source)
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+
+        int flags = (instructions.isConsumeXmlDocType() ? 1 : 0)
+                | (instructions.isConsumeXmlDeclaration() ? 1 << 1 : 0)
+                | (instructions.isConsumeProcessingInstructions() ? 1 << 2 : 0)
+                | (instructions.isConsumeCDataSections() ? 1 << 3 : 0)
+                | (instructions.isEscapeInlineText() ? 1 << 4 : 0)
+                | (instructions.isConsumeXMLComments() ? 1 << 5 : 0)
+                | (instructions.isSwallowCDataContent() ? 1 << 6 : 0)
+                | (instructions.isCompressSpaces() ? 1 << 7 : 0)
+                | (instructions.isHtml5Doctype() ? 1 << 8 : 0);
+
+        digest.update((VERSION + ":" + implementationVersion + ":" + kind + ":" + flags + ":")
+                .getBytes(StandardCharsets.UTF_8));
+        digest.update(source);
+
+        byte[] hash = digest.digest();
+        char[] key = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++)
+        {
+            key[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+            key[i * 2 + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(key);
+    }
+
+    /**
+     * @return the stored recording or <code>null</code> if there is none or it can not be read
+     */
+    byte[] load(String key)
+    {
+        Path file = directory.resolve(key + SUFFIX);
+        try (InputStream is = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(is))
+        {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+            {
+                return null;
+            }
+            return in.readAllBytes();
+        }
+        catch (NoSuchFileException e)
+        {
+            return null;
+        }
+        catch (IOException e)
+        {
+            log.log(Level.FINE, "Could not read compiled Facelet " + file, e);
+            return null;
+        }
+    }
+
+    void store(String key, byte[] data)
+    {
+        Path file = directory.resolve(key + SUFFIX);
+        Path tmp = null;
+        try
+        {
+            Files.createDirectories(directory);
+            tmp = Files.createTempFile(directory, key, ".tmp");
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length + 8);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.write(data);
+            out.flush();
+            Files.write(tmp, bytes.toByteArray());
+
+            try
+            {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tmp = null;
+        }
+        catch (IOException e)
+        {
+            log.log(Level.WARNING, "Could not store compiled Facelet " + file, e);
+        }
+        finally
+        {
+            if (tmp != null)
+            {
+                try
+                {
+                    Files.deleteIfExists(tmp);
+                }
+                catch (IOException e)
+                {
+                    // ignore
+                }
+            }
+        }
+    }
+}
@@ -20,6 +20,7 @@
 
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -69,6 +70,7 @@
     private final Map<String, String> features = new HashMap<>();
     private boolean developmentProjectStage = false;
     private Collection<FaceletsProcessing> faceletsProcessingConfigurations;
+    private CompiledFaceletCache compiledFaceletCache;
 
     public Compiler()
     {
@@ -237,6 +239,20 @@ public final boolean isDevelopmentProjectStage()
         return this.developmentProjectStage;
     }
     
+    /**
+     * Sets the directory where the compiled form of the Facelets is stored, or <code>null</code>
+     * to always parse the sources.
+     */
+    public final void setCompiledCacheDirectory(Path directory)
+    {
+        this.compiledFaceletCache = directory == null ? null : new CompiledFaceletCache(directory);
+    }
+
+    CompiledFaceletCache getCompiledFaceletCache()
+    {
+        return compiledFaceletCache;
+    }
+
     public final void setDevelopmentProjectStage(boolean developmentProjectStage)
     {
         this.developmentProjectStage = developmentProjectStage;
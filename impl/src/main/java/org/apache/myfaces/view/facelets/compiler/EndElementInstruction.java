@@ -50,4 +50,9 @@ public boolean isLiteral()
     {
         return true;
     }
+
+    String getElement()
+    {
+        return this.element;
+    }
 }
@@ -18,6 +18,7 @@
  */
 package org.apache.myfaces.view.facelets.compiler;
 
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -187,6 +188,13 @@ public void loadOptions(FacesContext context, Compiler compiler)
         compiler.setFaceletsProcessingConfigurations(
                 RuntimeConfig.getCurrentInstance(
                         context.getExternalContext()).getFaceletProcessingConfigurations());
+
+        String compiledCacheDirectory = MyfacesConfig.getCurrentInstance(eContext)
+                .getFaceletsCompiledCacheDirectory();
+        if (compiledCacheDirectory != null && !compiledCacheDirectory.isBlank())
+        {
+            compiler.setCompiledCacheDirectory(Paths.get(compiledCacheDirectory.trim()));
+        }
     }
     
     private static class LoadComponentTagDeclarationFacesContextWrapper extends FacesContextWrapper
@@ -19,9 +19,12 @@
 package org.apache.myfaces.view.facelets.compiler;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.function.Function;
+import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.Arrays;
@@ -809,34 +812,8 @@ public SAXCompiler()
     public CompilerResult doCompile(URL src, String alias)
             throws IOException, FaceletException, ELException, FacesException
     {
-        CompilationManager mngr = null;
-        InputStream is = null;
-        String encoding = null;
-        try
-        {
-            is = new BufferedInputStream(src.openStream(), 1024);
-            mngr = new CompilationManager(alias, this, getFaceletsProcessingInstructions(src, alias));
-            encoding = writeXmlDecl(is, mngr);
-            CompilationHandler handler = new CompilationHandler(mngr, alias);
-            SAXParser parser = this.createSAXParser(handler);
-            parser.parse(is, handler);
-        }
-        catch (SAXException e)
-        {
-            throw new FaceletException("Error Parsing " + alias + ": " + e.getMessage(), e.getCause());
-        }
-        catch (ParserConfigurationException e)
-        {
-            throw new FaceletException("Error Configuring Parser " + alias + ": " + e.getMessage(), e.getCause());
-        }
-        finally
-        {
-            if (is != null)
-            {
-                is.close();
-            }
-        }
-        return new CompilerResult(new EncodingHandler(mngr.createFaceletHandler(), encoding), mngr.getDoctype());
+        return compile(src, alias, CompiledFaceletCache.FACELET, true,
+                mngr -> new CompilationHandler(mngr, alias));
     }
 
     /**
@@ -846,35 +823,8 @@ public CompilerResult doCompile(URL src, String alias)
     protected CompilerResult doCompileViewMetadata(URL src, String alias)
             throws IOException, FaceletException, ELException, FacesException
     {
-        CompilationManager mngr = null;
-        InputStream is = null;
-        String encoding = null;
-        try
-        {
-            is = new BufferedInputStream(src.openStream(), 1024);
-            mngr = new CompilationManager(alias, this, getFaceletsProcessingInstructions(src, alias));
-            encoding = getXmlDecl(is, mngr);
-            final ViewMetadataHandler handler = new ViewMetadataHandler(mngr, alias);
-            final SAXParser parser = this.createSAXParser(handler);
-
-            parser.parse(is, handler);
-        }
-        catch (SAXException e)
-        {
-            throw new FaceletException("Error Parsing " + alias + ": " + e.getMessage(), e.getCause());
-        }
-        catch (ParserConfigurationException e)
-        {
-            throw new FaceletException("Error Configuring Parser " + alias + ": " + e.getMessage(), e.getCause());
-        }
-        finally
-        {
-            if (is != null)
-            {
-                is.close();
-            }
-        }
-        return new CompilerResult(new EncodingHandler(mngr.createFaceletHandler(), encoding), mngr.getDoctype());
+        return compile(src, alias, CompiledFaceletCache.VIEW_METADATA, false,
+                mngr -> new ViewMetadataHandler(mngr, alias));
     }
 
     /**
@@ -884,19 +834,64 @@ protected CompilerResult doCompileViewMetadata(URL src, String alias)
     protected CompilerResult doCompileCompositeComponentMetadata(URL src, String alias)
             throws IOException, FaceletException, ELException, FacesException
     {
-        CompilationManager mngr = null;
+        return compile(src, alias, CompiledFaceletCache.COMPOSITE_COMPONENT_METADATA, false,
+                mngr -> new CompositeComponentMetadataHandler(mngr, alias));
+    }
+    
+    /**
+     * Parse the source with the handler created by the passed factory. If a compiled Facelet cache
+     * is configured, the calls done by the handler are replayed from the cache when the source has
+     * not changed, otherwise they are recorded and stored into the cache.
+     */
+    private CompilerResult compile(URL src, String alias, char kind, boolean writeXmlDecl,
+            Function<CompilationManager, DefaultHandler> handlerFactory)
+            throws IOException, FaceletException, ELException, FacesException
+    {
+        FaceletsProcessingInstructions instructions = getFaceletsProcessingInstructions(src, alias);
+        CompilationManager mngr = new CompilationManager(alias, this, instructions);
+        CompiledFaceletCache cache = getCompiledFaceletCache();
+        CompilationRecording recording = null;
+        String key = null;
         InputStream is = null;
         String encoding = null;
         try
         {
-            is = new BufferedInputStream(src.openStream(), 1024);
-            mngr = new CompilationManager(alias, this, getFaceletsProcessingInstructions(src, alias));
-            encoding = getXmlDecl(is, mngr);
-            CompositeComponentMetadataHandler handler = new CompositeComponentMetadataHandler(mngr, alias);
+            if (cache != null)
+            {
+                byte[] source;
+                try (InputStream sourceStream = src.openStream())
+                {
+                    source = sourceStream.readAllBytes();
+                }
+                key = cache.getKey(kind, instructions, source);
+                byte[] compiled = cache.load(key);
+                if (compiled != null)
+                {
+                    try
+                    {
+                        encoding = CompilationRecording.replay(compiled, mngr, alias);
+                        return new CompilerResult(new EncodingHandler(mngr.createFaceletHandler(), encoding),
+                                mngr.getDoctype());
+                    }
+                    catch (IOException e)
+                    {
+                        log.log(Level.WARNING, "Invalid compiled Facelet for " + alias + ", parsing it again", e);
+                        mngr = new CompilationManager(alias, this, instructions);
+                    }
+                }
+                recording = new CompilationRecording();
+                mngr.setRecording(recording);
+                is = new ByteArrayInputStream(source);
+            }
+            else
+            {
+                is = new BufferedInputStream(src.openStream(), 1024);
+            }
+            
+            encoding = writeXmlDecl ? writeXmlDecl(is, mngr) : getXmlDecl(is, mngr);
+            DefaultHandler handler = handlerFactory.apply(mngr);
             SAXParser parser = this.createSAXParser(handler);
             parser.parse(is, handler);
-            
-            
         }
         catch (SAXException e)
         {
@@ -913,6 +908,12 @@ protected CompilerResult doCompileCompositeComponentMetadata(URL src, String ali
                 is.close();
             }
         }
+        
+        if (recording != null)
+        {
+            recording.setEncoding(encoding);
+            cache.store(key, recording.toByteArray());
+        }
         return new CompilerResult(new EncodingHandler(mngr.createFaceletHandler(), encoding), mngr.getDoctype());
     }
     
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.compiler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jakarta.el.ELContext;
+import jakarta.el.ExpressionFactory;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.context.ResponseWriter;
+
+import org.apache.myfaces.renderkit.html.HtmlResponseWriterImpl;
+import org.apache.myfaces.renderkit.html.util.HTML;
+import org.apache.myfaces.util.lang.FastWriter;
+
+/**
+ * Groups a run of literal element, attribute and text instructions, so they can be written with a
+ * single call as markup pre-rendered the first time the run is written.
+ * <p>
+ * The pre-rendered markup is only used when the response writer is exactly
+ * {@link HtmlResponseWriterImpl}, because a subclass or a wrapper may intercept the individual calls.
+ * Otherwise, or when the writer is in a state where the markup cannot be written as is, the grouped
+ * instructions are replayed one by one.
+ * </p>
+ */
+final class StaticMarkupInstruction implements Instruction
+{
+    private final Instruction[] instructions;
+
+    /**
+     * Pre-rendered markup, indexed by {@link HtmlResponseWriterImpl#getStaticMarkupVariant()}.
+     * Replaced as a whole when a variant is added, so it can be shared by concurrent requests.
+     */
+    private volatile char[][] markup = new char[4][];
+
+    StaticMarkupInstruction(Instruction[] instructions)
+    {
+        this.instructions = instructions;
+    }
+
+    @Override
+    public void write(FacesContext context) throws IOException
+    {
+        ResponseWriter rw = context.getResponseWriter();
+        if (rw.getClass() == HtmlResponseWriterImpl.class)
+        {
+            HtmlResponseWriterImpl writer = (HtmlResponseWriterImpl) rw;
+            if (writer.writeStaticMarkup(getMarkup(context, writer)))
+            {
+                return;
+            }
+        }
+        for (int i = 0; i < instructions.length; i++)
+        {
+            instructions[i].write(context);
+        }
+    }
+
+    private char[] getMarkup(FacesContext context, HtmlResponseWriterImpl writer) throws IOException
+    {
+        int variant = writer.getStaticMarkupVariant();
+        char[][] current = this.markup;
+        char[] result = current[variant];
+        if (result == null)
+        {
+            FastWriter out = new FastWriter(256);
+            ResponseWriter clone = writer.cloneWithWriter(out);
+            context.setResponseWriter(clone);
+            try
+            {
+                for (int i = 0; i < instructions.length; i++)
+                {
+                    instructions[i].write(context);
+                }
+                clone.flush();
+            }
+            finally
+            {
+                context.setResponseWriter(writer);
+            }
+            result = out.toString().toCharArray();
+
+            char[][] updated = current.clone();
+            updated[variant] = result;
+            this.markup = updated;
+        }
+        return result;
+    }
+
+    @Override
+    public Instruction apply(ExpressionFactory factory, ELContext ctx)
+    {
+        return this;
+    }
+
+    @Override
+    public boolean isLiteral()
+    {
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "StaticMarkupInstruction" + Arrays.asList(instructions);
+    }
+
+    /**
+     * Replaces each run of literal instructions that can be written as pre-rendered markup with a
+     * single StaticMarkupInstruction. A run starts with an element or text instruction and ends with
+     * an end element, optionally followed by text, so the response writer is left with no element
+     * started after it. Runs that contain script or style elements are not grouped, because the
+     * writer buffers their content.
+     *
+     * @param instructions the instructions of a UIInstructions component
+     * @return the given array if nothing was grouped, otherwise a new array
+     */
+    static Instruction[] merge(Instruction[] instructions)
+    {
+        List<Instruction> merged = null;
+        int i = 0;
+        while (i < instructions.length)
+        {
+            int end = findRunEnd(instructions, i);
+            if (end - i > 1)
+            {
+                if (merged == null)
+                {
+                    merged = new ArrayList<>(instructions.length);
+                    merged.addAll(Arrays.asList(instructions).subList(0, i));
+                }
+                merged.add(new StaticMarkupInstruction(Arrays.copyOfRange(instructions, i, end)));
+                i = end;
+            }
+            else
+            {
+                if (merged != null)
+                {
+                    merged.add(instructions[i]);
+                }
+                i++;
+            }
+        }
+        return merged == null ? instructions : merged.toArray(new Instruction[merged.size()]);
+    }
+
+    private static int findRunEnd(Instruction[] instructions, int start)
+    {
+        int end = start;
+        boolean attributeAllowed = false;
+        boolean elementEnded = false;
+        for (int i = start; i < instructions.length; i++)
+        {
+            Instruction ins = instructions[i];
+            if (ins instanceof StartElementInstruction instruction)
+            {
+                if (isScriptOrStyle(instruction.getElement()))
+                {
+                    break;
+                }
+                attributeAllowed = true;
+            }
+            else if (ins instanceof LiteralAttributeInstruction)
+            {
+                if (!attributeAllowed)
+                {
+                    break;
+                }
+            }
+            else if (ins instanceof EndElementInstruction instruction)
+            {
+                if (isScriptOrStyle(instruction.getElement()))
+                {
+                    break;
+                }
+                attributeAllowed = false;
+                elementEnded = true;
+                end = i + 1;
+            }
+            else if (ins instanceof LiteralTextInstruction || ins instanceof LiteralNonExcapedTextInstruction)
+            {
+                attributeAllowed = false;
+                if (elementEnded)
+                {
+                    end = i + 1;
+                }
+            }
+            else
+            {
+                break;
+            }
+        }
+        return end;
+    }
+
+    private static boolean isScriptOrStyle(String element)
+    {
+        return HTML.SCRIPT_ELEM.equalsIgnoreCase(element) || HTML.STYLE_ELEM.equalsIgnoreCase(element);
+    }
+}
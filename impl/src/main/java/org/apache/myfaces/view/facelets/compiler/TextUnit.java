@@ -400,8 +400,8 @@ protected void flushBufferToConfig(boolean child)
                         // spaces.
                         size = compressSpaces(instructionBuffer, size);
                     }
-                    Instruction[] instructions = this.instructionBuffer
-                            .toArray(new Instruction[size]);
+                    Instruction[] instructions = StaticMarkupInstruction.merge(this.instructionBuffer
+                            .toArray(new Instruction[size]));
                     this.children.add(new UIInstructionHandler(this.alias, this.id, instructions, txt));
                     this.instructionBuffer.clear();
                 }
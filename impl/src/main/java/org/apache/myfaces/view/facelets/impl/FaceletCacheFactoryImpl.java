@@ -18,6 +18,7 @@
  */
 package org.apache.myfaces.view.facelets.impl;
 
+import jakarta.faces.context.ExternalContext;
 import jakarta.faces.context.FacesContext;
 import jakarta.faces.view.facelets.FaceletCache;
 import jakarta.faces.view.facelets.FaceletCacheFactory;
@@ -52,4 +53,15 @@ public FaceletCache getFaceletCache()
         }
     }
 
+    /**
+     * Stops the background threads that check the Facelets of the application for updates.
+     * Called when the application is destroyed.
+     *
+     * @param externalContext the ExternalContext of the application
+     */
+    public static void release(ExternalContext externalContext)
+    {
+        FaceletCacheImpl.shutdownRefreshExecutors(externalContext);
+    }
+
 }
@@ -19,10 +19,22 @@
 package org.apache.myfaces.view.facelets.impl;
 
 import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.net.URL;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import jakarta.faces.context.ExternalContext;
+import jakarta.faces.context.FacesContext;
 import jakarta.faces.view.facelets.FaceletCache;
 import jakarta.faces.view.facelets.FaceletException;
 
@@ -42,27 +54,44 @@
  * the other ones used for views or the one used to apply the composite component
  * itself.  
  * 
+ * <p>Facelets are kept in ConcurrentHashMaps and each URL is compiled only once, even if
+ * many requests ask for it at the same time. When a refresh period is set, the last
+ * modified time of the cached Facelets is checked by a background thread every refresh
+ * period and stale entries are removed, so request threads never touch the resource.</p>
+ * 
  * @author Leonardo Uribe
  * @since 2.1.0
  *
  */
 class FaceletCacheImpl extends FaceletCache<DefaultFacelet>
 {
+    private static final Logger log = Logger.getLogger(FaceletCacheImpl.class.getName());
 
     private static final long INFINITE_DELAY = -1;
     private static final long NO_CACHE_DELAY = 0;
+
+    /**
+     * Application map key of the refresh executors started by this application, shut down
+     * when the application is destroyed.
+     */
+    private static final String REFRESH_EXECUTORS = FaceletCacheImpl.class.getName() + ".REFRESH_EXECUTORS";
     
-    private Map<String, DefaultFacelet> _facelets;
+    private final Map<String, DefaultFacelet> _facelets;
     
-    private Map<String, DefaultFacelet> _viewMetadataFacelets;
+    private final Map<String, DefaultFacelet> _viewMetadataFacelets;
+    
+    private final Map<String, FutureTask<DefaultFacelet>> _loading;
 
     private long _refreshPeriod;
     
+    private volatile ScheduledExecutorService _refreshExecutor;
+    
     FaceletCacheImpl(long refreshPeriod)
     {
         _refreshPeriod = refreshPeriod < 0 ? INFINITE_DELAY : refreshPeriod * 1000;
-        _facelets = new HashMap<>();
-        _viewMetadataFacelets = new HashMap<>();
+        _facelets = new ConcurrentHashMap<>();
+        _viewMetadataFacelets = new ConcurrentHashMap<>();
+        _loading = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -70,21 +99,17 @@ public DefaultFacelet getFacelet(URL url) throws IOException
     {
         Assert.notNull(url, "url");
         
-        String key = url.toString();
+        if (_refreshPeriod == NO_CACHE_DELAY)
+        {
+            return getMemberFactory().newInstance(url);
+        }
 
+        String key = url.toString();
         DefaultFacelet f = _facelets.get(key);
-        if (f == null || this.needsToBeRefreshed(f))
+        if (f == null)
         {
-            //f = this._createFacelet(url);
-            f = getMemberFactory().newInstance(url);
-            if (_refreshPeriod != NO_CACHE_DELAY)
-            {
-                Map<String, DefaultFacelet> newLoc = new HashMap<>(_facelets);
-                newLoc.put(key, f);
-                _facelets = newLoc;
-            }
+            f = createFacelet(_facelets, key, url, getMemberFactory());
         }
-        
         return f;
     }
     
@@ -99,22 +124,17 @@ public DefaultFacelet getViewMetadataFacelet(URL url) throws IOException
     {
         Assert.notNull(url, "url");
         
+        if (_refreshPeriod == NO_CACHE_DELAY)
+        {
+            return getMetadataMemberFactory().newInstance(url);
+        }
+
         String key = url.toString();
-        
         DefaultFacelet f = _viewMetadataFacelets.get(key);
-        
-        if (f == null || this.needsToBeRefreshed(f))
+        if (f == null)
         {
-            //f = this._createViewMetadataFacelet(url);
-            f = getMetadataMemberFactory().newInstance(url);
-            if (_refreshPeriod != NO_CACHE_DELAY)
-            {
-                Map<String, DefaultFacelet> newLoc = new HashMap<>(_viewMetadataFacelets);
-                newLoc.put(key, f);
-                _viewMetadataFacelets = newLoc;
-            }
+            f = createFacelet(_viewMetadataFacelets, key, url, getMetadataMemberFactory());
         }
-        
         return f;
     }
 
@@ -123,6 +143,162 @@ public boolean isViewMetadataFaceletCached(URL url)
     {
         return _viewMetadataFacelets.containsKey(url.toString());
     }
+    
+    /**
+     * Compile the Facelet and put it into the cache. If another thread is already compiling
+     * the same URL, wait for its result instead of compiling it again. The compilation is
+     * not done inside ConcurrentHashMap.computeIfAbsent, because it can take some time and
+     * it would block other keys of the same bin.
+     */
+    private DefaultFacelet createFacelet(Map<String, DefaultFacelet> cache, String key, URL url,
+            FaceletCache.MemberFactory<DefaultFacelet> factory) throws IOException
+    {
+        // View metadata Facelets use a different key, so they do not wait for the Facelet of the same URL
+        String loadingKey = cache == _facelets ? key : "m:" + key;
+        FutureTask<DefaultFacelet> task = new FutureTask<>(() ->
+        {
+            DefaultFacelet f = cache.get(key);
+            if (f == null)
+            {
+                f = factory.newInstance(url);
+                cache.put(key, f);
+            }
+            return f;
+        });
+
+        FutureTask<DefaultFacelet> running = _loading.putIfAbsent(loadingKey, task);
+        if (running == null)
+        {
+            try
+            {
+                task.run();
+            }
+            finally
+            {
+                _loading.remove(loadingKey, task);
+            }
+            running = task;
+            
+            if (_refreshPeriod > 0 && _refreshExecutor == null)
+            {
+                startRefreshExecutor();
+            }
+        }
+
+        try
+        {
+            return running.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new FaceletException("Interrupted while compiling " + url, e);
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException)
+            {
+                throw ioException;
+            }
+            else if (cause instanceof RuntimeException runtimeException)
+            {
+                throw runtimeException;
+            }
+            else if (cause instanceof Error error)
+            {
+                throw error;
+            }
+            throw new FaceletException(cause);
+        }
+    }
+    
+    private synchronized void startRefreshExecutor()
+    {
+        if (_refreshExecutor != null)
+        {
+            return;
+        }
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r ->
+        {
+            Thread thread = new Thread(r, "MyFaces FaceletCache refresh");
+            thread.setDaemon(true);
+            // Do not pin the web application class loader.
+            thread.setContextClassLoader(null);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(new RefreshTask(this, executor), _refreshPeriod, _refreshPeriod,
+                TimeUnit.MILLISECONDS);
+        _refreshExecutor = executor;
+
+        FacesContext facesContext = FacesContext.getCurrentInstance();
+        if (facesContext != null)
+        {
+            Map<String, Object> applicationMap = facesContext.getExternalContext().getApplicationMap();
+            synchronized (FaceletCacheImpl.class)
+            {
+                Queue<ScheduledExecutorService> executors =
+                        (Queue<ScheduledExecutorService>) applicationMap.get(REFRESH_EXECUTORS);
+                if (executors == null)
+                {
+                    executors = new ConcurrentLinkedQueue<>();
+                    applicationMap.put(REFRESH_EXECUTORS, executors);
+                }
+                executors.add(executor);
+            }
+        }
+    }
+
+    ScheduledExecutorService getRefreshExecutor()
+    {
+        return _refreshExecutor;
+    }
+
+    /**
+     * Stops the refresh threads started for the Facelet caches of the application.
+     */
+    static void shutdownRefreshExecutors(ExternalContext externalContext)
+    {
+        Queue<ScheduledExecutorService> executors =
+                (Queue<ScheduledExecutorService>) externalContext.getApplicationMap().remove(REFRESH_EXECUTORS);
+        if (executors != null)
+        {
+            for (ScheduledExecutorService executor : executors)
+            {
+                executor.shutdownNow();
+            }
+        }
+    }
+    
+    /**
+     * Remove the Facelets whose source has been modified, so they are compiled again the
+     * next time they are requested.
+     */
+    void checkForUpdates()
+    {
+        removeStale(_facelets);
+        removeStale(_viewMetadataFacelets);
+    }
+    
+    private void removeStale(Map<String, DefaultFacelet> cache)
+    {
+        for (Map.Entry<String, DefaultFacelet> entry : cache.entrySet())
+        {
+            DefaultFacelet f = entry.getValue();
+            try
+            {
+                if (needsToBeRefreshed(f))
+                {
+                    cache.remove(entry.getKey(), f);
+                }
+            }
+            catch (FaceletException e)
+            {
+                log.log(Level.FINE, "Cannot check " + entry.getKey() + " for updates", e);
+                cache.remove(entry.getKey(), f);
+            }
+        }
+    }
 
     /**
      * Template method for determining if the Facelet needs to be refreshed.
@@ -163,4 +339,40 @@ protected boolean needsToBeRefreshed(DefaultFacelet facelet)
 
         return false;
     }
+    
+    /**
+     * Only holds a weak reference to the cache, so a cache that is dropped while the
+     * application keeps running does not leak. The executor is stopped when the application
+     * is destroyed, the executor also stops itself if the cache is collected first.
+     */
+    private static class RefreshTask implements Runnable
+    {
+        private final WeakReference<FaceletCacheImpl> cacheRef;
+        private final ScheduledExecutorService executor;
+
+        RefreshTask(FaceletCacheImpl cache, ScheduledExecutorService executor)
+        {
+            this.cacheRef = new WeakReference<>(cache);
+            this.executor = executor;
+        }
+
+        @Override
+        public void run()
+        {
+            FaceletCacheImpl cache = cacheRef.get();
+            if (cache == null)
+            {
+                executor.shutdown();
+                return;
+            }
+            try
+            {
+                cache.checkForUpdates();
+            }
+            catch (RuntimeException e)
+            {
+                log.log(Level.WARNING, "Error checking Facelets for updates", e);
+            }
+        }
+    }
 }
@@ -75,13 +75,16 @@
     
     /**
      * Defines the type of memory reference that is used to hold the view into memory. By
-     * default a "soft" reference is used. 
+     * default a "soft" reference is used. A "strong" reference keeps the views until they
+     * are taken from the pool, so it should be used together with
+     * org.apache.myfaces.VIEW_POOL_MAX_TOTAL_SIZE.
      */
-    @JSFWebConfigParam(defaultValue="soft", expectedValues="weak,soft", tags="performance")
+    @JSFWebConfigParam(defaultValue="soft", expectedValues="weak,soft,strong", tags="performance")
     public static final String INIT_PARAM_VIEW_POOL_ENTRY_MODE =
             "org.apache.myfaces.VIEW_POOL_ENTRY_MODE";
     public static final String ENTRY_MODE_SOFT = "soft";
     public static final String ENTRY_MODE_WEAK = "weak";
+    public static final String ENTRY_MODE_STRONG = "strong";
     public static final String INIT_PARAM_VIEW_POOL_ENTRY_MODE_DEFAULT = ENTRY_MODE_SOFT;
     
     /**
@@ -93,6 +96,42 @@
     public static final String INIT_PARAM_VIEW_POOL_DEFERRED_NAVIGATION =
             "org.apache.myfaces.VIEW_POOL_DEFERRED_NAVIGATION";    
     
+    /**
+     * Defines the max number of views hold by the pool, considering all view metadata
+     * definitions together. By default is -1, which means there is no global limit and
+     * only org.apache.myfaces.VIEW_POOL_MAX_POOL_SIZE applies.
+     */
+    @JSFWebConfigParam(defaultValue="-1", tags="performance", since="5.0")
+    public static final String INIT_PARAM_VIEW_POOL_MAX_TOTAL_SIZE =
+            "org.apache.myfaces.VIEW_POOL_MAX_TOTAL_SIZE";
+    public static final int INIT_PARAM_VIEW_POOL_MAX_TOTAL_SIZE_DEFAULT = -1;
+    
+    /**
+     * Adapt the number of views hold per view metadata definition to the observed demand.
+     * The limit shrinks when pooled views are not used and grows again, up to
+     * org.apache.myfaces.VIEW_POOL_MAX_POOL_SIZE, when the pool runs out of views.
+     */
+    @JSFWebConfigParam(defaultValue="false", expectedValues="true, false", tags="performance", since="5.0")
+    public static final String INIT_PARAM_VIEW_POOL_ADAPTIVE =
+            "org.apache.myfaces.VIEW_POOL_ADAPTIVE";
+    
+    /**
+     * Comma separated list of view ids whose views are built and put into the pool when the
+     * first request has been processed, so the following requests find them ready to use.
+     */
+    @JSFWebConfigParam(tags="performance", since="5.0")
+    public static final String INIT_PARAM_VIEW_POOL_WARMUP_VIEW_IDS =
+            "org.apache.myfaces.VIEW_POOL_WARMUP_VIEW_IDS";
+    
+    /**
+     * Defines the number of views built per view id listed in
+     * org.apache.myfaces.VIEW_POOL_WARMUP_VIEW_IDS. By default is 1.
+     */
+    @JSFWebConfigParam(defaultValue="1", tags="performance", since="5.0")
+    public static final String INIT_PARAM_VIEW_POOL_WARMUP_COUNT =
+            "org.apache.myfaces.VIEW_POOL_WARMUP_COUNT";
+    public static final int INIT_PARAM_VIEW_POOL_WARMUP_COUNT_DEFAULT = 1;
+    
     /**
      * Indicate if the view pool uses deferred navigation.
      * 
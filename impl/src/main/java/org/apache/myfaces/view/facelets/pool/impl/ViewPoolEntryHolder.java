@@ -35,28 +35,82 @@
  * <li>View creation is quite fast, so according to previous tests done,
  * include any synchronized method in this code will produce worse performance.</li>
  * </ol>
+ * 
+ * <p>The holder can optionally share a counter with other holders of the same pool,
+ * so the total number of views is bounded too. If adaptive sizing is enabled, the
+ * effective limit starts at maxCount and is recalculated every {@link #ADAPT_WINDOW}
+ * operations: it grows when poll() found the queue empty (a view had to be built from
+ * scratch) and shrinks by the number of entries that stayed idle during the whole
+ * window, releasing them.</p>
  *
  * @author Leonardo Uribe
  */
 public class ViewPoolEntryHolder
 {
+    static final int ADAPT_WINDOW = 32;
+
     private Queue<ViewEntry> queue;
     private AtomicInteger count;
     private int maxCount;
     
+    private final AtomicInteger totalCount;
+    private final int maxTotalCount;
+    private final boolean adaptive;
+    
+    private volatile int limit;
+    private AtomicInteger operations;
+    private AtomicInteger misses;
+    private volatile int lowWatermark;
+    
     public ViewPoolEntryHolder(int maxCount)
+    {
+        this(maxCount, null, -1, false);
+    }
+    
+    /**
+     * @param maxCount max number of entries in this holder
+     * @param totalCount counter shared by all holders of the pool, or null
+     * @param maxTotalCount max value of totalCount, or a negative value for no limit
+     * @param adaptive if the limit should follow the observed demand
+     */
+    public ViewPoolEntryHolder(int maxCount, AtomicInteger totalCount, int maxTotalCount, boolean adaptive)
     {
         this.queue = new ConcurrentLinkedQueue<>();
         this.count = new AtomicInteger();
         this.maxCount = maxCount;
+        this.totalCount = totalCount;
+        this.maxTotalCount = maxTotalCount;
+        this.adaptive = adaptive;
+        this.limit = maxCount;
+        if (adaptive)
+        {
+            this.operations = new AtomicInteger();
+            this.misses = new AtomicInteger();
+        }
     }
     
     public boolean add(ViewEntry entry)
     {
-        if (count.get() < maxCount)
+        if (count.get() < limit)
         {
+            if (totalCount != null)
+            {
+                if (maxTotalCount >= 0 && totalCount.incrementAndGet() > maxTotalCount)
+                {
+                    totalCount.decrementAndGet();
+                    return false;
+                }
+                else if (maxTotalCount < 0)
+                {
+                    totalCount.incrementAndGet();
+                }
+            }
             queue.add(entry);
             count.incrementAndGet();
+            if (adaptive)
+            {
+                adapt();
+            }
             return true;
         }
         return false;
@@ -65,17 +119,79 @@ public boolean add(ViewEntry entry)
     public ViewEntry poll()
     {
         ViewEntry entry = queue.poll();
-        count.decrementAndGet();
+        if (entry != null)
+        {
+            int current = count.decrementAndGet();
+            if (totalCount != null)
+            {
+                totalCount.decrementAndGet();
+            }
+            if (adaptive)
+            {
+                if (current < lowWatermark)
+                {
+                    lowWatermark = current;
+                }
+                adapt();
+            }
+        }
+        else if (adaptive)
+        {
+            misses.incrementAndGet();
+            adapt();
+        }
         return entry;
     }
     
+    private void adapt()
+    {
+        if (operations.incrementAndGet() % ADAPT_WINDOW != 0)
+        {
+            return;
+        }
+        int missed = misses.getAndSet(0);
+        int idle = lowWatermark;
+        if (missed > 0)
+        {
+            limit = Math.min(maxCount, limit + missed);
+        }
+        else if (idle > 0)
+        {
+            int newLimit = Math.max(1, limit - idle);
+            limit = newLimit;
+            // Release the views that were not used at all in the last window.
+            while (count.get() > newLimit)
+            {
+                ViewEntry entry = queue.poll();
+                if (entry == null)
+                {
+                    break;
+                }
+                count.decrementAndGet();
+                if (totalCount != null)
+                {
+                    totalCount.decrementAndGet();
+                }
+            }
+        }
+        lowWatermark = count.get();
+    }
+    
     public boolean isFull()
     {
-        return count.get() >= maxCount;
+        return count.get() >= limit;
     }
     
     public int getCount()
     {
         return count.get();
     }
+    
+    /**
+     * @return the current limit of this holder, which is maxCount unless adaptive sizing is enabled
+     */
+    public int getLimit()
+    {
+        return limit;
+    }
 }
@@ -19,6 +19,7 @@
 package org.apache.myfaces.view.facelets.pool.impl;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -88,4 +89,18 @@ public ViewPool getViewPool(FacesContext context, UIViewRoot root)
         }
         return null;
     }
+    
+    /**
+     * @return all view pools created by this factory, so their statistics can be inspected
+     */
+    public List<ViewPool> getViewPools()
+    {
+        if (defaultViewPool == null)
+        {
+            return Collections.unmodifiableList(viewPoolList);
+        }
+        List<ViewPool> list = new ArrayList<>(viewPoolList);
+        list.add(defaultViewPool);
+        return list;
+    }
 }
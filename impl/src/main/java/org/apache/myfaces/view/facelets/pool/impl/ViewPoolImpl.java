@@ -22,6 +22,8 @@
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import jakarta.faces.component.UIViewRoot;
 import jakarta.faces.context.FacesContext;
 import org.apache.myfaces.context.RequestViewContext;
@@ -50,10 +52,19 @@ public class ViewPoolImpl extends ViewPool
     
     private final int maxCount;
     private final int dynamicPartialLimit;
+    private final int maxTotalCount;
+    private final boolean adaptive;
     
-    private final boolean entryWeak;
+    private final String entryMode;
     private final boolean deferredNavigation;
     
+    // Statistics
+    private final AtomicInteger totalCount = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder recycleRejections = new LongAdder();
+    private final LongAdder pushRejections = new LongAdder();
+    
     // View metadata
     private Map<MetadataViewKey, ViewStructureMetadata> staticStructureViewMetadataMap;
     private Map<MetadataViewKey, Map<DynamicViewKey, ViewStructureMetadata>> 
@@ -74,12 +85,22 @@ public ViewPoolImpl(FacesContext facesContext, Map<String, String> parameters)
                 parameters.containsKey(INIT_PARAM_VIEW_POOL_MAX_DYNAMIC_PARTIAL_LIMIT) ?
                 Integer.parseInt(parameters.get(INIT_PARAM_VIEW_POOL_MAX_DYNAMIC_PARTIAL_LIMIT)) : 
                 INIT_PARAM_VIEW_POOL_MAX_DYNAMIC_PARTIAL_LIMIT_DEFAULT);
-        String entryMode = WebConfigParamUtils.getStringInitParameter(facesContext.getExternalContext(),
+        maxTotalCount = WebConfigParamUtils.getIntegerInitParameter(facesContext.getExternalContext(),
+                INIT_PARAM_VIEW_POOL_MAX_TOTAL_SIZE, 
+                parameters.containsKey(INIT_PARAM_VIEW_POOL_MAX_TOTAL_SIZE) ?
+                Integer.parseInt(parameters.get(INIT_PARAM_VIEW_POOL_MAX_TOTAL_SIZE)) : 
+                INIT_PARAM_VIEW_POOL_MAX_TOTAL_SIZE_DEFAULT);
+        adaptive = Boolean.parseBoolean(WebConfigParamUtils.getStringInitParameter(
+                facesContext.getExternalContext(),
+                INIT_PARAM_VIEW_POOL_ADAPTIVE,
+                parameters.containsKey(INIT_PARAM_VIEW_POOL_ADAPTIVE) ?
+                parameters.get(INIT_PARAM_VIEW_POOL_ADAPTIVE) :
+                "false"));
+        entryMode = WebConfigParamUtils.getStringInitParameter(facesContext.getExternalContext(),
                 INIT_PARAM_VIEW_POOL_ENTRY_MODE,
                 parameters.containsKey(INIT_PARAM_VIEW_POOL_ENTRY_MODE) ?
                 parameters.get(INIT_PARAM_VIEW_POOL_ENTRY_MODE) :
                 INIT_PARAM_VIEW_POOL_ENTRY_MODE_DEFAULT);
-        entryWeak = ENTRY_MODE_WEAK.equals(entryMode);
         String deferredNavigationVal = WebConfigParamUtils.getStringInitParameter(facesContext.getExternalContext(),
                 INIT_PARAM_VIEW_POOL_DEFERRED_NAVIGATION,
                 parameters.containsKey(INIT_PARAM_VIEW_POOL_DEFERRED_NAVIGATION) ?
@@ -91,10 +112,18 @@ public ViewPoolImpl(FacesContext facesContext, Map<String, String> parameters)
         dynamicStructureViewMetadataMap = new ConcurrentHashMap<>();
     }
     
+    protected ViewPoolEntryHolder createViewPoolEntryHolder()
+    {
+        return new ViewPoolEntryHolder(maxCount, totalCount, maxTotalCount, adaptive);
+    }
+    
     protected void pushStaticStructureView(FacesContext context, MetadataViewKey key, ViewEntry entry)
     {
-        ViewPoolEntryHolder q = staticStructureViewPool.computeIfAbsent(key, k -> new ViewPoolEntryHolder(maxCount));
-        q.add(entry);
+        ViewPoolEntryHolder q = staticStructureViewPool.computeIfAbsent(key, k -> createViewPoolEntryHolder());
+        if (!q.add(entry))
+        {
+            pushRejections.increment();
+        }
     }
     
     protected ViewEntry popStaticStructureView(FacesContext context, MetadataViewKey key)
@@ -124,13 +153,11 @@ protected ViewEntry popStaticStructureView(FacesContext context, MetadataViewKey
     
     protected void pushPartialStructureView(FacesContext context, MetadataViewKey key, ViewEntry entry)
     {
-        ViewPoolEntryHolder q = partialStructureViewPool.get(key);
-        if (q == null)
+        ViewPoolEntryHolder q = partialStructureViewPool.computeIfAbsent(key, k -> createViewPoolEntryHolder());
+        if (!q.add(entry))
         {
-            q = new ViewPoolEntryHolder(maxCount);
-            partialStructureViewPool.put(key, q);
+            pushRejections.increment();
         }
-        q.add(entry);
     }
     
     protected ViewEntry popPartialStructureView(FacesContext context, MetadataViewKey key)
@@ -187,7 +214,15 @@ protected MetadataViewKey deriveViewKey(FacesContext facesContext, UIViewRoot ro
 
     protected ViewEntry generateViewEntry(FacesContext facesContext, UIViewRoot root)
     {
-        return entryWeak ? new WeakViewEntry(root) : new SoftViewEntry(root);
+        if (ENTRY_MODE_WEAK.equals(entryMode))
+        {
+            return new WeakViewEntry(root);
+        }
+        else if (ENTRY_MODE_STRONG.equals(entryMode))
+        {
+            return new StrongViewEntry(root);
+        }
+        return new SoftViewEntry(root);
     }
 
     protected DynamicViewKey generateDynamicStructureViewKey(FacesContext facesContext, UIViewRoot root,
@@ -202,7 +237,7 @@ protected void pushDynamicStructureView(FacesContext context, UIViewRoot root, D
         Map<DynamicViewKey, ViewPoolEntryHolder> map = dynamicStructureViewPool.computeIfAbsent(ordinaryKey,
                 k -> new ConcurrentHashMap<>());
 
-        ViewPoolEntryHolder q = map.computeIfAbsent(key, k -> new ViewPoolEntryHolder(maxCount));
+        ViewPoolEntryHolder q = map.computeIfAbsent(key, k -> createViewPoolEntryHolder());
         if (!q.add(entry))
         {
             pushPartialStructureView(context, ordinaryKey, entry);
@@ -310,6 +345,14 @@ public ViewEntry popStaticOrPartialStructureView(FacesContext context, UIViewRoo
                 }
             }
         }
+        if (entry != null)
+        {
+            hits.increment();
+        }
+        else
+        {
+            misses.increment();
+        }
         return entry;
     }
 
@@ -334,6 +377,11 @@ public ViewEntry popDynamicStructureView(FacesContext context, UIViewRoot root,
         if (entry != null)
         {
             entry.setResult(RestoreViewFromPoolResult.COMPLETE);
+            hits.increment();
+        }
+        else
+        {
+            misses.increment();
         }
         return entry;
     }
@@ -353,6 +401,7 @@ public boolean isWorthToRecycleThisView(FacesContext context, UIViewRoot root)
         ViewPoolEntryHolder q = partialStructureViewPool.get(key);
         if (q != null && q.isFull())
         {
+            recycleRejections.increment();
             return false;
         }
         return true;
@@ -445,4 +494,45 @@ public boolean isDeferredNavigationEnabled()
         return deferredNavigation;
     }
     
+    /**
+     * @return number of views taken from the pool
+     */
+    public long getHits()
+    {
+        return hits.sum();
+    }
+    
+    /**
+     * @return number of times the pool had no view available and the view had to be built
+     */
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+    
+    /**
+     * @return number of views not recycled because isWorthToRecycleThisView returned false
+     */
+    public long getRecycleRejections()
+    {
+        return recycleRejections.sum();
+    }
+    
+    /**
+     * @return number of views discarded because the per view or the global limit was reached
+     */
+    public long getPushRejections()
+    {
+        return pushRejections.sum();
+    }
+    
+    /**
+     * @return number of views currently hold by the pool, including entries that could have
+     * been cleared by the garbage collector and were not polled yet
+     */
+    public int getSize()
+    {
+        return totalCount.get();
+    }
+    
 }
@@ -41,6 +41,7 @@
 import jakarta.websocket.server.ServerContainer;
 import jakarta.websocket.server.ServerEndpointConfig;
 import org.apache.myfaces.application.viewstate.StateUtils;
+import org.apache.myfaces.application.viewstate.ViewStateStore;
 import org.apache.myfaces.cdi.util.BeanEntry;
 import org.apache.myfaces.cdi.util.CDIUtils;
 import org.apache.myfaces.config.FacesConfigValidator;
@@ -64,6 +65,7 @@
 import org.apache.myfaces.util.lang.ClassUtils;
 import org.apache.myfaces.util.lang.StringUtils;
 import org.apache.myfaces.view.facelets.ViewPoolProcessor;
+import org.apache.myfaces.view.facelets.impl.FaceletCacheFactoryImpl;
 
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
@@ -349,6 +351,12 @@ public void destroyFaces(ServletContext servletContext)
             log.log(Level.SEVERE, e.getMessage(), e);
         }
 
+        // stop the threads checking the Facelets for updates
+        FaceletCacheFactoryImpl.release(facesContext.getExternalContext());
+
+        // drop the views kept outside of the heap
+        ViewStateStore.release(facesContext.getExternalContext());
+
         // TODO is it possible to make a real cleanup?
 
         // Destroy startup FacesContext, but note we do before publish postdestroy event on
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package jakarta.faces.component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jakarta.faces.model.ListDataModel;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ClientIdIndexTest extends AbstractComponentTest
+{
+    private UIViewRoot root;
+    private UIForm form;
+    private UIInput input;
+
+    @Override
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        servletContext.addInitParameter("org.apache.myfaces.CLIENT_ID_INDEX_ENABLED", "true");
+
+        root = facesContext.getViewRoot();
+        form = new UIForm();
+        form.setId("form");
+        root.getChildren().add(form);
+
+        UIPanel panel = new UIPanel();
+        panel.setId("panel");
+        form.getChildren().add(panel);
+
+        input = new UIInput();
+        input.setId("input");
+        panel.getChildren().add(input);
+    }
+
+    private List<UIComponent> invoke(String clientId)
+    {
+        List<UIComponent> targets = new ArrayList<>();
+        root.invokeOnComponent(facesContext, clientId, (context, target) ->
+        {
+            Assertions.assertSame(target, UIComponent.getCurrentComponent(context));
+            targets.add(target);
+        });
+        return targets;
+    }
+
+    @Test
+    public void testInvokeOnComponent()
+    {
+        Assertions.assertEquals(List.of(input), invoke("form:input"));
+        Assertions.assertEquals(List.of(input), invoke("form:input"));
+        Assertions.assertSame(input, root._clientIdIndex.get(facesContext, "form:input"));
+        Assertions.assertEquals(List.of(form), invoke("form"));
+        Assertions.assertEquals(List.of(), invoke("form:missing"));
+        Assertions.assertNull(UIComponent.getCurrentComponent(facesContext));
+    }
+
+    @Test
+    public void testAddAndRemove()
+    {
+        invoke("form");
+        invoke("form");
+
+        UIOutput output = new UIOutput();
+        output.setId("output");
+        form.getChildren().add(output);
+        Assertions.assertSame(output, root._clientIdIndex.get(facesContext, "form:output"));
+        Assertions.assertEquals(List.of(output), invoke("form:output"));
+
+        form.getChildren().remove(output);
+        Assertions.assertNull(root._clientIdIndex.get(facesContext, "form:output"));
+        Assertions.assertEquals(List.of(), invoke("form:output"));
+    }
+
+    @Test
+    public void testIdChange()
+    {
+        invoke("form:input");
+        invoke("form:input");
+
+        input.setId("renamed");
+        Assertions.assertEquals(List.of(), invoke("form:input"));
+        Assertions.assertEquals(List.of(input), invoke("form:renamed"));
+        Assertions.assertSame(input, root._clientIdIndex.get(facesContext, "form:renamed"));
+    }
+
+    @Test
+    public void testRowsNotIndexed()
+    {
+        UIData table = new UIData();
+        table.setId("table");
+        table.setValue(new ListDataModel<>(Arrays.asList("a", "b")));
+        UIColumn column = new UIColumn();
+        column.setId("column");
+        table.getChildren().add(column);
+        UIOutput output = new UIOutput();
+        output.setId("output");
+        column.getChildren().add(output);
+        form.getChildren().add(table);
+
+        invoke("form:table");
+        Assertions.assertEquals(List.of(table), invoke("form:table"));
+        Assertions.assertNull(root._clientIdIndex.get(facesContext, "form:table:output"));
+
+        List<Integer> rows = new ArrayList<>();
+        root.invokeOnComponent(facesContext, "form:table:1:output",
+                (context, target) -> rows.add(table.getRowIndex()));
+        Assertions.assertEquals(List.of(1), rows);
+        Assertions.assertNull(root._clientIdIndex.get(facesContext, "form:table:1:output"));
+    }
+
+    @Test
+    public void testFindComponent()
+    {
+        UIOutput output = new UIOutput();
+        output.setId("output");
+        form.getChildren().add(output);
+
+        Assertions.assertSame(input, root.findComponent(":form:input"));
+        Assertions.assertSame(input, root.findComponent("form:input"));
+        Assertions.assertSame(input, output.findComponent("input"));
+        Assertions.assertSame(input, output.findComponent(":form:input"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> root.findComponent(":form:panel:input"));
+        Assertions.assertNull(root.findComponent("input"));
+        Assertions.assertNotNull(root._clientIdIndex.get(facesContext, "form:output"));
+    }
+
+    @Test
+    public void testFindComponentWithoutPrependId()
+    {
+        form.setPrependId(false);
+
+        for (int i = 0; i < 2; i++)
+        {
+            // the client id is "input", but the search does not enter the form
+            Assertions.assertNull(root.findComponent(":input"));
+            Assertions.assertSame(input, root.findComponent(":form:input"));
+        }
+        Assertions.assertSame(input, root._clientIdIndex.get(facesContext, "input"));
+    }
+}
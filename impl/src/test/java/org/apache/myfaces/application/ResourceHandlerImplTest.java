@@ -25,14 +25,20 @@
 import org.junit.jupiter.api.Test;
 
 import jakarta.faces.application.Resource;
+import jakarta.faces.application.ResourceHandler;
+import jakarta.servlet.http.HttpServletResponse;
 import java.net.URL;
 import java.util.Locale;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
 import org.apache.myfaces.resource.ClassLoaderResourceLoader;
+import org.apache.myfaces.resource.CompressedResourceCache;
 import org.apache.myfaces.resource.ResourceHandlerCache;
 import org.apache.myfaces.resource.ResourceHandlerSupport;
+import org.apache.myfaces.resource.ResourceImpl;
 import org.apache.myfaces.resource.ResourceLoader;
+import org.apache.myfaces.resource.ResourceLoaderUtils;
 import org.apache.myfaces.resource.ResourceMeta;
 import org.apache.myfaces.resource.ResourceMetaImpl;
 import org.junit.jupiter.api.AfterEach;
@@ -236,6 +242,58 @@ public void testCreateResourceNullResourceName() throws Exception
         Assertions.assertTrue(didNPEOccur);
     }
 
+    @Test
+    public void testEntityTag() throws Exception
+    {
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_ENTITY_TAG_ENABLED, "true");
+
+        ResourceImpl resource = (ResourceImpl) resourceHandler.createResource("testResource.xhtml");
+        String entityTag = resource.getEntityTag(facesContext);
+        Assertions.assertEquals('"' + ResourceLoaderUtils.createContentHash(resource.getInputStream()) + '"',
+                entityTag);
+
+        // the cached resource answers the revalidation, also of the compressed variant
+        request.addHeader("If-None-Match", "W/" + CompressedResourceCache.getEntityTag(entityTag));
+        Resource cachedResource = resourceHandler.createResource("testResource.xhtml");
+        Assertions.assertFalse(cachedResource.userAgentNeedsUpdate(facesContext));
+    }
+
+    @Test
+    public void testNotModifiedHeaders() throws Exception
+    {
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_ENTITY_TAG_ENABLED, "true");
+        // xhtml files are excluded by default
+        servletContext.addInitParameter(ResourceHandler.RESOURCE_EXCLUDES_PARAM_NAME, ".class");
+        request.setPathElements("/xxx", "/faces", "/jakarta.faces.resource/testResource.xhtml", null);
+        application.setResourceHandler(resourceHandler);
+
+        ResourceImpl resource = (ResourceImpl) resourceHandler.createResource("testResource.xhtml");
+        String entityTag = resource.getEntityTag(facesContext);
+
+        request.addHeader("If-None-Match", CompressedResourceCache.getEntityTag(entityTag));
+        resourceHandler.handleResourceRequest(facesContext);
+
+        Assertions.assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+        Assertions.assertEquals(CompressedResourceCache.getEntityTag(entityTag), response.getHeader("ETag"));
+        Assertions.assertNotNull(response.getHeader("Cache-Control"));
+        Assertions.assertNotNull(response.getHeader("Last-Modified"));
+    }
+
+    @Test
+    public void testFingerprintedRequestPath() throws Exception
+    {
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_FINGERPRINT_ENABLED, "true");
+
+        Resource resource = resourceHandler.createResource("testResource.xhtml");
+        String contentHash = ResourceLoaderUtils.createContentHash(resource.getInputStream());
+        Assertions.assertTrue(resource.getRequestPath().endsWith(
+                "testResource.xhtml?" + ResourceImpl.FINGERPRINT_PARAM + "=" + contentHash.substring(0, 16)),
+                resource.getRequestPath());
+
+        Resource cachedResource = resourceHandler.createResource("testResource.xhtml");
+        Assertions.assertEquals(resource.getRequestPath(), cachedResource.getRequestPath());
+    }
+
     @Test
     public void testCache()
     {
@@ -124,6 +124,58 @@ public void testEncoding()
         Assertions.assertTrue(Arrays.equals(decoded, originalBytes));
     }
 
+    /**
+     * Whether the same state always gives the same token.
+     */
+    protected boolean isDeterministic()
+    {
+        return true;
+    }
+
+    /**
+     * The streaming pipeline must produce the same token as the step by step one.
+     */
+    @Test
+    public void testStreamingConstruction()
+    {
+        for (String compress : new String[] { "false", "true" })
+        {
+            servletContext.addInitParameter(StateUtils.COMPRESS_STATE_IN_CLIENT, compress);
+
+            servletContext.addInitParameter(StateUtils.STREAM_STATE_IN_CLIENT, "false");
+            String buffered = StateUtils.construct(TEST_DATA, externalContext);
+            servletContext.addInitParameter(StateUtils.STREAM_STATE_IN_CLIENT, "true");
+            String streamed = StateUtils.construct(TEST_DATA, externalContext);
+
+            if (isDeterministic())
+            {
+                Assertions.assertEquals(buffered, streamed);
+            }
+            Assertions.assertEquals(TEST_DATA, StateUtils.reconstruct(buffered, externalContext));
+            Assertions.assertEquals(TEST_DATA, StateUtils.reconstruct(streamed, externalContext));
+        }
+    }
+
+    /**
+     * Chars that are not ISO-8859-1 must not be read as the char with the same low byte.
+     */
+    @Test
+    public void testStreamingConstructionNonLatin1()
+    {
+        servletContext.addInitParameter(StateUtils.STREAM_STATE_IN_CLIENT, "true");
+        String constructed = StateUtils.construct(TEST_DATA, externalContext);
+        constructed = (char) (constructed.charAt(0) + 0x100) + constructed.substring(1);
+        try
+        {
+            Object object = StateUtils.reconstruct(constructed, externalContext);
+            Assertions.assertFalse(TEST_DATA.equals(object));
+        }
+        catch (Exception e)
+        {
+            // do nothing
+        }
+    }
+
     /**
      * Simulates testConstruction w/ corrupt data.
      */
@@ -182,6 +234,13 @@ public void testCryptographyNegative()
         {
             // do nothing
         }
+
+        // the pooled instances stay usable after a failure
+        for (int i = 0; i < 3; i++)
+        {
+            secure = StateUtils.encrypt(sensitiveBytes, externalContext);
+            Assertions.assertArrayEquals(sensitiveBytes, StateUtils.decrypt(secure, externalContext));
+        }
     }
 
     /**
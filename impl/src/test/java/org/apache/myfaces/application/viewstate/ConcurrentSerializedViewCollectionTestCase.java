@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.myfaces.application.viewstate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the scenarios of SerializedViewCollectionTestCase against the lock free collection.
+ */
+public class ConcurrentSerializedViewCollectionTestCase extends SerializedViewCollectionTestCase
+{
+    @Override
+    protected SerializedViewCollection createSerializedViewCollection()
+    {
+        return new ConcurrentSerializedViewCollection(facesContext);
+    }
+
+    @Test
+    public void testConcurrentPut() throws Exception
+    {
+        servletContext.addInitParameter(MyfacesConfig.NUMBER_OF_VIEWS_IN_SESSION, "20");
+
+        SerializedViewCollection collection = createSerializedViewCollection();
+        String viewId = "/test.xhtml";
+        AtomicInteger sequence = new AtomicInteger();
+        AtomicInteger destroyed = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++)
+            {
+                futures.add(executor.submit(() ->
+                {
+                    for (int j = 0; j < 1000; j++)
+                    {
+                        int id = sequence.incrementAndGet();
+                        SerializedViewKey key = new SerializedViewKeyIntInt(viewId.hashCode(), id);
+                        collection.put(facesContext, new Object[]{null, null, id}, key, null,
+                                String.valueOf(id), (vsid) -> destroyed.incrementAndGet());
+                        Object[] state = (Object[]) collection.get(key);
+                        if (state != null)
+                        {
+                            Assertions.assertEquals(id, state[2]);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures)
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        int stored = 0;
+        for (int id = 1; id <= sequence.get(); id++)
+        {
+            if (collection.get(new SerializedViewKeyIntInt(viewId.hashCode(), id)) != null)
+            {
+                stored++;
+            }
+        }
+        Assertions.assertEquals(20, stored);
+        // every discarded view had its own view scope
+        Assertions.assertEquals(sequence.get() - 20, destroyed.get());
+    }
+}
@@ -62,6 +62,26 @@ public void testInitFacesWithoutCache(){
         
     }
     
+    @Test
+    public void testEncryptionNotPooledWithoutCache()
+    {
+        servletContext.addInitParameter(StateUtils.INIT_SECRET_KEY_CACHE, "false");
+        servletContext.addInitParameter(StateUtils.INIT_MAC_SECRET_KEY_CACHE, "false");
+        StateUtils.initSecret(servletContext);
+
+        StateEncryption encryption = StateUtils.getEncryption(externalContext);
+        Assertions.assertNotSame(encryption, StateUtils.getEncryption(externalContext));
+    }
+
+    @Test
+    public void testEncryptionPooledWithCache()
+    {
+        StateUtils.initSecret(servletContext);
+
+        StateEncryption encryption = StateUtils.getEncryption(externalContext);
+        Assertions.assertSame(encryption, StateUtils.getEncryption(externalContext));
+    }
+
     @Test
     public void testInitFacesWithCache(){
         
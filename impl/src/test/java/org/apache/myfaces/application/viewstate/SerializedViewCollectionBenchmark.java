@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.myfaces.application.viewstate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import jakarta.faces.context.FacesContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares SerializedViewCollection and ConcurrentSerializedViewCollection when 1, 4 or 16 requests of the
+ * same session save and restore views at the same time. Each operation restores the last view of the
+ * "window" (thread) and saves the next one, like a postback does.
+ * 
+ * <p>Run it with the main method from the test classpath, or with
+ * <code>java -cp ... org.openjdk.jmh.Main SerializedViewCollectionBenchmark</code>.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializedViewCollectionBenchmark
+{
+    private static final int VIEWS = 20;
+    private static final int SEQUENTIAL_VIEWS = 4;
+    private static final Object[] STATE = new Object[] { null, null, new byte[2048] };
+
+    @State(Scope.Benchmark)
+    public static class Session
+    {
+        @Param({"synchronized", "concurrent"})
+        public String collection;
+
+        private SerializedViewCollection views;
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Setup(Level.Iteration)
+        public void setup()
+        {
+            if ("concurrent".equals(collection))
+            {
+                views = new ConcurrentSerializedViewCollection(null)
+                {
+                    @Override
+                    protected int getNumberOfViewsInSession(FacesContext context)
+                    {
+                        return VIEWS;
+                    }
+
+                    @Override
+                    protected Integer getNumberOfSequentialViewsInSession(FacesContext context)
+                    {
+                        return SEQUENTIAL_VIEWS;
+                    }
+                };
+            }
+            else
+            {
+                views = new SerializedViewCollection()
+                {
+                    @Override
+                    protected int getNumberOfViewsInSession(FacesContext context)
+                    {
+                        return VIEWS;
+                    }
+
+                    @Override
+                    protected Integer getNumberOfSequentialViewsInSession(FacesContext context)
+                    {
+                        return SEQUENTIAL_VIEWS;
+                    }
+                };
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Window
+    {
+        private SerializedViewKey lastKey;
+    }
+
+    private static Object postback(Session session, Window window)
+    {
+        Object restored = window.lastKey == null ? null : session.views.get(window.lastKey);
+        SerializedViewKey key = new SerializedViewKeyIntInt(1, session.sequence.incrementAndGet());
+        session.views.put(null, STATE, key, window.lastKey, null, (viewScopeId) -> { });
+        window.lastKey = key;
+        return restored;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object postback1(Session session, Window window)
+    {
+        return postback(session, window);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object postback4(Session session, Window window)
+    {
+        return postback(session, window);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Object postback16(Session session, Window window)
+    {
+        return postback(session, window);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder()
+                .include(SerializedViewCollectionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
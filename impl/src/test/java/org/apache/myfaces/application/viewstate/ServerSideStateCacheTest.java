@@ -25,7 +25,9 @@
 import java.util.Map;
 import jakarta.faces.application.ProjectStage;
 import jakarta.faces.application.StateManager;
+import jakarta.servlet.http.HttpSessionBindingEvent;
 
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
 import org.apache.myfaces.test.base.junit.AbstractFacesConfigurableMultipleRequestsTestCase;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -109,6 +111,199 @@ public void testNumberOfSequentialViewsInSession() throws Exception
         }
     }
     
+    @Test
+    public void testDeltaStateInSession() throws Exception
+    {
+        servletContext.addInitParameter(StateManager.STATE_SAVING_METHOD_PARAM_NAME, StateManager.StateSavingMethod.SERVER.name());
+        servletContext.addInitParameter(MyfacesConfig.NUMBER_OF_SEQUENTIAL_VIEWS_IN_SESSION, "10");
+        servletContext.addInitParameter(MyfacesConfig.DELTA_STATE_IN_SESSION_CHAIN_LENGTH, "3");
+
+        // Initialization
+        setupRequest();
+        StateCacheServerSide stateCache = new StateCacheServerSide();
+        tearDownRequest();
+
+        String[] text = new String[200];
+        for (int i = 0; i < text.length; i++)
+        {
+            text[i] = "component" + i;
+        }
+
+        Object[] savedTokens = new Object[6];
+        for (int i = 0; i < savedTokens.length; i++)
+        {
+            try
+            {
+                setupRequest();
+
+                if (i > 0)
+                {
+                    Object[] value = (Object[]) stateCache.restoreSerializedView(facesContext, "view1.xhtml",
+                            savedTokens[i - 1]);
+                    Assertions.assertEquals(i - 1, value[1]);
+                }
+                facesContext.getViewRoot().setViewId("view1.xhtml");
+                savedTokens[i] = stateCache.saveSerializedView(facesContext, new Object[] { text, i });
+            }
+            finally
+            {
+                tearDownRequest();
+            }
+        }
+
+        try
+        {
+            setupRequest();
+
+            SerializedViewCollection collection = (SerializedViewCollection) facesContext.getExternalContext()
+                    .getSessionMap().get(StateCacheServerSide.SERIALIZED_VIEW_SESSION_ATTR);
+            for (int i = 0; i < savedTokens.length; i++)
+            {
+                Object stored = collection.get(stateCache.getSessionViewStorageFactory().createSerializedViewKey(
+                        facesContext, "view1.xhtml", stateCache.getServerStateId(facesContext, savedTokens[i])));
+                // a full snapshot followed by 3 deltas
+                if (i % 4 == 0)
+                {
+                    Assertions.assertInstanceOf(byte[].class, stored);
+                }
+                else
+                {
+                    ViewStateDelta delta = (ViewStateDelta) stored;
+                    Assertions.assertEquals(i % 4, delta.getChainLength());
+                    Assertions.assertTrue(delta.getDiffLength() < 100);
+                }
+
+                Object[] value = (Object[]) stateCache.restoreSerializedView(facesContext, "view1.xhtml",
+                        savedTokens[i]);
+                Assertions.assertEquals(i, value[1]);
+                Assertions.assertArrayEquals(text, (Object[]) value[0]);
+                facesContext.getAttributes().clear();
+            }
+        }
+        finally
+        {
+            tearDownRequest();
+        }
+    }
+
+    @Test
+    public void testDeflateCompressionInSession() throws Exception
+    {
+        servletContext.addInitParameter(StateManager.STATE_SAVING_METHOD_PARAM_NAME, StateManager.StateSavingMethod.SERVER.name());
+        servletContext.addInitParameter(StateManager.SERIALIZE_SERVER_STATE_PARAM_NAME, "true");
+        servletContext.addInitParameter(MyfacesConfig.STATE_COMPRESSION, MyfacesConfig.STATE_COMPRESSION_DEFLATE);
+        servletContext.addInitParameter(MyfacesConfig.STATE_COMPRESSION_THRESHOLD, "16");
+
+        // Initialization
+        setupRequest();
+        StateCacheServerSide stateCache = new StateCacheServerSide();
+        tearDownRequest();
+
+        try
+        {
+            setupRequest();
+
+            Object[] state = new Object[] { "state", 1 };
+            byte[] bytes = (byte[]) stateCache.serializeView(facesContext, state);
+            Assertions.assertEquals(StateCacheServerSide.DEFLATE_COMPRESSED_FLAG, bytes[0]);
+            Assertions.assertArrayEquals(state, (Object[]) stateCache.deserializeView(bytes));
+        }
+        finally
+        {
+            tearDownRequest();
+        }
+    }
+
+    @Test
+    public void testOffHeapViewStateStore() throws Exception
+    {
+        servletContext.addInitParameter(StateManager.STATE_SAVING_METHOD_PARAM_NAME, StateManager.StateSavingMethod.SERVER.name());
+        servletContext.addInitParameter(MyfacesConfig.VIEW_STATE_STORE, MyfacesConfig.VIEW_STATE_STORE_OFF_HEAP);
+        servletContext.addInitParameter(MyfacesConfig.VIEW_STATE_STORE_MAX_SIZE, "65536");
+
+        // Initialization
+        setupRequest();
+        StateCache stateCache = new StateCacheServerSide();
+        tearDownRequest();
+
+        Object savedToken;
+        ViewStateStore store;
+        try
+        {
+            setupRequest();
+
+            facesContext.getViewRoot().setViewId("view1.xhtml");
+            savedToken = stateCache.saveSerializedView(facesContext, new Object[] { "state", 1 });
+
+            store = ViewStateStore.getCurrentInstance(facesContext);
+            Assertions.assertNotNull(store);
+            Assertions.assertEquals(1, store.getEntryCount());
+        }
+        finally
+        {
+            tearDownRequest();
+        }
+
+        try
+        {
+            setupRequest();
+
+            Object[] value = (Object[]) stateCache.restoreSerializedView(facesContext, "view1.xhtml", savedToken);
+
+            Assertions.assertArrayEquals(new Object[] { "state", 1 }, value);
+            Assertions.assertEquals(1, store.getHits());
+        }
+        finally
+        {
+            tearDownRequest();
+        }
+    }
+
+    @Test
+    public void testOffHeapViewStateStoreSessionDestroyed() throws Exception
+    {
+        servletContext.addInitParameter(StateManager.STATE_SAVING_METHOD_PARAM_NAME, StateManager.StateSavingMethod.SERVER.name());
+        servletContext.addInitParameter(MyfacesConfig.VIEW_STATE_STORE, MyfacesConfig.VIEW_STATE_STORE_OFF_HEAP);
+        servletContext.addInitParameter(MyfacesConfig.VIEW_STATE_STORE_MAX_SIZE, "65536");
+
+        // Initialization
+        setupRequest();
+        StateCache stateCache = new StateCacheServerSide();
+        tearDownRequest();
+
+        ViewStateStore store;
+        try
+        {
+            setupRequest();
+
+            facesContext.getViewRoot().setViewId("view1.xhtml");
+            stateCache.saveSerializedView(facesContext, new Object[] { "state", 1 });
+            facesContext.getViewRoot().setViewId("view2.xhtml");
+            stateCache.saveSerializedView(facesContext, new Object[] { "state", 2 });
+
+            store = ViewStateStore.getCurrentInstance(facesContext);
+            Assertions.assertEquals(2, store.getEntryCount());
+        }
+        finally
+        {
+            tearDownRequest();
+        }
+
+        // the collection is put again into the session on every request, that must not discard it
+        SerializedViewCollectionExternal collection = (SerializedViewCollectionExternal)
+                session.getAttribute(StateCacheServerSide.SERIALIZED_VIEW_SESSION_ATTR);
+        collection.valueUnbound(new HttpSessionBindingEvent(session,
+                StateCacheServerSide.SERIALIZED_VIEW_SESSION_ATTR, collection));
+        Assertions.assertEquals(2, store.getEntryCount());
+
+        // what the container does when the session is destroyed
+        session.invalidate();
+        collection.valueUnbound(new HttpSessionBindingEvent(session,
+                StateCacheServerSide.SERIALIZED_VIEW_SESSION_ATTR, collection));
+        Assertions.assertEquals(0, store.getEntryCount());
+        Assertions.assertEquals(0, store.getSize());
+    }
+
     @Test
     public void testSaveRestoreStateWrongViewId() throws Exception
     {
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.spi.impl.DefaultSerialFactory;
+import org.apache.myfaces.test.base.junit.AbstractFacesTestCase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class StateCompressionTest extends AbstractFacesTestCase
+{
+    private static byte[] serializedState() throws Exception
+    {
+        Object[] states = new Object[50];
+        for (int i = 0; i < states.length; i++)
+        {
+            Map<String, Object> attributes = new HashMap<>();
+            attributes.put("styleClass", "column" + (i % 3));
+            attributes.put("rendered", Boolean.TRUE);
+            states[i] = new Object[] { "component" + i, i, attributes };
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes))
+        {
+            out.writeObject(new Object[] { null, states });
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void testDeflate() throws Exception
+    {
+        byte[] state = serializedState();
+        StateCompression compression = new StateCompression(MyfacesConfig.STATE_COMPRESSION_DEFLATE, 6, 1024);
+        StateCompression gzip = new StateCompression(MyfacesConfig.STATE_COMPRESSION_GZIP, 6, 1024);
+
+        byte[] compressed = compression.compress(state);
+        Assertions.assertTrue(compressed.length < gzip.compress(state).length);
+        Assertions.assertArrayEquals(state, compression.decompress(compressed));
+        // again, with the pooled deflater and inflater
+        Assertions.assertArrayEquals(compressed, compression.compress(state));
+        Assertions.assertArrayEquals(state, compression.decompress(compressed));
+    }
+
+    @Test
+    public void testThreshold() throws Exception
+    {
+        byte[] state = Arrays.copyOf(serializedState(), 500);
+        StateCompression compression = new StateCompression(MyfacesConfig.STATE_COMPRESSION_DEFLATE, 6, 1024);
+
+        byte[] compressed = compression.compress(state);
+        Assertions.assertEquals(state.length + 1, compressed.length);
+        Assertions.assertArrayEquals(state, compression.decompress(compressed));
+    }
+
+    @Test
+    public void testSingleByteWrites() throws Exception
+    {
+        byte[] state = serializedState();
+        StateCompression compression = new StateCompression(MyfacesConfig.STATE_COMPRESSION_DEFLATE, 6, 1024);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream compressed = compression.compress(out))
+        {
+            for (byte b : state)
+            {
+                compressed.write(b);
+            }
+        }
+        Assertions.assertArrayEquals(compression.compress(state), out.toByteArray());
+    }
+
+    @Test
+    public void testInvalidLevel()
+    {
+        servletContext.addInitParameter(MyfacesConfig.STATE_COMPRESSION_LEVEL, "12");
+        Assertions.assertEquals(6, MyfacesConfig.getCurrentInstance(externalContext).getStateCompressionLevel());
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new StateCompression(MyfacesConfig.STATE_COMPRESSION_DEFLATE, -1, 1024));
+    }
+
+    @Test
+    public void testClientSideState() throws Exception
+    {
+        servletContext.addInitParameter(StateUtils.USE_ENCRYPTION, "false");
+        servletContext.addInitParameter(StateUtils.COMPRESS_STATE_IN_CLIENT, "true");
+        servletContext.addInitParameter(MyfacesConfig.STATE_COMPRESSION, MyfacesConfig.STATE_COMPRESSION_DEFLATE);
+        externalContext.getApplicationMap().put(StateUtils.SERIAL_FACTORY, new DefaultSerialFactory());
+
+        Object[] state = new Object[] { "small" };
+        char[] big = new char[4096];
+        Arrays.fill(big, 'x');
+        Object[] bigState = new Object[] { new String(big) };
+
+        for (String streaming : new String[] { "false", "true" })
+        {
+            servletContext.addInitParameter(StateUtils.STREAM_STATE_IN_CLIENT, streaming);
+
+            Assertions.assertArrayEquals(state,
+                    (Object[]) StateUtils.reconstruct(StateUtils.construct(state, externalContext), externalContext));
+            String token = StateUtils.construct(bigState, externalContext);
+            Assertions.assertTrue(token.length() < 1024);
+            Assertions.assertArrayEquals(bigState, (Object[]) StateUtils.reconstruct(token, externalContext));
+        }
+    }
+}
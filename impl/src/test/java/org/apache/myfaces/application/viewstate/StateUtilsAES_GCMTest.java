@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * <p>This TestCase uses AES-GCM, which replaces the MAC with the authentication tag of the cipher.</p>
+ */
+public class StateUtilsAES_GCMTest extends AbstractStateUtilsTest
+{
+    @Override
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        super.setUp();
+
+        servletContext.addInitParameter(StateUtils.INIT_SECRET, BASE64_KEY_SIZE_16);
+        servletContext.addInitParameter(StateUtils.INIT_ALGORITHM, "AES");
+        servletContext.addInitParameter(StateUtils.INIT_ALGORITHM_PARAM, "GCM/NoPadding");
+        servletContext.addInitParameter(StateUtils.INIT_SECRET_KEY_CACHE, "false");
+    }
+
+    @Override
+    protected boolean isDeterministic()
+    {
+        // every state gets its own IV
+        return false;
+    }
+
+    @Test
+    public void testUniqueIv()
+    {
+        byte[] sensitiveBytes = sensitiveString.getBytes();
+        byte[] secure1 = StateUtils.encrypt(sensitiveBytes, externalContext);
+        byte[] secure2 = StateUtils.encrypt(sensitiveBytes, externalContext);
+
+        Assertions.assertEquals(StateEncryption.GCM_IV_LENGTH + sensitiveBytes.length
+                + StateEncryption.GCM_TAG_LENGTH, secure1.length);
+        Assertions.assertFalse(Arrays.equals(secure1, secure2));
+        Assertions.assertArrayEquals(sensitiveBytes, StateUtils.decrypt(secure1, externalContext));
+        Assertions.assertArrayEquals(sensitiveBytes, StateUtils.decrypt(secure2, externalContext));
+    }
+
+    @Test
+    public void testTamperedState()
+    {
+        String constructed = StateUtils.construct("test data", externalContext);
+        char[] chars = constructed.toCharArray();
+        chars[chars.length / 2] = chars[chars.length / 2] == 'A' ? 'B' : 'A';
+
+        Assertions.assertNull(StateUtils.reconstruct(new String(chars), externalContext));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.myfaces.application.viewstate;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import jakarta.faces.context.ExternalContext;
+
+import org.apache.myfaces.spi.impl.DefaultSerialFactory;
+import org.apache.myfaces.test.mock.MockExternalContext;
+import org.apache.myfaces.test.mock.MockHttpServletRequest;
+import org.apache.myfaces.test.mock.MockHttpServletResponse;
+import org.apache.myfaces.test.mock.MockServletContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures StateUtils.construct and StateUtils.reconstruct of client side states of 4 KB, 32 KB and
+ * 256 KB, encrypted with the default AES/ECB and HMAC or with AES-GCM.
+ * 
+ * <p>Run it with the main method from the test classpath, or with
+ * <code>java -cp ... org.openjdk.jmh.Main StateUtilsBenchmark</code>.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StateUtilsBenchmark
+{
+    @Param({"4096", "32768", "262144"})
+    public int size;
+
+    @Param({"ECB/PKCS5Padding", "GCM/NoPadding"})
+    public String algorithmParams;
+
+    private ExternalContext externalContext;
+    private Object state;
+    private String token;
+
+    @Setup
+    public void setup()
+    {
+        MockServletContext servletContext = new MockServletContext();
+        servletContext.addInitParameter(StateUtils.INIT_SECRET, AbstractStateUtilsTest.BASE64_KEY_SIZE_16);
+        servletContext.addInitParameter(StateUtils.INIT_ALGORITHM, "AES");
+        servletContext.addInitParameter(StateUtils.INIT_ALGORITHM_PARAM, algorithmParams);
+        servletContext.addInitParameter(StateUtils.INIT_SECRET_KEY_CACHE, "false");
+        servletContext.addInitParameter(StateUtils.INIT_MAC_SECRET, AbstractStateUtilsTest.BASE64_KEY_SIZE_8);
+        servletContext.addInitParameter(StateUtils.INIT_MAC_SECRET_KEY_CACHE, "false");
+        externalContext = new MockExternalContext(servletContext, new MockHttpServletRequest(),
+                new MockHttpServletResponse());
+        externalContext.getApplicationMap().put(StateUtils.SERIAL_FACTORY, new DefaultSerialFactory());
+
+        // a view state like tree of arrays and strings
+        Random random = new Random(42);
+        Object[] states = new Object[size / 64];
+        for (int i = 0; i < states.length; i++)
+        {
+            states[i] = new Object[] { "component" + i, random.nextInt(), null, Boolean.TRUE };
+        }
+        state = new Object[] { "viewRoot", states };
+        token = StateUtils.construct(state, externalContext);
+    }
+
+    @Benchmark
+    public String construct()
+    {
+        return StateUtils.construct(state, externalContext);
+    }
+
+    @Benchmark
+    public Object reconstruct()
+    {
+        return StateUtils.reconstruct(token, externalContext);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder()
+                .include(StateUtilsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ViewStateDeltaTest
+{
+    @Test
+    public void testDelta()
+    {
+        Random random = new Random(42);
+        byte[] snapshot = new byte[8192];
+        random.nextBytes(snapshot);
+
+        // change a byte, insert a run and remove a run
+        byte[] bytes = new byte[snapshot.length + 20];
+        System.arraycopy(snapshot, 0, bytes, 0, 1000);
+        bytes[500] ^= 1;
+        for (int i = 1000; i < 1050; i++)
+        {
+            bytes[i] = (byte) i;
+        }
+        System.arraycopy(snapshot, 1000, bytes, 1050, 4000);
+        System.arraycopy(snapshot, 5030, bytes, 5050, snapshot.length - 5030);
+
+        ViewStateDelta delta = ViewStateDelta.create(snapshot, bytes, 2);
+        Assertions.assertNotNull(delta);
+        Assertions.assertEquals(1, delta.getChainLength());
+        Assertions.assertTrue(delta.getDiffLength() < 100, "diff length " + delta.getDiffLength());
+        Assertions.assertArrayEquals(bytes, delta.toByteArray());
+
+        // the next delta is still computed against the snapshot
+        byte[] next = bytes.clone();
+        next[next.length - 1] ^= 1;
+        ViewStateDelta nextDelta = ViewStateDelta.create(delta, next, 2);
+        Assertions.assertEquals(2, nextDelta.getChainLength());
+        Assertions.assertArrayEquals(next, nextDelta.toByteArray());
+
+        // chain is full
+        Assertions.assertNull(ViewStateDelta.create(nextDelta, next, 2));
+    }
+
+    @Test
+    public void testUnrelatedState()
+    {
+        Random random = new Random(42);
+        byte[] snapshot = new byte[4096];
+        random.nextBytes(snapshot);
+        byte[] bytes = new byte[4096];
+        random.nextBytes(bytes);
+
+        Assertions.assertNull(ViewStateDelta.create(snapshot, bytes, 2));
+        Assertions.assertNull(ViewStateDelta.create(null, bytes, 2));
+    }
+
+    @Test
+    public void testSmallState()
+    {
+        byte[] snapshot = new byte[] { 1, 2, 3 };
+        byte[] bytes = new byte[] { 1, 2, 3, 4 };
+
+        // nothing to match, diff would be bigger than the state
+        Assertions.assertNull(ViewStateDelta.create(snapshot, bytes, 2));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import jakarta.faces.context.ExternalContext;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class ViewStateStoreTest
+{
+    private static byte[] bytes(int length, int value)
+    {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) value);
+        return bytes;
+    }
+
+    private void testStore(ViewStateStore store)
+    {
+        Assertions.assertEquals(4 * 4096, store.getMaxSize());
+
+        Assertions.assertTrue(store.put("a", bytes(5000, 1)));
+        Assertions.assertTrue(store.put("b", bytes(4096, 2)));
+        Assertions.assertArrayEquals(bytes(5000, 1), store.get("a"));
+        Assertions.assertEquals(9096, store.getSize());
+
+        // "a" was used last, so "b" is evicted
+        Assertions.assertTrue(store.put("c", bytes(8000, 3)));
+        Assertions.assertNull(store.get("b"));
+        Assertions.assertArrayEquals(bytes(5000, 1), store.get("a"));
+        Assertions.assertArrayEquals(bytes(8000, 3), store.get("c"));
+
+        Assertions.assertEquals(1, store.getEvictions());
+        Assertions.assertEquals(3, store.getHits());
+        Assertions.assertEquals(1, store.getMisses());
+
+        store.remove("a");
+        Assertions.assertEquals(1, store.getEntryCount());
+        Assertions.assertEquals(8000, store.getSize());
+
+        // too big for the store
+        Assertions.assertFalse(store.put("d", bytes(5 * 4096, 4)));
+        Assertions.assertArrayEquals(bytes(8000, 3), store.get("c"));
+    }
+
+    @Test
+    public void testOffHeap()
+    {
+        testStore(ViewStateStore.offHeap(4 * 4096));
+    }
+
+    @Test
+    public void testMappedFile() throws Exception
+    {
+        File directory = Files.createTempDirectory("viewstatestore").toFile();
+        try
+        {
+            testStore(ViewStateStore.mappedFile(directory, 4 * 4096));
+        }
+        finally
+        {
+            for (File file : directory.listFiles())
+            {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void testRelease()
+    {
+        ViewStateStore store = ViewStateStore.offHeap(4 * 4096);
+        Assertions.assertTrue(store.put("a", bytes(5000, 1)));
+
+        Map<String, Object> applicationMap = new HashMap<>();
+        applicationMap.put(ViewStateStore.APPLICATION_MAP_KEY, store);
+        ExternalContext externalContext = Mockito.mock(ExternalContext.class);
+        Mockito.when(externalContext.getApplicationMap()).thenReturn(applicationMap);
+
+        ViewStateStore.release(externalContext);
+        Assertions.assertTrue(applicationMap.isEmpty());
+        Assertions.assertNull(store.get("a"));
+        Assertions.assertEquals(0, store.getSize());
+        Assertions.assertFalse(store.put("b", bytes(10, 2)));
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.context;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collections;
+
+import org.apache.myfaces.renderkit.html.HtmlResponseWriterImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class JsonPartialResponseWriterImplTest
+{
+    private final StringWriter output = new StringWriter();
+
+    private JsonPartialResponseWriterImpl createWriter(String encoding)
+    {
+        return new JsonPartialResponseWriterImpl(new HtmlResponseWriterImpl(output, "text/html", encoding));
+    }
+
+    @Test
+    public void testUpdate() throws IOException
+    {
+        JsonPartialResponseWriterImpl writer = createWriter("UTF-8");
+        writer.startDocument();
+        writer.writeAttribute("id", "view", null);
+        writer.startUpdate("form:out");
+        writer.startElement("span", null);
+        writer.writeAttribute("class", "a\"b", null);
+        writer.writeText("x < \"y\" \\ ]]> é", null);
+        writer.endElement("span");
+        writer.endUpdate();
+        writer.endDocument();
+
+        Assertions.assertEquals("[\"partial-response\",{\"id\":\"view\"},[\"changes\",[\"update\",{\"id\":\"form:out\"},"
+                + "\"<span class=\\\"a&quot;b\\\">x &lt; &quot;y&quot; \\\\ ]]&gt; é</span>\"]]]",
+                output.toString());
+    }
+
+    @Test
+    public void testEvalErrorAndRedirect() throws IOException
+    {
+        JsonPartialResponseWriterImpl writer = createWriter("UTF-8");
+        writer.startDocument();
+        writer.startEval();
+        writer.write("alert('a\nb');");
+        writer.endEval();
+        writer.startExtension(Collections.singletonMap("ln", "x"));
+        writer.endExtension();
+        writer.startError("jakarta.faces.FacesException");
+        writer.write("failed");
+        writer.endError();
+        writer.redirect("/app/next.xhtml");
+        writer.endDocument();
+
+        Assertions.assertEquals("[\"partial-response\",[\"changes\",[\"eval\",\"alert('a\\nb');\"],"
+                + "[\"extension\",{\"ln\":\"x\"}],"
+                + "[\"error\",[\"error-name\",\"jakarta.faces.FacesException\"],[\"error-message\",\"failed\"]],"
+                + "[\"redirect\",{\"url\":\"/app/next.xhtml\"}]]]",
+                output.toString());
+    }
+
+    @Test
+    public void testUpdateAttributesAndDelete() throws IOException
+    {
+        JsonPartialResponseWriterImpl writer = createWriter("UTF-8");
+        writer.startDocument();
+        writer.updateAttributes("in", Collections.singletonMap("value", "1"));
+        writer.delete("old");
+        writer.startInsertBefore("in");
+        writer.write("<p/>");
+        writer.endInsert();
+        writer.endDocument();
+
+        Assertions.assertEquals("[\"partial-response\",[\"changes\","
+                + "[\"attributes\",{\"id\":\"in\"},[\"attribute\",{\"name\":\"value\",\"value\":\"1\"}]],"
+                + "[\"delete\",{\"id\":\"old\"}],"
+                + "[\"insert\",[\"before\",{\"id\":\"in\"},\"<p/>\"]]]]",
+                output.toString());
+    }
+
+    @Test
+    public void testNestedAndUnclosedCDATA() throws IOException
+    {
+        JsonPartialResponseWriterImpl writer = createWriter("UTF-8");
+        writer.startDocument();
+        writer.startUpdate("a");
+        writer.startCDATA();
+        writer.write("x");
+        writer.endCDATA();
+        writer.startCDATA();
+        writer.write("y");
+        writer.endUpdate();
+        writer.endDocument();
+
+        Assertions.assertEquals("[\"partial-response\",[\"changes\",[\"update\",{\"id\":\"a\"},"
+                + "\"<![CDATA[x]]><![CDATA[y\"]]]",
+                output.toString());
+    }
+
+    @Test
+    public void testNonUtf8EncodingEscapesNonAscii() throws IOException
+    {
+        JsonPartialResponseWriterImpl writer = createWriter("ISO-8859-1");
+        writer.startDocument();
+        writer.startUpdate("é");
+        writer.write("€");
+        writer.endUpdate();
+        writer.endDocument();
+
+        Assertions.assertEquals("[\"partial-response\",[\"changes\",[\"update\",{\"id\":\"\\u00e9\"},"
+                + "\"&#8364;\"]]]",
+                output.toString());
+    }
+
+    @Test
+    public void testResponseContentType()
+    {
+        JsonPartialResponseWriterImpl writer = createWriter("UTF-8");
+        Assertions.assertEquals("application/json", JsonPartialResponseWriterImpl.getResponseContentType(writer));
+        Assertions.assertEquals("text/xml", JsonPartialResponseWriterImpl.getResponseContentType(
+                new PartialResponseWriterImpl(new HtmlResponseWriterImpl(output, "text/html", "UTF-8"))));
+    }
+}
@@ -396,7 +396,7 @@ public void testWriteSkipPictographs() {
      *
      * @return
      */
-    private PartialResponseWriterImpl createTestProbe() {
+    protected PartialResponseWriterImpl createTestProbe() {
         return new PartialResponseWriterImpl(new HtmlResponseWriterImpl(_contentCollector, null, "UTF-8"));
     }
 
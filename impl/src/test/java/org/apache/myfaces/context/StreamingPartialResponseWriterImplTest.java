@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.context;
+
+import java.io.IOException;
+
+import org.apache.myfaces.renderkit.html.HtmlResponseWriterImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the PartialResponseWriterImpl test cases against the streaming mode.
+ */
+public class StreamingPartialResponseWriterImplTest extends PartialResponseWriterImplTest
+{
+    @Override
+    protected PartialResponseWriterImpl createTestProbe()
+    {
+        return new PartialResponseWriterImpl(new HtmlResponseWriterImpl(_contentCollector, null, "UTF-8"), true);
+    }
+
+    @Test
+    public void testCDataEndSplitAcrossWrites() throws IOException
+    {
+        _writer = createTestProbe();
+        _writer.startUpdate("blaId");
+        _writer.write("a]");
+        _writer.write(']');
+        _writer.write(">b".toCharArray(), 0, 2);
+        _writer.endUpdate();
+
+        Assertions.assertEquals("<changes><update id=\"blaId\"><![CDATA[a]]><![CDATA[]]]]><![CDATA[>b]]></update>",
+                _contentCollector.toString());
+    }
+
+    @Test
+    public void testCDataEndNotEscapedOutsideUpdate() throws IOException
+    {
+        _writer = createTestProbe();
+        _writer.startUpdate("first");
+        _writer.write("a]]");
+        _writer.endUpdate();
+        _writer.write(">");
+
+        Assertions.assertEquals("<changes><update id=\"first\"><![CDATA[a]]]]></update>>",
+                _contentCollector.toString());
+    }
+
+    @Test
+    public void testCallerArrayNotModified() throws IOException
+    {
+        char[] text = "a\u0001b".toCharArray();
+        _writer = createTestProbe();
+        _writer.startUpdate("blaId");
+        _writer.write(text, 0, text.length);
+        _writer.endUpdate();
+
+        Assertions.assertEquals("a\u0001b", new String(text));
+        Assertions.assertTrue(_contentCollector.toString().contains("<![CDATA[a b]]>"));
+    }
+}
@@ -20,9 +20,12 @@
 
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
 import org.apache.myfaces.test.base.junit.AbstractFacesTestCase;
 import org.apache.myfaces.test.mock.MockPrintWriter;
+import org.apache.myfaces.test.mock.MockServletOutputStream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -168,4 +171,47 @@ public void testResponseResetDiscardsBufferedOutputButKeepsWriterUsable() throws
 
         Assertions.assertEquals("error page", String.valueOf(((MockPrintWriter) response.getWriter()).content()));
     }
+
+    /**
+     * With DIRECT_UTF8_RESPONSE_OUTPUT the render output is encoded into the servlet OutputStream, including
+     * non ASCII chars and surrogate pairs split between writes and across the buffer boundary.
+     */
+    @Test
+    public void testDirectUtf8ResponseOutput() throws IOException
+    {
+        servletContext.addInitParameter(MyfacesConfig.DIRECT_UTF8_RESPONSE_OUTPUT, "true");
+        response.setCharacterEncoding("UTF-8");
+
+        Writer writer = _testExternalContext.getResponseOutputWriter();
+        Assertions.assertTrue(writer instanceof Utf8ResponseOutputWriter);
+
+        StringBuilder expected = new StringBuilder();
+        String text = "<p class=\"x\">Gr\u00FC\u00DFe \u4E2D\u6587 \uD83D\uDE00</p>";
+        while (expected.length() < Utf8ResponseOutputWriter.BUFFER_SIZE * 2)
+        {
+            writer.write(text);
+            writer.write(text.toCharArray(), 0, text.length());
+            expected.append(text).append(text);
+        }
+        writer.write('\uD83D');
+        writer.write("\uDE00\uD83D");
+        writer.write(new char[] {'\uDE00', '\u00E9'}, 0, 2);
+        writer.write('\uDE00');
+        writer.write('a');
+        expected.append("\uD83D\uDE00\uD83D\uDE00\u00E9?a");
+        writer.flush();
+
+        byte[] content = ((MockServletOutputStream) response.getOutputStream()).content();
+        Assertions.assertEquals(expected.toString(), new String(content, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testDirectUtf8ResponseOutputNeedsUtf8Encoding() throws IOException
+    {
+        servletContext.addInitParameter(MyfacesConfig.DIRECT_UTF8_RESPONSE_OUTPUT, "true");
+        response.setCharacterEncoding("ISO-8859-1");
+
+        Writer writer = _testExternalContext.getResponseOutputWriter();
+        Assertions.assertFalse(writer instanceof Utf8ResponseOutputWriter);
+    }
 }
@@ -21,7 +21,10 @@
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 
@@ -49,4 +52,52 @@ record Pokemon (
         assertEquals(expected, Json.encode(chikorita));
 
     }
+
+    public static class Temperature
+    {
+        private final String sensor;
+        private final double value;
+        private final String unit;
+
+        public Temperature(String sensor, double value, String unit)
+        {
+            this.sensor = sensor;
+            this.value = value;
+            this.unit = unit;
+        }
+
+        public String getSensor()
+        {
+            return sensor;
+        }
+
+        public double getValue()
+        {
+            return value;
+        }
+
+        public String getUnit()
+        {
+            return unit;
+        }
+    }
+
+    /*
+     * Ensure JSON.encode encodes the readable properties of beans, skipping null values, also when the
+     * cached properties of the class are reused.
+     */
+    @Test
+    public void testBeanEncoding()
+    {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("readings", Arrays.asList(
+                new Temperature("hall \"1\"", 21.5, "C"),
+                new Temperature("roof/2", -3.0, null)));
+
+        String expected = "{\"readings\":[{\"sensor\":\"hall \\\"1\\\"\",\"unit\":\"C\",\"value\":21.5},"
+                + "{\"sensor\":\"roof\\/2\",\"value\":-3.0}]}";
+
+        assertEquals(expected, Json.encode(message));
+        assertEquals(expected, Json.encode(message));
+    }
 }
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.push.cdi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendHandler;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class WebsocketSenderTest
+{
+    private Session session;
+    private List<String> texts;
+    private List<SendHandler> handlers;
+
+    @BeforeEach
+    public void setUp()
+    {
+        texts = new ArrayList<>();
+        handlers = new ArrayList<>();
+
+        RemoteEndpoint.Async remote = Mockito.mock(RemoteEndpoint.Async.class);
+        Mockito.doAnswer(invocation ->
+        {
+            texts.add(invocation.getArgument(0));
+            handlers.add(invocation.getArgument(1));
+            return null;
+        }).when(remote).sendText(Mockito.anyString(), Mockito.any(SendHandler.class));
+
+        session = Mockito.mock(Session.class);
+        Mockito.when(session.getId()).thenReturn("1");
+        Mockito.when(session.isOpen()).thenReturn(true);
+        Mockito.when(session.getAsyncRemote()).thenReturn(remote);
+    }
+
+    private void complete()
+    {
+        handlers.get(handlers.size() - 1).onResult(new SendResult());
+    }
+
+    @Test
+    public void testOneMessageInFlight()
+    {
+        WebsocketSender sender = new WebsocketSender(Runnable::run, 10, WebsocketSender.Overflow.DROP_OLDEST);
+
+        Future<Void> first = sender.send(session, "1");
+        Future<Void> second = sender.send(session, "2");
+        Assertions.assertEquals(List.of("1"), texts);
+        Assertions.assertEquals(2, sender.getQueuedCount());
+
+        complete();
+        Assertions.assertTrue(first.isDone());
+        Assertions.assertFalse(second.isDone());
+        Assertions.assertEquals(List.of("1", "2"), texts);
+
+        complete();
+        Assertions.assertTrue(second.isDone());
+        Assertions.assertEquals(2, sender.getSentCount());
+        Assertions.assertEquals(0, sender.getQueuedCount());
+    }
+
+    @Test
+    public void testDropOldest()
+    {
+        WebsocketSender sender = new WebsocketSender(Runnable::run, 2, WebsocketSender.Overflow.DROP_OLDEST);
+
+        sender.send(session, "1");
+        Future<Void> second = sender.send(session, "2");
+        sender.send(session, "3");
+        sender.send(session, "4");
+        Assertions.assertTrue(second.isCancelled());
+        Assertions.assertEquals(1, sender.getDroppedCount());
+
+        complete();
+        complete();
+        complete();
+        Assertions.assertEquals(List.of("1", "3", "4"), texts);
+    }
+
+    @Test
+    public void testDropNewest()
+    {
+        WebsocketSender sender = new WebsocketSender(Runnable::run, 1, WebsocketSender.Overflow.DROP_NEWEST);
+
+        sender.send(session, "1");
+        sender.send(session, "2");
+        Future<Void> third = sender.send(session, "3");
+        Assertions.assertTrue(third.isCancelled());
+
+        complete();
+        complete();
+        Assertions.assertEquals(List.of("1", "2"), texts);
+    }
+
+    @Test
+    public void testCoalesce()
+    {
+        WebsocketSender sender = new WebsocketSender(Runnable::run, 3, WebsocketSender.Overflow.COALESCE);
+
+        for (int i = 1; i <= 5; i++)
+        {
+            sender.send(session, String.valueOf(i));
+        }
+        Assertions.assertEquals(3, sender.getDroppedCount());
+
+        complete();
+        complete();
+        Assertions.assertEquals(List.of("1", "5"), texts);
+    }
+
+    @Test
+    public void testRemove()
+    {
+        WebsocketSender sender = new WebsocketSender(Runnable::run, 10, WebsocketSender.Overflow.DROP_OLDEST);
+
+        Future<Void> first = sender.send(session, "1");
+        Future<Void> second = sender.send(session, "2");
+        sender.remove(session);
+        Assertions.assertTrue(first.isCancelled());
+        Assertions.assertTrue(second.isCancelled());
+        Assertions.assertEquals(0, sender.getQueuedCount());
+
+        // the next message waits for the message in flight, its result is ignored
+        Future<Void> third = sender.send(session, "3");
+        Assertions.assertEquals(List.of("1"), texts);
+        complete();
+        Assertions.assertEquals(List.of("1", "3"), texts);
+        Assertions.assertFalse(third.isDone());
+
+        complete();
+        Assertions.assertTrue(third.isDone());
+        Assertions.assertEquals(1, sender.getSentCount());
+    }
+
+    @Test
+    public void testSendAfterDrained()
+    {
+        WebsocketSender sender = new WebsocketSender(Runnable::run, 10, WebsocketSender.Overflow.DROP_OLDEST);
+
+        sender.send(session, "1");
+        complete();
+        Assertions.assertEquals(0, sender.getQueuedCount());
+
+        Future<Void> second = sender.send(session, "2");
+        Assertions.assertEquals(List.of("1", "2"), texts);
+        complete();
+        Assertions.assertTrue(second.isDone());
+        Assertions.assertEquals(2, sender.getSentCount());
+    }
+
+    @Test
+    public void testClosedSession()
+    {
+        WebsocketSender sender = new WebsocketSender(Runnable::run, 10, WebsocketSender.Overflow.DROP_OLDEST);
+
+        Mockito.when(session.isOpen()).thenReturn(false);
+        Future<Void> first = sender.send(session, "1");
+        Assertions.assertTrue(first.isDone());
+        Assertions.assertEquals(1, sender.getFailedCount());
+        Assertions.assertEquals(0, sender.getQueuedCount());
+        Assertions.assertTrue(texts.isEmpty());
+    }
+}
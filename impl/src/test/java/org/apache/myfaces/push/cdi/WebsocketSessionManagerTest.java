@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.push.cdi;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.Session;
+
+import org.apache.myfaces.spi.PushRelayMessage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class WebsocketSessionManagerTest
+{
+    private WebsocketSessionManager sessionManager;
+
+    @BeforeEach
+    public void setUp()
+    {
+        sessionManager = new WebsocketSessionManager();
+        sessionManager.init();
+    }
+
+    @Test
+    public void testRegisterUser()
+    {
+        sessionManager.registerUser("alice", "news", "t1");
+        sessionManager.registerUser("alice", "news", "t1");
+        sessionManager.registerUser("alice", "news", "t2");
+        sessionManager.registerUser("alice", "chat", "t3");
+
+        Assertions.assertEquals(Set.of("t1", "t2"), sessionManager.getChannelTokensForUser("alice", "news"));
+        Assertions.assertEquals(Set.of("t3"), sessionManager.getChannelTokensForUser("alice", "chat"));
+        Assertions.assertNull(sessionManager.getChannelTokensForUser("bob", "news"));
+        Assertions.assertNull(sessionManager.getChannelTokensForUser("alice", "other"));
+
+        // t1 has two connections
+        sessionManager.deregisterUser("alice", "news", "t1");
+        Assertions.assertEquals(Set.of("t1", "t2"), sessionManager.getChannelTokensForUser("alice", "news"));
+        sessionManager.deregisterUser("alice", "news", "t1");
+        sessionManager.deregisterUser("alice", "news", "t2");
+        Assertions.assertNull(sessionManager.getChannelTokensForUser("alice", "news"));
+        Assertions.assertEquals(Set.of("t3"), sessionManager.getChannelTokensForUser("alice", "chat"));
+
+        // unknown users and channels are ignored
+        sessionManager.deregisterUser("bob", "news", "t1");
+        sessionManager.deregisterUser("alice", "other", "t1");
+    }
+
+    @Test
+    public void testGetChannelTokensForUsers()
+    {
+        for (int i = 0; i < 10; i++)
+        {
+            sessionManager.registerUser(i, "news", "t" + i);
+        }
+        sessionManager.registerUser(100, "chat", "t100");
+
+        Map<Integer, Set<String>> tokens = sessionManager.getChannelTokensForUsers(Arrays.asList(1, 2, 100), "news");
+        Assertions.assertEquals(Map.of(1, Set.of("t1"), 2, Set.of("t2")), tokens);
+
+        // more recipients than connected users
+        Set<Serializable> users = new HashSet<>();
+        for (int i = 5; i < 50; i++)
+        {
+            users.add(i);
+        }
+        Assertions.assertEquals(Set.of(5, 6, 7, 8, 9),
+                sessionManager.getChannelTokensForUsers(users, "news").keySet());
+
+        Assertions.assertTrue(sessionManager.getChannelTokensForUsers(users, "other").isEmpty());
+    }
+
+    @Test
+    public void testReceiveRelayedMessage()
+    {
+        RemoteEndpoint.Async remote = Mockito.mock(RemoteEndpoint.Async.class);
+        Session session = Mockito.mock(Session.class);
+        Mockito.when(session.isOpen()).thenReturn(true);
+        Mockito.when(session.getAsyncRemote()).thenReturn(remote);
+
+        sessionManager.addOrUpdateSession("t1", session);
+        sessionManager.registerUser("alice", "news", "t1");
+
+        sessionManager.receive(PushRelayMessage.forUsers("news", "\"users\"", Arrays.asList("alice", "bob")), null);
+        sessionManager.receive(PushRelayMessage.forChannelTokens("news", "\"tokens\"", Arrays.asList("t1", "t2")),
+                null);
+        sessionManager.receive(PushRelayMessage.forUsers("news", "\"nobody\"", Arrays.asList("bob")), null);
+
+        Mockito.verify(remote).sendText("\"users\"");
+        Mockito.verify(remote).sendText("\"tokens\"");
+        Mockito.verifyNoMoreInteractions(remote);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.push.relay;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.apache.myfaces.spi.PushRelayMessage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PushRelayTest
+{
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testCodec() throws Exception
+    {
+        byte[] batch = PushRelayMessageCodec.encode(Arrays.asList(
+                PushRelayMessage.forChannel("news", "\"all\""),
+                PushRelayMessage.forChannelTokens("news", "\"tokens\"", Arrays.asList("t1", "t2")),
+                PushRelayMessage.forUsers("chat", "{\"text\":\"\u00e9\"}",
+                        Arrays.asList("alice", 42, 42L, new Object[0]))));
+
+        List<PushRelayMessage> messages = PushRelayMessageCodec.decode(batch);
+        Assertions.assertEquals(3, messages.size());
+
+        Assertions.assertEquals("news", messages.get(0).getChannel());
+        Assertions.assertEquals("\"all\"", messages.get(0).getJson());
+        Assertions.assertNull(messages.get(0).getChannelTokens());
+        Assertions.assertNull(messages.get(0).getUsers());
+
+        Assertions.assertEquals(Arrays.asList("t1", "t2"), messages.get(1).getChannelTokens());
+
+        // users of other types are not relayed
+        Assertions.assertEquals("{\"text\":\"\u00e9\"}", messages.get(2).getJson());
+        Assertions.assertEquals(Arrays.asList("alice", 42, 42L), messages.get(2).getUsers());
+
+        Assertions.assertNull(PushRelayMessageCodec.encode(Collections.singletonList(
+                PushRelayMessage.forUsers("chat", "1", Collections.singletonList(new Object[0])))));
+    }
+
+    @Test
+    public void testLoopback()
+    {
+        List<PushRelayMessage> received = Collections.synchronizedList(new ArrayList<>());
+        List<PushRelayMessage> self = Collections.synchronizedList(new ArrayList<>());
+        LoopbackPushRelay first = new LoopbackPushRelay();
+        LoopbackPushRelay second = new LoopbackPushRelay();
+        first.start(self::add);
+        second.start(received::add);
+        try
+        {
+            first.publish(PushRelayMessage.forChannel("news", "1"));
+            Assertions.assertEquals(1, received.size());
+            Assertions.assertTrue(self.isEmpty());
+
+            second.stop();
+            first.publish(PushRelayMessage.forChannel("news", "2"));
+            Assertions.assertEquals(1, received.size());
+        }
+        finally
+        {
+            first.stop();
+            second.stop();
+        }
+    }
+
+    @Test
+    public void testDirectory() throws Exception
+    {
+        List<PushRelayMessage> received = Collections.synchronizedList(new ArrayList<>());
+        List<PushRelayMessage> self = Collections.synchronizedList(new ArrayList<>());
+        DirectoryPushRelay first = new DirectoryPushRelay(tempDir, 10);
+        DirectoryPushRelay second = new DirectoryPushRelay(tempDir, 10);
+        first.start(self::add);
+        second.start(received::add);
+        try
+        {
+            for (int i = 0; i < 100; i++)
+            {
+                first.publish(PushRelayMessage.forChannel("news", String.valueOf(i)));
+            }
+
+            long timeout = System.currentTimeMillis() + 10000;
+            while (received.size() < 100 && System.currentTimeMillis() < timeout)
+            {
+                Thread.sleep(10);
+            }
+
+            Assertions.assertEquals(100, received.size());
+            for (int i = 0; i < 100; i++)
+            {
+                Assertions.assertEquals(String.valueOf(i), received.get(i).getJson());
+            }
+            Assertions.assertTrue(self.isEmpty());
+        }
+        finally
+        {
+            first.stop();
+            second.stop();
+        }
+
+        // the inboxes are removed
+        Assertions.assertEquals(Set.of(), Set.of(tempDir.toFile().list()));
+    }
+
+    @Test
+    public void testDirectoryDeletesStaleInbox() throws Exception
+    {
+        Path stale = Files.createDirectory(tempDir.resolve("stale"));
+        FileTime old = FileTime.fromMillis(System.currentTimeMillis() - 120000L);
+        Files.setLastModifiedTime(Files.createFile(stale.resolve(".heartbeat")), old);
+        Files.setLastModifiedTime(stale, old);
+
+        DirectoryPushRelay relay = new DirectoryPushRelay(tempDir, 10);
+        relay.start(message -> { });
+        try
+        {
+            long timeout = System.currentTimeMillis() + 10000;
+            while (Files.exists(stale) && System.currentTimeMillis() < timeout)
+            {
+                Thread.sleep(10);
+            }
+            Assertions.assertFalse(Files.exists(stale));
+
+            if (tempDir.getFileSystem().supportedFileAttributeViews().contains("posix"))
+            {
+                try (Stream<Path> inboxes = Files.list(tempDir))
+                {
+                    Path inbox = inboxes.findFirst().orElseThrow();
+                    Assertions.assertEquals("rwx------",
+                            PosixFilePermissions.toString(Files.getPosixFilePermissions(inbox)));
+                }
+            }
+        }
+        finally
+        {
+            relay.stop();
+        }
+    }
+}
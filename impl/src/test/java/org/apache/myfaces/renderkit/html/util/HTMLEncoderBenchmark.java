@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.myfaces.renderkit.html.util;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.myfaces.util.lang.FastWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures HTMLEncoder.encode of text and attribute values made of ASCII, Latin-1 or CJK characters,
+ * written with and without encoding the non latin characters, as HtmlResponseWriterImpl does for
+ * non UTF-8 and UTF-8 responses.
+ * 
+ * <p>Run it with the main method from the test classpath, or with
+ * <code>java -cp ... org.openjdk.jmh.Main HTMLEncoderBenchmark</code>.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HTMLEncoderBenchmark
+{
+    @Param({"ascii", "latin1", "cjk"})
+    public String content;
+
+    @Param({"true", "false"})
+    public boolean encodeNonLatin;
+
+    private String text;
+    private char[] chars;
+    private FastWriter writer;
+
+    @Setup
+    public void setup()
+    {
+        String alphabet;
+        switch (content)
+        {
+            case "latin1":
+                alphabet = "Grüße aus München, café crème & «ça va» ";
+                break;
+            case "cjk":
+                alphabet = "中文日本語です。한국어 <b> ";
+                break;
+            default:
+                alphabet = "Row 42: total=\"1,234.56\" <b>bold</b> & more text ";
+                break;
+        }
+
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(256);
+        while (sb.length() < 256)
+        {
+            int start = random.nextInt(alphabet.length());
+            sb.append(alphabet, start, alphabet.length());
+        }
+        text = sb.toString();
+        chars = text.toCharArray();
+        writer = new FastWriter(1024);
+    }
+
+    @Benchmark
+    public FastWriter encodeString() throws IOException
+    {
+        writer.reset();
+        HTMLEncoder.encode(writer, text, false, false, encodeNonLatin);
+        return writer;
+    }
+
+    @Benchmark
+    public FastWriter encodeCharArray() throws IOException
+    {
+        writer.reset();
+        HTMLEncoder.encode(chars, 0, chars.length, false, false, encodeNonLatin, writer);
+        return writer;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(HTMLEncoderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
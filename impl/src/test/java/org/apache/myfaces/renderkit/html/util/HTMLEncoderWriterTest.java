@@ -385,6 +385,32 @@ public void testWriteURIAttribute() throws Exception {
         //assertEquals(cad14,cad15);
     }
 
+    @Test
+    public void testEncodeNonLatinCharacters() throws Exception {
+        String text = "\u00E4\u00A0\u00E9\u03A9\u20AC\u4E2D\u6587\u0080";
+        HTMLEncoder.encode(sw, text, false, false, true);
+        Assertions.assertEquals("&auml;&#160;&#233;&#937;&euro;&#20013;&#25991;\u0080", sw.toString());
+
+        sw = new StringWriter(40);
+        HTMLEncoder.encode(sw, text, false, false, false);
+        Assertions.assertEquals(text, sw.toString());
+
+        sw = new StringWriter(40);
+        HTMLEncoder.encode(("x" + text).toCharArray(), 1, text.length(), false, false, true, sw);
+        Assertions.assertEquals("&auml;&#160;&#233;&#937;&euro;&#20013;&#25991;\u0080", sw.toString());
+    }
+
+    @Test
+    public void testEncodeBlanksAndControlCharacters() throws Exception {
+        String text = " a  b\u0001\tc\n";
+        HTMLEncoder.encode(sw, text, true, true, true);
+        Assertions.assertEquals("&#160;a &#160;b\tc<br/>", sw.toString());
+
+        sw = new StringWriter(40);
+        HTMLEncoder.encode(("  " + text).toCharArray(), 2, text.length(), true, true, true, sw);
+        Assertions.assertEquals("&#160;a &#160;b\tc<br/>", sw.toString());
+    }
+
     private void assertCharArrayEquals(char[] expected, char[] actual) {
         if ((expected == null ^ actual == null) || expected.length != actual.length) {
             Assertions.fail();
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class BundleResourceTest
+{
+    @Test
+    public void testParseMembers()
+    {
+        List<String[]> members = BundleResource.parseMembers("lib:a.js|b.js|other:js/c.js");
+        Assertions.assertEquals(3, members.size());
+        Assertions.assertArrayEquals(new String[] { "lib", "a.js" }, members.get(0));
+        Assertions.assertArrayEquals(new String[] { null, "b.js" }, members.get(1));
+        Assertions.assertArrayEquals(new String[] { "other", "js/c.js" }, members.get(2));
+    }
+
+    @Test
+    public void testParseMembersRejectsDuplicates()
+    {
+        Assertions.assertNull(BundleResource.parseMembers("lib:a.js|b.js|lib:a.js"));
+    }
+
+    @Test
+    public void testParseMembersRejectsTooMany()
+    {
+        StringBuilder value = new StringBuilder("m0.js");
+        for (int i = 1; i < BundleResource.MAX_MEMBERS; i++)
+        {
+            value.append("|m").append(i).append(".js");
+        }
+        Assertions.assertEquals(BundleResource.MAX_MEMBERS, BundleResource.parseMembers(value.toString()).size());
+        Assertions.assertNull(BundleResource.parseMembers(value.append("|last.js").toString()));
+    }
+
+    @Test
+    public void testMinifyStylesheet()
+    {
+        Assertions.assertEquals(".a { color: red; }",
+                BundleResource.minifyStylesheet("  /* comment */\n.a {\n    color:   red;\n}\n"));
+        Assertions.assertEquals(".b:after { content: \"  /* kept */  \"; }",
+                BundleResource.minifyStylesheet(".b:after {   content: \"  /* kept */  \"; }"));
+        Assertions.assertEquals(".c { }", BundleResource.minifyStylesheet(".c { } /* unterminated"));
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import jakarta.faces.application.Resource;
+import jakarta.faces.context.FacesContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CompressedResourceCacheTest
+{
+    @TempDir
+    File tempDir;
+
+    @Test
+    public void testIsCompressible()
+    {
+        Assertions.assertTrue(CompressedResourceCache.isCompressible("text/css"));
+        Assertions.assertTrue(CompressedResourceCache.isCompressible("text/javascript;charset=UTF-8"));
+        Assertions.assertTrue(CompressedResourceCache.isCompressible("application/javascript"));
+        Assertions.assertTrue(CompressedResourceCache.isCompressible("image/svg+xml"));
+        Assertions.assertFalse(CompressedResourceCache.isCompressible("image/png"));
+        Assertions.assertFalse(CompressedResourceCache.isCompressible("font/woff2"));
+        Assertions.assertFalse(CompressedResourceCache.isCompressible(null));
+    }
+
+    @Test
+    public void testIsGzipAccepted()
+    {
+        Assertions.assertTrue(CompressedResourceCache.isGzipAccepted("gzip, deflate, br"));
+        Assertions.assertTrue(CompressedResourceCache.isGzipAccepted("br;q=1.0, gzip;q=0.8"));
+        Assertions.assertTrue(CompressedResourceCache.isGzipAccepted("*"));
+        Assertions.assertFalse(CompressedResourceCache.isGzipAccepted("gzip;q=0"));
+        Assertions.assertFalse(CompressedResourceCache.isGzipAccepted("*, gzip;q=0.0"));
+        Assertions.assertFalse(CompressedResourceCache.isGzipAccepted("identity"));
+        Assertions.assertFalse(CompressedResourceCache.isGzipAccepted(null));
+    }
+
+    @Test
+    public void testCompressOnce() throws Exception
+    {
+        String content = "function test() { return 'compress me'; }\n".repeat(100);
+        TestResource resource = new TestResource(content);
+        CompressedResourceCache cache = new CompressedResourceCache(tempDir, 2048);
+
+        File file = cache.getCompressedFile(resource);
+        Assertions.assertNotNull(file);
+        Assertions.assertTrue(file.length() < content.length());
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file)))
+        {
+            Assertions.assertEquals(content, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        Assertions.assertSame(file, cache.getCompressedFile(resource));
+        Assertions.assertEquals(1, resource.inputStreams);
+    }
+
+    @Test
+    public void testNotWorthCompressing() throws Exception
+    {
+        TestResource resource = new TestResource("a{}");
+        CompressedResourceCache cache = new CompressedResourceCache(tempDir, 2048);
+
+        Assertions.assertNull(cache.getCompressedFile(resource));
+        Assertions.assertNull(cache.getCompressedFile(resource));
+        Assertions.assertEquals(1, resource.inputStreams);
+        Assertions.assertEquals(0, tempDir.list().length);
+    }
+
+    private class TestResource extends Resource
+    {
+        private final byte[] content;
+        private int inputStreams;
+
+        TestResource(String content)
+        {
+            this.content = content.getBytes(StandardCharsets.UTF_8);
+            setResourceName("test.js");
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException
+        {
+            inputStreams++;
+            return new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public Map<String, String> getResponseHeaders()
+        {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public String getRequestPath()
+        {
+            return "/faces/jakarta.faces.resource/test.js";
+        }
+
+        @Override
+        public URL getURL()
+        {
+            try
+            {
+                return new File(tempDir, "test.js").toURI().toURL();
+            }
+            catch (IOException e)
+            {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public boolean userAgentNeedsUpdate(FacesContext context)
+        {
+            return true;
+        }
+    }
+}
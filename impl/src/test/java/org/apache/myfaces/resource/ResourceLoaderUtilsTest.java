@@ -44,4 +44,16 @@ public void testParseDateHeader()
                 ResourceLoaderUtils.parseDateHeader("Tue, 16 Jul 2019 08:29:38 GMT"),
                 2000);
     }
+
+    @Test
+    public void testIsEntityTagMatch()
+    {
+        Assertions.assertTrue(ResourceLoaderUtils.isEntityTagMatch("\"abc\"", "\"abc\""));
+        Assertions.assertTrue(ResourceLoaderUtils.isEntityTagMatch("W/\"abc\"", "\"abc\""));
+        Assertions.assertTrue(ResourceLoaderUtils.isEntityTagMatch("\"xyz\", \"abc-gzip\"",
+                "\"abc\"", "\"abc-gzip\""));
+        Assertions.assertTrue(ResourceLoaderUtils.isEntityTagMatch("*", "\"abc\""));
+        Assertions.assertFalse(ResourceLoaderUtils.isEntityTagMatch("\"abd\"", "\"abc\""));
+        Assertions.assertFalse(ResourceLoaderUtils.isEntityTagMatch("abc", "\"abc\""));
+    }
 }
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.spi.impl;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jakarta.faces.application.ProjectStage;
+import jakarta.faces.component.UIInput;
+import jakarta.faces.component.UIOutput;
+import jakarta.faces.component.html.HtmlInputText;
+import jakarta.faces.validator.LengthValidator;
+
+import org.apache.myfaces.test.base.junit.AbstractFacesTestCase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CompactSerialFactoryTest extends AbstractFacesTestCase
+{
+    @Test
+    public void testCommonShapes() throws Exception
+    {
+        List<String> list = new ArrayList<>();
+        list.add("a");
+
+        char[] longChars = new char[30000];
+        Arrays.fill(longChars, '€');
+        String longString = new String(longChars);
+
+        Object[] state = new Object[] {
+            null, "id", "id", Integer.valueOf(-5), Integer.MAX_VALUE, Long.MIN_VALUE, Boolean.TRUE, Boolean.FALSE,
+            ProjectStage.Development, UIOutput.class, int.class, list, new Object[0],
+            new Object[] { "id", ProjectStage.Development }, longString, longString };
+
+        CompactSerialFactory serialFactory = new CompactSerialFactory();
+        Object[] restored = (Object[]) serialFactory.toObject(serialFactory.toByteArray(state));
+
+        Assertions.assertArrayEquals(state, restored);
+        Assertions.assertSame(restored[1], restored[2]);
+    }
+
+    @Test
+    public void testSharedAndCyclicArrays() throws Exception
+    {
+        Object[] shared = new Object[] { "shared", 1 };
+        Object[] cyclic = new Object[2];
+        cyclic[0] = "cyclic";
+        cyclic[1] = cyclic;
+        Object[] state = new Object[] { shared, shared, new Object[] { shared }, cyclic };
+
+        CompactSerialFactory serialFactory = new CompactSerialFactory();
+        Object[] restored = (Object[]) serialFactory.toObject(serialFactory.toByteArray(state));
+
+        Object[] restoredShared = (Object[]) restored[0];
+        Assertions.assertArrayEquals(shared, restoredShared);
+        Assertions.assertSame(restoredShared, restored[1]);
+        Assertions.assertSame(restoredShared, ((Object[]) restored[2])[0]);
+
+        Object[] restoredCyclic = (Object[]) restored[3];
+        Assertions.assertEquals("cyclic", restoredCyclic[0]);
+        Assertions.assertSame(restoredCyclic, restoredCyclic[1]);
+    }
+
+    @Test
+    public void testComponentState() throws Exception
+    {
+        HtmlInputText input = new HtmlInputText();
+        input.setId("name");
+        input.setValue("value");
+        input.setRequired(true);
+        input.setStyleClass("text");
+        input.addValidator(new LengthValidator(10));
+        input.getAttributes().put("custom", 3);
+
+        Object state = input.saveState(facesContext);
+
+        CompactSerialFactory compact = new CompactSerialFactory();
+        DefaultSerialFactory java = new DefaultSerialFactory();
+        byte[] compactBytes = compact.toByteArray(state);
+        Assertions.assertTrue(compactBytes.length < java.toByteArray(state).length);
+
+        HtmlInputText restored = new HtmlInputText();
+        restored.restoreState(facesContext, compact.toObject(compactBytes));
+
+        Assertions.assertEquals("name", restored.getId());
+        Assertions.assertEquals("value", restored.getValue());
+        Assertions.assertTrue(restored.isRequired());
+        Assertions.assertEquals("text", restored.getStyleClass());
+        Assertions.assertEquals(3, restored.getAttributes().get("custom"));
+        Assertions.assertEquals(1, restored.getValidators().length);
+        Assertions.assertEquals(10, ((LengthValidator) restored.getValidators()[0]).getMaximum());
+    }
+
+    @Test
+    public void testDeltaState() throws Exception
+    {
+        UIInput input = new UIInput();
+        input.addValidator(new LengthValidator(10));
+        input.markInitialState();
+        input.setValue("changed");
+        ((LengthValidator) input.getValidators()[0]).setMinimum(2);
+
+        Object state = input.saveState(facesContext);
+
+        CompactSerialFactory compact = new CompactSerialFactory();
+        Object restoredState = compact.toObject(compact.toByteArray(state));
+
+        UIInput restored = new UIInput();
+        restored.addValidator(new LengthValidator(10));
+        restored.markInitialState();
+        restored.restoreState(facesContext, restoredState);
+
+        Assertions.assertEquals("changed", restored.getValue());
+        Assertions.assertEquals(2, ((LengthValidator) restored.getValidators()[0]).getMinimum());
+    }
+
+    @Test
+    public void testSerializableFallback() throws Exception
+    {
+        Serializable value = new java.util.Date(1000L);
+
+        CompactSerialFactory serialFactory = new CompactSerialFactory();
+        Assertions.assertEquals(value, serialFactory.toObject(serialFactory.toByteArray(value)));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.compiler;
+
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import jakarta.faces.component.UIViewRoot;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.renderkit.html.HtmlResponseWriterImpl;
+import org.apache.myfaces.view.facelets.AbstractFaceletTestCase;
+import org.apache.myfaces.view.facelets.MockFaceletViewDeclarationLanguage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CompiledFaceletCacheTestCase extends AbstractFaceletTestCase
+{
+    @TempDir
+    Path cacheDirectory;
+
+    @Override
+    protected void setUpServletObjects() throws Exception
+    {
+        super.setUpServletObjects();
+        servletContext.addInitParameter(MyfacesConfig.FACELETS_COMPILED_CACHE_DIRECTORY,
+                cacheDirectory.toString());
+    }
+
+    @Test
+    public void testCompiledFaceletIsStoredAndReplayed() throws Exception
+    {
+        String parsed = render(vdl);
+
+        List<Path> files = listCacheFiles();
+        Assertions.assertEquals(1, files.size());
+        long modified = Files.getLastModifiedTime(files.get(0)).toMillis();
+
+        // a new view declaration language has no compiled Facelets in memory, so it reads the cache
+        String replayed = render(new MockFaceletViewDeclarationLanguage(facesContext));
+
+        Assertions.assertEquals(parsed, replayed);
+        Assertions.assertTrue(replayed.contains("<p class=\"static\">Hello"));
+        Assertions.assertTrue(replayed.contains("<span id=\"out\">text</span>"));
+        Assertions.assertEquals(files, listCacheFiles());
+        Assertions.assertEquals(modified, Files.getLastModifiedTime(files.get(0)).toMillis());
+    }
+
+    @Test
+    public void testInvalidCompiledFaceletIsParsedAgain() throws Exception
+    {
+        String parsed = render(vdl);
+
+        Path file = listCacheFiles().get(0);
+        byte[] data = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(data, data.length / 2));
+
+        String replayed = render(new MockFaceletViewDeclarationLanguage(facesContext));
+
+        Assertions.assertEquals(parsed, replayed);
+        Assertions.assertArrayEquals(data, Files.readAllBytes(file));
+    }
+
+    private String render(MockFaceletViewDeclarationLanguage vdl) throws Exception
+    {
+        StringWriter writer = new StringWriter();
+        facesContext.setResponseWriter(new HtmlResponseWriterImpl(writer, "text/html", "UTF-8"));
+
+        UIViewRoot root = new UIViewRoot();
+        root.setRenderKitId("HTML_BASIC");
+        facesContext.setViewRoot(root);
+        vdl.buildView(facesContext, root, "/testCompiledFaceletCache.xhtml");
+        root.encodeAll(facesContext);
+        return writer.toString();
+    }
+
+    private List<Path> listCacheFiles() throws Exception
+    {
+        try (Stream<Path> stream = Files.list(cacheDirectory))
+        {
+            return stream.collect(Collectors.toList());
+        }
+    }
+}
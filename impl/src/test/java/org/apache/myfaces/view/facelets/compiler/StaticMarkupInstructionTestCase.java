@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.compiler;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import jakarta.faces.context.ResponseWriter;
+
+import org.apache.myfaces.renderkit.html.HtmlResponseWriterImpl;
+import org.apache.myfaces.view.facelets.AbstractFaceletTestCase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class StaticMarkupInstructionTestCase extends AbstractFaceletTestCase
+{
+    private Instruction[] createInstructions()
+    {
+        return new Instruction[] {
+            new StartElementInstruction("div"),
+            new LiteralAttributeInstruction("class", "a \"quoted\" é"),
+            new StartElementInstruction("br"),
+            new EndElementInstruction("br"),
+            new LiteralTextInstruction("x < y € 中"),
+            new LiteralNonExcapedTextInstruction("<b>é</b>"),
+            new EndElementInstruction("div"),
+            new LiteralTextInstruction(" "),
+            new StartElementInstruction("span"),
+            new LiteralAttributeInstruction("id", "tail")
+        };
+    }
+
+    @Test
+    public void testMergeGroupsUpToLastEndElement()
+    {
+        Instruction[] merged = StaticMarkupInstruction.merge(createInstructions());
+
+        Assertions.assertEquals(3, merged.length);
+        Assertions.assertTrue(merged[0] instanceof StaticMarkupInstruction);
+        Assertions.assertTrue(merged[1] instanceof StartElementInstruction);
+        Assertions.assertTrue(merged[2] instanceof LiteralAttributeInstruction);
+    }
+
+    @Test
+    public void testMergeSkipsScriptAndStyle()
+    {
+        Instruction[] instructions = new Instruction[] {
+            new StartElementInstruction("script"),
+            new LiteralTextInstruction("var a = 1;"),
+            new EndElementInstruction("script"),
+            new StartElementInstruction("style"),
+            new LiteralTextInstruction("p {}"),
+            new EndElementInstruction("style")
+        };
+
+        Assertions.assertSame(instructions, StaticMarkupInstruction.merge(instructions));
+    }
+
+    @Test
+    public void testMergeStopsAtNonLiteralInstruction()
+    {
+        Instruction[] instructions = new Instruction[] {
+            new StartElementInstruction("p"),
+            new EndElementInstruction("p"),
+            new StartElementInstruction("a"),
+            new AttributeInstruction("alias", "href", null),
+            new EndElementInstruction("a")
+        };
+
+        Instruction[] merged = StaticMarkupInstruction.merge(instructions);
+
+        Assertions.assertEquals(4, merged.length);
+        Assertions.assertTrue(merged[0] instanceof StaticMarkupInstruction);
+    }
+
+    @Test
+    public void testSameOutputAsInstructions() throws Exception
+    {
+        String[][] variants = new String[][] {
+            {"text/html", "UTF-8"},
+            {"text/html", "ISO-8859-1"},
+            {"application/xhtml+xml", "UTF-8"},
+            {"application/xml", "ISO-8859-1"}
+        };
+        for (String[] variant : variants)
+        {
+            String expected = render(createInstructions(), variant[0], variant[1], false);
+            Instruction[] merged = StaticMarkupInstruction.merge(createInstructions());
+
+            // the first write pre-renders the markup, the second one reuses it
+            Assertions.assertEquals(expected, render(merged, variant[0], variant[1], false));
+            Assertions.assertEquals(expected, render(merged, variant[0], variant[1], false));
+
+            // a start tag left open by a component is closed before the markup
+            Assertions.assertEquals(render(createInstructions(), variant[0], variant[1], true),
+                    render(merged, variant[0], variant[1], true));
+        }
+    }
+
+    @Test
+    public void testInstructionsReplayedInsideScript() throws Exception
+    {
+        Instruction[] merged = StaticMarkupInstruction.merge(createInstructions());
+
+        StringWriter expected = new StringWriter();
+        ResponseWriter writer = startScript(expected);
+        write(createInstructions(), writer);
+        writer.endElement("script");
+
+        StringWriter actual = new StringWriter();
+        writer = startScript(actual);
+        write(merged, writer);
+        writer.endElement("script");
+
+        Assertions.assertEquals(expected.toString(), actual.toString());
+    }
+
+    @Test
+    public void testInstructionsReplayedWithOtherWriters() throws Exception
+    {
+        Instruction[] merged = StaticMarkupInstruction.merge(createInstructions());
+
+        ResponseWriter rw = facesContext.getResponseWriter();
+        StringWriter expected = new StringWriter();
+        write(createInstructions(), rw.cloneWithWriter(expected));
+
+        StringWriter actual = new StringWriter();
+        write(merged, rw.cloneWithWriter(actual));
+
+        Assertions.assertEquals(expected.toString(), actual.toString());
+    }
+
+    private String render(Instruction[] instructions, String contentType, String encoding,
+            boolean openStartTag) throws IOException
+    {
+        StringWriter out = new StringWriter();
+        ResponseWriter writer = new HtmlResponseWriterImpl(out, contentType, encoding);
+        if (openStartTag)
+        {
+            writer.startElement("p", null);
+        }
+        write(instructions, writer);
+        writer.endElement("span");
+        return out.toString();
+    }
+
+    private ResponseWriter startScript(StringWriter out) throws IOException
+    {
+        ResponseWriter writer = new HtmlResponseWriterImpl(out, "text/html", "UTF-8");
+        writer.startElement("script", null);
+        return writer;
+    }
+
+    private void write(Instruction[] instructions, ResponseWriter writer) throws IOException
+    {
+        facesContext.setResponseWriter(writer);
+        for (Instruction instruction : instructions)
+        {
+            instruction.write(facesContext);
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.faces.view.facelets.FaceletCache;
+
+import org.apache.myfaces.test.mock.MockExternalContext;
+import org.apache.myfaces.test.mock.MockFacesContext;
+import org.apache.myfaces.test.mock.MockHttpServletRequest;
+import org.apache.myfaces.test.mock.MockHttpServletResponse;
+import org.apache.myfaces.test.mock.MockServletContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class FaceletCacheImplTest
+{
+    private final AtomicInteger created = new AtomicInteger();
+
+    private FaceletCacheImpl createCache(long refreshPeriod, CountDownLatch latch)
+    {
+        DefaultFaceletFactory factory = Mockito.mock(DefaultFaceletFactory.class);
+        Mockito.when(factory.getRefreshPeriod()).thenReturn(refreshPeriod);
+        FaceletCache.MemberFactory<DefaultFacelet> memberFactory = url ->
+        {
+            created.incrementAndGet();
+            if (latch != null)
+            {
+                try
+                {
+                    latch.await(5, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new DefaultFacelet(factory, null, url, url.getPath(), "id", null, false, null);
+        };
+        FaceletCacheImpl cache = new FaceletCacheImpl(refreshPeriod);
+        cache.setCacheFactories(memberFactory, memberFactory);
+        return cache;
+    }
+
+    @Test
+    public void testCompiledOnce() throws Exception
+    {
+        CountDownLatch latch = new CountDownLatch(1);
+        FaceletCacheImpl cache = createCache(-1, latch);
+        URL url = new URL("file:/test.xhtml");
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try
+        {
+            List<Future<DefaultFacelet>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++)
+            {
+                results.add(executor.submit(() -> cache.getFacelet(url)));
+            }
+            Thread.sleep(100);
+            latch.countDown();
+
+            DefaultFacelet first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<DefaultFacelet> result : results)
+            {
+                Assertions.assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        Assertions.assertEquals(1, created.get());
+        Assertions.assertTrue(cache.isFaceletCached(url));
+        Assertions.assertFalse(cache.isViewMetadataFaceletCached(url));
+
+        // The view metadata Facelet is a different entry
+        Assertions.assertNotSame(cache.getFacelet(url), cache.getViewMetadataFacelet(url));
+        Assertions.assertEquals(2, created.get());
+    }
+
+    @Test
+    public void testNoCache() throws Exception
+    {
+        FaceletCacheImpl cache = createCache(0, null);
+        URL url = new URL("file:/test.xhtml");
+        Assertions.assertNotSame(cache.getFacelet(url), cache.getFacelet(url));
+        Assertions.assertFalse(cache.isFaceletCached(url));
+    }
+
+    @Test
+    public void testCompilationErrorIsNotCached() throws Exception
+    {
+        FaceletCacheImpl cache = new FaceletCacheImpl(-1);
+        FaceletCache.MemberFactory<DefaultFacelet> memberFactory = url ->
+        {
+            created.incrementAndGet();
+            throw new IOException("broken");
+        };
+        cache.setCacheFactories(memberFactory, memberFactory);
+        URL url = new URL("file:/broken.xhtml");
+
+        Assertions.assertThrows(IOException.class, () -> cache.getFacelet(url));
+        Assertions.assertThrows(IOException.class, () -> cache.getFacelet(url));
+        Assertions.assertEquals(2, created.get());
+        Assertions.assertFalse(cache.isFaceletCached(url));
+    }
+
+    @Test
+    public void testCheckForUpdates() throws Exception
+    {
+        File file = File.createTempFile("faceletCache", ".xhtml");
+        try
+        {
+            Files.writeString(file.toPath(), "<html/>");
+            file.setLastModified(System.currentTimeMillis() - 10000);
+            URL url = file.toURI().toURL();
+
+            FaceletCacheImpl cache = createCache(1, null);
+            DefaultFacelet facelet = cache.getFacelet(url);
+
+            // Not modified, the entry is kept
+            Thread.sleep(1100);
+            cache.checkForUpdates();
+            Assertions.assertSame(facelet, cache.getFacelet(url));
+
+            file.setLastModified(System.currentTimeMillis() + 10000);
+            cache.checkForUpdates();
+            Assertions.assertFalse(cache.isFaceletCached(url));
+            Assertions.assertNotSame(facelet, cache.getFacelet(url));
+            Assertions.assertEquals(2, created.get());
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testRefreshExecutorShutdownOnRelease() throws Exception
+    {
+        MockExternalContext externalContext = new MockExternalContext(new MockServletContext(),
+                new MockHttpServletRequest(), new MockHttpServletResponse());
+        MockFacesContext facesContext = new MockFacesContext(externalContext);
+        try
+        {
+            FaceletCacheImpl cache = createCache(60000, null);
+            cache.getFacelet(new URL("file:/test.xhtml"));
+
+            ScheduledExecutorService executor = cache.getRefreshExecutor();
+            Assertions.assertNotNull(executor);
+            Assertions.assertFalse(executor.isShutdown());
+
+            FaceletCacheFactoryImpl.release(externalContext);
+            Assertions.assertTrue(executor.isShutdown());
+            Assertions.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            facesContext.release();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.pool;
+
+import java.util.Locale;
+import jakarta.el.ExpressionFactory;
+import jakarta.faces.application.ProjectStage;
+import jakarta.faces.application.StateManager;
+import jakarta.faces.component.UIViewRoot;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.test.core.AbstractMyFacesCDIRequestTestCase;
+import org.apache.myfaces.view.facelets.ViewPoolProcessor;
+import org.apache.myfaces.view.facelets.pool.impl.ViewPoolImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ViewPoolWarmupMyFacesRequestTestCase extends AbstractMyFacesCDIRequestTestCase
+{
+    @Override
+    protected ExpressionFactory createExpressionFactory()
+    {
+        return new org.apache.el.ExpressionFactoryImpl();
+    }
+
+    @Override
+    protected void setUpWebConfigParams() throws Exception
+    {
+        super.setUpWebConfigParams();
+        servletContext.addInitParameter("org.apache.myfaces.annotation.SCAN_PACKAGES","org.apache.myfaces.view.facelets.pool");
+        servletContext.addInitParameter(StateManager.STATE_SAVING_METHOD_PARAM_NAME, StateManager.StateSavingMethod.CLIENT.name());
+        servletContext.addInitParameter(StateManager.PARTIAL_STATE_SAVING_PARAM_NAME, "true");
+        servletContext.addInitParameter(MyfacesConfig.REFRESH_TRANSIENT_BUILD_ON_PSS, "auto");
+        servletContext.addInitParameter(ViewPool.INIT_PARAM_VIEW_POOL_MAX_POOL_SIZE, "20");
+        servletContext.addInitParameter(ViewPool.INIT_PARAM_VIEW_POOL_WARMUP_VIEW_IDS,
+                "/staticPage.xhtml, /staticPageNoForm2.xhtml");
+        servletContext.addInitParameter(ViewPool.INIT_PARAM_VIEW_POOL_WARMUP_COUNT, "3");
+        servletContext.addInitParameter("org.apache.myfaces.CACHE_EL_EXPRESSIONS", "alwaysRecompile");
+        servletContext.addInitParameter("jakarta.faces.CONFIG_FILES", "/view-pool-faces-config.xml");
+        servletContext.addInitParameter(ProjectStage.PROJECT_STAGE_PARAM_NAME, "Production");
+    }
+
+    /**
+     * The views listed in VIEW_POOL_WARMUP_VIEW_IDS are built and stored into the pool once
+     * the first request has been rendered, without changing the view of that request.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void testWarmup() throws Exception
+    {
+        startViewRequest("/staticPageNoForm.xhtml");
+        processLifecycleExecute();
+        Locale locale = facesContext.getViewRoot().getLocale();
+        renderResponse();
+        
+        Assertions.assertEquals("/staticPageNoForm.xhtml", facesContext.getViewRoot().getViewId());
+        
+        UIViewRoot root = new UIViewRoot();
+        root.setLocale(locale);
+        root.setRenderKitId("HTML_BASIC");
+        root.setViewId("/staticPage.xhtml");
+        
+        ViewPoolProcessor processor = ViewPoolProcessor.getInstance(facesContext);
+        ViewPoolImpl viewPool = (ViewPoolImpl) processor.getViewPool(facesContext, root);
+        Assertions.assertNotNull(viewPool.retrieveStaticViewStructureMetadata(facesContext, root));
+        long misses = viewPool.getMisses();
+        for (int i = 0; i < 3; i++)
+        {
+            ViewEntry entry = viewPool.popStaticOrPartialStructureView(facesContext, root);
+            Assertions.assertNotNull(entry);
+            Assertions.assertEquals(RestoreViewFromPoolResult.COMPLETE, entry.getResult());
+            Assertions.assertTrue(entry.getViewRoot().getChildCount() > 0);
+        }
+        Assertions.assertNull(viewPool.popStaticOrPartialStructureView(facesContext, root));
+        Assertions.assertEquals(3, viewPool.getHits());
+        Assertions.assertEquals(misses + 1, viewPool.getMisses());
+        
+        root.setViewId("/staticPageNoForm2.xhtml");
+        Assertions.assertNotNull(viewPool.popStaticOrPartialStructureView(facesContext, root));
+        endRequest();
+        
+        // The warm up is done only once
+        startViewRequest("/staticPageNoForm.xhtml");
+        processLifecycleExecute();
+        renderResponse();
+        root.setViewId("/staticPage.xhtml");
+        Assertions.assertNull(viewPool.popStaticOrPartialStructureView(facesContext, root));
+        endRequest();
+    }
+
+    /**
+     * Views taken from the warmed up pool are used to build the view of the next request.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void testWarmupViewIsUsed() throws Exception
+    {
+        startViewRequest("/staticPageNoForm.xhtml");
+        processLifecycleExecute();
+        renderResponse();
+        endRequest();
+        
+        startViewRequest("/staticPage.xhtml");
+        processLifecycleExecute();
+        executeBeforeRender();
+        executeBuildViewCycle();
+        
+        Assertions.assertTrue(facesContext.getViewRoot().getChildCount() > 0);
+        ViewPoolImpl viewPool = (ViewPoolImpl) ViewPoolProcessor.getInstance(facesContext)
+                .getViewPool(facesContext, facesContext.getViewRoot());
+        Assertions.assertEquals(1, viewPool.getHits());
+        endRequest();
+    }
+}
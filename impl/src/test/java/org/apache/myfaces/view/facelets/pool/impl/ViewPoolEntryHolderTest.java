@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.pool.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import jakarta.faces.component.UIViewRoot;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ViewPoolEntryHolderTest
+{
+    @Test
+    public void testMaxCount()
+    {
+        ViewPoolEntryHolder holder = new ViewPoolEntryHolder(2);
+        Assertions.assertTrue(holder.add(new StrongViewEntry(new UIViewRoot())));
+        Assertions.assertTrue(holder.add(new StrongViewEntry(new UIViewRoot())));
+        Assertions.assertFalse(holder.add(new StrongViewEntry(new UIViewRoot())));
+        Assertions.assertTrue(holder.isFull());
+
+        Assertions.assertNotNull(holder.poll());
+        Assertions.assertNotNull(holder.poll());
+        Assertions.assertNull(holder.poll());
+        Assertions.assertNull(holder.poll());
+        // polling an empty holder does not change the count
+        Assertions.assertEquals(0, holder.getCount());
+        Assertions.assertTrue(holder.add(new StrongViewEntry(new UIViewRoot())));
+        Assertions.assertTrue(holder.add(new StrongViewEntry(new UIViewRoot())));
+        Assertions.assertFalse(holder.add(new StrongViewEntry(new UIViewRoot())));
+    }
+
+    @Test
+    public void testMaxTotalCount()
+    {
+        AtomicInteger total = new AtomicInteger();
+        ViewPoolEntryHolder holder1 = new ViewPoolEntryHolder(5, total, 3, false);
+        ViewPoolEntryHolder holder2 = new ViewPoolEntryHolder(5, total, 3, false);
+        Assertions.assertTrue(holder1.add(new StrongViewEntry(new UIViewRoot())));
+        Assertions.assertTrue(holder1.add(new StrongViewEntry(new UIViewRoot())));
+        Assertions.assertTrue(holder2.add(new StrongViewEntry(new UIViewRoot())));
+        Assertions.assertFalse(holder2.add(new StrongViewEntry(new UIViewRoot())));
+        Assertions.assertEquals(3, total.get());
+
+        holder1.poll();
+        Assertions.assertEquals(2, total.get());
+        Assertions.assertTrue(holder2.add(new StrongViewEntry(new UIViewRoot())));
+        Assertions.assertEquals(2, holder2.getCount());
+    }
+
+    @Test
+    public void testAdaptiveShrinkAndGrow()
+    {
+        AtomicInteger total = new AtomicInteger();
+        ViewPoolEntryHolder holder = new ViewPoolEntryHolder(8, total, -1, true);
+        for (int i = 0; i < 8; i++)
+        {
+            holder.add(new StrongViewEntry(new UIViewRoot()));
+        }
+        Assertions.assertEquals(8, holder.getLimit());
+
+        // Only one view is used at the same time, so 7 of them are idle
+        for (int i = 0; i < 2 * ViewPoolEntryHolder.ADAPT_WINDOW; i++)
+        {
+            holder.add(holder.poll());
+        }
+        Assertions.assertTrue(holder.getLimit() < 8);
+        Assertions.assertEquals(holder.getLimit(), holder.getCount());
+        Assertions.assertEquals(holder.getCount(), total.get());
+
+        // Empty the pool and keep asking for views, the limit grows again
+        while (holder.poll() != null)
+        {
+            // drain
+        }
+        for (int i = 0; i < ViewPoolEntryHolder.ADAPT_WINDOW; i++)
+        {
+            holder.poll();
+        }
+        Assertions.assertEquals(8, holder.getLimit());
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.streaming;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jakarta.faces.application.StateManager;
+import jakarta.faces.component.UIComponent;
+import jakarta.faces.component.UIInput;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.test.core.AbstractMyFacesCDIRequestTestCase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class StreamingRenderTest extends AbstractMyFacesCDIRequestTestCase
+{
+    private static final Pattern VIEW_STATE = Pattern.compile(
+            "name=\"jakarta.faces.ViewState\"[^>]*value=\"([^\"]+)\"");
+
+    @Override
+    protected void setUpWebConfigParams() throws Exception
+    {
+        super.setUpWebConfigParams();
+        servletContext.addInitParameter(StateManager.STATE_SAVING_METHOD_PARAM_NAME,
+                StateManager.StateSavingMethod.CLIENT.name());
+        servletContext.addInitParameter(StateManager.PARTIAL_STATE_SAVING_PARAM_NAME, "true");
+        servletContext.addInitParameter(MyfacesConfig.STREAMING_RENDER, "true");
+    }
+
+    /**
+     * With client side state saving the state is written into every form while rendering,
+     * so no state marker is left in the response and a postback restores the view.
+     */
+    @Test
+    public void testClientSideStateIsWrittenWhileRendering() throws Exception
+    {
+        startViewRequest("/streaming.xhtml");
+        processLifecycleExecuteAndRender();
+
+        String text = getRenderedContent(facesContext);
+        Assertions.assertFalse(text.contains("JSF_FORM_STATE_MARKER"));
+        Assertions.assertTrue(text.contains("between the forms"));
+
+        List<String> states = new ArrayList<>();
+        Matcher matcher = VIEW_STATE.matcher(text);
+        while (matcher.find())
+        {
+            states.add(matcher.group(1));
+        }
+        Assertions.assertEquals(2, states.size());
+        Assertions.assertEquals(states.get(0), states.get(1));
+
+        client.inputText("form2:input", "two");
+        UIComponent button = facesContext.getViewRoot().findComponent("form2:smt");
+        client.submit(button);
+        processLifecycleExecute();
+
+        UIInput input = (UIInput) facesContext.getViewRoot().findComponent("form2:input");
+        Assertions.assertEquals("two", input.getValue());
+
+        renderResponse();
+        Assertions.assertTrue(getRenderedContent(facesContext).contains("value=\"two\""));
+        endRequest();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.tag.faces.html;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import jakarta.faces.application.ResourceHandler;
+import jakarta.faces.component.UIViewRoot;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.resource.BundleResource;
+import org.apache.myfaces.resource.CompressedResourceCache;
+import org.apache.myfaces.test.mock.MockResponseWriter;
+import org.apache.myfaces.view.facelets.AbstractFaceletTestCase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class HtmlHeadResourceBundlingTestCase extends AbstractFaceletTestCase
+{
+    @TempDir
+    File tempDir;
+
+    @Override
+    protected void setUpServletObjects() throws Exception
+    {
+        super.setUpServletObjects();
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_BUNDLING_ENABLED, "true");
+        servletContext.addMimeType("js", "text/javascript");
+        servletContext.addMimeType("css", "text/css");
+    }
+
+    @Test
+    public void testBundledHeadResources() throws Exception
+    {
+        UIViewRoot root = facesContext.getViewRoot();
+        vdl.buildView(facesContext, root, "testBundledHeadResources.xhtml");
+
+        StringWriter sw = new StringWriter();
+        MockResponseWriter mrw = new MockResponseWriter(sw);
+        facesContext.setResponseWriter(mrw);
+
+        root.encodeAll(facesContext);
+        sw.flush();
+
+        String output = sw.toString();
+        Assertions.assertTrue(output.contains(BundleResource.SCRIPT_RESOURCE_NAME), output);
+        Assertions.assertTrue(output.contains(BundleResource.STYLESHEET_RESOURCE_NAME), output);
+        Assertions.assertFalse(output.contains("a.js?"), output);
+        Assertions.assertFalse(output.contains("b.css?"), output);
+    }
+
+    private String render(String viewId) throws Exception
+    {
+        UIViewRoot root = facesContext.getViewRoot();
+        vdl.buildView(facesContext, root, viewId);
+
+        StringWriter sw = new StringWriter();
+        facesContext.setResponseWriter(new MockResponseWriter(sw));
+        root.encodeAll(facesContext);
+        sw.flush();
+        return sw.toString();
+    }
+
+    private static int count(String output, String value)
+    {
+        int count = 0;
+        for (int i = output.indexOf(value); i >= 0; i = output.indexOf(value, i + 1))
+        {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testDuplicateOnlyRun() throws Exception
+    {
+        String output = render("testBundledDuplicateOnlyRun.xhtml");
+        Assertions.assertEquals(1, count(output, "a.js"), output);
+        Assertions.assertTrue(output.contains("var inline;"), output);
+    }
+
+    @Test
+    public void testDuplicateFirstRun() throws Exception
+    {
+        String output = render("testBundledDuplicateFirstRun.xhtml");
+        Assertions.assertEquals(1, count(output, "a.js"), output);
+        Assertions.assertEquals(1, count(output, "b.js"), output);
+    }
+
+    @Test
+    public void testBundleContent() throws Exception
+    {
+        ResourceHandler resourceHandler = facesContext.getApplication().getResourceHandler();
+        BundleResource bundle = new BundleResource(BundleResource.SCRIPT_RESOURCE_NAME, Arrays.asList(
+                resourceHandler.createResource("a.js", "bundle"),
+                resourceHandler.createResource("b.js", "bundle")));
+
+        Assertions.assertTrue(bundle.getRequestPath().contains("m=bundle%3Aa.js%7Cbundle%3Ab.js"),
+                bundle.getRequestPath());
+        try (InputStream in = bundle.getInputStream())
+        {
+            String content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            int first = content.indexOf("var bundleA");
+            Assertions.assertTrue(first >= 0 && first < content.indexOf("var bundleB"), content);
+        }
+    }
+
+    @Test
+    public void testCompressedBundle() throws Exception
+    {
+        ResourceHandler resourceHandler = facesContext.getApplication().getResourceHandler();
+        BundleResource bundle = new BundleResource(BundleResource.SCRIPT_RESOURCE_NAME, Arrays.asList(
+                resourceHandler.createResource("a.js", "bundle"),
+                resourceHandler.createResource("b.js", "bundle")));
+        CompressedResourceCache cache = new CompressedResourceCache(tempDir, 2048);
+
+        File file = cache.getCompressedFile(bundle);
+        Assertions.assertNotNull(file);
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file));
+             InputStream content = bundle.getInputStream())
+        {
+            Assertions.assertArrayEquals(content.readAllBytes(), in.readAllBytes());
+        }
+        Assertions.assertSame(file, cache.getCompressedFile(bundle));
+    }
+
+    @Test
+    public void testBundleSignature() throws Exception
+    {
+        ResourceHandler resourceHandler = facesContext.getApplication().getResourceHandler();
+        BundleResource bundle = new BundleResource(BundleResource.SCRIPT_RESOURCE_NAME, Arrays.asList(
+                resourceHandler.createResource("a.js", "bundle"),
+                resourceHandler.createResource("b.js", "bundle")));
+
+        String path = bundle.getRequestPath();
+        int start = path.indexOf("&s=") + 3;
+        Assertions.assertTrue(start > 2, path);
+        int end = path.indexOf('&', start);
+        String signature = path.substring(start, end == -1 ? path.length() : end);
+
+        String members = "bundle:a.js|bundle:b.js";
+        Assertions.assertTrue(BundleResource.isSigned(externalContext, BundleResource.SCRIPT_RESOURCE_NAME,
+                members, signature));
+        Assertions.assertFalse(BundleResource.isSigned(externalContext, BundleResource.SCRIPT_RESOURCE_NAME,
+                members + "|bundle:a.js", signature));
+        Assertions.assertFalse(BundleResource.isSigned(externalContext, BundleResource.STYLESHEET_RESOURCE_NAME,
+                members, signature));
+        Assertions.assertFalse(BundleResource.isSigned(externalContext, BundleResource.SCRIPT_RESOURCE_NAME,
+                members, null));
+    }
+}